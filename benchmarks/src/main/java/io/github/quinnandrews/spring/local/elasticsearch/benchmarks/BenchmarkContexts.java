@@ -0,0 +1,35 @@
+package io.github.quinnandrews.spring.local.elasticsearch.benchmarks;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.Application;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the Application Context of the test Application, with the
+ * 'benchmark' profile, for the benchmarks.
+ *
+ * @author Quinn Andrews
+ */
+final class BenchmarkContexts {
+
+    static final String PROFILE = "benchmark";
+
+    private BenchmarkContexts() {
+        // static utility
+    }
+
+    /**
+     * Starts the Application Context with the given properties, in addition
+     * to those of the 'benchmark' profile.
+     *
+     * @param properties  The properties, in the form key=value.
+     * @return ConfigurableApplicationContext
+     */
+    static ConfigurableApplicationContext start(final String... properties) {
+        return new SpringApplicationBuilder(Application.class)
+                .profiles(PROFILE)
+                .properties(properties)
+                .logStartupInfo(false)
+                .run();
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.quinnandrews.spring.local.elasticsearch.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p> Runs the benchmarks with the JMH command line options given (run with
+ * -h to list them), writing the results as JSON to
+ * {@value #DEFAULT_RESULT_FILE} unless another format or file is given, so
+ * that results can be kept and compared over time.
+ *
+ * @author Quinn Andrews
+ */
+public final class BenchmarkRunner {
+
+    public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    private BenchmarkRunner() {
+        // static utility
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final var arguments = new ArrayList<>(List.of(args));
+        if (!arguments.contains("-rf")) {
+            arguments.addAll(List.of("-rf", "json"));
+        }
+        if (!arguments.contains("-rff")) {
+            arguments.addAll(List.of("-rff", DEFAULT_RESULT_FILE));
+        }
+        Main.main(arguments.toArray(String[]::new));
+    }
+}
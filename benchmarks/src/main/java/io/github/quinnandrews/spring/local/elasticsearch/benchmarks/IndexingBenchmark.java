@@ -0,0 +1,103 @@
+package io.github.quinnandrews.spring.local.elasticsearch.benchmarks;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalDocumentRepository;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+/**
+ * <p> Measures the throughput of indexing documents through
+ * {@code GuitarPedalDocumentRepository.saveAll}, in batches of various
+ * sizes. Besides the number of batches per second, the 'documents' counter
+ * reports the number of documents indexed per second.
+ *
+ * <p> Each batch has new ids, so that documents are added rather than
+ * updated. Since {@code saveAll} refreshes the index after each batch, as
+ * Spring Data does by default, the cost of refreshing is part of each
+ * batch, which is what smaller batches are expected to pay for.
+ *
+ * @author Quinn Andrews
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IndexingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int batchSize;
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private GuitarPedalDocumentRepository repository;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContexts.start();
+        repository = context.getBean(GuitarPedalDocumentRepository.class);
+        repository.deleteAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public Iterable<GuitarPedalDocument> saveAll(final Batch batch, final Documents documents) {
+        final var saved = repository.saveAll(batch.documents);
+        documents.documents += batch.documents.size();
+        return saved;
+    }
+
+    @State(Scope.Thread)
+    public static class Batch {
+
+        private List<GuitarPedalDocument> documents;
+
+        /*
+         Per invocation, so that every batch has new ids. Each invocation
+         takes milliseconds, which dwarfs the overhead JMH warns of.
+         */
+        @Setup(Level.Invocation)
+        public void nextBatch(final IndexingBenchmark benchmark) {
+            final var first = benchmark.ids.getAndAdd(benchmark.batchSize);
+            documents = LongStream.range(first, first + benchmark.batchSize)
+                    .mapToObj(id -> new GuitarPedalDocument(id, "Guitar Pedal " + id))
+                    .toList();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Documents {
+
+        public long documents;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            documents = 0;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.quinnandrews.spring.local.elasticsearch.benchmarks;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalDocumentRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * <p> Measures the latency of {@code findById} and {@code findAll(Sort)}
+ * through {@code GuitarPedalDocumentRepository}, against an index seeded
+ * with a given number of documents. Latencies are sampled, so the results
+ * include their percentiles (p50, p90, p99, p99.9 and so on).
+ *
+ * @author Quinn Andrews
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryBenchmark {
+
+    @Param({"1000"})
+    public int documents;
+
+    private ConfigurableApplicationContext context;
+    private GuitarPedalDocumentRepository repository;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = BenchmarkContexts.start();
+        repository = context.getBean(GuitarPedalDocumentRepository.class);
+        repository.deleteAll();
+        repository.saveAll(LongStream.range(0, documents)
+                .mapToObj(id -> new GuitarPedalDocument(id, "Guitar Pedal " + id))
+                .toList());
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<GuitarPedalDocument> findById() {
+        return repository.findById(ThreadLocalRandom.current().nextLong(documents));
+    }
+
+    @Benchmark
+    public Iterable<GuitarPedalDocument> findAllSorted() {
+        return repository.findAll(Sort.by("name"));
+    }
+}
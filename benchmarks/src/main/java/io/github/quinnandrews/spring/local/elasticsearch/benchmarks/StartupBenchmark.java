@@ -0,0 +1,61 @@
+package io.github.quinnandrews.spring.local.elasticsearch.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p> Measures how long it takes to start the Application Context of an
+ * Application annotated with {@code @EnableLocalElasticsearch}, up to the
+ * point where its Repositories are ready, with a new Container each time
+ * ('cold'), or with a Container reused from the previous start ('reused').
+ *
+ * <p> Each iteration is a single start, since the Container is what is
+ * measured, rather than code the JIT compiler would warm up. The warmup
+ * iteration pulls the Docker Image, if need be, and for 'reused' starts
+ * the Container to be reused. Reuse must be enabled in
+ * ~/.testcontainers.properties (testcontainers.reuse.enable=true), or
+ * 'reused' measures cold starts as well. The reused Container is left
+ * running once the benchmark completes.
+ *
+ * @author Quinn Andrews
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    @Param({"cold", "reused"})
+    public String container;
+
+    private ConfigurableApplicationContext context;
+
+    @Benchmark
+    public ConfigurableApplicationContext startContext() {
+        context = BenchmarkContexts.start(
+                "spring.local.elasticsearch.container.reuse=" + container.equals("reused"));
+        return context;
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeContext() {
+        Optional.ofNullable(context).ifPresent(ConfigurableApplicationContext::close);
+        context = null;
+    }
+}
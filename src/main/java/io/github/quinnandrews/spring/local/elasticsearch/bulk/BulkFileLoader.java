@@ -0,0 +1,376 @@
+package io.github.quinnandrews.spring.local.elasticsearch.bulk;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p> Loads files in the format of the Bulk API (newline delimited JSON, an
+ * action line followed by a source line, except for deletes) into
+ * Elasticsearch.
+ *
+ * <p> Each file is read a line at a time, and sent to the Bulk API in
+ * chunks bounded by the number of actions and by bytes, so that no more
+ * than one chunk of a file is held in memory, however large the file is.
+ * Every action must name its index with {@code _index}. The first time an
+ * index is named, its refresh interval is set to -1 and its replicas to 0
+ * (creating it, if it does not exist yet), and both are restored once every
+ * file is loaded, after which the index is refreshed.
+ *
+ * <p> Chunks are sent one at a time, in order, unless the loader is
+ * constructed with a concurrency greater than one, in which case several
+ * are sent at once, and reading waits while every one of them is in
+ * flight. Actions in different chunks may then be applied in any order, so
+ * files that change the same document more than once should be loaded one
+ * chunk at a time.
+ *
+ * @author Quinn Andrews
+ */
+public class BulkFileLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkFileLoader.class);
+
+    private static final ContentType NDJSON = ContentType.create("application/x-ndjson", StandardCharsets.UTF_8);
+    private static final String REFRESH_INTERVAL = "index.refresh_interval";
+    private static final String NUMBER_OF_REPLICAS = "index.number_of_replicas";
+
+    private final RestClient restClient;
+    private final int maxActions;
+    private final long maxBytes;
+    private final int concurrency;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Constructs an instance with the given limits.
+     *
+     * @param restClient  The RestClient of the Elasticsearch to load the files into.
+     * @param maxActions  The maximum number of actions in a bulk request.
+     * @param maxBytes    The maximum number of bytes in a bulk request.
+     */
+    public BulkFileLoader(final RestClient restClient, final int maxActions, final long maxBytes) {
+        this(restClient, maxActions, maxBytes, 1);
+    }
+
+    /**
+     * Constructs an instance with the given limits, that sends several
+     * chunks concurrently.
+     *
+     * @param restClient   The RestClient of the Elasticsearch to load the files into.
+     * @param maxActions   The maximum number of actions in a bulk request.
+     * @param maxBytes     The maximum number of bytes in a bulk request.
+     * @param concurrency  The number of bulk requests to send concurrently.
+     */
+    public BulkFileLoader(final RestClient restClient, final int maxActions, final long maxBytes, final int concurrency) {
+        if (maxActions < 1 || maxBytes < 1 || concurrency < 1) {
+            throw new IllegalArgumentException("The limits of a BulkFileLoader must be positive.");
+        }
+        this.restClient = restClient;
+        this.maxActions = maxActions;
+        this.maxBytes = maxBytes;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Loads the given files, in order. Returns once every action is applied,
+     * the settings of the indices are restored and the indices refreshed.
+     *
+     * @param resources  The files to load.
+     * @return BulkIndexResult
+     */
+    public BulkIndexResult load(final List<Resource> resources) {
+        final var startedAt = System.nanoTime();
+        final var indices = new LinkedHashMap<String, Map<String, String>>();
+        final var chunk = new Chunk(concurrency);
+        long actions = 0;
+        try {
+            for (final var resource : resources) {
+                actions += load(resource, chunk, indices);
+            }
+            chunk.await();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to load bulk files into Elasticsearch.", e);
+        } finally {
+            chunk.close();
+            restore(indices);
+        }
+        final var result = new BulkIndexResult(actions, chunk.requests.get(), chunk.sentBytes.get(),
+                System.nanoTime() - startedAt);
+        logger.info("Loaded {} actions from {} bulk files into {} in {} bulk requests, in {} ms ({} actions/sec).",
+                result.getDocuments(), resources.size(), indices.keySet(), result.getRequests(),
+                result.getElapsed().toMillis(), Math.round(result.getDocumentsPerSecond()));
+        return result;
+    }
+
+    private long load(final Resource resource,
+                      final Chunk chunk,
+                      final Map<String, Map<String, String>> indices) throws IOException {
+        logger.debug("Loading bulk file {}.", resource.getDescription());
+        long actions = 0;
+        try (final var reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String action;
+            while ((action = reader.readLine()) != null) {
+                if (action.isBlank()) {
+                    continue;
+                }
+                final var operation = operationOf(action, resource);
+                final var index = Optional.ofNullable(operation.getValue().get("_index"))
+                        .map(JsonNode::asText)
+                        .orElseThrow(() -> new IllegalStateException(MessageFormat.format(
+                                "Every action in bulk file {0} must name its index with _index.",
+                                resource.getDescription())));
+                if (!indices.containsKey(index)) {
+                    indices.putAll(prepare(index));
+                    indices.putIfAbsent(index, Map.of());
+                }
+                String source = null;
+                if (!operation.getKey().equals("delete")) {
+                    source = reader.readLine();
+                    if (source == null || source.isBlank()) {
+                        throw new IllegalStateException(MessageFormat.format(
+                                "Action {0} in bulk file {1} is not followed by a source line.",
+                                action, resource.getDescription()));
+                    }
+                }
+                final var bytes = lineBytes(action, source);
+                if (chunk.actions > 0 && chunk.body.size() + bytes.length > maxBytes) {
+                    send(chunk);
+                }
+                chunk.add(bytes);
+                actions++;
+                if (chunk.actions >= maxActions) {
+                    send(chunk);
+                }
+            }
+        }
+        if (chunk.actions > 0) {
+            send(chunk);
+        }
+        return actions;
+    }
+
+    private Map.Entry<String, JsonNode> operationOf(final String action, final Resource resource) throws IOException {
+        final var node = objectMapper.readTree(action);
+        if (node == null || !node.isObject() || node.size() != 1) {
+            throw new IllegalStateException(MessageFormat.format(
+                    "Line {0} in bulk file {1} is not an action.", action, resource.getDescription()));
+        }
+        return node.fields().next();
+    }
+
+    private static byte[] lineBytes(final String action, final String source) {
+        final var lines = new StringBuilder(action).append('\n');
+        Optional.ofNullable(source).ifPresent(s -> lines.append(s).append('\n'));
+        return lines.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /*
+     Sends the chunk on this thread, or, if chunks are sent concurrently,
+     hands it to a worker once one is free. A failure of a worker is thrown
+     by the next chunk sent, or once every chunk is.
+     */
+    private void send(final Chunk chunk) throws IOException {
+        final var body = chunk.drain();
+        if (chunk.executor == null) {
+            send(body);
+            chunk.sent(body.length);
+            return;
+        }
+        chunk.permits.acquireUninterruptibly();
+        chunk.throwFailure();
+        chunk.executor.execute(() -> {
+            try {
+                send(body);
+                chunk.sent(body.length);
+            } catch (final IOException e) {
+                chunk.failure.compareAndSet(null, new UncheckedIOException(e));
+            } catch (final RuntimeException e) {
+                chunk.failure.compareAndSet(null, e);
+            } finally {
+                chunk.permits.release();
+            }
+        });
+    }
+
+    private void send(final byte[] body) throws IOException {
+        final var request = new Request("POST", "/_bulk");
+        request.setEntity(new ByteArrayEntity(body, NDJSON));
+        final var response = read(restClient.performRequest(request));
+        if (response.path("errors").asBoolean()) {
+            for (final var item : response.path("items")) {
+                final var error = item.elements().next().get("error");
+                if (error != null) {
+                    throw new IllegalStateException(MessageFormat.format(
+                            "Bulk file action failed: {0}", error.toString()));
+                }
+            }
+        }
+    }
+
+    /*
+     Returns the refresh interval and replicas each index behind the given
+     name (an alias can have several) had, before disabling them.
+     */
+    private Map<String, Map<String, String>> prepare(final String index) throws IOException {
+        final var previous = new LinkedHashMap<String, Map<String, String>>();
+        final var loadSettings = objectMapper.createObjectNode();
+        loadSettings.putObject("index")
+                .put("refresh_interval", "-1")
+                .put("number_of_replicas", 0);
+        if (exists(index)) {
+            final var request = new Request("GET", "/" + index + "/_settings/" + REFRESH_INTERVAL + "," + NUMBER_OF_REPLICAS);
+            request.addParameter("flat_settings", "true");
+            final var response = read(restClient.performRequest(request));
+            response.fields().forEachRemaining(e -> {
+                final var settings = new LinkedHashMap<String, String>();
+                settings.put(REFRESH_INTERVAL, textOf(e.getValue().path("settings").get(REFRESH_INTERVAL)));
+                settings.put(NUMBER_OF_REPLICAS, textOf(e.getValue().path("settings").get(NUMBER_OF_REPLICAS)));
+                previous.put(e.getKey(), settings);
+            });
+            putSettings(index, loadSettings);
+        } else {
+            final var request = new Request("PUT", "/" + index);
+            final var body = objectMapper.createObjectNode();
+            body.set("settings", loadSettings);
+            request.setJsonEntity(body.toString());
+            restClient.performRequest(request);
+            final var settings = new LinkedHashMap<String, String>();
+            settings.put(REFRESH_INTERVAL, null);
+            settings.put(NUMBER_OF_REPLICAS, null);
+            previous.put(index, settings);
+        }
+        return previous;
+    }
+
+    private void restore(final Map<String, Map<String, String>> indices) {
+        indices.forEach((index, settings) -> {
+            if (settings.isEmpty()) {
+                return;
+            }
+            try {
+                final var restoredSettings = objectMapper.createObjectNode();
+                settings.forEach(restoredSettings::put);
+                putSettings(index, restoredSettings);
+                restClient.performRequest(new Request("POST", "/" + index + "/_refresh"));
+            } catch (final IOException e) {
+                logger.warn(MessageFormat.format("Failed to restore the settings of index {0}.", index), e);
+            }
+        });
+    }
+
+    private boolean exists(final String index) throws IOException {
+        try {
+            return restClient.performRequest(new Request("HEAD", "/" + index))
+                    .getStatusLine().getStatusCode() == 200;
+        } catch (final ResponseException e) {
+            if (e.getResponse().getStatusLine().getStatusCode() == 404) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private void putSettings(final String index, final ObjectNode settings) throws IOException {
+        final var request = new Request("PUT", "/" + index + "/_settings");
+        request.setJsonEntity(settings.toString());
+        restClient.performRequest(request);
+    }
+
+    private JsonNode read(final Response response) throws IOException {
+        return objectMapper.readTree(response.getEntity().getContent());
+    }
+
+    private static String textOf(final JsonNode node) {
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    private static class Chunk {
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong sentBytes = new AtomicLong();
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        private final int concurrency;
+        private final Semaphore permits;
+        private final ExecutorService executor;
+        private int actions;
+
+        private Chunk(final int concurrency) {
+            this.concurrency = concurrency;
+            this.permits = new Semaphore(concurrency);
+            this.executor = concurrency == 1 ? null : Executors.newFixedThreadPool(concurrency, runnable -> {
+                final var thread = new Thread(runnable, "local-elasticsearch-bulk-file");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        private void add(final byte[] bytes) {
+            body.writeBytes(bytes);
+            actions++;
+        }
+
+        private byte[] drain() {
+            final var bytes = body.toByteArray();
+            body.reset();
+            actions = 0;
+            return bytes;
+        }
+
+        private void sent(final long bytes) {
+            requests.incrementAndGet();
+            sentBytes.addAndGet(bytes);
+        }
+
+        private void throwFailure() {
+            final var e = failure.get();
+            if (e != null) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        /*
+         Waits for every chunk in flight to be sent.
+         */
+        private void await() {
+            permits.acquireUninterruptibly(concurrency);
+            permits.release(concurrency);
+            Optional.ofNullable(failure.get()).ifPresent(e -> {
+                throw e;
+            });
+        }
+
+        private void close() {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.quinnandrews.spring.local.elasticsearch.bulk;
+
+import java.time.Duration;
+
+/**
+ * The outcome of indexing a stream of entities with the {@link BulkIndexer}.
+ *
+ * @author Quinn Andrews
+ */
+public class BulkIndexResult {
+
+    private final long documents;
+    private final long requests;
+    private final long bytes;
+    private final Duration elapsed;
+
+    BulkIndexResult(final long documents, final long requests, final long bytes, final long elapsedNanos) {
+        this.documents = documents;
+        this.requests = requests;
+        this.bytes = bytes;
+        this.elapsed = Duration.ofNanos(elapsedNanos);
+    }
+
+    /**
+     * Returns the number of documents indexed.
+     *
+     * @return long
+     */
+    public long getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Returns the number of bulk requests sent.
+     *
+     * @return long
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Returns the number of bytes of documents sent.
+     *
+     * @return long
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns how long indexing took, from the first entity read to the
+     * last bulk request completed.
+     *
+     * @return Duration
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * Returns the number of documents indexed per second.
+     *
+     * @return double
+     */
+    public double getDocumentsPerSecond() {
+        return elapsed.isZero() ? 0 : documents / (elapsed.toNanos() / 1_000_000_000d);
+    }
+}
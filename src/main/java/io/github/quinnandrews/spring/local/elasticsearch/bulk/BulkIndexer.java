@@ -0,0 +1,235 @@
+package io.github.quinnandrews.spring.local.elasticsearch.bulk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.data.repository.query.QueryByExampleExecutor;
+import org.springframework.data.support.WindowIterator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p> Indexes a stream of entities (from a JPA Repository, for example) into
+ * Elasticsearch as documents, without holding more than a few bulk requests
+ * worth of them in memory.
+ *
+ * <p> Documents are collected into bulk requests, each of which is sent once
+ * it holds the maximum number of documents, or once the next document would
+ * take it over the maximum number of bytes, whichever comes first. Requests
+ * are sent by several workers concurrently. When every worker is busy,
+ * reading the stream waits until one is free, so that the stream is never
+ * read faster than Elasticsearch can index it.
+ *
+ * @author Quinn Andrews
+ */
+public class BulkIndexer {
+
+    public static final int DEFAULT_MAX_ACTIONS = 1000;
+    public static final long DEFAULT_MAX_BYTES = 5 * 1024 * 1024;
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkIndexer.class);
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final int maxActions;
+    private final long maxBytes;
+    private final int concurrency;
+
+    /**
+     * Constructs an instance with the given limits.
+     *
+     * @param elasticsearchOperations  The ElasticsearchOperations to map and index documents with.
+     * @param maxActions               The maximum number of documents in a bulk request.
+     * @param maxBytes                 The maximum number of bytes of documents in a bulk request.
+     * @param concurrency              The number of bulk requests to send concurrently.
+     */
+    public BulkIndexer(final ElasticsearchOperations elasticsearchOperations,
+                       final int maxActions,
+                       final long maxBytes,
+                       final int concurrency) {
+        if (maxActions < 1 || maxBytes < 1 || concurrency < 1) {
+            throw new IllegalArgumentException("The limits of a BulkIndexer must be positive.");
+        }
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.maxActions = maxActions;
+        this.maxBytes = maxBytes;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Constructs an instance with the default limits.
+     *
+     * @param elasticsearchOperations  The ElasticsearchOperations to map and index documents with.
+     */
+    public BulkIndexer(final ElasticsearchOperations elasticsearchOperations) {
+        this(elasticsearchOperations, DEFAULT_MAX_ACTIONS, DEFAULT_MAX_BYTES, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * Returns a Stream over every entity of the given Repository that
+     * matches the given Example, read a page at a time using keyset
+     * pagination, so that later pages are as fast to read as the first.
+     * Only one page is held in memory at a time.
+     *
+     * @param repository  The Repository to read (a JpaRepository, for example).
+     * @param example     The Example the entities must match (Example.of(new Entity()) for all of them).
+     * @param sort        The order to read the entities in, which must be unique (by id, for example).
+     * @param pageSize    The number of entities to read at a time.
+     * @param <T>         The type of the entities.
+     * @return Stream of entities
+     */
+    public static <T> Stream<T> scroll(final QueryByExampleExecutor<T> repository,
+                                       final Example<T> example,
+                                       final Sort sort,
+                                       final int pageSize) {
+        final var iterator = WindowIterator.<T>of(position ->
+                        repository.findBy(example, query -> query.sortBy(sort).limit(pageSize).scroll(position)))
+                .startingAt(ScrollPosition.keyset());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false);
+    }
+
+    /**
+     * Indexes every entity of the given Stream as a document of the given
+     * type, into the index of that type. Returns once every document has
+     * been indexed. If a bulk request fails, no further requests are sent,
+     * and the failure is thrown once the requests already sent complete.
+     *
+     * @param entities      The entities to index. The Stream is closed when done.
+     * @param mapper        Maps each entity to its document.
+     * @param documentType  The type of the documents.
+     * @param <T>           The type of the entities.
+     * @param <D>           The type of the documents.
+     * @return BulkIndexResult
+     */
+    public <T, D> BulkIndexResult index(final Stream<T> entities,
+                                        final Function<? super T, ? extends D> mapper,
+                                        final Class<D> documentType) {
+        final var converter = elasticsearchOperations.getElasticsearchConverter();
+        final var persistentEntity = converter.getMappingContext().getRequiredPersistentEntity(documentType);
+        final var indexCoordinates = elasticsearchOperations.getIndexCoordinatesFor(documentType);
+        final var executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            final var thread = new Thread(runnable, "local-elasticsearch-bulk");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final var permits = new Semaphore(concurrency);
+        final var failure = new AtomicReference<RuntimeException>();
+        final var documents = new AtomicLong();
+        final var requests = new AtomicLong();
+        final var bytes = new AtomicLong();
+        final var startedAt = System.nanoTime();
+        try (entities) {
+            final var batch = new Batch();
+            final var iterator = entities.iterator();
+            while (iterator.hasNext() && failure.get() == null) {
+                final D document = mapper.apply(iterator.next());
+                final var source = converter.mapObject(document).toJson();
+                final var sourceBytes = source.getBytes(StandardCharsets.UTF_8).length;
+                if (batch.size() > 0 && batch.bytes + sourceBytes > maxBytes) {
+                    send(batch.drain(), executor, permits, failure, indexCoordinates, documents, requests, bytes);
+                }
+                final var id = persistentEntity.getIdentifierAccessor(document).getIdentifier();
+                batch.add(new IndexQueryBuilder()
+                        .withId(elasticsearchOperations.convertId(id))
+                        .withSource(source)
+                        .build(), sourceBytes);
+                if (batch.size() >= maxActions) {
+                    send(batch.drain(), executor, permits, failure, indexCoordinates, documents, requests, bytes);
+                }
+            }
+            if (batch.size() > 0 && failure.get() == null) {
+                send(batch.drain(), executor, permits, failure, indexCoordinates, documents, requests, bytes);
+            }
+            permits.acquireUninterruptibly(concurrency);
+        } finally {
+            shutDown(executor);
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        final var result = new BulkIndexResult(documents.get(), requests.get(), bytes.get(),
+                System.nanoTime() - startedAt);
+        logger.info("Indexed {} documents into {} in {} bulk requests, in {} ms ({} docs/sec).",
+                result.getDocuments(), indexCoordinates.getIndexName(), result.getRequests(),
+                result.getElapsed().toMillis(), Math.round(result.getDocumentsPerSecond()));
+        return result;
+    }
+
+    private void send(final Batch batch,
+                      final ExecutorService executor,
+                      final Semaphore permits,
+                      final AtomicReference<RuntimeException> failure,
+                      final IndexCoordinates indexCoordinates,
+                      final AtomicLong documents,
+                      final AtomicLong requests,
+                      final AtomicLong bytes) {
+        permits.acquireUninterruptibly();
+        executor.execute(() -> {
+            try {
+                elasticsearchOperations.bulkIndex(batch.queries, indexCoordinates);
+                documents.addAndGet(batch.size());
+                requests.incrementAndGet();
+                bytes.addAndGet(batch.bytes);
+            } catch (final RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    private static void shutDown(final ExecutorService executor) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                executor.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class Batch {
+
+        private List<IndexQuery> queries = new ArrayList<>();
+        private long bytes;
+
+        private void add(final IndexQuery query, final long queryBytes) {
+            queries.add(query);
+            bytes += queryBytes;
+        }
+
+        private int size() {
+            return queries.size();
+        }
+
+        private Batch drain() {
+            final var drained = new Batch();
+            drained.queries = queries;
+            drained.bytes = bytes;
+            queries = new ArrayList<>();
+            bytes = 0;
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package io.github.quinnandrews.spring.local.elasticsearch.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentProperty;
+import org.springframework.util.ClassUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.MessageFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * <p> Generates synthetic documents of a {@code @Document} type, for
+ * testing how indexing and queries behave at scale, and writes them as
+ * files in the format of the Bulk API, to be loaded with the
+ * {@link BulkFileLoader}.
+ *
+ * <p> Values are generated from the mapping of each property: ids are
+ * sequential from 1; keywords are drawn from a fixed number of distinct
+ * values (the keyword cardinality), and text from a vocabulary of words,
+ * both with a Zipf distribution, so that a few values are common and most
+ * are rare, as in real data; numbers are log-normal (most near 100, a
+ * few much larger), dates uniform over the five years before 2024, and
+ * enums Zipf distributed over their constants. Properties of other types
+ * (objects, nested objects and collections) are left out.
+ *
+ * <p> Generation is deterministic: each document is generated from a
+ * random number generator seeded with the seed and its position alone, so
+ * that the same seed generates the same documents, however many threads
+ * generate them. The documents are written to files of up to a fixed
+ * number of documents each, in parallel, in a directory named for
+ * everything that shapes them (the index, the number of documents, the
+ * seed, the keyword cardinality and the mapping). If that directory
+ * already exists, the files in it are returned without generating them
+ * again, so that repeated runs only pay for generation once.
+ *
+ * @author Quinn Andrews
+ */
+public class DocumentGenerator {
+
+    public static final long DEFAULT_COUNT = 10_000;
+    public static final long DEFAULT_SEED = 1L;
+    public static final int DEFAULT_KEYWORD_CARDINALITY = 1000;
+    public static final int DEFAULT_DOCUMENTS_PER_FILE = 100_000;
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentGenerator.class);
+
+    /*
+     Bumped whenever what is generated changes, so that cached files of an
+     earlier version are not reused.
+     */
+    private static final int VERSION = 1;
+    private static final Instant DATES_END = Instant.parse("2024-01-01T00:00:00Z");
+    private static final long DATES_SPAN_SECONDS = ChronoUnit.DAYS.getDuration().getSeconds() * 365 * 5;
+    private static final String[] WORDS = {
+            "analog", "amber", "arc", "atlas", "aurora", "bass", "beacon", "big", "black", "blue",
+            "boost", "bright", "buffer", "cabinet", "canyon", "carbon", "chorus", "classic", "clean", "cloud",
+            "comet", "compressor", "copper", "crystal", "dark", "deco", "deep", "delay", "deluxe", "digital",
+            "distortion", "double", "drive", "dual", "echo", "edge", "electric", "ember", "envelope", "falcon",
+            "filter", "flanger", "focus", "fuzz", "gain", "glass", "gold", "gravity", "green", "harmonic",
+            "haze", "heavy", "hollow", "horizon", "iron", "jet", "lunar", "machine", "magnetic", "mini",
+            "mirror", "modulation", "mono", "muff", "neon", "noise", "north", "octave", "orbit", "overdrive",
+            "phase", "phaser", "pitch", "plate", "prism", "pulse", "quartz", "radiant", "red", "reverb",
+            "river", "saturation", "shimmer", "signal", "silver", "soft", "solar", "sonic", "spring", "stereo",
+            "storm", "studio", "sustain", "tape", "thunder", "timeline", "tone", "tremolo", "tube", "twin",
+            "vibe", "vintage", "violet", "volt", "wave", "white", "wild", "wolf", "zero", "zone"
+    };
+
+    private final ElasticsearchConverter elasticsearchConverter;
+    private final long seed;
+    private final int keywordCardinality;
+    private final int documentsPerFile;
+    private final int concurrency;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Integer, double[]> zipfDistributions = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an instance with the given seed and limits.
+     *
+     * @param elasticsearchConverter  The ElasticsearchConverter to read the mappings of documents with.
+     * @param seed                    The seed to generate documents from.
+     * @param keywordCardinality      The number of distinct values of each keyword property.
+     * @param documentsPerFile        The maximum number of documents in each file.
+     * @param concurrency             The number of files to generate concurrently.
+     */
+    public DocumentGenerator(final ElasticsearchConverter elasticsearchConverter,
+                             final long seed,
+                             final int keywordCardinality,
+                             final int documentsPerFile,
+                             final int concurrency) {
+        if (keywordCardinality < 1 || documentsPerFile < 1 || concurrency < 1) {
+            throw new IllegalArgumentException("The limits of a DocumentGenerator must be positive.");
+        }
+        this.elasticsearchConverter = elasticsearchConverter;
+        this.seed = seed;
+        this.keywordCardinality = keywordCardinality;
+        this.documentsPerFile = documentsPerFile;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Generates the given number of documents of the given type into files
+     * in a directory under the given one, unless they were already generated
+     * there, and returns the files in order.
+     *
+     * @param documentType  The {@code @Document} type to generate documents of.
+     * @param count         The number of documents to generate.
+     * @param directory     The directory to generate the files under, and to find files generated before in.
+     * @return List of files
+     */
+    public List<Path> generate(final Class<?> documentType, final long count, final Path directory) {
+        if (count < 0) {
+            throw new IllegalArgumentException("The number of documents to generate must not be negative.");
+        }
+        final var entity = elasticsearchConverter.getMappingContext().getRequiredPersistentEntity(documentType);
+        final var target = directory.resolve(MessageFormat.format("{0}-{1}-{2}-{3}",
+                entity.getIndexCoordinates().getIndexName(), String.valueOf(count), String.valueOf(seed),
+                fingerprint(entity)));
+        try {
+            if (Files.isDirectory(target)) {
+                final var files = list(target);
+                logger.info("Using {} documents of {} generated before, in {}.",
+                        count, documentType.getSimpleName(), target);
+                return files;
+            }
+            final var startedAt = System.nanoTime();
+            Files.createDirectories(directory);
+            final var staging = Files.createTempDirectory(directory, target.getFileName() + ".");
+            write(entity, count, staging);
+            try {
+                Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final FileAlreadyExistsException e) {
+                // generated concurrently by another run, with the same result
+                delete(staging);
+            }
+            logger.info("Generated {} documents of {} into {}, in {} ms.", count, documentType.getSimpleName(),
+                    target, (System.nanoTime() - startedAt) / 1_000_000);
+            return list(target);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(MessageFormat.format(
+                    "Unable to generate documents of {0} in {1}.", documentType.getName(), directory), e);
+        }
+    }
+
+    /**
+     * Returns the source of the document at the given position (from 0) of
+     * those generated of the given type.
+     *
+     * @param entity    The mapping of the {@code @Document} type.
+     * @param position  The position of the document.
+     * @return ObjectNode
+     */
+    ObjectNode document(final ElasticsearchPersistentEntity<?> entity, final long position) {
+        final var random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + position);
+        final var source = objectMapper.createObjectNode();
+        for (final var property : entity) {
+            if (!property.isWritable()) {
+                continue;
+            }
+            if (property.isIdProperty()) {
+                if (Number.class.isAssignableFrom(boxed(property.getType()))) {
+                    source.put(property.getFieldName(), position + 1);
+                } else {
+                    source.put(property.getFieldName(), String.valueOf(position + 1));
+                }
+                continue;
+            }
+            generate(property, random).ifPresent(value -> source.putPOJO(property.getFieldName(), value));
+        }
+        return source;
+    }
+
+    private void write(final ElasticsearchPersistentEntity<?> entity,
+                       final long count,
+                       final Path staging) throws IOException {
+        final var files = (int) ((count + documentsPerFile - 1) / documentsPerFile);
+        final var executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            final var thread = new Thread(runnable, "local-elasticsearch-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final var futures = new ArrayList<Future<?>>();
+            for (var file = 0; file < files; file++) {
+                final var first = (long) file * documentsPerFile;
+                final var last = Math.min(count, first + documentsPerFile);
+                final var path = staging.resolve(String.format("part-%05d.ndjson", file));
+                futures.add(executor.submit(() -> {
+                    write(entity, first, last, path);
+                    return null;
+                }));
+            }
+            for (final var future : futures) {
+                future.get();
+            }
+        } catch (final ExecutionException e) {
+            delete(staging);
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Unable to generate documents.", e.getCause());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            delete(staging);
+            throw new IllegalStateException("Interrupted generating documents.", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void write(final ElasticsearchPersistentEntity<?> entity,
+                       final long first,
+                       final long last,
+                       final Path path) throws IOException {
+        final var index = entity.getIndexCoordinates().getIndexName();
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (var position = first; position < last; position++) {
+                final var action = objectMapper.createObjectNode();
+                action.putObject("index")
+                        .put("_index", index)
+                        .put("_id", String.valueOf(position + 1));
+                writer.write(action.toString());
+                writer.write('\n');
+                writer.write(objectMapper.writeValueAsString(document(entity, position)));
+                writer.write('\n');
+            }
+        }
+    }
+
+    private Optional<Object> generate(final ElasticsearchPersistentProperty property, final SplittableRandom random) {
+        final var type = boxed(property.getType());
+        final var fieldType = Optional.ofNullable(property.findAnnotation(Field.class))
+                .map(Field::type)
+                .orElse(FieldType.Auto);
+        if (type.isEnum()) {
+            final var constants = type.getEnumConstants();
+            return Optional.of(((Enum<?>) constants[zipf(constants.length, random)]).name());
+        }
+        if (type == String.class) {
+            return Optional.of(fieldType == FieldType.Text || fieldType == FieldType.Match_Only_Text
+                    ? text(random)
+                    : keyword(zipf(keywordCardinality, random)));
+        }
+        if (type == Boolean.class) {
+            return Optional.of(random.nextBoolean());
+        }
+        if (type == Double.class || type == Float.class || type == BigDecimal.class) {
+            return Optional.of(Math.round(logNormal(random) * 100) / 100d);
+        }
+        if (type == Long.class || type == Integer.class || type == Short.class) {
+            return Optional.of(Math.min(Math.round(logNormal(random)),
+                    type == Short.class ? Short.MAX_VALUE : Integer.MAX_VALUE));
+        }
+        if (TemporalAccessor.class.isAssignableFrom(type) || type == Date.class) {
+            final var instant = DATES_END.minusSeconds(random.nextLong(DATES_SPAN_SECONDS));
+            return Optional.of(type == LocalDate.class
+                    ? LocalDate.ofInstant(instant, ZoneOffset.UTC).toString()
+                    : type == LocalDateTime.class
+                    ? LocalDateTime.ofInstant(instant, ZoneOffset.UTC).toString()
+                    : instant.toString());
+        }
+        return Optional.empty();
+    }
+
+    /*
+     A name of two capitalized words (and a number, past the square of the
+     words), distinct for each of the values of the keyword cardinality.
+     */
+    private static String keyword(final int value) {
+        final var rank = value / WORDS.length;
+        final var name = capitalize(WORDS[value % WORDS.length]) + " " + capitalize(WORDS[(rank + value) % WORDS.length]);
+        return rank < WORDS.length ? name : name + " " + (rank / WORDS.length + 1);
+    }
+
+    private static String capitalize(final String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private String text(final SplittableRandom random) {
+        final var words = 3 + random.nextInt(10);
+        final var text = new StringBuilder();
+        for (var i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[zipf(WORDS.length, random)]);
+        }
+        return text.toString();
+    }
+
+    /*
+     A value from 0 (the most frequent) to n - 1, with the probability of
+     each inversely proportional to its rank.
+     */
+    private int zipf(final int n, final SplittableRandom random) {
+        final var distribution = zipfDistributions.computeIfAbsent(n, size -> {
+            final var cumulative = new double[size];
+            var sum = 0d;
+            for (var rank = 0; rank < size; rank++) {
+                sum += 1d / (rank + 1);
+                cumulative[rank] = sum;
+            }
+            for (var rank = 0; rank < size; rank++) {
+                cumulative[rank] /= sum;
+            }
+            return cumulative;
+        });
+        final var index = Arrays.binarySearch(distribution, random.nextDouble());
+        return Math.min(index < 0 ? -index - 1 : index, n - 1);
+    }
+
+    /*
+     Log-normal, with a median of 100.
+     */
+    private static double logNormal(final SplittableRandom random) {
+        return Math.exp(Math.log(100) + random.nextGaussian());
+    }
+
+    private String fingerprint(final ElasticsearchPersistentEntity<?> entity) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(MessageFormat.format("{0}|{1}|{2}|{3}",
+                    String.valueOf(VERSION), entity.getType().getName(),
+                    String.valueOf(keywordCardinality), String.valueOf(documentsPerFile))
+                    .getBytes(StandardCharsets.UTF_8));
+            for (final var property : entity) {
+                digest.update(MessageFormat.format("|{0}:{1}:{2}",
+                        property.getFieldName(), property.getType().getName(),
+                        Optional.ofNullable(property.findAnnotation(Field.class)).map(Field::type).orElse(FieldType.Auto))
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest()).substring(0, 12);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<Path> list(final Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".ndjson"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static void delete(final Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (final IOException e) {
+            logger.warn("Unable to delete {}.", directory, e);
+        }
+    }
+
+    private static Class<?> boxed(final Class<?> type) {
+        return ClassUtils.resolvePrimitiveIfNecessary(type);
+    }
+}
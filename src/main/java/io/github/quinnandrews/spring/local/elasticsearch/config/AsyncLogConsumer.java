@@ -0,0 +1,243 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+import org.testcontainers.containers.output.OutputFrame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * <p> Logs the output of a Container on a thread of its own, so that
+ * following the output does not slow down the thread that reads it from
+ * Docker (and so Elasticsearch, once the output backs up) during heavy
+ * indexing.
+ *
+ * <p> Each line is only added to a bounded buffer on the thread that reads
+ * it. If the buffer is full, the line is dropped (and counted) rather than
+ * waited for. A dedicated thread drains the buffer in batches, maps the
+ * level of each line from the JSON log format of Elasticsearch (lines that
+ * are not JSON are logged at INFO, or at ERROR if written to stderr),
+ * filters out the lines below a minimum level or matching an exclusion,
+ * samples the lines below WARN, and logs the rest. How many lines were
+ * dropped, filtered out and sampled out is logged once the output ends.
+ *
+ * <p> The thread is started by the first line, so that an instance whose
+ * Container is never started (or is discarded for a shared one) leaves no
+ * thread behind, and ends with the output, or when the instance is closed.
+ *
+ * @author Quinn Andrews
+ */
+public class AsyncLogConsumer implements Consumer<OutputFrame>, AutoCloseable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final int MAX_BATCH_SIZE = 256;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Logger logger;
+    private final String prefix;
+    private final BlockingQueue<OutputFrame> buffer;
+    private final Level minLevel;
+    private final List<Pattern> excludes;
+    private final int sampleRate;
+    private final Thread drainer;
+    private final AtomicBoolean drainerStarted = new AtomicBoolean();
+    private final AtomicLong logged = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong filtered = new AtomicLong();
+    private final AtomicLong sampled = new AtomicLong();
+
+    private volatile boolean ended;
+    private long sampleCount;
+
+    /**
+     * Constructs an instance with the given rules.
+     *
+     * @param logger      The Logger to log the output with.
+     * @param prefix      The prefix of each line logged (the name of a cluster node, for example), or null.
+     * @param bufferSize  The maximum number of lines waiting to be logged.
+     * @param minLevel    The minimum level of the lines to log, or null to log every level.
+     * @param excludes    Patterns of lines not to log.
+     * @param sampleRate  Logs one in every this many lines below WARN (1 to log them all).
+     */
+    public AsyncLogConsumer(final Logger logger,
+                            final String prefix,
+                            final int bufferSize,
+                            final Level minLevel,
+                            final List<Pattern> excludes,
+                            final int sampleRate) {
+        if (bufferSize < 1 || sampleRate < 1) {
+            throw new IllegalArgumentException("The buffer size and sample rate of an AsyncLogConsumer must be positive.");
+        }
+        this.logger = logger;
+        this.prefix = Optional.ofNullable(prefix).map(p -> p + ": ").orElse("");
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.minLevel = minLevel;
+        this.excludes = List.copyOf(excludes);
+        this.sampleRate = sampleRate;
+        this.drainer = new Thread(this::drain, "local-elasticsearch-log" + Optional.ofNullable(prefix)
+                .map(p -> "-" + p)
+                .orElse(""));
+        this.drainer.setDaemon(true);
+    }
+
+    @Override
+    public void accept(final OutputFrame frame) {
+        if (frame.getType() == OutputFrame.OutputType.END) {
+            ended = true;
+            return;
+        }
+        if (ended) {
+            return;
+        }
+        if (drainerStarted.compareAndSet(false, true)) {
+            drainer.start();
+        }
+        if (!buffer.offer(frame)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Ends the output, and waits (for up to five seconds) for the lines
+     * already buffered to be logged. Lines that follow are not logged.
+     */
+    @Override
+    public void close() {
+        ended = true;
+        if (!drainerStarted.get()) {
+            return;
+        }
+        try {
+            drainer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the number of lines logged.
+     *
+     * @return long
+     */
+    public long getLogged() {
+        return logged.get();
+    }
+
+    /**
+     * Returns the number of lines dropped because the buffer was full.
+     *
+     * @return long
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of lines filtered out, because they were below the
+     * minimum level or matched an exclusion.
+     *
+     * @return long
+     */
+    public long getFiltered() {
+        return filtered.get();
+    }
+
+    /**
+     * Returns the number of lines below WARN not logged because of sampling.
+     *
+     * @return long
+     */
+    public long getSampled() {
+        return sampled.get();
+    }
+
+    private void drain() {
+        final var batch = new ArrayList<OutputFrame>(MAX_BATCH_SIZE);
+        try {
+            while (!ended || !buffer.isEmpty()) {
+                final var first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, MAX_BATCH_SIZE - 1);
+                batch.forEach(this::log);
+                batch.clear();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dropped.get() > 0 || filtered.get() > 0 || sampled.get() > 0) {
+            logger.info("{}Logged {} lines of Elasticsearch output: {} dropped (buffer full), {} filtered out, {} sampled out.",
+                    prefix, logged.get(), dropped.get(), filtered.get(), sampled.get());
+        }
+    }
+
+    private void log(final OutputFrame frame) {
+        final var line = frame.getUtf8String().stripTrailing();
+        if (line.isEmpty()) {
+            return;
+        }
+        if (excludes.stream().anyMatch(p -> p.matcher(line).find())) {
+            filtered.incrementAndGet();
+            return;
+        }
+        var level = frame.getType() == OutputFrame.OutputType.STDERR ? Level.ERROR : Level.INFO;
+        var message = line;
+        final var json = parse(line);
+        if (json != null) {
+            level = levelOf(json.path("log.level").asText());
+            message = "[" + json.path("log.logger").asText() + "] " + json.path("message").asText(line)
+                    + Optional.ofNullable(json.get("error.stack_trace")).map(t -> "\n" + t.asText()).orElse("");
+        }
+        if (minLevel != null && level.toInt() < minLevel.toInt()) {
+            filtered.incrementAndGet();
+            return;
+        }
+        if (sampleRate > 1 && level.toInt() < Level.WARN.toInt() && sampleCount++ % sampleRate != 0) {
+            sampled.incrementAndGet();
+            return;
+        }
+        logger.atLevel(level).log("{}{}", prefix, message);
+        logged.incrementAndGet();
+    }
+
+    private JsonNode parse(final String line) {
+        if (!line.startsWith("{")) {
+            return null;
+        }
+        try {
+            final var json = objectMapper.readTree(line);
+            return json.has("log.level") ? json : null;
+        } catch (final JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /*
+     Elasticsearch logs with the levels of Log4j, which has FATAL where
+     SLF4J has none.
+     */
+    private static Level levelOf(final String level) {
+        return switch (level.toUpperCase()) {
+            case "TRACE" -> Level.TRACE;
+            case "DEBUG" -> Level.DEBUG;
+            case "WARN" -> Level.WARN;
+            case "ERROR", "FATAL" -> Level.ERROR;
+            default -> Level.INFO;
+        };
+    }
+}
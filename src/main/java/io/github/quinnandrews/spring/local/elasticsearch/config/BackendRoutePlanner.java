@@ -0,0 +1,43 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.DefaultRoutePlanner;
+import org.apache.http.impl.conn.DefaultSchemePortResolver;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * <p> Routes each request of the Client to the host the backend resolves
+ * for its target, so that the Client can be configured with the addresses
+ * of a Container that is still to be started on demand, before the Docker
+ * host is known, and the first request resolves it (and so starts the
+ * Container).
+ *
+ * @author Quinn Andrews
+ */
+public class BackendRoutePlanner extends DefaultRoutePlanner {
+
+    private final LocalElasticsearchBackend elasticsearchBackend;
+
+    /**
+     * Constructs an instance that resolves hosts with the given backend.
+     *
+     * @param elasticsearchBackend  The Container, or in-memory stand-in, the Client connects to.
+     */
+    public BackendRoutePlanner(final LocalElasticsearchBackend elasticsearchBackend) {
+        super(DefaultSchemePortResolver.INSTANCE);
+        this.elasticsearchBackend = elasticsearchBackend;
+    }
+
+    @Override
+    public HttpRoute determineRoute(final HttpHost host,
+                                    final HttpRequest request,
+                                    final HttpContext context) throws HttpException {
+        final var resolved = elasticsearchBackend.resolveHost(host.getHostName());
+        return super.determineRoute(resolved.equals(host.getHostName())
+                ? host
+                : new HttpHost(resolved, host.getPort(), host.getSchemeName()), request, context);
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p> Requests the Container Bean, when the Container is to be started in
+ * the background, as soon as the first Bean of the Application Context is
+ * initialized, so that the Container boots while the Web Server and the
+ * rest of the Application's Beans are initialized.
+ *
+ * <p> The Container Bean is requested from a BeanPostProcessor, rather
+ * than when the Bean Factory is post-processed, since every
+ * BeanPostProcessor is registered by then, and the Configuration Class that
+ * creates the Container is constructed with its properties.
+ *
+ * @author Quinn Andrews
+ */
+public class BackgroundContainerStarter implements BeanPostProcessor, BeanFactoryAware {
+
+    private final String containerBeanName;
+    private final AtomicBoolean requested = new AtomicBoolean();
+
+    private BeanFactory beanFactory;
+
+    /**
+     * Constructs an instance that requests the Container Bean with the
+     * given name.
+     *
+     * @param containerBeanName  The name of the Container Bean.
+     */
+    public BackgroundContainerStarter(final String containerBeanName) {
+        this.containerBeanName = containerBeanName;
+    }
+
+    @Override
+    public void setBeanFactory(final BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(final Object bean, final String beanName) throws BeansException {
+        // set before the request, since the Beans it creates are post-processed as well
+        if (requested.compareAndSet(false, true) && beanFactory.containsBean(containerBeanName)) {
+            beanFactory.getBean(containerBeanName);
+        }
+        return bean;
+    }
+}
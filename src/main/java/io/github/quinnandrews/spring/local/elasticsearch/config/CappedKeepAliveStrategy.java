@@ -0,0 +1,38 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.protocol.HttpContext;
+
+import java.time.Duration;
+
+/**
+ * <p> Keeps an idle connection of the Client alive for as long as the
+ * Keep-Alive header of the response allows, but never longer than the
+ * configured keep-alive, and for the configured keep-alive if the response
+ * has no such header.
+ *
+ * @author Quinn Andrews
+ */
+public class CappedKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+    private final Duration keepAlive;
+
+    /**
+     * Constructs an instance with the given maximum keep-alive.
+     *
+     * @param keepAlive  How long an idle connection is kept alive, at most.
+     */
+    public CappedKeepAliveStrategy(final Duration keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    @Override
+    public long getKeepAliveDuration(final HttpResponse response, final HttpContext context) {
+        final var keepAliveMillis = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        return keepAliveMillis < 0
+                ? keepAlive.toMillis()
+                : Math.min(keepAliveMillis, keepAlive.toMillis());
+    }
+}
@@ -0,0 +1,143 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.client.HeapBufferedAsyncResponseConsumer;
+import org.elasticsearch.client.HttpAsyncResponseConsumerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * <p> Observes the requests the Elasticsearch Client sends, and notifies
+ * listeners (such as the Micrometer metrics of this project) of each one as
+ * an {@link ObservedRequest}, once its response is received.
+ *
+ * <p> Observing takes two parts: an HttpRequestInterceptor, added to the
+ * HTTP client of the RestClient, that records when each request is sent
+ * and how large it is, and an HttpAsyncResponseConsumerFactory, set in the
+ * RequestOptions of the transport, whose consumers buffer each response (as
+ * the default consumers do) and read it once it is complete. Requests sent
+ * with other RequestOptions (directly with the RestClient, for example) are
+ * not observed, and neither are requests that fail without a response.
+ * While there are no listeners, nothing is recorded or read.
+ *
+ * @author Quinn Andrews
+ */
+public class ClientRequestObserver {
+
+    public static final int DEFAULT_BUFFER_LIMIT = 100 * 1024 * 1024;
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientRequestObserver.class);
+
+    private static final String SENT_AT = ClientRequestObserver.class.getName() + ".sentAt";
+    private static final String METHOD = ClientRequestObserver.class.getName() + ".method";
+    private static final String URI = ClientRequestObserver.class.getName() + ".uri";
+    private static final String REQUEST_BYTES = ClientRequestObserver.class.getName() + ".requestBytes";
+
+    private final List<Consumer<ObservedRequest>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Adds a listener that is called with each request observed from now on.
+     * Listeners are called on the IO Reactor thread that received the
+     * response, so must not block.
+     *
+     * @param listener  Accepts each ObservedRequest.
+     */
+    public void onRequest(final Consumer<ObservedRequest> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Returns an HttpRequestInterceptor that records when each request is
+     * sent, to be added last to the HTTP client of the RestClient, so that
+     * the time waiting for a connection (or for the Container to start) is
+     * not counted.
+     *
+     * @return HttpRequestInterceptor
+     */
+    public HttpRequestInterceptor requestInterceptor() {
+        return (request, context) -> {
+            if (listeners.isEmpty()) {
+                return;
+            }
+            context.setAttribute(METHOD, request.getRequestLine().getMethod());
+            context.setAttribute(URI, request.getRequestLine().getUri());
+            context.setAttribute(REQUEST_BYTES, request instanceof HttpEntityEnclosingRequest r && r.getEntity() != null
+                    ? r.getEntity().getContentLength()
+                    : 0L);
+            context.setAttribute(SENT_AT, System.nanoTime());
+        };
+    }
+
+    /**
+     * Returns an HttpAsyncResponseConsumerFactory whose consumers buffer
+     * each response on the heap, up to the same limit as the default
+     * consumers, and observe it once it is complete.
+     *
+     * @return HttpAsyncResponseConsumerFactory
+     */
+    public HttpAsyncResponseConsumerFactory responseConsumerFactory() {
+        return () -> new ObservingResponseConsumer(DEFAULT_BUFFER_LIMIT);
+    }
+
+    private void observe(final HttpResponse response, final HttpContext context) {
+        final var sentAt = (Long) context.getAttribute(SENT_AT);
+        if (sentAt == null || listeners.isEmpty()) {
+            return;
+        }
+        final var roundTripNanos = System.nanoTime() - sentAt;
+        try {
+            final var entity = response.getEntity();
+            var body = new byte[0];
+            if (entity != null) {
+                // the buffered content can only be read once, so is replaced with a copy
+                body = EntityUtils.toByteArray(entity);
+                final var copy = new ByteArrayEntity(body);
+                copy.setContentType(entity.getContentType());
+                copy.setContentEncoding(entity.getContentEncoding());
+                response.setEntity(copy);
+            }
+            final var gzip = Optional.ofNullable(entity)
+                    .map(HttpEntity::getContentEncoding)
+                    .map(h -> h.getValue().equalsIgnoreCase("gzip"))
+                    .orElse(false);
+            final var observed = ObservedRequest.parse(
+                    (String) context.getAttribute(METHOD),
+                    (String) context.getAttribute(URI),
+                    response.getStatusLine().getStatusCode(),
+                    roundTripNanos,
+                    (Long) context.getAttribute(REQUEST_BYTES),
+                    body,
+                    gzip);
+            listeners.forEach(l -> l.accept(observed));
+        } catch (final Exception e) {
+            logger.debug("Failed to observe Elasticsearch request.", e);
+        } finally {
+            context.removeAttribute(SENT_AT);
+        }
+    }
+
+    private class ObservingResponseConsumer extends HeapBufferedAsyncResponseConsumer {
+
+        private ObservingResponseConsumer(final int bufferLimit) {
+            super(bufferLimit);
+        }
+
+        @Override
+        protected HttpResponse buildResult(final HttpContext context) throws Exception {
+            final var response = super.buildResult(context);
+            observe(response, context);
+            return response;
+        }
+    }
+}
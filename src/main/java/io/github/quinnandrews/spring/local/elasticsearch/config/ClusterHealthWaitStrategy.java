@@ -0,0 +1,142 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import org.rnorth.ducttape.ratelimits.RateLimiterBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.wait.strategy.AbstractWaitStrategy;
+import org.testcontainers.containers.wait.strategy.HttpWaitStrategy;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p> Waits until the health of the Elasticsearch cluster, or of the given
+ * indices, reaches the given status, by polling the Cluster Health API.
+ *
+ * <p> Each poll asks Elasticsearch to wait for the status for up to the
+ * poll interval before answering, so that the status is detected as soon as
+ * it is reached, rather than on the next poll. Until Elasticsearch listens,
+ * or while the cluster has no master, polls fail right away, and are
+ * repeated at the poll interval, rather than the once a second of the
+ * default wait strategies of Testcontainers.
+ *
+ * <p> The CA Certificate of the Container is only copied out once it has
+ * started, so, over TLS, the certificate of Elasticsearch is not verified
+ * by this strategy.
+ *
+ * @author Quinn Andrews
+ */
+public class ClusterHealthWaitStrategy extends AbstractWaitStrategy {
+
+    public static final String DEFAULT_STATUS = "yellow";
+    public static final Duration DEFAULT_POLL_INTERVAL = Duration.ofMillis(100);
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterHealthWaitStrategy.class);
+
+    private String status = DEFAULT_STATUS;
+    private List<String> indices = List.of();
+    private Duration pollInterval = DEFAULT_POLL_INTERVAL;
+    private boolean tls;
+    private String username;
+    private String password;
+
+    /**
+     * Sets the status to wait for (green or yellow).
+     *
+     * @param status  The status.
+     * @return ClusterHealthWaitStrategy
+     */
+    public ClusterHealthWaitStrategy withStatus(final String status) {
+        this.status = status;
+        return this;
+    }
+
+    /**
+     * Sets the indices whose health to wait for, rather than that of the
+     * whole cluster. Elasticsearch waits for indices that do not exist yet
+     * until they are created.
+     *
+     * @param indices  The names or wildcard patterns of the indices.
+     * @return ClusterHealthWaitStrategy
+     */
+    public ClusterHealthWaitStrategy withIndices(final List<String> indices) {
+        this.indices = List.copyOf(indices);
+        return this;
+    }
+
+    /**
+     * Sets how often to poll.
+     *
+     * @param pollInterval  The interval between polls.
+     * @return ClusterHealthWaitStrategy
+     */
+    public ClusterHealthWaitStrategy withPollInterval(final Duration pollInterval) {
+        this.pollInterval = pollInterval;
+        return this;
+    }
+
+    /**
+     * Polls over TLS, without verifying the certificate of Elasticsearch.
+     *
+     * @return ClusterHealthWaitStrategy
+     */
+    public ClusterHealthWaitStrategy usingTls() {
+        this.tls = true;
+        return this;
+    }
+
+    /**
+     * Authenticates each poll with the given credentials.
+     *
+     * @param username  The username.
+     * @param password  The password.
+     * @return ClusterHealthWaitStrategy
+     */
+    public ClusterHealthWaitStrategy withBasicCredentials(final String username, final String password) {
+        this.username = username;
+        this.password = password;
+        return this;
+    }
+
+    /**
+     * Returns the path of the Cluster Health API request that is polled.
+     *
+     * @return String
+     */
+    public String getPath() {
+        final var target = indices.isEmpty()
+                ? ""
+                : "/" + URLEncoder.encode(String.join(",", indices), StandardCharsets.UTF_8).replace("%2C", ",");
+        return MessageFormat.format("/_cluster/health{0}?wait_for_status={1}&timeout={2}ms",
+                target, status, String.valueOf(pollInterval.toMillis()));
+    }
+
+    @Override
+    protected void waitUntilReady() {
+        final var startedAt = System.nanoTime();
+        final var delegate = new HttpWaitStrategy()
+                .forPort(ElasticsearchContainerConfig.ELASTICSEARCH_DEFAULT_PORT)
+                .forPath(getPath())
+                .forStatusCode(200)
+                .withReadTimeout(pollInterval.plusSeconds(1));
+        if (tls) {
+            delegate.usingTls().allowInsecure();
+        }
+        if (username != null) {
+            delegate.withBasicCredentials(username, password);
+        }
+        delegate.withRateLimiter(RateLimiterBuilder.newBuilder()
+                        .withRate((int) Math.max(1, 60_000 / Math.max(1, pollInterval.toMillis())), TimeUnit.MINUTES)
+                        .withConstantThroughput()
+                        .build())
+                .withStartupTimeout(startupTimeout)
+                .waitUntilReady(waitStrategyTarget);
+        logger.info("Elasticsearch {} health reached {} in {} ms.",
+                indices.isEmpty() ? "cluster" : String.join(",", indices), status,
+                (System.nanoTime() - startedAt) / 1_000_000);
+    }
+}
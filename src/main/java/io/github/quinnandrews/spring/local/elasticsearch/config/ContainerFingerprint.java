@@ -0,0 +1,158 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.ContainerPort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.DockerClientFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * <p> Identifies a reusable Elasticsearch Container by the configuration it
+ * was started with. The fingerprint is a digest of every setting that shapes
+ * the Container (image, name, port, environment, etc.) and is stored on the
+ * Container as a label, so that a later run with the same configuration can
+ * find it and attach to it instead of starting a new one.
+ *
+ * <p> A labelled Container is considered stale, and is removed before a new
+ * one is started, when it holds the configured Container name or host port
+ * but has a different fingerprint, or when it is no longer running (a stopped
+ * Container cannot be reused, but its name would still block a new one).
+ * Labelled Containers with other fingerprints that do not collide
+ * with the current configuration are left alone, since they may belong to
+ * another profile (a 'local' and a 'test' profile, for example).
+ *
+ * @author Quinn Andrews
+ */
+public final class ContainerFingerprint {
+
+    public static final String FINGERPRINT_LABEL = "io.github.quinnandrews.spring.local.elasticsearch.fingerprint";
+
+    /*
+     Bump this whenever the way a Container is configured changes in a way that
+     the settings below do not capture, so that Containers started by older
+     versions of this project are replaced rather than reused.
+     */
+    private static final String FINGERPRINT_VERSION = "1";
+
+    private static final Logger logger = LoggerFactory.getLogger(ContainerFingerprint.class);
+
+    private final TreeMap<String, String> settings = new TreeMap<>();
+
+    private ContainerFingerprint() {
+        settings.put("fingerprint.version", FINGERPRINT_VERSION);
+    }
+
+    /**
+     * Returns a new, empty ContainerFingerprint.
+     *
+     * @return ContainerFingerprint
+     */
+    public static ContainerFingerprint builder() {
+        return new ContainerFingerprint();
+    }
+
+    /**
+     * Adds a setting to the fingerprint. Settings with a null value are
+     * recorded as absent, so that an unset property and an empty property
+     * produce different fingerprints.
+     *
+     * @param key    The name of the setting.
+     * @param value  The value of the setting (nullable).
+     * @return ContainerFingerprint
+     */
+    public ContainerFingerprint with(final String key, final Object value) {
+        settings.put(key, Optional.ofNullable(value).map(String::valueOf).orElse("<absent>"));
+        return this;
+    }
+
+    /**
+     * Adds every entry of the given map to the fingerprint, each key prefixed
+     * with the given prefix.
+     *
+     * @param prefix    The prefix for each key.
+     * @param settings  The settings to add (nullable).
+     * @return ContainerFingerprint
+     */
+    public ContainerFingerprint withAll(final String prefix, final Map<String, ?> settings) {
+        Optional.ofNullable(settings).ifPresent(s -> s.forEach((k, v) -> with(prefix + k, v)));
+        return this;
+    }
+
+    /**
+     * Returns the hex encoded SHA-256 digest of the recorded settings.
+     *
+     * @return String
+     */
+    public String build() {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256");
+            settings.forEach((k, v) -> {
+                digest.update(k.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '=');
+                digest.update(v.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            });
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Removes any labelled Containers that are stale with respect to the
+     * given fingerprint, name and port, so that the Container about to be
+     * started neither collides with them nor attaches to them.
+     *
+     * @param fingerprint    The fingerprint of the current configuration.
+     * @param containerName  The configured Container name (nullable).
+     * @param containerPort  The configured host port (nullable).
+     */
+    public static void removeStaleContainers(final String fingerprint,
+                                             final String containerName,
+                                             final Integer containerPort) {
+        final var dockerClient = DockerClientFactory.instance().client();
+        final List<Container> labelled = dockerClient.listContainersCmd()
+                .withShowAll(true)
+                .withLabelFilter(List.of(FINGERPRINT_LABEL))
+                .exec();
+        labelled.stream()
+                .filter(c -> isStale(c, fingerprint, containerName, containerPort))
+                .forEach(c -> {
+                    logger.info("Removing stale Elasticsearch Container {} {} (fingerprint {}).",
+                            c.getId(), Arrays.toString(c.getNames()), c.getLabels().get(FINGERPRINT_LABEL));
+                    dockerClient.removeContainerCmd(c.getId())
+                            .withForce(true)
+                            .withRemoveVolumes(true)
+                            .exec();
+                });
+    }
+
+    private static boolean isStale(final Container container,
+                                   final String fingerprint,
+                                   final String containerName,
+                                   final Integer containerPort) {
+        final var holdsName = containerName != null && container.getNames() != null
+                && Arrays.asList(container.getNames()).contains("/" + containerName);
+        final var holdsPort = containerPort != null && container.getPorts() != null
+                && Arrays.stream(container.getPorts())
+                        .map(ContainerPort::getPublicPort)
+                        .anyMatch(containerPort::equals);
+        if (!"running".equals(container.getState())) {
+            return holdsName || holdsPort
+                    || Objects.equals(fingerprint, container.getLabels().get(FINGERPRINT_LABEL));
+        }
+        return !Objects.equals(fingerprint, container.getLabels().get(FINGERPRINT_LABEL))
+                && (holdsName || holdsPort);
+    }
+}
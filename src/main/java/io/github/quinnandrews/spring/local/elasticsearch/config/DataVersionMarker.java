@@ -0,0 +1,173 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.model.Bind;
+import com.github.dockerjava.api.model.HostConfig;
+import com.github.dockerjava.api.model.Volume;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.images.builder.Transferable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * <p> Records which version of Elasticsearch last wrote to a persistent data
+ * path (a named Docker Volume or a directory on the host), in a marker file
+ * at the root of the data path, and checks it against the version of the
+ * Docker Image before a Container is started on that data.
+ *
+ * <p> Elasticsearch can read data written by the same or the previous major
+ * version, but never data written by a newer version. Rather than letting
+ * the Container fail to boot (or, across more than one major version, boot
+ * with indices it cannot open), starting a Container on incompatible data
+ * fails fast, with a message that names both versions.
+ *
+ * @author Quinn Andrews
+ */
+public final class DataVersionMarker {
+
+    public static final String MARKER_FILE = "local-elasticsearch.version";
+
+    private static final Logger logger = LoggerFactory.getLogger(DataVersionMarker.class);
+
+    private static final Pattern VERSION_PATTERN = Pattern.compile("(\\d+)\\.(\\d+)\\.(\\d+)");
+    private static final String MOUNT_PATH = "/data";
+
+    private DataVersionMarker() {
+        // static utility
+    }
+
+    /**
+     * Returns the version of Elasticsearch that last wrote to the given data
+     * path, if it has been written to by a Container of this project.
+     *
+     * @param image   The Docker Image to inspect a named Volume with.
+     * @param source  The name of the Volume, or the directory on the host.
+     * @param bind    Whether the source is a directory on the host.
+     * @return Optional of String
+     */
+    public static Optional<String> read(final String image, final String source, final boolean bind) {
+        if (bind) {
+            final var marker = Path.of(source, MARKER_FILE);
+            try {
+                return Files.exists(marker)
+                        ? Optional.of(Files.readString(marker, StandardCharsets.UTF_8).trim())
+                        : Optional.empty();
+            } catch (final IOException e) {
+                throw new UncheckedIOException(MessageFormat.format(
+                        "Unable to read the Elasticsearch data version marker {0}.", marker), e);
+            }
+        }
+        return readFromVolume(image, source);
+    }
+
+    /*
+     The Volume is mounted in a Container that is created, but never started,
+     just to copy the marker out of it.
+     */
+    private static Optional<String> readFromVolume(final String image, final String volume) {
+        final var dockerClient = DockerClientFactory.instance().client();
+        try {
+            dockerClient.inspectVolumeCmd(volume).exec();
+        } catch (final NotFoundException e) {
+            return Optional.empty();
+        }
+        final var containerId = dockerClient.createContainerCmd(image)
+                .withHostConfig(HostConfig.newHostConfig()
+                        .withBinds(new Bind(volume, new Volume(MOUNT_PATH))))
+                .exec()
+                .getId();
+        try (final var tar = new TarArchiveInputStream(dockerClient
+                .copyArchiveFromContainerCmd(containerId, MOUNT_PATH + "/" + MARKER_FILE)
+                .exec())) {
+            return tar.getNextTarEntry() == null
+                    ? Optional.empty()
+                    : Optional.of(new String(tar.readAllBytes(), StandardCharsets.UTF_8).trim());
+        } catch (final NotFoundException e) {
+            return Optional.empty();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(MessageFormat.format(
+                    "Unable to read the Elasticsearch data version marker of Volume {0}.", volume), e);
+        } finally {
+            dockerClient.removeContainerCmd(containerId).withForce(true).exec();
+        }
+    }
+
+    /**
+     * Checks that Elasticsearch of the given image version can read data
+     * written by the given data version.
+     *
+     * @param dataVersion   The version of Elasticsearch that last wrote the data.
+     * @param imageVersion  The version of Elasticsearch about to be started on it.
+     * @param source        The name of the Volume, or the directory on the host, for the message.
+     * @throws IllegalStateException if the versions are not compatible
+     */
+    public static void check(final String dataVersion, final String imageVersion, final String source) {
+        final var data = parse(dataVersion);
+        final var image = parse(imageVersion);
+        if (data == null || image == null) {
+            logger.warn("Unable to check whether Elasticsearch {} can read the data in {}, written by Elasticsearch {}.",
+                    imageVersion, source, dataVersion);
+            return;
+        }
+        if (Arrays.compare(data, image) > 0) {
+            throw new IllegalStateException(MessageFormat.format(
+                    "The Elasticsearch data in {0} was written by Elasticsearch {1}, which is newer than the "
+                            + "configured Elasticsearch {2}. Elasticsearch cannot be downgraded: configure a newer "
+                            + "Docker Image, or another (or an empty) data volume.",
+                    source, dataVersion, imageVersion));
+        }
+        if (data[0] < image[0] - 1) {
+            throw new IllegalStateException(MessageFormat.format(
+                    "The Elasticsearch data in {0} was written by Elasticsearch {1}, which is more than one major "
+                            + "version older than the configured Elasticsearch {2}. Configure an older Docker Image, "
+                            + "or another (or an empty) data volume.",
+                    source, dataVersion, imageVersion));
+        }
+    }
+
+    /**
+     * Records the version of the given running Container in the marker file
+     * of its data path.
+     *
+     * @param container  The running Container.
+     * @param version    The version of Elasticsearch it runs.
+     */
+    public static void write(final LocalElasticsearchContainer container, final String version) {
+        container.copyFileToContainer(Transferable.of(version + "\n", 0644),
+                ElasticsearchContainerConfig.ELASTICSEARCH_DATA_PATH + "/" + MARKER_FILE);
+    }
+
+    /**
+     * Returns whether the given version is one that can be checked
+     * (major.minor.patch), as opposed to a tag such as 'latest'.
+     *
+     * @param version  The version.
+     * @return boolean
+     */
+    public static boolean isCheckable(final String version) {
+        return parse(version) != null;
+    }
+
+    private static int[] parse(final String version) {
+        final var matcher = VERSION_PATTERN.matcher(Optional.ofNullable(version).orElse(""));
+        if (!matcher.lookingAt()) {
+            return null;
+        }
+        return new int[] {
+                Integer.parseInt(matcher.group(1)),
+                Integer.parseInt(matcher.group(2)),
+                Integer.parseInt(matcher.group(3))
+        };
+    }
+}
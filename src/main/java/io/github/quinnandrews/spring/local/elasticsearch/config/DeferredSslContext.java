@@ -0,0 +1,107 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import java.security.KeyManagementException;
+import java.security.SecureRandom;
+import java.util.function.Supplier;
+
+/**
+ * <p> An SSLContext that is not created until it is first used. The HTTP
+ * Client requires an SSLContext when it is built, but the CA Certificate
+ * that the SSLContext trusts only exists once the Container has started,
+ * so the actual SSLContext is obtained from the given Supplier when the
+ * first connection is made.
+ *
+ * @author Quinn Andrews
+ */
+class DeferredSslContext extends SSLContext {
+
+    /**
+     * Constructs an instance that delegates to the SSLContext supplied
+     * on first use.
+     *
+     * @param delegateSupplier  Supplies the actual SSLContext.
+     */
+    DeferredSslContext(final Supplier<SSLContext> delegateSupplier) {
+        super(new DeferredSslContextSpi(delegateSupplier), null, "TLS");
+    }
+
+    private static class DeferredSslContextSpi extends SSLContextSpi {
+
+        private final Supplier<SSLContext> delegateSupplier;
+        private volatile SSLContext delegate;
+
+        private DeferredSslContextSpi(final Supplier<SSLContext> delegateSupplier) {
+            this.delegateSupplier = delegateSupplier;
+        }
+
+        private SSLContext delegate() {
+            var result = delegate;
+            if (result == null) {
+                synchronized (this) {
+                    result = delegate;
+                    if (result == null) {
+                        result = delegateSupplier.get();
+                        delegate = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        protected void engineInit(final KeyManager[] keyManagers,
+                                  final TrustManager[] trustManagers,
+                                  final SecureRandom secureRandom) throws KeyManagementException {
+            throw new KeyManagementException("A DeferredSslContext is initialized by its delegate.");
+        }
+
+        @Override
+        protected SSLSocketFactory engineGetSocketFactory() {
+            return delegate().getSocketFactory();
+        }
+
+        @Override
+        protected SSLServerSocketFactory engineGetServerSocketFactory() {
+            return delegate().getServerSocketFactory();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine() {
+            return delegate().createSSLEngine();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine(final String host, final int port) {
+            return delegate().createSSLEngine(host, port);
+        }
+
+        @Override
+        protected SSLSessionContext engineGetServerSessionContext() {
+            return delegate().getServerSessionContext();
+        }
+
+        @Override
+        protected SSLSessionContext engineGetClientSessionContext() {
+            return delegate().getClientSessionContext();
+        }
+
+        @Override
+        protected SSLParameters engineGetDefaultSSLParameters() {
+            return delegate().getDefaultSSLParameters();
+        }
+
+        @Override
+        protected SSLParameters engineGetSupportedSSLParameters() {
+            return delegate().getSupportedSSLParameters();
+        }
+    }
+}
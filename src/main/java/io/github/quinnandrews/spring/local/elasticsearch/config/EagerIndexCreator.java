@@ -0,0 +1,187 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.index.Settings;
+import org.springframework.util.ClassUtils;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * <p> Creates the indices of every {@code @Document} type of the Application
+ * (with their settings and mappings) in parallel, as soon as the
+ * ElasticsearchOperations is initialized, rather than one at a time as each
+ * Repository is instantiated. Repositories then find their indices already
+ * created, and the latency of creating them is not added to the first test
+ * or request.
+ *
+ * <p> The {@code @Document} types are found by scanning the packages of the
+ * Application (those of {@code @SpringBootApplication} or
+ * {@code @AutoConfigurationPackage}), along with the types the mapping
+ * context already knows. Types with {@code createIndex = false}, and
+ * indices that already exist, are skipped. The settings of each index can
+ * be overridden, for every index and for each index by name.
+ *
+ * @author Quinn Andrews
+ */
+public class EagerIndexCreator implements BeanPostProcessor, BeanFactoryAware {
+
+    private static final Logger logger = LoggerFactory.getLogger(EagerIndexCreator.class);
+
+    private final Map<String, String> defaultSettings;
+    private final Map<String, Map<String, String>> indexSettings;
+    private final AtomicBoolean created = new AtomicBoolean();
+
+    private BeanFactory beanFactory;
+
+    /**
+     * Constructs an instance with the given settings overrides, whose keys
+     * are index settings, with or without the 'index.' prefix (example:
+     * number_of_shards).
+     *
+     * @param defaultSettings  The settings to override for every index.
+     * @param indexSettings    The settings to override for each index, by the name of the index.
+     */
+    public EagerIndexCreator(final Map<String, String> defaultSettings,
+                             final Map<String, Map<String, String>> indexSettings) {
+        this.defaultSettings = Map.copyOf(defaultSettings);
+        this.indexSettings = Map.copyOf(indexSettings);
+    }
+
+    @Override
+    public void setBeanFactory(final BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(final Object bean, final String beanName) throws BeansException {
+        if (bean instanceof ElasticsearchOperations elasticsearchOperations && created.compareAndSet(false, true)) {
+            final var types = new LinkedHashSet<Class<?>>();
+            if (AutoConfigurationPackages.has(beanFactory)) {
+                types.addAll(scan(AutoConfigurationPackages.get(beanFactory)));
+            }
+            elasticsearchOperations.getElasticsearchConverter().getMappingContext().getPersistentEntities()
+                    .forEach(entity -> types.add(entity.getType()));
+            beanFactory.getBean(StartupTimings.class).time("indices", () ->
+                    createIndices(elasticsearchOperations, types));
+        }
+        return bean;
+    }
+
+    /**
+     * Returns every type annotated with {@code @Document} in the given
+     * packages, and their sub-packages.
+     *
+     * @param packages  The names of the packages to scan.
+     * @return Set of Classes
+     */
+    public static Set<Class<?>> scan(final Collection<String> packages) {
+        final var scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Document.class));
+        final var types = new LinkedHashSet<Class<?>>();
+        for (final var basePackage : packages) {
+            for (final var candidate : scanner.findCandidateComponents(basePackage)) {
+                types.add(ClassUtils.resolveClassName(candidate.getBeanClassName(),
+                        EagerIndexCreator.class.getClassLoader()));
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Creates the indices of the given types that do not exist yet, in
+     * parallel, with their settings (overridden as configured) and their
+     * mappings. Returns once every index is created.
+     *
+     * @param elasticsearchOperations  The ElasticsearchOperations to create the indices with.
+     * @param types                    The {@code @Document} types.
+     * @return List of the names of the indices created
+     */
+    public List<String> createIndices(final ElasticsearchOperations elasticsearchOperations,
+                                      final Collection<Class<?>> types) {
+        final var mappingContext = elasticsearchOperations.getElasticsearchConverter().getMappingContext();
+        final var indices = new LinkedHashMap<String, Class<?>>();
+        for (final var type : types) {
+            final var entity = mappingContext.getRequiredPersistentEntity(type);
+            if (entity.isCreateIndexAndMapping()) {
+                indices.putIfAbsent(entity.getIndexCoordinates().getIndexName(), type);
+            }
+        }
+        if (indices.isEmpty()) {
+            return List.of();
+        }
+        final var startedAt = System.nanoTime();
+        final var executor = Executors.newFixedThreadPool(Math.min(indices.size(), 8), runnable -> {
+            final var thread = new Thread(runnable, "local-elasticsearch-indices");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final var created = new ArrayList<String>();
+        try {
+            CompletableFuture.allOf(indices.entrySet().stream()
+                    .map(e -> CompletableFuture.runAsync(() -> {
+                        if (createIndex(elasticsearchOperations, e.getKey(), e.getValue())) {
+                            synchronized (created) {
+                                created.add(e.getKey());
+                            }
+                        }
+                    }, executor))
+                    .toArray(CompletableFuture[]::new)).join();
+        } catch (final CompletionException e) {
+            throw e.getCause() instanceof RuntimeException r ? r : e;
+        } finally {
+            executor.shutdown();
+        }
+        logger.info("Created Elasticsearch indices {} in {} ms.", created, (System.nanoTime() - startedAt) / 1_000_000);
+        return created;
+    }
+
+    private boolean createIndex(final ElasticsearchOperations elasticsearchOperations,
+                                final String index,
+                                final Class<?> type) {
+        final var indexOperations = elasticsearchOperations.indexOps(type);
+        if (indexOperations.exists()) {
+            logger.debug("Elasticsearch index {} already exists.", index);
+            return false;
+        }
+        final var settings = indexOperations.createSettings().flatten();
+        settings.putAll(overrides(defaultSettings));
+        settings.putAll(overrides(indexSettings.getOrDefault(index, Map.of())));
+        try {
+            return indexOperations.create(settings, indexOperations.createMapping());
+        } catch (final RuntimeException e) {
+            // another node or Application may have created it in the meantime
+            if (indexOperations.exists()) {
+                return false;
+            }
+            throw new IllegalStateException(MessageFormat.format(
+                    "Unable to create Elasticsearch index {0} for {1}.", index, type.getName()), e);
+        }
+    }
+
+    private static Settings overrides(final Map<String, String> settings) {
+        final var overrides = new Settings();
+        settings.forEach((key, value) -> overrides.put(key.startsWith("index.") ? key : "index." + key, value));
+        return overrides;
+    }
+}
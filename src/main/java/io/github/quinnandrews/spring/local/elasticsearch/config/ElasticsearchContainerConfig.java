@@ -1,28 +1,91 @@
 package io.github.quinnandrews.spring.local.elasticsearch.config;
 
+import co.elastic.clients.transport.ElasticsearchTransport;
+import co.elastic.clients.transport.TransportOptions;
+import co.elastic.clients.transport.rest_client.RestClientOptions;
+import com.github.dockerjava.api.model.Bind;
 import com.github.dockerjava.api.model.ExposedPort;
 import com.github.dockerjava.api.model.HostConfig;
 import com.github.dockerjava.api.model.PortBinding;
 import com.github.dockerjava.api.model.Ports;
+import com.github.dockerjava.api.model.Volume;
+import jakarta.persistence.EntityManagerFactory;
+import io.github.quinnandrews.spring.local.elasticsearch.bulk.BulkFileLoader;
+import io.github.quinnandrews.spring.local.elasticsearch.bulk.BulkIndexer;
+import io.github.quinnandrews.spring.local.elasticsearch.bulk.DocumentGenerator;
+import io.github.quinnandrews.spring.local.elasticsearch.inmemory.InMemoryElasticsearch;
+import io.github.quinnandrews.spring.local.elasticsearch.sync.EntitySync;
+import io.github.quinnandrews.spring.local.elasticsearch.sync.EntitySyncListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.HttpRequestInterceptor;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestClient;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import org.springframework.core.metrics.ApplicationStartup;
 import org.springframework.data.elasticsearch.client.ClientConfiguration;
 import org.springframework.data.elasticsearch.client.elc.ElasticsearchClients;
 import org.springframework.data.elasticsearch.client.elc.ElasticsearchConfiguration;
+import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchClient;
+import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.ReactiveElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+import org.testcontainers.containers.Network;
+import org.testcontainers.containers.output.OutputFrame;
 import org.testcontainers.containers.output.Slf4jLogConsumer;
 import org.testcontainers.elasticsearch.ElasticsearchContainer;
 import org.testcontainers.utility.DockerImageName;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.text.MessageFormat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * <p> Initializes and configures a module from Testcontainers that runs
@@ -44,6 +107,14 @@ public class ElasticsearchContainerConfig {
     public static final Integer ELASTICSEARCH_DEFAULT_PORT = 9200;
     public static final String ELASTICSEARCH_DEFAULT_USERNAME = "elastic";
     public static final String ELASTICSEARCH_PASSWORD_ENV_KEY = "ELASTIC_PASSWORD";
+    public static final String ELASTICSEARCH_JAVA_OPTS_ENV_KEY = "ES_JAVA_OPTS";
+    public static final String ELASTICSEARCH_DATA_PATH = "/usr/share/elasticsearch/data";
+    public static final String ELASTICSEARCH_SECURITY_ENV_KEY = "xpack.security.enabled";
+    public static final String ELASTICSEARCH_HTTP_SSL_ENV_KEY = "xpack.security.http.ssl.enabled";
+    public static final String ELASTICSEARCH_CLUSTER_NAME = "local-elasticsearch";
+    public static final String BACKEND_PROPERTY = "spring.local.elasticsearch.backend";
+    public static final String BACKEND_CONTAINER = "container";
+    public static final String BACKEND_IN_MEMORY = "in-memory";
 
     private static final Logger logger = LoggerFactory.getLogger(ElasticsearchContainerConfig.class);
 
@@ -51,16 +122,88 @@ public class ElasticsearchContainerConfig {
     private final String containerName;
     private final Integer containerPort;
     private final Boolean followContainerLog;
+    private final Boolean asyncContainerLog;
+    private final Integer containerLogBufferSize;
+    private final String containerLogMinLevel;
+    private final String[] containerLogExcludes;
+    private final Integer containerLogSampleRate;
+    private final Boolean reuseContainer;
+    private final StartupMode startupMode;
     private final String password;
+    private final Boolean securityEnabled;
+    private final Boolean sslEnabled;
+    private final PerformanceProfile performanceProfile;
+    private final String heapSize;
+    private final Boolean dataOnTmpfs;
+    private final String dataVolume;
+    private final String dataHostPath;
+    private final Double cpus;
+    private final DataSize memory;
+    private final DataSize memorySwap;
+    private final Integer blkioWeight;
+    private final Boolean machineLearningEnabled;
+    private final Boolean watcherEnabled;
+    private final Boolean geoipDownloaderEnabled;
+    private final Boolean diskWatermarksEnabled;
+    private final ReadinessCheck readinessCheck;
+    private final String waitStatus;
+    private final String[] waitIndices;
+    private final Duration waitPollInterval;
+    private final Duration waitTimeout;
+    private final Duration slowSearchThreshold;
+    private final Duration slowIndexingThreshold;
+    private final Boolean sharedContainer;
+    private final Duration sharedContainerLinger;
+    private final Integer clusterNodes;
+    private final ApplicationStartup applicationStartup;
+
+    /*
+     The timings of this Application Context, if it shares a Container that
+     another Context started (see elasticsearchStartupTimings).
+     */
+    private StartupTimings sharedContainerStartupTimings;
 
     /**
      * Constructs an instance of this Configuration Class with the given properties.
      *
-     * @param containerImage      The Docker Image to use as the Container (optional).
-     * @param containerName       The name to use for the Docker Container when started.
-     * @param containerPort       The port on the Container that should map to PostgreSQL (optional).
-     * @param followContainerLog  Whether to log the output produced by the Container's logs (optional).
-     * @param password            The password for the Elasticsearch 'elastic' user (optional).
+     * @param containerImage          The Docker Image to use as the Container (optional).
+     * @param containerName           The name to use for the Docker Container when started.
+     * @param containerPort           The port on the Container that should map to PostgreSQL (optional).
+     * @param followContainerLog      Whether to log the output produced by the Container's logs (optional).
+     * @param asyncContainerLog       Whether to log the followed output on a thread of its own (optional).
+     * @param containerLogBufferSize  The maximum number of lines of output waiting to be logged (optional).
+     * @param containerLogMinLevel    The minimum level of the lines of output to log (optional).
+     * @param containerLogExcludes    Patterns of the lines of output not to log (optional).
+     * @param containerLogSampleRate  Logs one in every this many lines of output below WARN (optional).
+     * @param reuseContainer          Whether to reuse a running Container with the same configuration (optional).
+     * @param startupMode             When to start the Container relative to the Application Context (optional).
+     * @param password                The password for the Elasticsearch 'elastic' user (optional).
+     * @param securityEnabled         Whether to enable security in the Container (optional).
+     * @param sslEnabled              Whether to serve HTTP over TLS (optional).
+     * @param performanceProfile      The set of defaults the Container is tuned with (optional).
+     * @param heapSize                The heap size of Elasticsearch, overriding the profile (optional).
+     * @param dataOnTmpfs             Whether to mount the data path on tmpfs, overriding the profile (optional).
+     * @param dataVolume              The named Docker Volume to persist the data path in (optional).
+     * @param dataHostPath            The directory on the host to persist the data path in (optional).
+     * @param cpus                    The number of CPUs the Container may use (optional).
+     * @param memory                  The memory the Container may use (optional).
+     * @param memorySwap              The memory plus swap the Container may use (optional).
+     * @param blkioWeight             The block IO weight of the Container, from 10 to 1000 (optional).
+     * @param machineLearningEnabled  Whether to enable Machine Learning, overriding the profile (optional).
+     * @param watcherEnabled          Whether to enable Watcher, overriding the profile (optional).
+     * @param geoipDownloaderEnabled  Whether to enable the GeoIP Downloader, overriding the profile (optional).
+     * @param diskWatermarksEnabled   Whether to enforce disk watermarks, overriding the profile (optional).
+     * @param readinessCheck          How the Container is judged to be ready (optional).
+     * @param waitStatus              The cluster health status to wait for (optional).
+     * @param waitIndices             The indices whose health to wait for (optional).
+     * @param waitPollInterval        How often to poll the cluster health (optional).
+     * @param waitTimeout             How long to wait for the Container to be ready (optional).
+     * @param slowSearchThreshold     The time above which searches are logged in the slow log (optional).
+     * @param slowIndexingThreshold   The time above which indexing is logged in the slow log (optional).
+     * @param sharedContainer         Whether to share the Container with other Application Contexts in the JVM (optional).
+     * @param sharedContainerLinger   How long to keep a shared Container once no Application Context uses it (optional).
+     * @param clusterNodes            The number of nodes to run as a cluster (optional).
+     * @param applicationStartup      The ApplicationStartup to record the phases of starting the Container with.
      */
     public ElasticsearchContainerConfig(@Value("${spring.local.elasticsearch.container.image:#{null}}")
                                         final String containerImage,
@@ -70,44 +213,605 @@ public class ElasticsearchContainerConfig {
                                         final Integer containerPort,
                                         @Value("${spring.local.elasticsearch.container.log.follow:#{false}}")
                                         final Boolean followContainerLog,
+                                        @Value("${spring.local.elasticsearch.container.log.async:#{true}}")
+                                        final Boolean asyncContainerLog,
+                                        @Value("${spring.local.elasticsearch.container.log.buffer-size:#{null}}")
+                                        final Integer containerLogBufferSize,
+                                        @Value("${spring.local.elasticsearch.container.log.min-level:#{null}}")
+                                        final String containerLogMinLevel,
+                                        @Value("${spring.local.elasticsearch.container.log.excludes:#{null}}")
+                                        final String[] containerLogExcludes,
+                                        @Value("${spring.local.elasticsearch.container.log.sample-rate:#{null}}")
+                                        final Integer containerLogSampleRate,
+                                        @Value("${spring.local.elasticsearch.container.reuse:#{false}}")
+                                        final Boolean reuseContainer,
+                                        @Value("${spring.local.elasticsearch.container.startup:BLOCKING}")
+                                        final StartupMode startupMode,
                                         @Value("${spring.local.elasticsearch.password:#{null}}")
-                                        final String password) {
+                                        final String password,
+                                        @Value("${spring.local.elasticsearch.security.enabled:#{true}}")
+                                        final Boolean securityEnabled,
+                                        @Value("${spring.local.elasticsearch.security.ssl.enabled:#{true}}")
+                                        final Boolean sslEnabled,
+                                        @Value("${spring.local.elasticsearch.performance-profile:DEFAULT}")
+                                        final PerformanceProfile performanceProfile,
+                                        @Value("${spring.local.elasticsearch.container.heap-size:#{null}}")
+                                        final String heapSize,
+                                        @Value("${spring.local.elasticsearch.container.data.tmpfs:#{null}}")
+                                        final Boolean dataOnTmpfs,
+                                        @Value("${spring.local.elasticsearch.container.data.volume:#{null}}")
+                                        final String dataVolume,
+                                        @Value("${spring.local.elasticsearch.container.data.host-path:#{null}}")
+                                        final String dataHostPath,
+                                        @Value("${spring.local.elasticsearch.container.resources.cpus:#{null}}")
+                                        final Double cpus,
+                                        @Value("${spring.local.elasticsearch.container.resources.memory:#{null}}")
+                                        final DataSize memory,
+                                        @Value("${spring.local.elasticsearch.container.resources.memory-swap:#{null}}")
+                                        final DataSize memorySwap,
+                                        @Value("${spring.local.elasticsearch.container.resources.blkio-weight:#{null}}")
+                                        final Integer blkioWeight,
+                                        @Value("${spring.local.elasticsearch.container.features.machine-learning:#{null}}")
+                                        final Boolean machineLearningEnabled,
+                                        @Value("${spring.local.elasticsearch.container.features.watcher:#{null}}")
+                                        final Boolean watcherEnabled,
+                                        @Value("${spring.local.elasticsearch.container.features.geoip-downloader:#{null}}")
+                                        final Boolean geoipDownloaderEnabled,
+                                        @Value("${spring.local.elasticsearch.container.disk-watermarks:#{null}}")
+                                        final Boolean diskWatermarksEnabled,
+                                        @Value("${spring.local.elasticsearch.container.wait.strategy:LOG}")
+                                        final ReadinessCheck readinessCheck,
+                                        @Value("${spring.local.elasticsearch.container.wait.status:#{null}}")
+                                        final String waitStatus,
+                                        @Value("${spring.local.elasticsearch.container.wait.indices:#{null}}")
+                                        final String[] waitIndices,
+                                        @Value("${spring.local.elasticsearch.container.wait.poll-interval:#{null}}")
+                                        final Duration waitPollInterval,
+                                        @Value("${spring.local.elasticsearch.container.wait.timeout:#{null}}")
+                                        final Duration waitTimeout,
+                                        @Value("${spring.local.elasticsearch.slowlog.search.threshold:#{null}}")
+                                        final Duration slowSearchThreshold,
+                                        @Value("${spring.local.elasticsearch.slowlog.indexing.threshold:#{null}}")
+                                        final Duration slowIndexingThreshold,
+                                        @Value("${spring.local.elasticsearch.container.shared:#{false}}")
+                                        final Boolean sharedContainer,
+                                        @Value("${spring.local.elasticsearch.container.shared-linger:#{null}}")
+                                        final Duration sharedContainerLinger,
+                                        @Value("${spring.local.elasticsearch.cluster.nodes:#{1}}")
+                                        final Integer clusterNodes,
+                                        final ApplicationStartup applicationStartup) {
         this.containerImage = containerImage;
         this.containerName = containerName;
         this.containerPort = containerPort;
         this.followContainerLog = followContainerLog;
+        this.asyncContainerLog = asyncContainerLog;
+        this.containerLogBufferSize = containerLogBufferSize;
+        this.containerLogMinLevel = containerLogMinLevel;
+        this.containerLogExcludes = containerLogExcludes;
+        this.containerLogSampleRate = containerLogSampleRate;
+        this.reuseContainer = reuseContainer;
+        this.startupMode = startupMode;
         this.password = password;
+        this.securityEnabled = securityEnabled;
+        this.sslEnabled = sslEnabled;
+        this.performanceProfile = performanceProfile;
+        this.heapSize = heapSize;
+        this.dataOnTmpfs = dataOnTmpfs;
+        this.dataVolume = dataVolume;
+        this.dataHostPath = dataHostPath;
+        this.cpus = cpus;
+        this.memory = memory;
+        this.memorySwap = memorySwap;
+        this.blkioWeight = blkioWeight;
+        this.machineLearningEnabled = machineLearningEnabled;
+        this.watcherEnabled = watcherEnabled;
+        this.geoipDownloaderEnabled = geoipDownloaderEnabled;
+        this.diskWatermarksEnabled = diskWatermarksEnabled;
+        this.readinessCheck = readinessCheck;
+        this.waitStatus = waitStatus;
+        this.waitIndices = waitIndices;
+        this.waitPollInterval = waitPollInterval;
+        this.waitTimeout = waitTimeout;
+        this.slowSearchThreshold = slowSearchThreshold;
+        this.slowIndexingThreshold = slowIndexingThreshold;
+        this.sharedContainer = sharedContainer;
+        this.sharedContainerLinger = sharedContainerLinger;
+        this.clusterNodes = clusterNodes;
+        this.applicationStartup = applicationStartup;
+    }
+
+    /**
+     * Returns a Spring Bean that, when the Container is to be started in the
+     * background, requests the Container Bean as soon as the first Bean of
+     * the Application Context is initialized, so that the Container boots
+     * while the Web Server and the rest of the Application's Beans are
+     * initialized.
+     *
+     * @return BackgroundContainerStarter
+     */
+    @Bean
+    @ConditionalOnExpression("'${spring.local.elasticsearch.container.startup:BLOCKING}'.equalsIgnoreCase('ASYNC') "
+            + "and '${spring.local.elasticsearch.backend:container}'.equalsIgnoreCase('container')")
+    public static BackgroundContainerStarter elasticsearchContainerStarter() {
+        return new BackgroundContainerStarter("elasticsearchContainer");
+    }
+
+    /**
+     * Returns a Spring Bean that, when eager index creation is enabled,
+     * creates the indices of every {@code @Document} type of the Application
+     * in parallel as soon as the ElasticsearchOperations is initialized,
+     * rather than as each Repository is instantiated, overriding the number
+     * of shards and replicas, the refresh interval and any other settings of
+     * the indices as configured.
+     *
+     * @param environment  The Spring Environment.
+     * @return EagerIndexCreator
+     */
+    @Bean
+    @ConditionalOnProperty(name="spring.local.elasticsearch.indices.create-eagerly", havingValue="true")
+    public static EagerIndexCreator elasticsearchIndexCreator(final Environment environment) {
+        final var binder = Binder.get(environment);
+        final var defaultSettings = new LinkedHashMap<String, String>();
+        binder.bind("spring.local.elasticsearch.indices.shards", Integer.class)
+                .ifBound(s -> defaultSettings.put("number_of_shards", String.valueOf(s)));
+        binder.bind("spring.local.elasticsearch.indices.replicas", Integer.class)
+                .ifBound(r -> defaultSettings.put("number_of_replicas", String.valueOf(r)));
+        binder.bind("spring.local.elasticsearch.indices.refresh-interval", String.class)
+                .ifBound(r -> defaultSettings.put("refresh_interval", r));
+        final Map<String, Map<String, String>> indexSettings = binder
+                .bind("spring.local.elasticsearch.indices.settings",
+                        Bindable.<Map<String, Map<String, String>>>of(ResolvableType.forClassWithGenerics(Map.class,
+                                ResolvableType.forClass(String.class),
+                                ResolvableType.forClassWithGenerics(Map.class, String.class, String.class))))
+                .orElse(Map.of());
+        return new EagerIndexCreator(defaultSettings, indexSettings);
+    }
+
+    /**
+     * Returns a Spring Bean that sets the configured search and indexing
+     * slow log thresholds (at the 'warn' level) on every index once the
+     * Application Context is refreshed, and so after the indices of the
+     * Repositories, and of seeding and generation, are created.
+     *
+     * @param restClient  The RestClient to set the thresholds with.
+     * @return SlowLogThresholds
+     */
+    @Bean
+    @ConditionalOnExpression("('${spring.local.elasticsearch.slowlog.search.threshold:}' != '' "
+            + "or '${spring.local.elasticsearch.slowlog.indexing.threshold:}' != '') "
+            + "and '${spring.local.elasticsearch.backend:container}'.equalsIgnoreCase('container')")
+    public SlowLogThresholds elasticsearchSlowLogThresholds(final RestClient restClient) {
+        return new SlowLogThresholds(restClient, slowSearchThreshold, slowIndexingThreshold);
+    }
+
+    /**
+     * Returns a Spring Bean that, when configured, publishes the slow log
+     * entries of the Container as Spring events of this Application Context
+     * once every singleton is initialized, until the Context closes.
+     *
+     * @param elasticsearchContainer     The Container whose slow log entries to publish.
+     * @param applicationEventPublisher  The publisher of the Spring events.
+     * @return SlowLogEventPublisher
+     */
+    @Bean
+    @ConditionalOnExpression("('${spring.local.elasticsearch.slowlog.search.threshold:}' != '' "
+            + "or '${spring.local.elasticsearch.slowlog.indexing.threshold:}' != '') "
+            + "and ${spring.local.elasticsearch.slowlog.publish-events:false} "
+            + "and '${spring.local.elasticsearch.backend:container}'.equalsIgnoreCase('container')")
+    public SlowLogEventPublisher elasticsearchSlowLogEventPublisher(final LocalElasticsearchContainer elasticsearchContainer,
+                                                                    final ApplicationEventPublisher applicationEventPublisher) {
+        return new SlowLogEventPublisher(elasticsearchContainer.getSlowLog(), applicationEventPublisher);
     }
 
     /**
      * Returns a Testcontainers Bean that runs Elasticsearch inside a
-     * Docker Container with the given configuration.
+     * Docker Container with the given configuration. If more than one
+     * cluster node is configured, the Container is the first node of the
+     * cluster, and starts and stops the other nodes along with itself.
      *
-     * @return ElasticsearchContainer
+     * <p> If the Container is shared, and another Application Context in
+     * the JVM has already started one with the same configuration, that
+     * Container is returned instead of starting a new one.
+     *
+     * @return LocalElasticsearchContainer
      */
     @Bean
-    public ElasticsearchContainer elasticsearchContainer() {
-        final var container = new ElasticsearchContainer(
+    @ConditionalOnProperty(name=BACKEND_PROPERTY,
+                           havingValue=BACKEND_CONTAINER,
+                           matchIfMissing = true)
+    public LocalElasticsearchContainer elasticsearchContainer() {
+        if (dataVolume != null && dataHostPath != null) {
+            throw new IllegalStateException(
+                    "Configure either a data volume or a data host path for Elasticsearch, not both.");
+        }
+        if (blkioWeight != null && (blkioWeight < 10 || blkioWeight > 1000)) {
+            throw new IllegalStateException(MessageFormat.format(
+                    "The block IO weight of the Elasticsearch Container must be from 10 to 1000, not {0}.",
+                    blkioWeight));
+        }
+        final var network = clusterNodes > 1 ? Network.newNetwork() : null;
+        final var container = createContainer(0, network, null);
+        if (network != null) {
+            container.withClusterPeers(IntStream.range(1, clusterNodes)
+                    .mapToObj(node -> createContainer(node, network, container.getSlowLog()))
+                    .toList());
+        }
+        if (sharedContainer) {
+            final var shared = SharedContainerRegistry.acquire(sharedFingerprint(container), sharedContainerLinger, () ->
+                    startContainer(container));
+            if (shared != container) {
+                container.discard();
+                sharedContainerStartupTimings = new StartupTimings();
+                sharedContainerStartupTimings.setApplicationStartup(applicationStartup);
+            }
+            return shared;
+        }
+        return startContainer(container);
+    }
+
+    /**
+     * Returns a Spring Bean of the timings of each phase of starting the
+     * backend and its Client in this Application Context (building the
+     * Client, seeding, etc.). They are those of the backend itself, unless
+     * the Context shares a Container that another Context started, in which
+     * case it keeps timings of its own, without the phases of starting the
+     * Container, which it did not run, and without the phases of the other
+     * Context.
+     *
+     * @param elasticsearchBackend  The Container, or in-memory stand-in, of the Context.
+     * @return StartupTimings
+     */
+    @Bean
+    public StartupTimings elasticsearchStartupTimings(final LocalElasticsearchBackend elasticsearchBackend) {
+        return Optional.ofNullable(sharedContainerStartupTimings)
+                .orElseGet(elasticsearchBackend::getStartupTimings);
+    }
+
+    /**
+     * Returns a Bean of an in-process stand-in for Elasticsearch, in place
+     * of the Container, when the 'in-memory' backend is configured. It serves
+     * a subset of the REST API from indices held in memory, on the configured
+     * port (or a random one), and starts in milliseconds without Docker. Its
+     * startup is timed as the "boot" phase.
+     *
+     * <p> The properties of the Container do not apply to it, and it has no
+     * security, TLS, slow log or cluster nodes.
+     *
+     * @return InMemoryElasticsearch
+     */
+    @Bean
+    @ConditionalOnProperty(name=BACKEND_PROPERTY,
+                           havingValue=BACKEND_IN_MEMORY)
+    public InMemoryElasticsearch inMemoryElasticsearch() {
+        if (clusterNodes > 1) {
+            logger.warn("Cluster nodes are not supported by the in-memory Elasticsearch backend. It runs a single node.");
+        }
+        if (slowSearchThreshold != null || slowIndexingThreshold != null) {
+            logger.warn("The slow log is not supported by the in-memory Elasticsearch backend. Its thresholds are ignored.");
+        }
+        final var elasticsearch = new InMemoryElasticsearch(containerPort);
+        elasticsearch.getStartupTimings().setApplicationStartup(applicationStartup);
+        elasticsearch.start();
+        logger.info(MessageFormat.format("""
+
+
+                        *************************************************************************************
+                        |+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|
+
+                            Running in-memory Elasticsearch for development and testing.
+
+                            Version: {0}
+
+                            Elasticsearch Host Address URL: {1}
+
+                        |+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|+|
+                        *************************************************************************************
+                        """,
+                InMemoryElasticsearch.VERSION,
+                elasticsearch.getHttpHostAddress()));
+        logger.info("In-memory Elasticsearch startup phases (ms): {}", elasticsearch.getStartupTimings().summary());
+        return elasticsearch;
+    }
+
+    private LocalElasticsearchContainer startContainer(final LocalElasticsearchContainer container) {
+        container.getStartupTimings().setApplicationStartup(applicationStartup);
+        if (clusterNodes > 1) {
+            if (reuseContainer) {
+                logger.warn("Reuse is not supported for a cluster of Elasticsearch Containers. Its Containers will not be reused.");
+            }
+        } else if (reuseContainer) {
+            final var fingerprint = fingerprint(container);
+            container.withLabel(ContainerFingerprint.FINGERPRINT_LABEL, fingerprint)
+                    .withReuse(true);
+            ContainerFingerprint.removeStaleContainers(fingerprint, containerName, containerPort);
+        }
+        switch (startupMode) {
+            case ASYNC -> container.startInBackground().thenRun(() -> logBanner(container));
+            case LAZY -> container.startOnDemand().thenRun(() -> logBanner(container));
+            default -> {
+                container.start();
+                logBanner(container);
+            }
+        }
+        return container;
+    }
+
+    /*
+     Logs the followed output of the Container on a thread of its own,
+     unless configured to log each line on the thread that reads it, as
+     Testcontainers does.
+     */
+    private Consumer<OutputFrame> followConsumer(final int node, final Network network) {
+        final var prefix = network == null ? null : clusterNodeName(node);
+        if (!asyncContainerLog) {
+            return prefix == null ? new Slf4jLogConsumer(logger) : new Slf4jLogConsumer(logger).withPrefix(prefix);
+        }
+        final var minLevel = Optional.ofNullable(containerLogMinLevel)
+                .map(l -> Arrays.stream(Level.values())
+                        .filter(level -> level.name().equalsIgnoreCase(l))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalStateException(MessageFormat.format(
+                                "Unknown minimum level {0} for the output of the Elasticsearch Container.", l))))
+                .orElse(null);
+        return new AsyncLogConsumer(
+                logger,
+                prefix,
+                Optional.ofNullable(containerLogBufferSize).orElse(AsyncLogConsumer.DEFAULT_BUFFER_SIZE),
+                minLevel,
+                Arrays.stream(Optional.ofNullable(containerLogExcludes).orElseGet(() -> new String[0]))
+                        .map(Pattern::compile)
+                        .toList(),
+                Optional.ofNullable(containerLogSampleRate).orElse(1)
+        );
+    }
+
+    /*
+     Creates the Container of the given cluster node (0 if not a cluster).
+     The name and port of each node after the first are the configured
+     ones, suffixed and offset by the index of the node, and their slow log
+     entries are captured by the SlowLog of the first node.
+     */
+    private LocalElasticsearchContainer createContainer(final int node,
+                                                        final Network network,
+                                                        final SlowLog slowLog) {
+        final var container = new LocalElasticsearchContainer(
                 DockerImageName.parse(Optional.ofNullable(containerImage)
                         .orElse(ELASTICSEARCH_DEFAULT_IMAGE))
         );
-        Optional.ofNullable(containerPort).ifPresent(cp ->
-                container.withCreateContainerCmdModifier(cmd -> cmd
-                        .withName(containerName)
-                        .withHostConfig(
-                                new HostConfig().withPortBindings(
-                                        new PortBinding(
-                                                Ports.Binding.bindPort(cp),
-                                                new ExposedPort(ELASTICSEARCH_DEFAULT_PORT)),
-                                        new PortBinding(
-                                                Ports.Binding.empty(),
-                                                new ExposedPort(9300))
-                                ))));
+        final var name = Optional.ofNullable(containerName)
+                .map(n -> node == 0 ? n : n + "-" + node)
+                .orElse(null);
+        /*
+         When starting in the background or on demand, choose the port up front
+         (unless a reusable Container is wanted, whose port is whatever it was
+         started with) so that the Client can be configured before the
+         Container has started.
+         */
+        final var httpPort = Optional.ofNullable(containerPort)
+                .map(p -> p + node)
+                .orElseGet(() -> startupMode != StartupMode.BLOCKING && (!reuseContainer || network != null)
+                        ? findAvailablePort()
+                        : null);
+        final var dataSource = persistentDataSource(node);
+        container.withFixedHttpPort(httpPort);
+        Optional.ofNullable(dataSource).ifPresent(ds -> container.withPersistentData(ds, dataHostPath != null));
+        container.withCreateContainerCmdModifier(cmd -> {
+            Optional.ofNullable(name).ifPresent(cmd::withName);
+            Optional.ofNullable(dataSource).ifPresent(ds -> {
+                final var hostConfig = cmd.getHostConfig();
+                final var binds = new ArrayList<>(Arrays.asList(Optional.ofNullable(hostConfig.getBinds())
+                        .orElseGet(() -> new Bind[0])));
+                binds.add(new Bind(ds, new Volume(ELASTICSEARCH_DATA_PATH)));
+                hostConfig.withBinds(binds);
+            });
+            applyResourceLimits(cmd.getHostConfig());
+            Optional.ofNullable(httpPort).ifPresent(cp ->
+                    cmd.getHostConfig().withPortBindings(
+                            new PortBinding(
+                                    Ports.Binding.bindPort(cp),
+                                    new ExposedPort(ELASTICSEARCH_DEFAULT_PORT)),
+                            new PortBinding(
+                                    Ports.Binding.empty(),
+                                    new ExposedPort(9300))
+                    ));
+        });
         Optional.ofNullable(password).ifPresent(container::withPassword);
-        if (followContainerLog) {
-            container.withLogConsumer(new Slf4jLogConsumer(logger));
+        Optional.ofNullable(network).ifPresent(n -> joinCluster(container, node, n));
+        applySecurity(container);
+        applyReadinessCheck(container);
+        applyPerformanceProfile(container);
+        applyMemoryLimit(container);
+        final var logConsumer = followContainerLog ? followConsumer(node, network) : null;
+        if (logConsumer instanceof AsyncLogConsumer asyncLogConsumer) {
+            container.ownLogConsumer(asyncLogConsumer);
+        }
+        if (slowSearchThreshold != null || slowIndexingThreshold != null) {
+            container.withLogConsumer(Optional.ofNullable(slowLog)
+                    .orElse(container.getSlowLog())
+                    .consumer(logConsumer));
+        } else {
+            Optional.ofNullable(logConsumer).ifPresent(container::withLogConsumer);
+        }
+        return container;
+    }
+
+    /*
+     Returns the named Volume or the host directory to persist the data path
+     of the given cluster node in, if any, suffixed by the index of the node
+     after the first, since nodes cannot share a data path. A host directory
+     is created if it does not exist yet, writable by everyone, since
+     Elasticsearch runs as a user of the Container that the host does not
+     know about.
+     */
+    private String persistentDataSource(final int node) {
+        if (dataVolume != null) {
+            return node == 0 ? dataVolume : dataVolume + "-" + node;
+        }
+        if (dataHostPath == null) {
+            return null;
+        }
+        final var path = Path.of(node == 0 ? dataHostPath : dataHostPath + "-" + node).toAbsolutePath();
+        if (Files.notExists(path)) {
+            try {
+                Files.createDirectories(path);
+                Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rwxrwxrwx"));
+            } catch (final UnsupportedOperationException e) {
+                logger.debug("Unable to set the permissions of {} on this file system.", path);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(MessageFormat.format(
+                        "Unable to create the Elasticsearch data directory {0}.", path), e);
+            }
+        }
+        return path.toString();
+    }
+
+    /*
+     Replaces the single-node discovery configured by Testcontainers with
+     discovery of the other nodes on the shared Network. Every node is
+     master-eligible, so the nodes must boot together for a master to be
+     elected. Security is disabled, since nodes with security enabled only
+     talk to each other over TLS, with certificates that would first have
+     to be generated and shared.
+     */
+    private void joinCluster(final LocalElasticsearchContainer container, final int node, final Network network) {
+        final var nodeNames = IntStream.range(0, clusterNodes)
+                .mapToObj(ElasticsearchContainerConfig::clusterNodeName)
+                .collect(Collectors.joining(","));
+        container.withNetwork(network)
+                .withNetworkAliases(clusterNodeName(node));
+        container.getEnvMap().remove("discovery.type");
+        container.withEnv("cluster.name", ELASTICSEARCH_CLUSTER_NAME)
+                .withEnv("node.name", clusterNodeName(node))
+                .withEnv("discovery.seed_hosts", nodeNames)
+                .withEnv("cluster.initial_master_nodes", nodeNames)
+                .withEnv(ELASTICSEARCH_SECURITY_ENV_KEY, "false");
+    }
+
+    private static String clusterNodeName(final int node) {
+        return ELASTICSEARCH_CLUSTER_NAME + "-" + node;
+    }
+
+    private void applySecurity(final LocalElasticsearchContainer container) {
+        if (!securityEnabled) {
+            container.withEnv(ELASTICSEARCH_SECURITY_ENV_KEY, "false");
+        } else if (!sslEnabled) {
+            container.withEnv(ELASTICSEARCH_HTTP_SSL_ENV_KEY, "false");
+        }
+        if (!container.isSslEnabled()) {
+            /*
+             Without TLS, Elasticsearch does not generate a CA Certificate,
+             so there is nothing to copy out of the Container.
+             */
+            container.withCertPath("");
+        }
+    }
+
+    /*
+     Replaces the log based wait strategy configured by Testcontainers with
+     one that polls the cluster health, if configured. The startup timeout
+     applies to either strategy.
+     */
+    private void applyReadinessCheck(final LocalElasticsearchContainer container) {
+        if (readinessCheck == ReadinessCheck.CLUSTER_HEALTH) {
+            final var waitStrategy = new ClusterHealthWaitStrategy()
+                    .withStatus(Optional.ofNullable(waitStatus).orElse(ClusterHealthWaitStrategy.DEFAULT_STATUS))
+                    .withIndices(Optional.ofNullable(waitIndices).map(List::of).orElse(List.of()))
+                    .withPollInterval(Optional.ofNullable(waitPollInterval)
+                            .orElse(ClusterHealthWaitStrategy.DEFAULT_POLL_INTERVAL));
+            if (container.isSslEnabled()) {
+                waitStrategy.usingTls();
+            }
+            if (container.isSecurityEnabled()) {
+                waitStrategy.withBasicCredentials(ELASTICSEARCH_DEFAULT_USERNAME,
+                        container.getEnvMap().get(ELASTICSEARCH_PASSWORD_ENV_KEY));
+            }
+            container.waitingFor(waitStrategy);
+        } else if (waitStatus != null || waitIndices != null || waitPollInterval != null) {
+            logger.warn("The Elasticsearch Container waits for its log, so the wait status, indices and poll interval are ignored.");
+        }
+        Optional.ofNullable(waitTimeout).ifPresent(container::withStartupTimeout);
+    }
+
+    private void applyPerformanceProfile(final LocalElasticsearchContainer container) {
+        final var tuned = performanceProfile != PerformanceProfile.DEFAULT;
+        Optional.ofNullable(heapSize)
+                .or(() -> Optional.ofNullable(performanceProfile.getHeapSize()))
+                .ifPresent(hs -> container.withEnv(ELASTICSEARCH_JAVA_OPTS_ENV_KEY,
+                        MessageFormat.format("-Xms{0} -Xmx{0}", hs)));
+        if (dataVolume != null || dataHostPath != null) {
+            if (Boolean.TRUE.equals(dataOnTmpfs)) {
+                logger.warn("The Elasticsearch data path is persisted, so it will not be mounted on tmpfs.");
+            }
+        } else if (Optional.ofNullable(dataOnTmpfs).orElse(performanceProfile.isDataOnTmpfs())) {
+            container.withTmpFs(Map.of(ELASTICSEARCH_DATA_PATH, "rw,mode=1777"));
+        }
+        setting(machineLearningEnabled, tuned, performanceProfile.isFeaturesEnabled())
+                .ifPresent(e -> container.withEnv("xpack.ml.enabled", e));
+        setting(watcherEnabled, tuned, performanceProfile.isFeaturesEnabled())
+                .ifPresent(e -> container.withEnv("xpack.watcher.enabled", e));
+        setting(geoipDownloaderEnabled, tuned, performanceProfile.isFeaturesEnabled())
+                .ifPresent(e -> container.withEnv("ingest.geoip.downloader.enabled", e));
+        setting(diskWatermarksEnabled, tuned, performanceProfile.isDiskWatermarksEnabled())
+                .ifPresent(e -> container.withEnv("cluster.routing.allocation.disk.threshold_enabled", e));
+    }
+
+    /*
+     Caps the CPUs, memory, swap and block IO weight of the Container. Unless
+     configured otherwise, a Container with a memory limit gets no swap, as
+     a production node should not swap.
+     */
+    private void applyResourceLimits(final HostConfig hostConfig) {
+        Optional.ofNullable(cpus).ifPresent(c -> hostConfig.withNanoCPUs(Math.round(c * 1_000_000_000d)));
+        Optional.ofNullable(memory).ifPresent(m -> hostConfig
+                .withMemory(m.toBytes())
+                .withMemorySwap(Optional.ofNullable(memorySwap).orElse(m).toBytes()));
+        Optional.ofNullable(blkioWeight).ifPresent(hostConfig::withBlkioWeight);
+    }
+
+    /*
+     Sizes the heap to half of the memory limit, as Elasticsearch recommends,
+     unless a heap size is configured, since the default heap of 2 GB set by
+     Testcontainers may not fit within the limit at all.
+     */
+    private void applyMemoryLimit(final LocalElasticsearchContainer container) {
+        if (memory == null) {
+            if (memorySwap != null) {
+                logger.warn("A swap limit for the Elasticsearch Container requires a memory limit. It will be ignored.");
+            }
+            return;
+        }
+        final var configuredHeapSize = Optional.ofNullable(heapSize)
+                .or(() -> Optional.ofNullable(performanceProfile.getHeapSize()));
+        if (configuredHeapSize.isEmpty()) {
+            container.withEnv(ELASTICSEARCH_JAVA_OPTS_ENV_KEY,
+                    MessageFormat.format("-Xms{0}m -Xmx{0}m", String.valueOf(memory.toMegabytes() / 2)));
+        } else if (toDataSize(configuredHeapSize.get()).toBytes() >= memory.toBytes()) {
+            logger.warn("The heap of Elasticsearch ({}) does not fit within the memory limit of its Container ({}). The Container may be killed.",
+                    configuredHeapSize.get(), memory);
         }
-        container.start();
+    }
+
+    /*
+     Converts a JVM size (example: 512m) to a DataSize.
+     */
+    private static DataSize toDataSize(final String jvmSize) {
+        return DataSize.parse(jvmSize.toUpperCase().replaceAll("([KMG])$", "$1B"));
+    }
+
+    /*
+     Returns the explicitly configured value of a setting, or else the value
+     of the Performance Profile, unless the profile is the default one, in
+     which case the setting is left as the Docker Image configures it.
+     */
+    private static Optional<String> setting(final Boolean configured,
+                                            final boolean tuned,
+                                            final boolean profileDefault) {
+        return Optional.ofNullable(configured)
+                .or(() -> tuned ? Optional.of(profileDefault) : Optional.empty())
+                .map(String::valueOf);
+    }
+
+    private void logBanner(final LocalElasticsearchContainer container) {
         logger.info(MessageFormat.format("""
                       
                       
@@ -134,7 +838,65 @@ public class ElasticsearchContainerConfig {
                 container.getHttpHostAddress(),
                 ELASTICSEARCH_DEFAULT_USERNAME,
                 container.getEnvMap().get(ELASTICSEARCH_PASSWORD_ENV_KEY)));
-        return container;
+        if (clusterNodes > 1) {
+            logger.info("Elasticsearch cluster nodes: {}", container.getClusterNodes().stream()
+                    .map(ElasticsearchContainer::getHttpHostAddress)
+                    .collect(Collectors.joining(", ")));
+        }
+        logger.info("ElasticsearchContainer startup phases (ms): {}", container.getStartupTimings().summary());
+    }
+
+    private static Integer findAvailablePort() {
+        try (final var socket = new ServerSocket(0)) {
+            socket.setReuseAddress(true);
+            return socket.getLocalPort();
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to find an available port for Elasticsearch.", e);
+        }
+    }
+
+    private String fingerprint(final LocalElasticsearchContainer container) {
+        return fingerprintOf(container).build();
+    }
+
+    /*
+     The slow log and the consumers of the followed output are attached to
+     the Container when it is created, so a Context can only share a
+     Container that was created with the same settings for them. They are
+     left out of the fingerprint of a reused Container, since they are
+     attached anew each time a run attaches to it.
+     */
+    private String sharedFingerprint(final LocalElasticsearchContainer container) {
+        return fingerprintOf(container)
+                .with("slowlog.search.threshold", slowSearchThreshold)
+                .with("slowlog.indexing.threshold", slowIndexingThreshold)
+                .with("container.log.follow", followContainerLog)
+                .with("container.log.async", asyncContainerLog)
+                .with("container.log.buffer-size", containerLogBufferSize)
+                .with("container.log.min-level", containerLogMinLevel)
+                .with("container.log.excludes", Optional.ofNullable(containerLogExcludes).map(List::of).orElse(null))
+                .with("container.log.sample-rate", containerLogSampleRate)
+                .build();
+    }
+
+    private ContainerFingerprint fingerprintOf(final LocalElasticsearchContainer container) {
+        final var fingerprint = ContainerFingerprint.builder()
+                .with("container.image", Optional.ofNullable(containerImage).orElse(ELASTICSEARCH_DEFAULT_IMAGE))
+                .with("container.name", containerName)
+                .with("container.port", containerPort)
+                .withAll("env.", container.getEnvMap())
+                .withAll("tmpfs.", container.getTmpFsMapping());
+        /*
+         Only recorded when set, so that the fingerprints of Containers
+         without persistent data stay the same as before it was supported.
+         */
+        Optional.ofNullable(dataVolume).ifPresent(v -> fingerprint.with("container.data.volume", v));
+        Optional.ofNullable(dataHostPath).ifPresent(p -> fingerprint.with("container.data.host-path", p));
+        Optional.ofNullable(cpus).ifPresent(c -> fingerprint.with("container.resources.cpus", c));
+        Optional.ofNullable(memory).ifPresent(m -> fingerprint.with("container.resources.memory", m));
+        Optional.ofNullable(memorySwap).ifPresent(m -> fingerprint.with("container.resources.memory-swap", m));
+        Optional.ofNullable(blkioWeight).ifPresent(w -> fingerprint.with("container.resources.blkio-weight", w));
+        return fingerprint;
     }
 
     @ConditionalOnProperty(name="spring.local.elasticsearch.engaged",
@@ -143,39 +905,658 @@ public class ElasticsearchContainerConfig {
     @Configuration
     public static class ElasticsearchClientConfig extends ElasticsearchConfiguration {
 
-        private final ElasticsearchContainer elasticsearchContainer;
+        private final LocalElasticsearchBackend elasticsearchBackend;
+        private final StartupTimings startupTimings;
+        private final Integer maxConnections;
+        private final Integer maxConnectionsPerRoute;
+        private final Integer ioThreads;
+        private final Duration keepAlive;
+        private final Duration connectTimeout;
+        private final Duration socketTimeout;
+        private final Boolean compression;
+        private final ClientRequestObserver clientRequestObserver = new ClientRequestObserver();
 
-        public ElasticsearchClientConfig(final ElasticsearchContainer elasticsearchContainer) {
-            this.elasticsearchContainer = elasticsearchContainer;
+        /**
+         * Constructs an instance of this Configuration Class with the given backend and properties.
+         *
+         * @param elasticsearchBackend    The Container, or in-memory stand-in, the Client connects to.
+         * @param startupTimings          The StartupTimings of the Application Context.
+         * @param maxConnections          The maximum number of connections in the pool (optional).
+         * @param maxConnectionsPerRoute  The maximum number of connections in the pool per node (optional).
+         * @param ioThreads               The number of IO Reactor threads (optional).
+         * @param keepAlive               How long an idle connection is kept alive in the pool (optional).
+         * @param connectTimeout          The timeout for establishing a connection (optional).
+         * @param socketTimeout           The timeout for waiting for data on a connection (optional).
+         * @param compression             Whether to compress request bodies and accept compressed responses (optional).
+         */
+        public ElasticsearchClientConfig(final LocalElasticsearchBackend elasticsearchBackend,
+                                         final StartupTimings startupTimings,
+                                         @Value("${spring.local.elasticsearch.client.max-connections:#{null}}")
+                                         final Integer maxConnections,
+                                         @Value("${spring.local.elasticsearch.client.max-connections-per-route:#{null}}")
+                                         final Integer maxConnectionsPerRoute,
+                                         @Value("${spring.local.elasticsearch.client.io-threads:#{null}}")
+                                         final Integer ioThreads,
+                                         @Value("${spring.local.elasticsearch.client.keep-alive:#{null}}")
+                                         final Duration keepAlive,
+                                         @Value("${spring.local.elasticsearch.client.connect-timeout:#{null}}")
+                                         final Duration connectTimeout,
+                                         @Value("${spring.local.elasticsearch.client.socket-timeout:#{null}}")
+                                         final Duration socketTimeout,
+                                         @Value("${spring.local.elasticsearch.client.compression:#{false}}")
+                                         final Boolean compression) {
+            this.elasticsearchBackend = elasticsearchBackend;
+            this.startupTimings = startupTimings;
+            this.maxConnections = maxConnections;
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            this.ioThreads = ioThreads;
+            this.keepAlive = keepAlive;
+            this.connectTimeout = connectTimeout;
+            this.socketTimeout = socketTimeout;
+            this.compression = compression;
         }
 
         /**
          * Returns a Spring Bean instructing how the Elasticsearch RestClient
-         * should be configured.
+         * should be configured. If the Container is still starting, or is to
+         * be started on demand, the Client is configured without waiting for
+         * it, and each request waits until it has started instead (the first
+         * request starting it, if need be). If it is to be started on
+         * demand, not even the Docker host is resolved until then, so that a
+         * context that never sends a request does not need Docker. If the Container is the first node
+         * of a cluster, the Client is connected to every node, and balances
+         * requests across them. If TLS or security is disabled in
+         * the Container, the Client connects over plain HTTP, without an
+         * SSLContext or without credentials, respectively.
+         *
+         * <p> The connection pool, IO Reactor threads, keep-alive, timeouts
+         * and compression of the Client are configured here as well, since
+         * this callback replaces the one Spring Data would otherwise apply.
+         * Any that are not configured keep the defaults of the RestClient.
          *
          * @return ClientConfiguration
          */
         @Override
         public @NotNull ClientConfiguration clientConfiguration() {
-            final var credentialsProvider = new BasicCredentialsProvider();
-            credentialsProvider.setCredentials(
-                    AuthScope.ANY,
-                    new UsernamePasswordCredentials(
-                            ELASTICSEARCH_DEFAULT_USERNAME,
-                            elasticsearchContainer.getEnvMap().get(ELASTICSEARCH_PASSWORD_ENV_KEY)
-                    )
-            );
-            return ClientConfiguration.builder()
-                    .connectedTo(elasticsearchContainer.getHttpHostAddress())
-                    .usingSsl()
+            final var maybeSecureBuilder = ClientConfiguration.builder()
+                    .connectedTo(elasticsearchBackend.getHttpHostAddresses().toArray(String[]::new));
+            final ClientConfiguration.TerminalClientConfigurationBuilder builder =
+                    elasticsearchBackend.isSslEnabled() ? maybeSecureBuilder.usingSsl() : maybeSecureBuilder;
+            return builder
                     .withClientConfigurer(ElasticsearchClients.ElasticsearchRestClientConfigurationCallback.from(restClientBuilder -> {
-                        restClientBuilder.setHttpClientConfigCallback(httpClientBuilder ->
-                                httpClientBuilder.setDefaultCredentialsProvider(credentialsProvider)
-                                        .setSSLContext(elasticsearchContainer.createSslContextFromCa())
-                        );
+                        restClientBuilder.setCompressionEnabled(compression);
+                        restClientBuilder.setRequestConfigCallback(requestConfigBuilder -> {
+                            Optional.ofNullable(connectTimeout).ifPresent(t ->
+                                    requestConfigBuilder.setConnectTimeout(Math.toIntExact(t.toMillis())));
+                            Optional.ofNullable(socketTimeout).ifPresent(t ->
+                                    requestConfigBuilder.setSocketTimeout(Math.toIntExact(t.toMillis())));
+                            return requestConfigBuilder;
+                        });
+                        restClientBuilder.setHttpClientConfigCallback(httpClientBuilder -> {
+                            Optional.ofNullable(maxConnections).ifPresent(httpClientBuilder::setMaxConnTotal);
+                            Optional.ofNullable(maxConnectionsPerRoute).ifPresent(httpClientBuilder::setMaxConnPerRoute);
+                            Optional.ofNullable(ioThreads).ifPresent(n ->
+                                    httpClientBuilder.setDefaultIOReactorConfig(
+                                            IOReactorConfig.custom().setIoThreadCount(n).build()));
+                            Optional.ofNullable(keepAlive).ifPresent(ka ->
+                                    httpClientBuilder.setKeepAliveStrategy(new CappedKeepAliveStrategy(ka)));
+                            if (elasticsearchBackend.isSecurityEnabled()) {
+                                final var credentialsProvider = new BasicCredentialsProvider();
+                                credentialsProvider.setCredentials(
+                                        AuthScope.ANY,
+                                        new UsernamePasswordCredentials(
+                                                ELASTICSEARCH_DEFAULT_USERNAME,
+                                                elasticsearchBackend.getPassword()
+                                        )
+                                );
+                                httpClientBuilder.setDefaultCredentialsProvider(credentialsProvider);
+                            }
+                            if (elasticsearchBackend.isSslEnabled()) {
+                                httpClientBuilder.setSSLContext(elasticsearchBackend.sslContext());
+                            }
+                            if (!elasticsearchBackend.isStartupComplete()) {
+                                httpClientBuilder.setRoutePlanner(new BackendRoutePlanner(elasticsearchBackend));
+                                httpClientBuilder.addInterceptorFirst((HttpRequestInterceptor) (request, context) ->
+                                        elasticsearchBackend.awaitStartup());
+                            }
+                            httpClientBuilder.addInterceptorLast(clientRequestObserver.requestInterceptor());
+                            return httpClientBuilder;
+                        });
                         return restClientBuilder;
                     }))
                     .build();
         }
+
+        /**
+         * Returns the options of the transport of the ElasticsearchClient
+         * (and so of the ElasticsearchOperations and Repositories), with a
+         * response consumer that observes each request it sends.
+         *
+         * @return TransportOptions
+         */
+        @Override
+        public @NotNull TransportOptions transportOptions() {
+            return new RestClientOptions(RequestOptions.DEFAULT.toBuilder()
+                    .setHttpAsyncResponseConsumerFactory(clientRequestObserver.responseConsumerFactory())
+                    .build());
+        }
+
+        /**
+         * Returns a Spring Bean that observes the requests sent by the
+         * transport of the ElasticsearchClient, for metrics.
+         *
+         * @return ClientRequestObserver
+         */
+        @Bean
+        public ClientRequestObserver elasticsearchClientRequestObserver() {
+            return clientRequestObserver;
+        }
+
+        /**
+         * Returns a Spring Bean of the Elasticsearch RestClient, timing how
+         * long it takes to build (including the creation of the SSLContext,
+         * unless the Container is still starting).
+         *
+         * @param clientConfiguration  The configuration of the RestClient.
+         * @return RestClient
+         */
+        @Bean
+        @Override
+        public @NotNull RestClient elasticsearchRestClient(final ClientConfiguration clientConfiguration) {
+            final var restClient = startupTimings.time("client", () ->
+                    super.elasticsearchRestClient(clientConfiguration));
+            logger.info("Elasticsearch startup phases (ms): {}", startupTimings.summary());
+            return restClient;
+        }
+    }
+
+    @ConditionalOnProperty(name="spring.local.elasticsearch.engaged",
+                           havingValue="true",
+                           matchIfMissing = true)
+    @Configuration
+    public static class ElasticsearchBulkIndexerConfig {
+
+        private final Integer maxActions;
+        private final DataSize maxSize;
+        private final Integer concurrency;
+        private final String[] seedLocations;
+
+        /**
+         * Constructs an instance of this Configuration Class with the given properties.
+         *
+         * @param maxActions     The maximum number of documents in a bulk request (optional).
+         * @param maxSize        The maximum size of the documents in a bulk request (optional).
+         * @param concurrency    The number of bulk requests to send concurrently (optional).
+         * @param seedLocations  The locations of the bulk files to seed Elasticsearch with (optional).
+         */
+        public ElasticsearchBulkIndexerConfig(@Value("${spring.local.elasticsearch.bulk.max-actions:#{null}}")
+                                              final Integer maxActions,
+                                              @Value("${spring.local.elasticsearch.bulk.max-size:#{null}}")
+                                              final DataSize maxSize,
+                                              @Value("${spring.local.elasticsearch.bulk.concurrency:#{null}}")
+                                              final Integer concurrency,
+                                              @Value("${spring.local.elasticsearch.seed.locations:#{null}}")
+                                              final String[] seedLocations) {
+            this.maxActions = maxActions;
+            this.maxSize = maxSize;
+            this.concurrency = concurrency;
+            this.seedLocations = seedLocations;
+        }
+
+        /**
+         * Returns a Spring Bean that streams entities into Elasticsearch with
+         * bounded, concurrent bulk requests, for seeding large data sets.
+         *
+         * @param elasticsearchOperations  The ElasticsearchOperations to map and index documents with.
+         * @return BulkIndexer
+         */
+        @Bean
+        public BulkIndexer bulkIndexer(final ElasticsearchOperations elasticsearchOperations) {
+            return new BulkIndexer(
+                    elasticsearchOperations,
+                    Optional.ofNullable(maxActions).orElse(BulkIndexer.DEFAULT_MAX_ACTIONS),
+                    Optional.ofNullable(maxSize).map(DataSize::toBytes).orElse(BulkIndexer.DEFAULT_MAX_BYTES),
+                    Optional.ofNullable(concurrency).orElse(BulkIndexer.DEFAULT_CONCURRENCY)
+            );
+        }
+
+        /**
+         * Returns a Spring Bean that seeds Elasticsearch with the bulk files
+         * at the configured locations, once every other singleton (including
+         * the Repositories, which create their indices with their mappings)
+         * is initialized. The files are loaded in the order of the locations,
+         * and the files matching a pattern in the order of their names,
+         * with as many bulk requests in flight at once as the BulkIndexer.
+         * Loading is timed as the "seed" startup phase.
+         *
+         * @param startupTimings           The StartupTimings of the Application Context.
+         * @param elasticsearchRestClient  The RestClient to send bulk requests with.
+         * @param resourceLoader           The ResourceLoader to resolve the locations with.
+         * @return SmartInitializingSingleton
+         */
+        @Bean
+        @ConditionalOnProperty(name="spring.local.elasticsearch.seed.locations")
+        public SmartInitializingSingleton elasticsearchSeeder(final StartupTimings startupTimings,
+                                                              final RestClient elasticsearchRestClient,
+                                                              final ResourceLoader resourceLoader) {
+            final var loader = new BulkFileLoader(
+                    elasticsearchRestClient,
+                    Optional.ofNullable(maxActions).orElse(BulkIndexer.DEFAULT_MAX_ACTIONS),
+                    Optional.ofNullable(maxSize).map(DataSize::toBytes).orElse(BulkIndexer.DEFAULT_MAX_BYTES),
+                    Optional.ofNullable(concurrency).orElse(BulkIndexer.DEFAULT_CONCURRENCY)
+            );
+            return () -> {
+                final var resources = resolveSeedLocations(resourceLoader);
+                if (resources.isEmpty()) {
+                    logger.warn("No bulk files found at {}.", Arrays.toString(seedLocations));
+                    return;
+                }
+                startupTimings.time("seed", () -> loader.load(resources));
+            };
+        }
+
+        private List<Resource> resolveSeedLocations(final ResourceLoader resourceLoader) {
+            final var resolver = ResourcePatternUtils.getResourcePatternResolver(resourceLoader);
+            final var resources = new ArrayList<Resource>();
+            for (final var location : seedLocations) {
+                try {
+                    Arrays.stream(resolver.getResources(location.trim()))
+                            .filter(Resource::exists)
+                            .sorted(Comparator.comparing(r -> Optional.ofNullable(r.getFilename()).orElse("")))
+                            .forEach(resources::add);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(MessageFormat.format(
+                            "Unable to resolve bulk file location {0}.", location), e);
+                }
+            }
+            return resources;
+        }
+    }
+
+    @ConditionalOnProperty(name="spring.local.elasticsearch.engaged",
+                           havingValue="true",
+                           matchIfMissing = true)
+    @Configuration
+    public static class ElasticsearchGeneratorConfig {
+
+        private final Class<?> type;
+        private final Long count;
+        private final Long seed;
+        private final Integer keywordCardinality;
+        private final String cacheDirectory;
+        private final Boolean cache;
+        private final Integer maxActions;
+        private final DataSize maxSize;
+        private final Integer concurrency;
+
+        /**
+         * Constructs an instance of this Configuration Class with the given properties.
+         *
+         * @param type                The {@code @Document} type to generate documents of at startup (optional).
+         * @param count               The number of documents to generate (optional).
+         * @param seed                The seed to generate documents from (optional).
+         * @param keywordCardinality  The number of distinct values of each keyword property (optional).
+         * @param cacheDirectory      The directory to cache generated documents in (optional).
+         * @param cache               Whether to cache generated documents (optional).
+         * @param maxActions          The maximum number of documents in a bulk request (optional).
+         * @param maxSize             The maximum size of the documents in a bulk request (optional).
+         * @param concurrency         The number of files to generate, and bulk requests to send, concurrently (optional).
+         */
+        public ElasticsearchGeneratorConfig(@Value("${spring.local.elasticsearch.generate.type:#{null}}")
+                                            final Class<?> type,
+                                            @Value("${spring.local.elasticsearch.generate.count:#{null}}")
+                                            final Long count,
+                                            @Value("${spring.local.elasticsearch.generate.seed:#{null}}")
+                                            final Long seed,
+                                            @Value("${spring.local.elasticsearch.generate.keyword-cardinality:#{null}}")
+                                            final Integer keywordCardinality,
+                                            @Value("${spring.local.elasticsearch.generate.cache-directory:#{null}}")
+                                            final String cacheDirectory,
+                                            @Value("${spring.local.elasticsearch.generate.cache:#{true}}")
+                                            final Boolean cache,
+                                            @Value("${spring.local.elasticsearch.bulk.max-actions:#{null}}")
+                                            final Integer maxActions,
+                                            @Value("${spring.local.elasticsearch.bulk.max-size:#{null}}")
+                                            final DataSize maxSize,
+                                            @Value("${spring.local.elasticsearch.bulk.concurrency:#{null}}")
+                                            final Integer concurrency) {
+            this.type = type;
+            this.count = count;
+            this.seed = seed;
+            this.keywordCardinality = keywordCardinality;
+            this.cacheDirectory = cacheDirectory;
+            this.cache = cache;
+            this.maxActions = maxActions;
+            this.maxSize = maxSize;
+            this.concurrency = concurrency;
+        }
+
+        /**
+         * Returns a Spring Bean that generates synthetic documents of a
+         * {@code @Document} type as bulk files, for testing at scale.
+         *
+         * @param elasticsearchConverter  The ElasticsearchConverter to read the mappings of documents with.
+         * @return DocumentGenerator
+         */
+        @Bean
+        public DocumentGenerator documentGenerator(final ElasticsearchConverter elasticsearchConverter) {
+            return new DocumentGenerator(
+                    elasticsearchConverter,
+                    Optional.ofNullable(seed).orElse(DocumentGenerator.DEFAULT_SEED),
+                    Optional.ofNullable(keywordCardinality).orElse(DocumentGenerator.DEFAULT_KEYWORD_CARDINALITY),
+                    DocumentGenerator.DEFAULT_DOCUMENTS_PER_FILE,
+                    Optional.ofNullable(concurrency).orElse(BulkIndexer.DEFAULT_CONCURRENCY)
+            );
+        }
+
+        /**
+         * Returns a Spring Bean that, once every other singleton is
+         * initialized, generates the configured number of documents of the
+         * configured type (or reuses those cached by an earlier run), creates
+         * their index with its mappings if it does not exist, and loads them
+         * into it with concurrent bulk requests. Generating and loading is
+         * timed as the "generate" startup phase.
+         *
+         * @param startupTimings           The StartupTimings of the Application Context.
+         * @param elasticsearchOperations  The ElasticsearchOperations to create the index with.
+         * @param elasticsearchRestClient  The RestClient to send bulk requests with.
+         * @param documentGenerator        The DocumentGenerator.
+         * @return SmartInitializingSingleton
+         */
+        @Bean
+        @ConditionalOnProperty(name="spring.local.elasticsearch.generate.type")
+        public SmartInitializingSingleton elasticsearchGenerator(final StartupTimings startupTimings,
+                                                                 final ElasticsearchOperations elasticsearchOperations,
+                                                                 final RestClient elasticsearchRestClient,
+                                                                 final DocumentGenerator documentGenerator) {
+            final var loader = new BulkFileLoader(
+                    elasticsearchRestClient,
+                    Optional.ofNullable(maxActions).orElse(BulkIndexer.DEFAULT_MAX_ACTIONS),
+                    Optional.ofNullable(maxSize).map(DataSize::toBytes).orElse(BulkIndexer.DEFAULT_MAX_BYTES),
+                    Optional.ofNullable(concurrency).orElse(BulkIndexer.DEFAULT_CONCURRENCY)
+            );
+            return () -> startupTimings.time("generate", () -> {
+                final var indexOperations = elasticsearchOperations.indexOps(type);
+                if (!indexOperations.exists()) {
+                    indexOperations.createWithMapping();
+                }
+                final var directory = resolveGenerateDirectory();
+                try {
+                    return loader.load(documentGenerator
+                            .generate(type, Optional.ofNullable(count).orElse(DocumentGenerator.DEFAULT_COUNT), directory)
+                            .stream()
+                            .<Resource>map(FileSystemResource::new)
+                            .toList());
+                } finally {
+                    if (!cache) {
+                        FileSystemUtils.deleteRecursively(directory.toFile());
+                    }
+                }
+            });
+        }
+
+        private Path resolveGenerateDirectory() {
+            if (cache) {
+                return Optional.ofNullable(cacheDirectory)
+                        .map(Path::of)
+                        .orElse(Path.of(System.getProperty("java.io.tmpdir"), "spring-local-elasticsearch", "generated"));
+            }
+            try {
+                return Files.createTempDirectory("spring-local-elasticsearch-generated");
+            } catch (final IOException e) {
+                throw new UncheckedIOException("Unable to create a directory to generate documents in.", e);
+            }
+        }
+    }
+
+    @ConditionalOnClass(name = "org.hibernate.event.spi.PostCommitInsertEventListener")
+    @ConditionalOnExpression("${spring.local.elasticsearch.engaged:true} "
+                             + "and ${spring.local.elasticsearch.sync.enabled:false}")
+    @Configuration
+    public static class ElasticsearchSyncConfig {
+
+        private final Integer batchSize;
+        private final Integer bufferSize;
+        private final Duration flushInterval;
+
+        /**
+         * Constructs an instance of this Configuration Class with the given properties.
+         *
+         * @param batchSize      The maximum number of documents in a bulk request (optional).
+         * @param bufferSize     The maximum number of documents waiting to be flushed (optional).
+         * @param flushInterval  How long a document waits to be flushed, at most (optional).
+         */
+        public ElasticsearchSyncConfig(@Value("${spring.local.elasticsearch.sync.batch-size:#{null}}")
+                                       final Integer batchSize,
+                                       @Value("${spring.local.elasticsearch.sync.buffer-size:#{null}}")
+                                       final Integer bufferSize,
+                                       @Value("${spring.local.elasticsearch.sync.flush-interval:#{null}}")
+                                       final Duration flushInterval) {
+            this.batchSize = batchSize;
+            this.bufferSize = bufferSize;
+            this.flushInterval = flushInterval;
+        }
+
+        /**
+         * Returns a Spring Bean that writes the changes to JPA entities into
+         * Elasticsearch behind them, coalesced and in bulk. Whatever is still
+         * buffered is flushed when the Application Context closes.
+         *
+         * @param elasticsearchOperations  The ElasticsearchOperations to map documents with.
+         * @param elasticsearchRestClient  The RestClient to send bulk requests with.
+         * @return EntitySync
+         */
+        @Bean
+        public EntitySync entitySync(final ElasticsearchOperations elasticsearchOperations,
+                                     final RestClient elasticsearchRestClient) {
+            final var resolvedBatchSize = Optional.ofNullable(batchSize).orElse(EntitySync.DEFAULT_BATCH_SIZE);
+            return new EntitySync(
+                    elasticsearchOperations,
+                    elasticsearchRestClient,
+                    resolvedBatchSize,
+                    Optional.ofNullable(bufferSize).orElse(Math.max(resolvedBatchSize, EntitySync.DEFAULT_BUFFER_SIZE)),
+                    Optional.ofNullable(flushInterval).orElse(EntitySync.DEFAULT_FLUSH_INTERVAL)
+            );
+        }
+
+        /**
+         * Returns a Spring Bean that, once every other singleton is
+         * initialized, registers a listener with each Hibernate
+         * EntityManagerFactory to report the entities it changes to the
+         * EntitySync after their transaction commits, and starts flushing the
+         * EntitySync on its interval.
+         *
+         * @param entitySync              The EntitySync.
+         * @param entityManagerFactories  The EntityManagerFactories to listen to.
+         * @return SmartInitializingSingleton
+         */
+        @Bean
+        public SmartInitializingSingleton entitySyncRegistrar(final EntitySync entitySync,
+                                                              final ObjectProvider<EntityManagerFactory> entityManagerFactories) {
+            return () -> {
+                entityManagerFactories.orderedStream().forEach(entityManagerFactory ->
+                        EntitySyncListener.register(entityManagerFactory, entitySync));
+                entitySync.start();
+            };
+        }
+    }
+
+    @ConditionalOnClass(name = "reactor.core.publisher.Flux")
+    @ConditionalOnProperty(name="spring.local.elasticsearch.engaged",
+                           havingValue="true",
+                           matchIfMissing = true)
+    @Configuration
+    public static class ReactiveElasticsearchClientConfig {
+
+        /**
+         * Returns a Spring Bean of the ReactiveElasticsearchClient. It shares
+         * the transport of the blocking ElasticsearchClient, and so its
+         * RestClient, connection pool and credentials, but sends requests
+         * asynchronously and emits responses as they arrive, rather than
+         * blocking the calling thread.
+         *
+         * <p> This does not extend ReactiveElasticsearchConfiguration, since
+         * its Beans have the same names as those of the blocking
+         * configuration, and a second RestClient would only duplicate the
+         * connection pool.
+         *
+         * @param elasticsearchTransport  The transport of the blocking ElasticsearchClient.
+         * @return ReactiveElasticsearchClient
+         */
+        @Bean
+        public ReactiveElasticsearchClient reactiveElasticsearchClient(final ElasticsearchTransport elasticsearchTransport) {
+            return new ReactiveElasticsearchClient(elasticsearchTransport);
+        }
+
+        /**
+         * Returns a Spring Bean of the ReactiveElasticsearchOperations, which
+         * backs ReactiveElasticsearchRepositories.
+         *
+         * @param elasticsearchConverter       The converter shared with the blocking ElasticsearchOperations.
+         * @param reactiveElasticsearchClient  The ReactiveElasticsearchClient.
+         * @return ReactiveElasticsearchOperations
+         */
+        @Bean(name = {"reactiveElasticsearchOperations", "reactiveElasticsearchTemplate"})
+        public ReactiveElasticsearchOperations reactiveElasticsearchOperations(final ElasticsearchConverter elasticsearchConverter,
+                                                                               final ReactiveElasticsearchClient reactiveElasticsearchClient) {
+            return new ReactiveElasticsearchTemplate(reactiveElasticsearchClient, elasticsearchConverter);
+        }
+    }
+
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnProperty(name="spring.local.elasticsearch.engaged",
+                           havingValue="true",
+                           matchIfMissing = true)
+    @Configuration
+    public static class ElasticsearchMetricsConfig {
+
+        public static final String STARTUP_TIMER_NAME = "spring.local.elasticsearch.startup";
+        public static final String CLIENT_REQUESTS_TIMER_NAME = "spring.local.elasticsearch.client.requests";
+        public static final String CLIENT_TOOK_TIMER_NAME = "spring.local.elasticsearch.client.took";
+        public static final String CLIENT_REQUEST_SIZE_NAME = "spring.local.elasticsearch.client.request.size";
+        public static final String CLIENT_RESPONSE_SIZE_NAME = "spring.local.elasticsearch.client.response.size";
+        public static final String CLIENT_BULK_FAILURES_NAME = "spring.local.elasticsearch.client.bulk.failures";
+        public static final String SYNC_LAG_TIMER_NAME = "spring.local.elasticsearch.sync.lag";
+        public static final String SYNC_BATCH_SIZE_NAME = "spring.local.elasticsearch.sync.batch.size";
+        public static final String SYNC_FAILURES_NAME = "spring.local.elasticsearch.sync.failures";
+        public static final String SYNC_PENDING_GAUGE_NAME = "spring.local.elasticsearch.sync.pending";
+
+        private final boolean percentileHistograms;
+
+        /**
+         * Constructs an instance of this Configuration Class with the given properties.
+         *
+         * @param percentileHistograms  Whether the Timers and Distribution Summaries publish percentile histograms.
+         */
+        public ElasticsearchMetricsConfig(@Value("${spring.local.elasticsearch.metrics.percentile-histograms:#{false}}")
+                                          final Boolean percentileHistograms) {
+            this.percentileHistograms = percentileHistograms;
+        }
+
+        /**
+         * Returns a Spring Bean that records each phase of starting the
+         * Container and its Client in this Application Context as a
+         * Micrometer Timer, tagged by phase. Phases that complete after the
+         * MeterRegistry is bound are recorded as they complete, until the
+         * Context closes.
+         *
+         * @param startupTimings  The StartupTimings of the Application Context.
+         * @return StartupTimingsMetrics
+         */
+        @Bean
+        public StartupTimingsMetrics elasticsearchStartupMetrics(final StartupTimings startupTimings) {
+            return new StartupTimingsMetrics(startupTimings);
+        }
+
+        /**
+         * Returns a Spring Bean that records each request the Client sends,
+         * once the MeterRegistry is bound: its round-trip time, the time
+         * Elasticsearch reports it took, and the sizes of its request and
+         * response, tagged by operation and index (and the round-trip time
+         * by method and status as well), and the failed items of bulk
+         * requests, counted by the index of each item. Percentile histograms
+         * are published only if enabled, since each adds a series per bucket
+         * to every combination of tags.
+         *
+         * @param clientRequestObserver  The observer of the requests the Client sends.
+         * @return MeterBinder
+         */
+        @Bean
+        public MeterBinder elasticsearchClientMetrics(final ClientRequestObserver clientRequestObserver) {
+            return registry -> clientRequestObserver.onRequest(request -> {
+                final var tags = Tags.of("operation", request.getOperation(), "index", request.getIndex());
+                Timer.builder(CLIENT_REQUESTS_TIMER_NAME)
+                        .description("Round-trip time of requests sent by the local Elasticsearch Client")
+                        .tags(tags)
+                        .tag("method", request.getMethod())
+                        .tag("status", String.valueOf(request.getStatus()))
+                        .publishPercentileHistogram(percentileHistograms)
+                        .register(registry)
+                        .record(request.getRoundTrip());
+                request.getTook().ifPresent(took -> Timer.builder(CLIENT_TOOK_TIMER_NAME)
+                        .description("Time Elasticsearch reports requests sent by the local Elasticsearch Client took")
+                        .tags(tags)
+                        .publishPercentileHistogram(percentileHistograms)
+                        .register(registry)
+                        .record(took));
+                if (request.getRequestBytes() >= 0) {
+                    DistributionSummary.builder(CLIENT_REQUEST_SIZE_NAME)
+                            .description("Size of the bodies of requests sent by the local Elasticsearch Client")
+                            .baseUnit("bytes")
+                            .tags(tags)
+                            .publishPercentileHistogram(percentileHistograms)
+                            .register(registry)
+                            .record(request.getRequestBytes());
+                }
+                DistributionSummary.builder(CLIENT_RESPONSE_SIZE_NAME)
+                        .description("Size of the bodies of responses received by the local Elasticsearch Client")
+                        .baseUnit("bytes")
+                        .tags(tags)
+                        .publishPercentileHistogram(percentileHistograms)
+                        .register(registry)
+                        .record(request.getResponseBytes());
+                request.getBulkFailures().forEach((index, failures) -> Counter.builder(CLIENT_BULK_FAILURES_NAME)
+                        .description("Failed items of bulk requests sent by the local Elasticsearch Client")
+                        .tag("index", index)
+                        .register(registry)
+                        .increment(failures));
+            });
+        }
+
+        /**
+         * Returns a Spring Bean that records, if entity changes are synced,
+         * each bulk request the EntitySync flushes once the MeterRegistry is
+         * bound: the lag of each document, from when its entity first changed
+         * to when it was indexed, the number of documents in each request,
+         * and the documents Elasticsearch failed to index. The number of
+         * documents waiting to be flushed is gauged as well.
+         *
+         * @param entitySync  The EntitySync, if entity changes are synced.
+         * @return MeterBinder
+         */
+        @Bean
+        public MeterBinder elasticsearchSyncMetrics(final ObjectProvider<EntitySync> entitySync) {
+            return registry -> entitySync.ifAvailable(sync -> {
+                Gauge.builder(SYNC_PENDING_GAUGE_NAME, sync, EntitySync::getPendingCount)
+                        .description("Entity changes waiting to be synced with local Elasticsearch")
+                        .register(registry);
+                final var lag = Timer.builder(SYNC_LAG_TIMER_NAME)
+                        .description("Time from an entity changing to its document being synced with local Elasticsearch")
+                        .publishPercentileHistogram(percentileHistograms)
+                        .register(registry);
+                final var batchSize = DistributionSummary.builder(SYNC_BATCH_SIZE_NAME)
+                        .description("Documents in each bulk request of entity changes synced with local Elasticsearch")
+                        .publishPercentileHistogram(percentileHistograms)
+                        .register(registry);
+                final var failures = Counter.builder(SYNC_FAILURES_NAME)
+                        .description("Entity changes that failed to sync with local Elasticsearch")
+                        .register(registry);
+                sync.onFlush(batch -> {
+                    batch.getLags().forEach(lag::record);
+                    batchSize.record(batch.getDocuments());
+                    failures.increment(batch.getFailures());
+                });
+            });
+        }
     }
 }
@@ -0,0 +1,98 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p> A prefix for the names of indices, scoped to the current thread, so
+ * that tests running concurrently against the same Elasticsearch each
+ * work in indices of their own.
+ *
+ * <p> Index names opt in with SpEL in their {@code @Document} annotation,
+ * which Spring Data evaluates each time it resolves the index of a
+ * document, on the thread resolving it:
+ * <pre>
+ * &#64;Document(indexName = "#{T(io.github.quinnandrews.spring.local.elasticsearch.config.IndexNamespace).prefix()}guitar_pedals")
+ * </pre>
+ * Outside a namespace, the prefix is empty, and so the index name is the
+ * same as it would be without it.
+ *
+ * <p> Every prefix entered is remembered, so that index names can be
+ * stripped of it where the thread that resolved them is not known (such
+ * as in the metrics of the requests of the Client, which are recorded on
+ * the IO Reactor threads).
+ *
+ * @author Quinn Andrews
+ */
+public final class IndexNamespace {
+
+    private static final ThreadLocal<String> PREFIX = new ThreadLocal<>();
+    private static final Set<String> ENTERED = ConcurrentHashMap.newKeySet();
+
+    private IndexNamespace() {
+        // no-op
+    }
+
+    /**
+     * Returns the prefix of the namespace of the current thread, or an empty
+     * String if it is in none.
+     *
+     * @return String
+     */
+    public static String prefix() {
+        return Optional.ofNullable(PREFIX.get()).orElse("");
+    }
+
+    /**
+     * Puts the current thread in the namespace of the given prefix, in place
+     * of any it was in, and returns the prefix of that one, so that it can
+     * be restored.
+     *
+     * @param prefix  The prefix, which must be valid at the start of an index name (lowercase, and not starting with '_', '-' or '+').
+     * @return String The prefix of the namespace the thread was in, or null if it was in none.
+     */
+    public static String enter(final String prefix) {
+        final var previous = PREFIX.get();
+        PREFIX.set(prefix);
+        ENTERED.add(prefix);
+        return previous;
+    }
+
+    /**
+     * Puts the current thread back in the namespace it was in before
+     * {@link #enter(String)}, or takes it out of any if it was in none.
+     *
+     * @param previous  The prefix returned by {@link #enter(String)}, or null.
+     */
+    public static void restore(final String previous) {
+        if (previous == null) {
+            leave();
+        } else {
+            PREFIX.set(previous);
+        }
+    }
+
+    /**
+     * Takes the current thread out of its namespace.
+     */
+    public static void leave() {
+        PREFIX.remove();
+    }
+
+    /**
+     * Returns the given index name without the prefix of any namespace
+     * entered, on any thread, or as it is if it has none.
+     *
+     * @param indexName  The name of an index, possibly in a namespace.
+     * @return String
+     */
+    public static String strip(final String indexName) {
+        return ENTERED.stream()
+                .filter(p -> !p.isEmpty() && indexName.startsWith(p))
+                .max(Comparator.comparingInt(String::length))
+                .map(p -> indexName.substring(p.length()))
+                .orElse(indexName);
+    }
+}
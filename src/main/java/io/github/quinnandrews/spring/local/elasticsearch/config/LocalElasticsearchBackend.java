@@ -0,0 +1,89 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import javax.net.ssl.SSLContext;
+import java.util.List;
+
+/**
+ * <p> What the Elasticsearch Client connects to: the Docker Container (by
+ * default), or the in-memory stand-in for it. The Client, and the rest of
+ * the configuration of this project, only depend on what is described
+ * here, so that either can be configured without any other change.
+ *
+ * @author Quinn Andrews
+ */
+public interface LocalElasticsearchBackend {
+
+    /**
+     * Returns the host and port of the HTTP address of every node, starting
+     * with the first (example: localhost:9200).
+     *
+     * @return List of Strings
+     */
+    List<String> getHttpHostAddresses();
+
+    /**
+     * Returns the host to connect to for a host of
+     * {@link #getHttpHostAddresses()}. Those are the hosts to connect to,
+     * unless the backend is still to be started on demand, in which case
+     * it may return a placeholder there, so that nothing is resolved
+     * before the first request, and resolve it here (starting the backend,
+     * if need be).
+     *
+     * @param host  A host of getHttpHostAddresses().
+     * @return String
+     */
+    default String resolveHost(final String host) {
+        return host;
+    }
+
+    /**
+     * Returns whether security is enabled, in which case the Client must
+     * authenticate.
+     *
+     * @return boolean
+     */
+    boolean isSecurityEnabled();
+
+    /**
+     * Returns whether HTTP is served over TLS, in which case the Client
+     * must trust the CA Certificate of the backend.
+     *
+     * @return boolean
+     */
+    boolean isSslEnabled();
+
+    /**
+     * Returns an SSLContext that trusts the CA Certificate of the backend,
+     * if HTTP is served over TLS.
+     *
+     * @return SSLContext
+     */
+    SSLContext sslContext();
+
+    /**
+     * Returns the password of the 'elastic' user, if security is enabled.
+     *
+     * @return String
+     */
+    String getPassword();
+
+    /**
+     * Returns whether the backend has finished starting, successfully or not.
+     *
+     * @return boolean
+     */
+    boolean isStartupComplete();
+
+    /**
+     * Waits until the backend has started, if it is still starting.
+     */
+    void awaitStartup();
+
+    /**
+     * Returns the timings of each phase of starting the backend and its
+     * Client.
+     *
+     * @return StartupTimings
+     */
+    StartupTimings getStartupTimings();
+}
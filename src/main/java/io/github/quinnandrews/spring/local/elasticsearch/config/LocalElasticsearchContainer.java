@@ -0,0 +1,547 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testcontainers.containers.ContainerLaunchException;
+import org.testcontainers.containers.Network;
+import org.testcontainers.elasticsearch.ElasticsearchContainer;
+import org.testcontainers.utility.DockerImageName;
+import org.testcontainers.utility.TestcontainersConfiguration;
+
+import javax.net.ssl.SSLContext;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+/**
+ * <p> An ElasticsearchContainer that is aware of how this project manages
+ * its lifecycle. Spring closes it when the Application Context closes, but
+ * if it is marked for reuse, and the environment supports reuse, it is left
+ * running so that the next run can attach to it.
+ *
+ * <p> The Container can also be started in the background, or on demand.
+ * Until it has started, methods that depend on the running Container (the
+ * mapped port, the Container name, the CA Certificate, etc.) wait for it,
+ * and, if it is to be started on demand, the first of them starts it. Those
+ * that can be answered from its configuration alone (the host, the password
+ * and, if fixed, the HTTP port) return right away.
+ *
+ * <p> The Container may also be the first node of a cluster, in which case
+ * it starts the other nodes in parallel with itself, and does not finish
+ * starting until they all have. It stops them when it is closed.
+ *
+ * @author Quinn Andrews
+ */
+public class LocalElasticsearchContainer extends ElasticsearchContainer implements LocalElasticsearchBackend {
+
+    /**
+     * The host in the HTTP addresses of a Container that is still to be
+     * started on demand, in place of the Docker host, which cannot be
+     * resolved without the Docker daemon.
+     */
+    public static final String ON_DEMAND_HOST = "local-elasticsearch-on-demand.invalid";
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalElasticsearchContainer.class);
+
+    private final CompletableFuture<Void> startup = new CompletableFuture<>();
+    private final StartupTimings startupTimings = new StartupTimings();
+    private final SlowLog slowLog = new SlowLog();
+    private final Object startLock = new Object();
+    private final List<AutoCloseable> ownedLogConsumers = new CopyOnWriteArrayList<>();
+
+    private volatile boolean startOnDemand;
+    private volatile boolean startRequested;
+    private volatile boolean startingInBackground;
+    private volatile Thread startingThread;
+    private volatile boolean shared;
+    private Integer fixedHttpPort;
+    private StartupTimings.Phase createPhase;
+    private StartupTimings.Phase bootPhase;
+    private volatile SSLContext sslContext;
+    private List<LocalElasticsearchContainer> clusterPeers = List.of();
+    private String persistentDataSource;
+    private boolean persistentDataOnHost;
+
+    /**
+     * Constructs an instance with the given Docker Image.
+     *
+     * @param dockerImageName  The Docker Image to run.
+     */
+    public LocalElasticsearchContainer(final DockerImageName dockerImageName) {
+        super(dockerImageName);
+    }
+
+    /**
+     * Records the host port the Elasticsearch HTTP port is bound to, so that
+     * it can be reported before the Container has started. The binding
+     * itself is applied by the caller.
+     *
+     * @param fixedHttpPort  The host port (nullable).
+     * @return LocalElasticsearchContainer
+     */
+    public LocalElasticsearchContainer withFixedHttpPort(final Integer fixedHttpPort) {
+        this.fixedHttpPort = fixedHttpPort;
+        return this;
+    }
+
+    /**
+     * Makes this Container the first node of a cluster with the given other
+     * nodes, which are then started and stopped along with it.
+     *
+     * @param clusterPeers  The Containers of the other nodes.
+     * @return LocalElasticsearchContainer
+     */
+    public LocalElasticsearchContainer withClusterPeers(final List<LocalElasticsearchContainer> clusterPeers) {
+        this.clusterPeers = List.copyOf(clusterPeers);
+        return this;
+    }
+
+    /**
+     * Records that the data path of the Container is persisted in the given
+     * named Volume or host directory (mounted by the create command), so
+     * that the version of Elasticsearch that last wrote to it is checked
+     * before starting, and recorded once started.
+     *
+     * @param source  The name of the Volume, or the directory on the host.
+     * @param onHost  Whether the source is a directory on the host.
+     * @return LocalElasticsearchContainer
+     */
+    public LocalElasticsearchContainer withPersistentData(final String source, final boolean onHost) {
+        this.persistentDataSource = source;
+        this.persistentDataOnHost = onHost;
+        return this;
+    }
+
+    /**
+     * Returns the Containers of every node of the cluster, starting with
+     * this one. If this Container is not part of a cluster, it is the only
+     * node.
+     *
+     * @return List of LocalElasticsearchContainers
+     */
+    public List<LocalElasticsearchContainer> getClusterNodes() {
+        return Stream.concat(Stream.of(this), clusterPeers.stream()).toList();
+    }
+
+    /**
+     * Returns the HTTP address of every node of the cluster, starting with
+     * this one. If the Container is still to be started on demand, the
+     * host of each is {@link #ON_DEMAND_HOST}, so that neither the Docker
+     * daemon nor the Container is needed until the host is resolved (see
+     * {@link #resolveHost(String)}).
+     *
+     * @return List of Strings
+     */
+    @Override
+    public List<String> getHttpHostAddresses() {
+        final var ports = getClusterNodes().stream()
+                .map(node -> node.getMappedPort(ElasticsearchContainerConfig.ELASTICSEARCH_DEFAULT_PORT))
+                .toList();
+        final var host = startOnDemand && !startRequested ? ON_DEMAND_HOST : getHost();
+        return ports.stream()
+                .map(port -> host + ":" + port)
+                .toList();
+    }
+
+    /**
+     * Returns the Docker host in place of {@link #ON_DEMAND_HOST}, starting
+     * the Container first if it is still to be started on demand, and any
+     * other host as it is.
+     *
+     * @param host  A host of getHttpHostAddresses().
+     * @return String
+     */
+    @Override
+    public String resolveHost(final String host) {
+        if (!ON_DEMAND_HOST.equals(host)) {
+            return host;
+        }
+        awaitStartup();
+        return getHost();
+    }
+
+    /**
+     * Returns the password of the 'elastic' user.
+     *
+     * @return String
+     */
+    @Override
+    public String getPassword() {
+        return getEnvMap().get(ElasticsearchContainerConfig.ELASTICSEARCH_PASSWORD_ENV_KEY);
+    }
+
+    /**
+     * Returns the timings of each phase of starting this Container.
+     *
+     * @return StartupTimings
+     */
+    @Override
+    public StartupTimings getStartupTimings() {
+        return startupTimings;
+    }
+
+    /**
+     * Returns the slow log entries captured from the output of this
+     * Container and the other nodes of its cluster, if slow log thresholds
+     * are configured.
+     *
+     * @return SlowLog
+     */
+    public SlowLog getSlowLog() {
+        return slowLog;
+    }
+
+    /**
+     * Starts the Container on the calling thread, timing each phase: the
+     * resolution (and if need be the pull) of the image, the creation of the
+     * Container, the boot of Elasticsearch until the wait strategy is
+     * satisfied, and the copy of the CA Certificate. The other nodes of the
+     * cluster, if any, are started in parallel on background threads, since
+     * a master is only elected once enough of them have booted.
+     *
+     * <p> The Container is only started once. If it is already starting in
+     * the background, this returns right away, since the methods that
+     * depend on the running Container wait for it. If it is already starting
+     * on another thread, this waits for it to finish. If it is to be
+     * started on demand, and nothing has needed the running Container yet,
+     * this does nothing, so that starting it along with the Application
+     * Context (as Spring Boot does with each Startable Bean) defers to the
+     * first access.
+     *
+     * @throws ContainerLaunchException if the Container failed to start.
+     */
+    @Override
+    public void start() {
+        if (startOnDemand && !startRequested) {
+            logger.debug("Deferring the start of the Elasticsearch Container until it is first accessed.");
+            return;
+        }
+        if (!requestStart(false)) {
+            if (!startingInBackground) {
+                awaitStartup();
+            }
+            return;
+        }
+        startNow();
+    }
+
+    /**
+     * Starts the Container on a background thread and returns right away.
+     * If the Container is already starting, or has started, it is not
+     * started again.
+     *
+     * @return CompletableFuture that completes when the Container has started.
+     */
+    public CompletableFuture<Void> startInBackground() {
+        if (!requestStart(true)) {
+            return startup;
+        }
+        final var thread = new Thread(() -> {
+            try {
+                startNow();
+            } catch (final RuntimeException e) {
+                logger.error("Elasticsearch Container failed to start in the background.", e);
+            }
+        }, "local-elasticsearch-startup");
+        thread.setDaemon(true);
+        thread.start();
+        return startup;
+    }
+
+    /*
+     Records that the Container is to be started, and returns whether the
+     caller is the one to start it (whether it was not requested before).
+     */
+    private boolean requestStart(final boolean inBackground) {
+        synchronized (startLock) {
+            if (startRequested) {
+                return false;
+            }
+            startRequested = true;
+            startingInBackground = inBackground;
+            return true;
+        }
+    }
+
+    private void startNow() {
+        startingThread = Thread.currentThread();
+        try {
+            startupTimings.time("image", this::getDockerImageName);
+            checkPersistentDataVersion();
+            final var peerStartups = clusterPeers.stream()
+                    .map(LocalElasticsearchContainer::startInBackground)
+                    .toArray(CompletableFuture[]::new);
+            createPhase = startupTimings.begin("create");
+            super.start();
+            try {
+                CompletableFuture.allOf(peerStartups).join();
+            } catch (final CompletionException e) {
+                throw new ContainerLaunchException("Elasticsearch cluster node failed to start.", e.getCause());
+            }
+            startup.complete(null);
+        } catch (final RuntimeException e) {
+            startup.completeExceptionally(e);
+            clusterPeers.forEach(LocalElasticsearchContainer::close);
+            throw e;
+        } finally {
+            startingThread = null;
+        }
+    }
+
+    /**
+     * Marks the Container to be started the first time something needs the
+     * running Container, rather than now. Until then, {@link #start()} does
+     * nothing. Concurrent first callers all wait for the same start.
+     *
+     * @return CompletableFuture that completes when the Container has started.
+     */
+    public CompletableFuture<Void> startOnDemand() {
+        startOnDemand = true;
+        return startup;
+    }
+
+    /**
+     * Returns whether the Container has finished starting, successfully or not.
+     *
+     * @return boolean
+     */
+    @Override
+    public boolean isStartupComplete() {
+        return startup.isDone();
+    }
+
+    /**
+     * Waits until the Container has started, starting it first if it is to
+     * be started on demand. Returns right away if it has already started, if
+     * it has not been asked to start, or if called from the thread that is
+     * starting it.
+     *
+     * @throws ContainerLaunchException if the Container failed to start.
+     */
+    @Override
+    public void awaitStartup() {
+        if (startup.isDone() && !startup.isCompletedExceptionally()) {
+            return;
+        }
+        if (startOnDemand && !startRequested) {
+            logger.info("Starting Elasticsearch Container on first access.");
+            startInBackground();
+        }
+        if (!startRequested || Thread.currentThread() == startingThread) {
+            return;
+        }
+        try {
+            startup.join();
+        } catch (final CompletionException e) {
+            throw new ContainerLaunchException("Elasticsearch Container failed to start.", e.getCause());
+        }
+    }
+
+    /**
+     * Returns whether security is enabled in the Container, in which case
+     * the Client must authenticate.
+     *
+     * @return boolean
+     */
+    @Override
+    public boolean isSecurityEnabled() {
+        return !"false".equals(getEnvMap().get(ElasticsearchContainerConfig.ELASTICSEARCH_SECURITY_ENV_KEY));
+    }
+
+    /**
+     * Returns whether the Container serves HTTP over TLS, in which case the
+     * Client must trust its CA Certificate.
+     *
+     * @return boolean
+     */
+    @Override
+    public boolean isSslEnabled() {
+        return isSecurityEnabled()
+                && !"false".equals(getEnvMap().get(ElasticsearchContainerConfig.ELASTICSEARCH_HTTP_SSL_ENV_KEY));
+    }
+
+    /**
+     * Returns an SSLContext that trusts the CA Certificate of the Container.
+     * If the Container is still starting, the SSLContext is created when
+     * the first connection is made rather than now.
+     *
+     * @return SSLContext
+     */
+    @Override
+    public SSLContext sslContext() {
+        if (isStartupComplete()) {
+            return createSslContextFromCa();
+        }
+        return new DeferredSslContext(this::createSslContextFromCa);
+    }
+
+    @Override
+    protected void containerIsStarting(final InspectContainerResponse containerInfo, final boolean reused) {
+        createPhase.end();
+        bootPhase = startupTimings.begin("boot");
+        super.containerIsStarting(containerInfo, reused);
+    }
+
+    @Override
+    protected void containerIsStarted(final InspectContainerResponse containerInfo) {
+        bootPhase.end();
+        startupTimings.time("certificate", () -> {
+            super.containerIsStarted(containerInfo);
+            return null;
+        });
+        if (persistentDataSource != null && DataVersionMarker.isCheckable(getElasticsearchVersion())) {
+            DataVersionMarker.write(this, getElasticsearchVersion());
+        }
+    }
+
+    private void checkPersistentDataVersion() {
+        if (persistentDataSource == null) {
+            return;
+        }
+        final var version = getElasticsearchVersion();
+        if (!DataVersionMarker.isCheckable(version)) {
+            logger.warn("Unable to tell the Elasticsearch version of Docker Image {}, so the version of the data in {} is not checked.",
+                    getDockerImageName(), persistentDataSource);
+            return;
+        }
+        DataVersionMarker.read(getDockerImageName(), persistentDataSource, persistentDataOnHost)
+                .ifPresent(dataVersion -> DataVersionMarker.check(dataVersion, version, persistentDataSource));
+    }
+
+    private String getElasticsearchVersion() {
+        return DockerImageName.parse(getDockerImageName()).getVersionPart();
+    }
+
+    @Override
+    public Integer getMappedPort(final int originalPort) {
+        if (originalPort == ElasticsearchContainerConfig.ELASTICSEARCH_DEFAULT_PORT && fixedHttpPort != null) {
+            return fixedHttpPort;
+        }
+        awaitStartup();
+        return super.getMappedPort(originalPort);
+    }
+
+    @Override
+    public String getContainerName() {
+        awaitStartup();
+        return super.getContainerName();
+    }
+
+    @Override
+    public Optional<byte[]> caCertAsBytes() {
+        awaitStartup();
+        return super.caCertAsBytes();
+    }
+
+    /**
+     * Returns an SSLContext that trusts the CA Certificate of the Container,
+     * creating it the first time it is requested and returning the same one
+     * thereafter, since the CA Certificate does not change while the
+     * Container is running.
+     *
+     * @return SSLContext
+     */
+    @Override
+    public SSLContext createSslContextFromCa() {
+        awaitStartup();
+        var result = sslContext;
+        if (result == null) {
+            synchronized (this) {
+                result = sslContext;
+                if (result == null) {
+                    result = startupTimings.time("ssl", super::createSslContextFromCa);
+                    sslContext = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether this Container will be left running when closed.
+     *
+     * @return boolean
+     */
+    public boolean isRetainedOnClose() {
+        return isShouldBeReused() && TestcontainersConfiguration.getInstance().environmentSupportsReuse();
+    }
+
+    /*
+     Marks the Container as shared by the SharedContainerRegistry, which
+     decides when it is stopped.
+     */
+    void markShared() {
+        shared = true;
+    }
+
+    /*
+     Hands the given log consumer to the Container, to be closed when the
+     Container is stopped, left running for reuse or discarded.
+     */
+    void ownLogConsumer(final AutoCloseable logConsumer) {
+        ownedLogConsumers.add(logConsumer);
+    }
+
+    /*
+     Closes the log consumers of a Container that was never started,
+     because the SharedContainerRegistry returned one that was already
+     shared in its place, and those of its cluster peers.
+     */
+    void discard() {
+        clusterPeers.forEach(LocalElasticsearchContainer::discard);
+        closeLogConsumers();
+    }
+
+    /**
+     * Stops the Container, unless it is marked for reuse, in which case it
+     * is left running for the next run to attach to. If the Container is
+     * still starting, waits for it to finish first. If the Container is the
+     * first node of a cluster, the other nodes and the Network they share
+     * are stopped and removed as well. Either way, the log consumers it
+     * owns are closed.
+     *
+     * <p> If the Container is shared across Application Contexts, this only
+     * releases the reference of the Context that is closing it.
+     */
+    @Override
+    public void close() {
+        if (shared) {
+            SharedContainerRegistry.release(this);
+            return;
+        }
+        shutDown();
+    }
+
+    void shutDown() {
+        if (startRequested) {
+            startup.exceptionally(e -> null).join();
+        }
+        if (isRetainedOnClose()) {
+            logger.info("Leaving Elasticsearch Container {} running for reuse.", getContainerId());
+            clusterPeers.forEach(LocalElasticsearchContainer::closeLogConsumers);
+            closeLogConsumers();
+            return;
+        }
+        clusterPeers.forEach(LocalElasticsearchContainer::close);
+        super.close();
+        if (!clusterPeers.isEmpty()) {
+            Optional.ofNullable(getNetwork()).ifPresent(Network::close);
+        }
+        closeLogConsumers();
+    }
+
+    private void closeLogConsumers() {
+        ownedLogConsumers.forEach(c -> {
+            try {
+                c.close();
+            } catch (final Exception e) {
+                logger.warn("Unable to close a log consumer of an Elasticsearch Container.", e);
+            }
+        });
+        ownedLogConsumers.clear();
+    }
+}
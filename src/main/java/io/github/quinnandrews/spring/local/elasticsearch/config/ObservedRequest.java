@@ -0,0 +1,290 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * <p> A request the Elasticsearch Client sent and received a response to,
+ * as observed by the {@link ClientRequestObserver}: what it was (method,
+ * operation and index), how long it took (round-trip, and as reported by
+ * Elasticsearch), how large it was, and for bulk requests, which items
+ * failed.
+ *
+ * <p> The operation is the first segment of the path that starts with an
+ * underscore, without it (example: 'search' for /guitar_pedals/_search), or
+ * 'index' for requests on an index itself (example: PUT /guitar_pedals),
+ * or 'root' for the root path. The index is the first segment of the path,
+ * without the prefix of its {@link IndexNamespace}, if any, so that the
+ * indices of tests running in namespaces share their metrics. It is 'none'
+ * if the segment starts with an underscore, 'multiple' if it names more
+ * than one index (separated by commas), and 'pattern' if it is a wildcard
+ * or date math expression, so that the number of distinct indices is no
+ * larger than the number of indices the Application actually uses.
+ *
+ * @author Quinn Andrews
+ */
+public class ObservedRequest {
+
+    public static final String NO_INDEX = "none";
+    public static final String MULTIPLE_INDICES = "multiple";
+    public static final String INDEX_PATTERN = "pattern";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String method;
+    private final String operation;
+    private final String index;
+    private final int status;
+    private final Duration roundTrip;
+    private final Duration took;
+    private final long requestBytes;
+    private final long responseBytes;
+    private final Map<String, Long> bulkFailures;
+
+    private ObservedRequest(final String method,
+                            final String operation,
+                            final String index,
+                            final int status,
+                            final Duration roundTrip,
+                            final Duration took,
+                            final long requestBytes,
+                            final long responseBytes,
+                            final Map<String, Long> bulkFailures) {
+        this.method = method;
+        this.operation = operation;
+        this.index = index;
+        this.status = status;
+        this.roundTrip = roundTrip;
+        this.took = took;
+        this.requestBytes = requestBytes;
+        this.responseBytes = responseBytes;
+        this.bulkFailures = Map.copyOf(bulkFailures);
+    }
+
+    /**
+     * Returns an ObservedRequest for the given request and response,
+     * reading 'took' (and for bulk requests, the failed items) from the
+     * response body. A body that is not JSON is only counted.
+     *
+     * @param method          The method of the request.
+     * @param uri             The URI of the request (the path and query, or an absolute URI).
+     * @param status          The status code of the response.
+     * @param roundTripNanos  The time from sending the request to receiving the whole response.
+     * @param requestBytes    The length of the request body, or a negative number if unknown.
+     * @param body            The response body, as received.
+     * @param gzip            Whether the response body is gzip compressed.
+     * @return ObservedRequest
+     */
+    public static ObservedRequest parse(final String method,
+                                        final String uri,
+                                        final int status,
+                                        final long roundTripNanos,
+                                        final long requestBytes,
+                                        final byte[] body,
+                                        final boolean gzip) {
+        final var segments = Optional.ofNullable(pathOf(uri))
+                .map(p -> p.replaceAll("^/+", ""))
+                .filter(p -> !p.isEmpty())
+                .map(p -> p.split("/"))
+                .orElse(new String[0]);
+        var operation = segments.length == 0 ? "root" : "index";
+        for (final var segment : segments) {
+            if (segment.startsWith("_")) {
+                operation = segment.substring(1);
+                break;
+            }
+        }
+        final var index = segments.length == 0 || segments[0].startsWith("_") ? NO_INDEX : indexOf(segments[0]);
+        final var bulkFailures = new LinkedHashMap<String, Long>();
+        Duration took = null;
+        if (body.length > 0) {
+            try (final var content = gzip
+                    ? new GZIPInputStream(new ByteArrayInputStream(body))
+                    : new ByteArrayInputStream(body)) {
+                took = read(content, operation.equals("bulk"), bulkFailures);
+            } catch (final IOException e) {
+                // not JSON (a cat API, for example), or not an object
+            }
+        }
+        return new ObservedRequest(method, operation, index, status, Duration.ofNanos(roundTripNanos), took,
+                requestBytes, body.length, bulkFailures);
+    }
+
+    private static String indexOf(final String segment) {
+        if (segment.contains(",")) {
+            return MULTIPLE_INDICES;
+        }
+        if (segment.contains("*") || segment.startsWith("<")) {
+            return INDEX_PATTERN;
+        }
+        return IndexNamespace.strip(segment);
+    }
+
+    private static String pathOf(final String uri) {
+        try {
+            return URI.create(uri).getPath();
+        } catch (final IllegalArgumentException e) {
+            // not encoded, so take the path as is
+            final var query = uri.indexOf('?');
+            return query < 0 ? uri : uri.substring(0, query);
+        }
+    }
+
+    /*
+     Reads the top level of the response a token at a time, stopping once
+     'took' is read unless the items of a bulk request that has errors must
+     be read as well, so that large responses are not parsed in full.
+     */
+    private static Duration read(final InputStream content,
+                                 final boolean bulk,
+                                 final Map<String, Long> bulkFailures) throws IOException {
+        try (final var parser = JSON_FACTORY.createParser(content)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            Duration took = null;
+            var errors = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final var field = parser.getCurrentName();
+                parser.nextToken();
+                if (field.equals("took") && parser.currentToken().isNumeric()) {
+                    took = Duration.ofMillis(parser.getLongValue());
+                    if (!bulk) {
+                        return took;
+                    }
+                } else if (bulk && field.equals("errors")) {
+                    errors = parser.currentToken() == JsonToken.VALUE_TRUE;
+                } else if (bulk && errors && field.equals("items") && parser.currentToken() == JsonToken.START_ARRAY) {
+                    readBulkFailures(parser, bulkFailures);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return took;
+        }
+    }
+
+    private static void readBulkFailures(final JsonParser parser,
+                                         final Map<String, Long> bulkFailures) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            // each item is an object with a single field, named after the action
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                parser.nextToken();
+                String index = NO_INDEX;
+                var failed = false;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final var field = parser.getCurrentName();
+                    parser.nextToken();
+                    if (field.equals("_index")) {
+                        index = IndexNamespace.strip(parser.getValueAsString(NO_INDEX));
+                    } else if (field.equals("error")) {
+                        failed = true;
+                    }
+                    parser.skipChildren();
+                }
+                if (failed) {
+                    bulkFailures.merge(index, 1L, Long::sum);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the method of the request (example: GET).
+     *
+     * @return String
+     */
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Returns the operation of the request (example: search).
+     *
+     * @return String
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Returns the index (or alias) named in the path of the request, without
+     * the prefix of its namespace, or 'none', 'multiple' or 'pattern'.
+     *
+     * @return String
+     */
+    public String getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the status code of the response.
+     *
+     * @return int
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the time from sending the request to receiving the whole
+     * response, excluding the time waiting for a connection.
+     *
+     * @return Duration
+     */
+    public Duration getRoundTrip() {
+        return roundTrip;
+    }
+
+    /**
+     * Returns how long Elasticsearch reports the request took, if the
+     * response reports it (search and bulk responses do, for example).
+     *
+     * @return Optional of Duration
+     */
+    public Optional<Duration> getTook() {
+        return Optional.ofNullable(took);
+    }
+
+    /**
+     * Returns the length of the request body as sent, or a negative number
+     * if it is unknown (when the body is compressed, for example).
+     *
+     * @return long
+     */
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * Returns the length of the response body as received (compressed, if
+     * the response was compressed).
+     *
+     * @return long
+     */
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    /**
+     * Returns the number of items of a bulk request that failed, by the
+     * index of each item. Empty unless the request is a bulk request with
+     * errors.
+     *
+     * @return Map of index names to numbers of failed items
+     */
+    public Map<String, Long> getBulkFailures() {
+        return bulkFailures;
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+/**
+ * <p> A set of defaults for how the Elasticsearch Container is tuned. Each
+ * of them can be overridden individually with its own property.
+ *
+ * @author Quinn Andrews
+ */
+public enum PerformanceProfile {
+
+    /**
+     * Leaves the Container as the Docker Image and Testcontainers configure
+     * it (a 2 GB heap, with every feature of the distribution enabled).
+     */
+    DEFAULT(null, false, true, false),
+
+    /**
+     * Tunes the Container to boot and index as fast as possible in tests: a
+     * small heap, Machine Learning, Watcher and the GeoIP Downloader
+     * disabled, disk watermarks ignored and the data path on tmpfs.
+     */
+    FAST_TEST("512m", true, false, false),
+
+    /**
+     * Tunes the Container to behave more like a production node: a 1 GB
+     * heap, every feature enabled, disk watermarks enforced and the data
+     * path on the Container's filesystem.
+     */
+    PROD_LIKE("1g", false, true, true);
+
+    private final String heapSize;
+    private final boolean dataOnTmpfs;
+    private final boolean featuresEnabled;
+    private final boolean diskWatermarksEnabled;
+
+    PerformanceProfile(final String heapSize,
+                       final boolean dataOnTmpfs,
+                       final boolean featuresEnabled,
+                       final boolean diskWatermarksEnabled) {
+        this.heapSize = heapSize;
+        this.dataOnTmpfs = dataOnTmpfs;
+        this.featuresEnabled = featuresEnabled;
+        this.diskWatermarksEnabled = diskWatermarksEnabled;
+    }
+
+    /**
+     * Returns the heap size of Elasticsearch (example: 512m), or null to
+     * leave it as configured by Testcontainers.
+     *
+     * @return String
+     */
+    public String getHeapSize() {
+        return heapSize;
+    }
+
+    /**
+     * Returns whether the data path should be mounted on tmpfs.
+     *
+     * @return boolean
+     */
+    public boolean isDataOnTmpfs() {
+        return dataOnTmpfs;
+    }
+
+    /**
+     * Returns whether optional features (Machine Learning, Watcher and the
+     * GeoIP Downloader) should be enabled.
+     *
+     * @return boolean
+     */
+    public boolean isFeaturesEnabled() {
+        return featuresEnabled;
+    }
+
+    /**
+     * Returns whether disk watermarks should be enforced when allocating shards.
+     *
+     * @return boolean
+     */
+    public boolean isDiskWatermarksEnabled() {
+        return diskWatermarksEnabled;
+    }
+}
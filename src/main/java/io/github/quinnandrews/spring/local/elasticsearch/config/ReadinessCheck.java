@@ -0,0 +1,24 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+/**
+ * How the Elasticsearch Container is judged to be ready, at which point it
+ * has finished starting.
+ *
+ * @author Quinn Andrews
+ */
+public enum ReadinessCheck {
+
+    /**
+     * The Container is ready once Elasticsearch logs that it has started,
+     * as Testcontainers checks by default. Elasticsearch may still be
+     * electing a master or recovering its indices at that point.
+     */
+    LOG,
+
+    /**
+     * The Container is ready once the health of the cluster (or of the
+     * given indices) reaches the given status, polled over HTTP at a short
+     * interval, so that it can serve requests as soon as it is ready.
+     */
+    CLUSTER_HEALTH
+}
@@ -0,0 +1,196 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * <p> Shares started Elasticsearch Containers across every Application
+ * Context in the JVM, keyed by the fingerprint of their configuration. A
+ * test suite whose test classes each create their own Application Context
+ * (because of different profiles, or {@code @DirtiesContext}) then starts
+ * one Container per distinct configuration, rather than one per Context.
+ *
+ * <p> Each Context that acquires a Container holds a reference to it, and
+ * releases it when the Context closes. When no Context holds a reference,
+ * the Container is stopped after a linger period, unless another Context
+ * acquires it first, or, if no linger period is given, when the JVM exits.
+ * Since Spring closes a dirtied Context before the next test class creates
+ * its own, keeping an unreferenced Container around is what lets the next
+ * test class pick it up.
+ *
+ * @author Quinn Andrews
+ */
+public final class SharedContainerRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedContainerRegistry.class);
+
+    private static final Map<String, Entry> entries = new HashMap<>();
+
+    private static ScheduledExecutorService lingerExecutor;
+    private static boolean shutdownHookAdded;
+
+    private SharedContainerRegistry() {
+        // static utility
+    }
+
+    /**
+     * Returns the shared Container with the given fingerprint, if there is
+     * one, or else starts one with the given starter and shares it. Either
+     * way, the caller holds a reference to the Container until it releases
+     * it.
+     *
+     * <p> The Container is started outside the lock of the registry, so that
+     * Contexts acquiring Containers with other fingerprints are not held up
+     * while it starts. Contexts acquiring it while it starts wait for it. If
+     * it fails to start, they fail with it, and the next Context to acquire
+     * it starts it again.
+     *
+     * @param fingerprint  The fingerprint of the Container's configuration.
+     * @param linger       How long to keep the Container once unreferenced (nullable, until the JVM exits).
+     * @param starter      Creates and starts the Container, if it is not shared yet.
+     * @return LocalElasticsearchContainer
+     */
+    public static LocalElasticsearchContainer acquire(final String fingerprint,
+                                                      final Duration linger,
+                                                      final Supplier<LocalElasticsearchContainer> starter) {
+        final Entry entry;
+        final boolean starting;
+        synchronized (SharedContainerRegistry.class) {
+            final var existing = entries.get(fingerprint);
+            if (existing != null) {
+                existing.references++;
+                Optional.ofNullable(existing.pendingStop).ifPresent(s -> s.cancel(false));
+                existing.pendingStop = null;
+                logger.info("Sharing Elasticsearch Container with {} Application Context(s).", existing.references);
+                entry = existing;
+                starting = false;
+            } else {
+                entry = new Entry(linger);
+                entries.put(fingerprint, entry);
+                starting = true;
+                if (!shutdownHookAdded) {
+                    Runtime.getRuntime().addShutdownHook(
+                            new Thread(SharedContainerRegistry::shutDown, "local-elasticsearch-shared-shutdown"));
+                    shutdownHookAdded = true;
+                }
+            }
+        }
+        if (starting) {
+            try {
+                final var container = starter.get();
+                container.markShared();
+                entry.container.complete(container);
+            } catch (final RuntimeException e) {
+                synchronized (SharedContainerRegistry.class) {
+                    entries.remove(fingerprint, entry);
+                }
+                entry.container.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return entry.container.join();
+        } catch (final CompletionException e) {
+            throw e.getCause() instanceof RuntimeException r ? r : e;
+        }
+    }
+
+    /**
+     * Releases a reference to the given shared Container. Releasing a
+     * Container that is not shared (or is no longer) has no effect.
+     *
+     * @param container  The shared Container.
+     */
+    public static synchronized void release(final LocalElasticsearchContainer container) {
+        entries.entrySet().stream()
+                .filter(e -> e.getValue().container.getNow(null) == container)
+                .findFirst()
+                .ifPresent(e -> {
+                    final var entry = e.getValue();
+                    entry.references = Math.max(0, entry.references - 1);
+                    if (entry.references > 0 || entry.linger == null) {
+                        return;
+                    }
+                    entry.pendingStop = lingerExecutor().schedule(
+                            () -> stopIfUnreferenced(e.getKey(), entry),
+                            entry.linger.toMillis(),
+                            TimeUnit.MILLISECONDS);
+                });
+    }
+
+    /**
+     * Returns the number of references held to the shared Container with
+     * the given fingerprint, or 0 if there is none.
+     *
+     * @param fingerprint  The fingerprint of the Container's configuration.
+     * @return int
+     */
+    public static synchronized int getReferences(final String fingerprint) {
+        return Optional.ofNullable(entries.get(fingerprint))
+                .map(e -> e.references)
+                .orElse(0);
+    }
+
+    private static void stopIfUnreferenced(final String fingerprint, final Entry entry) {
+        synchronized (SharedContainerRegistry.class) {
+            if (entries.get(fingerprint) != entry || entry.references > 0) {
+                return;
+            }
+            entries.remove(fingerprint);
+        }
+        logger.info("Stopping shared Elasticsearch Container that is no longer referenced.");
+        entry.container.join().shutDown();
+    }
+
+    private static void shutDown() {
+        final var remaining = new ArrayList<Entry>();
+        synchronized (SharedContainerRegistry.class) {
+            remaining.addAll(entries.values());
+            entries.clear();
+        }
+        remaining.forEach(e -> {
+            try {
+                // a Container still starting is left to Testcontainers to remove
+                Optional.ofNullable(e.container.getNow(null)).ifPresent(LocalElasticsearchContainer::shutDown);
+            } catch (final RuntimeException ex) {
+                logger.warn("Failed to stop shared Elasticsearch Container.", ex);
+            }
+        });
+    }
+
+    private static ScheduledExecutorService lingerExecutor() {
+        if (lingerExecutor == null) {
+            lingerExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final var thread = new Thread(runnable, "local-elasticsearch-shared-linger");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return lingerExecutor;
+    }
+
+    private static class Entry {
+
+        private final CompletableFuture<LocalElasticsearchContainer> container = new CompletableFuture<>();
+        private final Duration linger;
+        private int references = 1;
+        private ScheduledFuture<?> pendingStop;
+
+        private Entry(final Duration linger) {
+            this.linger = linger;
+        }
+    }
+}
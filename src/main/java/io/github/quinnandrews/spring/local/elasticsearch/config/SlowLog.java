@@ -0,0 +1,92 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.testcontainers.containers.output.OutputFrame;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * <p> Captures the search and indexing slow log entries in the output of
+ * the Container (and of the other nodes of its cluster), logs each one,
+ * and notifies listeners of it (such as the publisher of Spring events of
+ * this project).
+ *
+ * <p> Only slow log entries are logged, unless the output of the Container
+ * is followed as well, so that slow searches and indexing stand out rather
+ * than being lost among the rest of the output.
+ *
+ * @author Quinn Andrews
+ */
+public class SlowLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowLog.class);
+
+    private final List<Consumer<SlowLogEntry>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Adds a listener that is called with each slow log entry captured from
+     * now on, on the thread that reads the output of the Container.
+     *
+     * @param listener  Accepts each SlowLogEntry.
+     */
+    public void onEntry(final Consumer<SlowLogEntry> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #onEntry(Consumer)}, so that it is
+     * not called with the entries captured from now on.
+     *
+     * @param listener  The listener.
+     */
+    public void removeListener(final Consumer<SlowLogEntry> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns a consumer of the output of a Container that captures its slow
+     * log entries, and passes every other line on to the given consumer, if
+     * any.
+     *
+     * @param delegate  The consumer of the rest of the output (optional).
+     * @return Consumer of OutputFrames
+     */
+    public Consumer<OutputFrame> consumer(final Consumer<OutputFrame> delegate) {
+        return frame -> {
+            final var entry = SlowLogEntry.parse(frame.getUtf8String());
+            if (entry.isPresent()) {
+                record(entry.get());
+            } else if (delegate != null) {
+                delegate.accept(frame);
+            }
+        };
+    }
+
+    /**
+     * Logs the given entry at its level, and notifies the listeners of it.
+     *
+     * @param entry  The SlowLogEntry.
+     */
+    public void record(final SlowLogEntry entry) {
+        final var level = Arrays.stream(Level.values())
+                .filter(l -> l.name().equalsIgnoreCase(entry.getLevel()))
+                .findFirst()
+                .orElse(Level.WARN);
+        logger.atLevel(level).log("Elasticsearch slow {} {} on {} took {} ms{}: {}",
+                entry.getType(), entry.getPhase(), entry.getIndex(), entry.getTook().toMillis(),
+                entry.getNode() == null ? "" : " on node " + entry.getNode(), entry.getSource());
+        listeners.forEach(l -> {
+            try {
+                l.accept(entry);
+            } catch (final RuntimeException e) {
+                // the Application Context of a shared Container may have been closed
+                logger.debug("Failed to notify a listener of an Elasticsearch slow log entry.", e);
+            }
+        });
+    }
+}
@@ -0,0 +1,169 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p> An entry of the search or indexing slow log of Elasticsearch, parsed
+ * from a line of the output of the Container, which Elasticsearch writes
+ * slow log entries to, as JSON, along with the rest of its log.
+ *
+ * <p> Entries are published as Spring events when configured, and can be
+ * received with an {@code @EventListener} method that takes a SlowLogEntry.
+ *
+ * @author Quinn Andrews
+ */
+public class SlowLogEntry {
+
+    public static final String SEARCH = "search";
+    public static final String INDEXING = "indexing";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Pattern LOGGER_PATTERN = Pattern.compile("index\\.(search|indexing)\\.slowlog\\.(\\w+)");
+    private static final Pattern INDEX_PATTERN = Pattern.compile("^\\[([^\\]/]+)");
+
+    private final String type;
+    private final String phase;
+    private final String level;
+    private final String index;
+    private final String node;
+    private final Duration took;
+    private final String source;
+
+    private SlowLogEntry(final String type,
+                         final String phase,
+                         final String level,
+                         final String index,
+                         final String node,
+                         final Duration took,
+                         final String source) {
+        this.type = type;
+        this.phase = phase;
+        this.level = level;
+        this.index = index;
+        this.node = node;
+        this.took = took;
+        this.source = source;
+    }
+
+    /**
+     * Returns the slow log entry in the given line of the output of the
+     * Container, if it is one.
+     *
+     * @param line  The line of output.
+     * @return Optional of SlowLogEntry
+     */
+    public static Optional<SlowLogEntry> parse(final String line) {
+        if (line == null || !line.contains("slowlog") || !line.trim().startsWith("{")) {
+            return Optional.empty();
+        }
+        final JsonNode json;
+        try {
+            json = OBJECT_MAPPER.readTree(line);
+        } catch (final JsonProcessingException e) {
+            return Optional.empty();
+        }
+        final var matcher = LOGGER_PATTERN.matcher(json.path("log.logger").asText());
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        /*
+         The message names the index and shard of a search ([index][0]), and
+         the index and its UUID of an indexing operation ([index/uuid]).
+         */
+        final var index = Optional.ofNullable(json.get("elasticsearch.index.name"))
+                .map(JsonNode::asText)
+                .or(() -> Optional.of(INDEX_PATTERN.matcher(json.path("elasticsearch.slowlog.message").asText()))
+                        .filter(Matcher::find)
+                        .map(m -> m.group(1)))
+                .orElse(null);
+        return Optional.of(new SlowLogEntry(
+                matcher.group(1),
+                matcher.group(2),
+                json.path("log.level").asText("WARN"),
+                index,
+                Optional.ofNullable(json.get("elasticsearch.node.name")).map(JsonNode::asText).orElse(null),
+                Duration.ofMillis(json.path("elasticsearch.slowlog.took_millis").asLong()),
+                Optional.ofNullable(json.get("elasticsearch.slowlog.source")).map(JsonNode::asText).orElse(null)
+        ));
+    }
+
+    /**
+     * Returns whether this is an entry of the search or the indexing slow
+     * log ({@value #SEARCH} or {@value #INDEXING}).
+     *
+     * @return String
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Returns the phase that was slow: 'query' or 'fetch' for a search,
+     * 'index' for indexing.
+     *
+     * @return String
+     */
+    public String getPhase() {
+        return phase;
+    }
+
+    /**
+     * Returns the level of the threshold that was exceeded (example: WARN).
+     *
+     * @return String
+     */
+    public String getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns the name of the index, or null if the entry does not name it.
+     *
+     * @return String
+     */
+    public String getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the name of the node that logged the entry, or null if the
+     * entry does not name it.
+     *
+     * @return String
+     */
+    public String getNode() {
+        return node;
+    }
+
+    /**
+     * Returns how long the phase took on the shard.
+     *
+     * @return Duration
+     */
+    public Duration getTook() {
+        return took;
+    }
+
+    /**
+     * Returns the source of the search, or of the indexed document
+     * (truncated by Elasticsearch to its first 1000 characters), or null if
+     * the entry does not include it.
+     *
+     * @return String
+     */
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + phase + " on " + index + " took " + took.toMillis() + " ms: " + source;
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.function.Consumer;
+
+/**
+ * <p> Publishes the slow log entries of a Container as Spring events of one
+ * Application Context, from the time every singleton of the Context is
+ * initialized until the Context closes.
+ *
+ * <p> A Container shared across Application Contexts captures its slow log
+ * entries once, for every Context that holds it, so each Context adds a
+ * listener of its own, and removes it when it closes, rather than leaving
+ * it to publish to a closed Context.
+ *
+ * @author Quinn Andrews
+ */
+public class SlowLogEventPublisher implements SmartInitializingSingleton, DisposableBean {
+
+    private final SlowLog slowLog;
+    private final Consumer<SlowLogEntry> listener;
+
+    /**
+     * Constructs an instance that publishes the entries of the given slow
+     * log with the given publisher.
+     *
+     * @param slowLog                    The SlowLog of the Container.
+     * @param applicationEventPublisher  The publisher of the Spring events.
+     */
+    public SlowLogEventPublisher(final SlowLog slowLog,
+                                 final ApplicationEventPublisher applicationEventPublisher) {
+        this.slowLog = slowLog;
+        this.listener = applicationEventPublisher::publishEvent;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        slowLog.onEntry(listener);
+    }
+
+    @Override
+    public void destroy() {
+        slowLog.removeListener(listener);
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * <p> Sets the search and indexing slow log thresholds (at the 'warn'
+ * level) on the indices in Elasticsearch: on every index once the
+ * Application Context is refreshed, and so after the Repositories, eager
+ * index creation, seeding and generation have created theirs, and on the
+ * indices created later that they are applied to (such as those of
+ * {@code @NamespacedIndices}).
+ *
+ * <p> The thresholds are set on the indices themselves rather than in an
+ * index template, since a catch-all template would conflict with any
+ * template of the Application at the same priority.
+ *
+ * @author Quinn Andrews
+ */
+public class SlowLogThresholds implements ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowLogThresholds.class);
+
+    private final RestClient restClient;
+    private final Map<String, String> settings = new LinkedHashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Constructs an instance with the given thresholds.
+     *
+     * @param restClient          The RestClient to set the thresholds with.
+     * @param searchThreshold     The time above which searches are logged (nullable).
+     * @param indexingThreshold   The time above which indexing is logged (nullable).
+     */
+    public SlowLogThresholds(final RestClient restClient,
+                             final Duration searchThreshold,
+                             final Duration indexingThreshold) {
+        this.restClient = restClient;
+        Optional.ofNullable(searchThreshold).ifPresent(t -> {
+            settings.put("index.search.slowlog.threshold.query.warn", t.toMillis() + "ms");
+            settings.put("index.search.slowlog.threshold.fetch.warn", t.toMillis() + "ms");
+        });
+        Optional.ofNullable(indexingThreshold).ifPresent(t ->
+                settings.put("index.indexing.slowlog.threshold.index.warn", t.toMillis() + "ms"));
+    }
+
+    @Override
+    public void onApplicationEvent(final ContextRefreshedEvent event) {
+        apply("_all");
+        logger.info("Set Elasticsearch slow log thresholds {}.", settings);
+    }
+
+    /**
+     * Sets the thresholds on the given indices.
+     *
+     * @param indices  The names of the indices.
+     */
+    public void apply(final Collection<String> indices) {
+        if (!indices.isEmpty()) {
+            apply(String.join(",", indices));
+        }
+    }
+
+    private void apply(final String indices) {
+        try {
+            final var request = new Request("PUT", "/" + indices + "/_settings");
+            request.setJsonEntity(objectMapper.writeValueAsString(settings));
+            restClient.performRequest(request);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to set the Elasticsearch slow log thresholds.", e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+/**
+ * When the Elasticsearch Container is started relative to the startup of
+ * the Application Context.
+ *
+ * @author Quinn Andrews
+ */
+public enum StartupMode {
+
+    /**
+     * The Container is started while its Bean is created, and the
+     * Application Context does not continue until Elasticsearch is ready.
+     */
+    BLOCKING,
+
+    /**
+     * The Container is started on a background thread as soon as the
+     * Application Context has processed its configuration. Consumers only
+     * wait for it when they need the running Container, which lets the
+     * Container boot overlap with the rest of the Application's startup.
+     */
+    ASYNC,
+
+    /**
+     * The Container is not started until something first needs the running
+     * Container, typically the first request made by the Client. Contexts
+     * that never talk to Elasticsearch never start it.
+     */
+    LAZY
+}
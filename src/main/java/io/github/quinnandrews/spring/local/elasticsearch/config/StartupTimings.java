@@ -0,0 +1,164 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * <p> Records how long each phase of starting the Elasticsearch Container
+ * and configuring its Client takes (resolving the image, creating the
+ * Container, booting Elasticsearch, etc.), so that regressions in startup
+ * time can be found.
+ *
+ * <p> Each phase is also recorded as a Spring {@link StartupStep}, but only
+ * if it runs on the thread that is refreshing the Application Context, since
+ * an ApplicationStartup tracks steps as a single stack, which phases that run
+ * on a background thread would corrupt.
+ *
+ * @author Quinn Andrews
+ */
+public class StartupTimings {
+
+    public static final String STEP_NAME_PREFIX = "spring.local.elasticsearch.startup.";
+
+    private final Map<String, Duration> durations = new LinkedHashMap<>();
+    private final List<BiConsumer<String, Duration>> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
+    private volatile Thread applicationStartupThread;
+
+    /**
+     * Sets the ApplicationStartup to record steps with. Steps are only
+     * recorded for phases that run on the calling thread.
+     *
+     * @param applicationStartup  The ApplicationStartup of the Application Context.
+     */
+    public void setApplicationStartup(final ApplicationStartup applicationStartup) {
+        this.applicationStartup = applicationStartup;
+        this.applicationStartupThread = Thread.currentThread();
+    }
+
+    /**
+     * Begins timing the given phase.
+     *
+     * @param phase  The name of the phase.
+     * @return Phase, to be ended when the phase is complete.
+     */
+    public Phase begin(final String phase) {
+        final var step = Thread.currentThread() == applicationStartupThread
+                ? applicationStartup.start(STEP_NAME_PREFIX + phase)
+                : null;
+        return new Phase(phase, step, System.nanoTime());
+    }
+
+    /**
+     * Times the given phase while it runs.
+     *
+     * @param phase     The name of the phase.
+     * @param supplier  The work that makes up the phase.
+     * @param <T>       The type of the result.
+     * @return T, the result of the work.
+     */
+    public <T> T time(final String phase, final Supplier<T> supplier) {
+        final var timed = begin(phase);
+        try {
+            return supplier.get();
+        } finally {
+            timed.end();
+        }
+    }
+
+    /**
+     * Adds a listener that is called with each phase as it completes. The
+     * listener is called right away with each phase that has already
+     * completed. Either way, the listener is called once with each phase.
+     *
+     * @param listener  Accepts the name and duration of each phase.
+     */
+    public synchronized void onPhase(final BiConsumer<String, Duration> listener) {
+        durations.forEach(listener);
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added with {@link #onPhase(BiConsumer)}, so that it
+     * is not called with the phases that complete after this returns.
+     *
+     * @param listener  The listener.
+     */
+    public synchronized void removeListener(final BiConsumer<String, Duration> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns the duration of each phase that has completed, in the order
+     * they completed.
+     *
+     * @return Map of phase names to durations.
+     */
+    public synchronized Map<String, Duration> getDurations() {
+        return new LinkedHashMap<>(durations);
+    }
+
+    /**
+     * Returns a one-line summary of the completed phases, in milliseconds.
+     * Phases may nest (the SSLContext may be created while the Client is
+     * built, for example), so their durations are not summed.
+     *
+     * @return String
+     */
+    public String summary() {
+        return getDurations().entrySet().stream()
+                .map(e -> e.getKey() + "=" + e.getValue().toMillis())
+                .collect(Collectors.joining(", "));
+    }
+
+    /*
+     Notifies the listeners under the same lock as onPhase, so that a
+     listener added while a phase is recorded is called with it only once.
+     */
+    private synchronized void record(final String phase, final Duration duration) {
+        durations.put(phase, duration);
+        listeners.forEach(l -> l.accept(phase, duration));
+    }
+
+    /**
+     * A phase that is being timed.
+     */
+    public class Phase {
+
+        private final String name;
+        private final StartupStep step;
+        private final long startedAt;
+        private boolean ended;
+
+        private Phase(final String name, final StartupStep step, final long startedAt) {
+            this.name = name;
+            this.step = step;
+            this.startedAt = startedAt;
+        }
+
+        /**
+         * Ends the phase and records its duration. Ending a phase more than
+         * once has no effect.
+         */
+        public synchronized void end() {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            if (step != null) {
+                step.end();
+            }
+            record(name, Duration.ofNanos(System.nanoTime() - startedAt));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.quinnandrews.spring.local.elasticsearch.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+/**
+ * <p> Records each phase of the StartupTimings of one Application Context
+ * as a Micrometer Timer, tagged by phase, in each MeterRegistry it is bound
+ * to, until the Context closes. Phases that complete after it is bound are
+ * recorded as they complete.
+ *
+ * <p> The listeners it adds to the StartupTimings are removed when the
+ * Context closes, rather than left to record phases in the MeterRegistry of
+ * a closed Context.
+ *
+ * @author Quinn Andrews
+ */
+public class StartupTimingsMetrics implements MeterBinder, DisposableBean {
+
+    private final StartupTimings startupTimings;
+    private final List<BiConsumer<String, Duration>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructs an instance that records the phases of the given timings.
+     *
+     * @param startupTimings  The StartupTimings of the Application Context.
+     */
+    public StartupTimingsMetrics(final StartupTimings startupTimings) {
+        this.startupTimings = startupTimings;
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        final BiConsumer<String, Duration> listener = (phase, duration) ->
+                Timer.builder(ElasticsearchContainerConfig.ElasticsearchMetricsConfig.STARTUP_TIMER_NAME)
+                        .description("Time taken by each phase of starting the local Elasticsearch Container and its Client")
+                        .tag("phase", phase)
+                        .register(registry)
+                        .record(duration);
+        listeners.add(listener);
+        startupTimings.onPhase(listener);
+    }
+
+    @Override
+    public void destroy() {
+        listeners.forEach(startupTimings::removeListener);
+        listeners.clear();
+    }
+}
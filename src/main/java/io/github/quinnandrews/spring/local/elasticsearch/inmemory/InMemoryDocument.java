@@ -0,0 +1,51 @@
+package io.github.quinnandrews.spring.local.elasticsearch.inmemory;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * <p> A document of an in-memory index: its source, as indexed, and the
+ * version and sequence number Elasticsearch would have given it. Documents
+ * are never changed once stored, but replaced by a new version.
+ *
+ * @author Quinn Andrews
+ */
+class InMemoryDocument {
+
+    private final String index;
+    private final String id;
+    private final ObjectNode source;
+    private final long version;
+    private final long seqNo;
+
+    InMemoryDocument(final String index,
+                     final String id,
+                     final ObjectNode source,
+                     final long version,
+                     final long seqNo) {
+        this.index = index;
+        this.id = id;
+        this.source = source;
+        this.version = version;
+        this.seqNo = seqNo;
+    }
+
+    String getIndex() {
+        return index;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    ObjectNode getSource() {
+        return source;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    long getSeqNo() {
+        return seqNo;
+    }
+}
@@ -0,0 +1,250 @@
+package io.github.quinnandrews.spring.local.elasticsearch.inmemory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.quinnandrews.spring.local.elasticsearch.config.LocalElasticsearchBackend;
+import io.github.quinnandrews.spring.local.elasticsearch.config.StartupTimings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * <p> An in-process stand-in for Elasticsearch, which serves a subset of
+ * its REST API over HTTP on a local port, from indices held in memory.
+ * It starts in milliseconds and needs no Docker, so that tests of code
+ * that indexes and queries through Spring Data Repositories, or the
+ * Elasticsearch Client, can run where Docker is unavailable, or where the
+ * time to start the Container is not worth it.
+ *
+ * <p> What is served: index management (create, delete, exists, mappings,
+ * settings, aliases, clone, refresh and flush), the document APIs (index,
+ * create, get, exists, update with a partial document, delete, multi get,
+ * bulk and delete by query), search (with sort, from and size,
+ * search_after, scroll and point in time, and source filtering), count,
+ * and the cluster info, health and cat indices APIs. Queries are matched
+ * on the mapped type of each field: term level queries on exact values,
+ * and full text queries on the terms of text, split on anything but
+ * letters and digits, and lowercased.
+ *
+ * <p> What is not: scoring (every hit scores 1.0), analyzers, aggregations,
+ * scripts, and security. Writes are visible to searches immediately, as
+ * if every request refreshed. A request for what is not supported fails
+ * with an 'unsupported_operation_exception', rather than being ignored.
+ *
+ * @author Quinn Andrews
+ */
+public class InMemoryElasticsearch implements LocalElasticsearchBackend, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryElasticsearch.class);
+
+    public static final String VERSION = "8.10.4";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StartupTimings startupTimings = new StartupTimings();
+    private final InMemoryRestApi restApi = new InMemoryRestApi(VERSION);
+    private final Integer port;
+
+    private HttpServer httpServer;
+    private ExecutorService executor;
+
+    /**
+     * Constructs an in-memory stand-in for Elasticsearch, which is to
+     * listen on the given port, or on a random port if null.
+     *
+     * @param port Integer (optional)
+     */
+    public InMemoryElasticsearch(final Integer port) {
+        this.port = port;
+    }
+
+    /**
+     * Starts listening for requests.
+     */
+    public synchronized void start() {
+        if (httpServer != null) {
+            return;
+        }
+        startupTimings.time("boot", () -> {
+            try {
+                executor = Executors.newCachedThreadPool(runnable -> {
+                    final var thread = new Thread(runnable, "in-memory-elasticsearch");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                        Optional.ofNullable(port).orElse(0)), 0);
+                httpServer.createContext("/", this::handle);
+                httpServer.setExecutor(executor);
+                httpServer.start();
+                return httpServer;
+            } catch (final IOException e) {
+                throw new UncheckedIOException(MessageFormat.format(
+                        "Could not listen on port {0}", String.valueOf(port)), e);
+            }
+        });
+        logger.debug("In-memory Elasticsearch listening on {}.", getHttpHostAddress());
+    }
+
+    /**
+     * Stops listening for requests. The indices are discarded.
+     */
+    @Override
+    public synchronized void close() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            executor.shutdownNow();
+            httpServer = null;
+        }
+    }
+
+    /**
+     * Returns the port the stand-in listens on.
+     *
+     * @return int
+     */
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Returns the host and port of the HTTP address of the stand-in
+     * (example: localhost:9200).
+     *
+     * @return String
+     */
+    public String getHttpHostAddress() {
+        return "localhost:" + getPort();
+    }
+
+    @Override
+    public List<String> getHttpHostAddresses() {
+        return List.of(getHttpHostAddress());
+    }
+
+    @Override
+    public boolean isSecurityEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isSslEnabled() {
+        return false;
+    }
+
+    @Override
+    public SSLContext sslContext() {
+        return null;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public boolean isStartupComplete() {
+        return httpServer != null;
+    }
+
+    @Override
+    public void awaitStartup() {
+        // nothing to wait for, since starting is synchronous
+    }
+
+    @Override
+    public StartupTimings getStartupTimings() {
+        return startupTimings;
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try (exchange) {
+            final var method = exchange.getRequestMethod();
+            final var uri = exchange.getRequestURI();
+            logger.trace("{} {}", method, uri);
+            InMemoryRestApi.Response response;
+            try {
+                response = restApi.handle(method, path(uri.getRawPath()), params(uri.getRawQuery()), body(exchange));
+            } catch (final InMemoryElasticsearchException e) {
+                response = new InMemoryRestApi.Response(e.getStatus(),
+                        method.equals("HEAD") ? null : InMemoryRestApi.errorResponse(e));
+            } catch (final RuntimeException e) {
+                logger.warn("In-memory Elasticsearch failed to handle {} {}.", method, uri, e);
+                final var error = new InMemoryElasticsearchException(500, "exception",
+                        Optional.ofNullable(e.getMessage()).orElse(e.getClass().getName()));
+                response = new InMemoryRestApi.Response(500,
+                        method.equals("HEAD") ? null : InMemoryRestApi.errorResponse(error));
+            }
+            final var headers = exchange.getResponseHeaders();
+            headers.set("X-Elastic-Product", "Elasticsearch");
+            headers.set("Content-Type", "application/json");
+            if (response.getBody() == null) {
+                exchange.sendResponseHeaders(response.getStatus(), -1);
+                return;
+            }
+            final var bytes = objectMapper.writeValueAsBytes(response.getBody());
+            exchange.sendResponseHeaders(response.getStatus(), bytes.length);
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+
+    private static List<String> path(final String rawPath) {
+        final var segments = new ArrayList<String>();
+        for (final var segment : rawPath.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(decode(segment));
+            }
+        }
+        return segments;
+    }
+
+    private static Map<String, String> params(final String rawQuery) {
+        final var params = new LinkedHashMap<String, String>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (final var param : rawQuery.split("&")) {
+            final var separator = param.indexOf('=');
+            if (separator < 0) {
+                params.put(URLDecoder.decode(param, StandardCharsets.UTF_8), "");
+            } else {
+                params.put(URLDecoder.decode(param.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(param.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    /*
+     A path segment is not form encoded, so a '+' in it is a plus sign.
+     */
+    private static String decode(final String segment) {
+        return URLDecoder.decode(segment.replace("+", "%2B"), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] body(final HttpExchange exchange) throws IOException {
+        final var encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        try (InputStream in = "gzip".equalsIgnoreCase(encoding)
+                ? new GZIPInputStream(exchange.getRequestBody())
+                : exchange.getRequestBody()) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.quinnandrews.spring.local.elasticsearch.inmemory;
+
+import java.text.MessageFormat;
+
+/**
+ * <p> An error the in-memory stand-in responds with, in the format of the
+ * errors of Elasticsearch, so that the Client raises the same exceptions
+ * it would against Elasticsearch.
+ *
+ * @author Quinn Andrews
+ */
+class InMemoryElasticsearchException extends RuntimeException {
+
+    private final int status;
+    private final String type;
+    private final String index;
+
+    InMemoryElasticsearchException(final int status, final String type, final String reason) {
+        this(status, type, reason, null);
+    }
+
+    InMemoryElasticsearchException(final int status, final String type, final String reason, final String index) {
+        super(reason);
+        this.status = status;
+        this.type = type;
+        this.index = index;
+    }
+
+    static InMemoryElasticsearchException indexNotFound(final String index) {
+        return new InMemoryElasticsearchException(404, "index_not_found_exception",
+                MessageFormat.format("no such index [{0}]", index), index);
+    }
+
+    static InMemoryElasticsearchException badRequest(final String reason) {
+        return new InMemoryElasticsearchException(400, "illegal_argument_exception", reason);
+    }
+
+    static InMemoryElasticsearchException unsupported(final String what) {
+        return new InMemoryElasticsearchException(400, "unsupported_operation_exception",
+                MessageFormat.format("{0} is not supported by the in-memory Elasticsearch stand-in", what));
+    }
+
+    int getStatus() {
+        return status;
+    }
+
+    String getType() {
+        return type;
+    }
+
+    String getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,386 @@
+package io.github.quinnandrews.spring.local.elasticsearch.inmemory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * <p> An index of the in-memory stand-in: its documents, in the order they
+ * were first indexed, its mappings, settings and aliases.
+ *
+ * <p> Writes are visible to searches as soon as they are acknowledged, as
+ * if every write refreshed the index. Fields that are not mapped yet are
+ * mapped as they are indexed, the way dynamic mapping maps them in
+ * Elasticsearch (a string as text, with a keyword sub-field), unless the
+ * mappings say otherwise. Every operation on an index is synchronized, so
+ * that concurrent writes are applied one at a time.
+ *
+ * @author Quinn Andrews
+ */
+class InMemoryIndex {
+
+    static final String WRITE_BLOCK_SETTING = "index.blocks.write";
+    static final String HIDDEN_SETTING = "index.hidden";
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    private final String name;
+    private final Map<String, String> settings = new LinkedHashMap<>();
+    private final Map<String, JsonNode> aliases = new LinkedHashMap<>();
+    private final Map<String, InMemoryDocument> documents = new LinkedHashMap<>();
+    private ObjectNode mappings = NODES.objectNode();
+    private long seqNo = -1;
+
+    InMemoryIndex(final String name, final Map<String, String> settings) {
+        this.name = name;
+        this.settings.put("index.number_of_shards", "1");
+        this.settings.put("index.number_of_replicas", "1");
+        this.settings.putAll(settings);
+        this.settings.put("index.uuid", UUID.randomUUID().toString());
+        this.settings.put("index.provided_name", name);
+        this.settings.put("index.creation_date", String.valueOf(System.currentTimeMillis()));
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Returns a copy of this index, with all of its documents, under the
+     * given name, as the Clone Index API would.
+     */
+    synchronized InMemoryIndex copy(final String target, final Map<String, String> overrides) {
+        final var settingsToCopy = new LinkedHashMap<>(settings);
+        settingsToCopy.remove(WRITE_BLOCK_SETTING);
+        settingsToCopy.putAll(overrides);
+        final var copy = new InMemoryIndex(target, settingsToCopy);
+        copy.mappings = mappings.deepCopy();
+        copy.seqNo = seqNo;
+        documents.values().forEach(d -> copy.documents.put(d.getId(),
+                new InMemoryDocument(target, d.getId(), d.getSource(), d.getVersion(), d.getSeqNo())));
+        return copy;
+    }
+
+    synchronized Map<String, String> getSettings() {
+        return new LinkedHashMap<>(settings);
+    }
+
+    synchronized void putSettings(final Map<String, String> settingsToPut) {
+        settingsToPut.forEach((key, value) -> {
+            if (value == null) {
+                settings.remove(key);
+            } else {
+                settings.put(key, value);
+            }
+        });
+    }
+
+    synchronized boolean isHidden() {
+        return "true".equals(settings.get(HIDDEN_SETTING));
+    }
+
+    synchronized Map<String, JsonNode> getAliases() {
+        return new LinkedHashMap<>(aliases);
+    }
+
+    synchronized void putAlias(final String alias, final JsonNode definition) {
+        aliases.put(alias, definition);
+    }
+
+    synchronized void removeAlias(final String alias) {
+        aliases.remove(alias);
+    }
+
+    synchronized ObjectNode getMappings() {
+        return mappings.deepCopy();
+    }
+
+    /**
+     * Merges the given mappings into those of this index. Fields already
+     * mapped keep their type, as they would in Elasticsearch, but gain any
+     * sub-fields and properties given.
+     */
+    synchronized void putMappings(final JsonNode mappingsToPut) {
+        merge(mappings, mappingsToPut);
+    }
+
+    synchronized int size() {
+        return documents.size();
+    }
+
+    synchronized List<InMemoryDocument> getDocuments() {
+        return new ArrayList<>(documents.values());
+    }
+
+    synchronized Optional<InMemoryDocument> get(final String id) {
+        return Optional.ofNullable(documents.get(id));
+    }
+
+    /**
+     * Indexes the given source under the given id, replacing the document
+     * with that id, if any, unless only creating is wanted or the sequence
+     * number required of the current document does not match.
+     */
+    synchronized WriteResult index(final String id,
+                                   final ObjectNode source,
+                                   final boolean create,
+                                   final Long ifSeqNo) {
+        checkWritable();
+        final var current = documents.get(id);
+        if (create && current != null) {
+            throw new InMemoryElasticsearchException(409, "version_conflict_engine_exception", MessageFormat.format(
+                    "[{0}]: version conflict, document already exists (current version [{1}])",
+                    id, String.valueOf(current.getVersion())), name);
+        }
+        checkSeqNo(id, current, ifSeqNo);
+        mapDynamically(mappings, source, "");
+        final var document = new InMemoryDocument(name, id, source,
+                current == null ? 1 : current.getVersion() + 1, ++seqNo);
+        documents.put(id, document);
+        return new WriteResult(document, current == null ? "created" : "updated", current == null ? 201 : 200);
+    }
+
+    /**
+     * Merges the given partial document into the document with the given
+     * id, or, if there is none, indexes the upsert document given, if any.
+     */
+    synchronized WriteResult update(final String id,
+                                    final ObjectNode partial,
+                                    final ObjectNode upsert,
+                                    final Long ifSeqNo) {
+        checkWritable();
+        final var current = documents.get(id);
+        if (current == null) {
+            if (upsert == null) {
+                throw new InMemoryElasticsearchException(404, "document_missing_exception",
+                        MessageFormat.format("[{0}]: document missing", id), name);
+            }
+            return index(id, upsert, true, null);
+        }
+        checkSeqNo(id, current, ifSeqNo);
+        final var source = current.getSource().deepCopy();
+        merge(source, partial);
+        if (source.equals(current.getSource())) {
+            return new WriteResult(current, "noop", 200);
+        }
+        return index(id, source, false, null);
+    }
+
+    synchronized WriteResult delete(final String id, final Long ifSeqNo) {
+        checkWritable();
+        final var current = documents.get(id);
+        checkSeqNo(id, current, ifSeqNo);
+        if (current == null) {
+            return new WriteResult(new InMemoryDocument(name, id, null, 1, ++seqNo), "not_found", 404);
+        }
+        documents.remove(id);
+        return new WriteResult(new InMemoryDocument(name, id, null, current.getVersion() + 1, ++seqNo), "deleted", 200);
+    }
+
+    /**
+     * Returns the type the given field is mapped as, and the path to its
+     * values in the source, which, for a sub-field (example: name.keyword),
+     * is the path of its parent.
+     */
+    synchronized Field field(final String path) {
+        if (path.equals("_id") || path.equals("_index")) {
+            return new Field(path, "keyword");
+        }
+        final var parts = path.split("\\.");
+        JsonNode mapping = mappings;
+        for (int i = 0; i < parts.length; i++) {
+            final var child = mapping.path("properties").get(parts[i]);
+            if (child == null) {
+                final var subField = mapping.path("fields").get(parts[i]);
+                if (subField != null && i == parts.length - 1) {
+                    return new Field(String.join(".", List.of(parts).subList(0, i)),
+                            subField.path("type").asText("keyword"));
+                }
+                return new Field(path, null);
+            }
+            mapping = child;
+        }
+        return new Field(path, mapping.path("type").asText("object"));
+    }
+
+    /**
+     * Returns the paths of the fields mapped in this index that have values
+     * of their own (as opposed to objects), not including sub-fields.
+     */
+    synchronized List<String> leafFields() {
+        final var fields = new ArrayList<String>();
+        collectLeafFields(mappings, "", fields);
+        return fields;
+    }
+
+    private static void collectLeafFields(final JsonNode mapping, final String prefix, final List<String> fields) {
+        mapping.path("properties").fields().forEachRemaining(e -> {
+            if (e.getValue().has("properties")) {
+                collectLeafFields(e.getValue(), prefix + e.getKey() + ".", fields);
+            } else if (!e.getValue().path("type").asText().equals("object")) {
+                fields.add(prefix + e.getKey());
+            }
+        });
+    }
+
+    private void checkWritable() {
+        if ("true".equals(settings.get(WRITE_BLOCK_SETTING))) {
+            throw new InMemoryElasticsearchException(403, "cluster_block_exception", MessageFormat.format(
+                    "index [{0}] blocked by: [FORBIDDEN/8/index write (api)];", name), name);
+        }
+    }
+
+    private void checkSeqNo(final String id, final InMemoryDocument current, final Long ifSeqNo) {
+        if (ifSeqNo != null && (current == null || current.getSeqNo() != ifSeqNo)) {
+            throw new InMemoryElasticsearchException(409, "version_conflict_engine_exception", MessageFormat.format(
+                    "[{0}]: version conflict, required seqNo [{1}], primary term [1]. {2}",
+                    id, String.valueOf(ifSeqNo), current == null
+                            ? "but no document was found"
+                            : "current document has seqNo [" + current.getSeqNo() + "] and primary term [1]"), name);
+        }
+    }
+
+    /*
+     Maps the fields of the given object that are not mapped yet, as
+     dynamic mapping does, unless dynamic mapping is disabled for the object
+     (they are then only kept in the source), or strict (they are rejected).
+     */
+    private void mapDynamically(final ObjectNode mapping, final JsonNode object, final String prefix) {
+        final var dynamic = mapping.path("dynamic").asText("true");
+        final Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+        while (fields.hasNext()) {
+            final var field = fields.next();
+            final var value = firstValue(field.getValue());
+            if (value == null) {
+                continue;
+            }
+            final var properties = mapping.has("properties")
+                    ? (ObjectNode) mapping.get("properties")
+                    : null;
+            var fieldMapping = properties == null ? null : properties.get(field.getKey());
+            if (fieldMapping == null) {
+                if (dynamic.equals("strict")) {
+                    throw new InMemoryElasticsearchException(400, "strict_dynamic_mapping_exception", MessageFormat.format(
+                            "[1:1] mapping set to strict, dynamic introduction of [{0}] within [_doc] is not allowed",
+                            prefix + field.getKey()), name);
+                }
+                if (dynamic.equals("false")) {
+                    continue;
+                }
+                fieldMapping = dynamicMapping(value);
+                (properties == null ? mapping.putObject("properties") : properties).set(field.getKey(), fieldMapping);
+            }
+            if (value.isObject() && fieldMapping instanceof ObjectNode objectMapping) {
+                mapDynamically(objectMapping, value, prefix + field.getKey() + ".");
+            }
+        }
+    }
+
+    private static JsonNode firstValue(final JsonNode value) {
+        if (value.isArray()) {
+            for (final var element : value) {
+                if (!element.isNull()) {
+                    return element;
+                }
+            }
+            return null;
+        }
+        return value.isNull() ? null : value;
+    }
+
+    private static ObjectNode dynamicMapping(final JsonNode value) {
+        final var mapping = NODES.objectNode();
+        if (value.isTextual()) {
+            mapping.put("type", "text")
+                    .putObject("fields")
+                    .putObject("keyword")
+                    .put("type", "keyword")
+                    .put("ignore_above", 256);
+        } else if (value.isIntegralNumber()) {
+            mapping.put("type", "long");
+        } else if (value.isNumber()) {
+            mapping.put("type", "float");
+        } else if (value.isBoolean()) {
+            mapping.put("type", "boolean");
+        } else if (value.isObject()) {
+            mapping.putObject("properties");
+        }
+        return mapping;
+    }
+
+    /*
+     Merges the fields of the source object into the target object, object
+     fields recursively.
+     */
+    private static void merge(final ObjectNode target, final JsonNode source) {
+        source.fields().forEachRemaining(e -> {
+            final var existing = target.get(e.getKey());
+            if (existing instanceof ObjectNode existingObject && e.getValue().isObject()) {
+                merge(existingObject, e.getValue());
+            } else {
+                target.set(e.getKey(), e.getValue().deepCopy());
+            }
+        });
+    }
+
+    /**
+     * A field, as mapped: the path to its values in the source, and its type
+     * (null if it is not mapped).
+     */
+    static class Field {
+
+        private final String sourcePath;
+        private final String type;
+
+        Field(final String sourcePath, final String type) {
+            this.sourcePath = sourcePath;
+            this.type = type;
+        }
+
+        String getSourcePath() {
+            return sourcePath;
+        }
+
+        String getType() {
+            return type;
+        }
+    }
+
+    /**
+     * The outcome of a write: the document written (or, once deleted, its
+     * new version), the result Elasticsearch would report, and the status.
+     */
+    static class WriteResult {
+
+        private final InMemoryDocument document;
+        private final String result;
+        private final int status;
+
+        WriteResult(final InMemoryDocument document, final String result, final int status) {
+            this.document = document;
+            this.result = result;
+            this.status = status;
+        }
+
+        InMemoryDocument getDocument() {
+            return document;
+        }
+
+        String getResult() {
+            return result;
+        }
+
+        int getStatus() {
+            return status;
+        }
+    }
+}
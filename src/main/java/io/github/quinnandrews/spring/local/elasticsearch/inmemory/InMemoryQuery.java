@@ -0,0 +1,796 @@
+package io.github.quinnandrews.spring.local.elasticsearch.inmemory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+import java.util.stream.StreamSupport;
+
+/**
+ * <p> A query of the Elasticsearch Query DSL, compiled to match the
+ * documents of an in-memory index. The queries supported are those the
+ * Repositories and Criteria Queries of Spring Data generate, and those
+ * commonly written by hand: match_all, match_none, bool, constant_score,
+ * dis_max, ids, term, terms, match, match_phrase, match_phrase_prefix,
+ * multi_match, prefix, wildcard, regexp, range, exists, wrapper, and the
+ * common syntax of query_string and simple_query_string (terms, phrases,
+ * fields, wildcards, AND, OR, NOT, + and -, but not grouping or ranges).
+ *
+ * <p> Text fields are analyzed the way the standard analyzer does for
+ * most text: lowercased, and split on anything other than letters and
+ * digits. Every other field matches on its whole value. Documents are not
+ * scored, since the order of documents that match equally well is not
+ * something tests should depend on anyway.
+ *
+ * @author Quinn Andrews
+ */
+class InMemoryQuery {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> TEXT_TYPES = Set.of("text", "match_only_text", "search_as_you_type", "annotated_text");
+    private static final Set<String> NUMERIC_TYPES = Set.of("long", "integer", "short", "byte", "double", "float",
+            "half_float", "scaled_float", "unsigned_long", "token_count");
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Set<String> IGNORED_PARAMETERS = Set.of("boost", "_name");
+
+    private final Matcher matcher;
+
+    private InMemoryQuery(final Matcher matcher) {
+        this.matcher = matcher;
+    }
+
+    /**
+     * Compiles the given query (a missing query matches every document).
+     *
+     * @throws InMemoryElasticsearchException if the query is malformed or not supported.
+     */
+    static InMemoryQuery parse(final JsonNode query) {
+        if (query == null || query.isMissingNode() || query.isNull()) {
+            return new InMemoryQuery((index, document) -> true);
+        }
+        return new InMemoryQuery(compile(query));
+    }
+
+    boolean matches(final InMemoryIndex index, final InMemoryDocument document) {
+        return matcher.matches(index, document);
+    }
+
+    /**
+     * Returns the values of the given field of the given document (the
+     * values of a field in an array of objects included), in the order they
+     * appear in its source.
+     */
+    static List<JsonNode> values(final InMemoryDocument document, final String path) {
+        if (path.equals("_id")) {
+            return List.of(TextNode.valueOf(document.getId()));
+        }
+        if (path.equals("_index")) {
+            return List.of(TextNode.valueOf(document.getIndex()));
+        }
+        final var values = new ArrayList<JsonNode>();
+        collectValues(document.getSource(), path, values);
+        return values;
+    }
+
+    private static void collectValues(final JsonNode node, final String path, final List<JsonNode> values) {
+        if (node == null || node.isNull() || node.isMissingNode()) {
+            return;
+        }
+        if (node.isArray()) {
+            node.forEach(element -> collectValues(element, path, values));
+            return;
+        }
+        if (path.isEmpty()) {
+            values.add(node);
+            return;
+        }
+        if (!node.isObject()) {
+            return;
+        }
+        if (node.has(path)) {
+            collectValues(node.get(path), "", values);
+            return;
+        }
+        // a field name may contain dots itself, so try every split of the path
+        int dot = path.indexOf('.');
+        while (dot > 0) {
+            final var head = path.substring(0, dot);
+            if (node.has(head)) {
+                collectValues(node.get(head), path.substring(dot + 1), values);
+            }
+            dot = path.indexOf('.', dot + 1);
+        }
+    }
+
+    /**
+     * Splits the given text into lowercase tokens, as the standard analyzer
+     * does for most text.
+     */
+    static List<String> analyze(final String text) {
+        return Arrays.stream(TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(t -> !t.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Compares two values as numbers if both are numbers, and as strings
+     * otherwise, which orders dates in the same format correctly too.
+     */
+    static int compare(final JsonNode a, final JsonNode b) {
+        final var numberA = number(a);
+        final var numberB = number(b);
+        if (numberA != null && numberB != null) {
+            return numberA.compareTo(numberB);
+        }
+        return a.asText().compareTo(b.asText());
+    }
+
+    private static BigDecimal number(final JsonNode value) {
+        if (value.isNumber()) {
+            return value.decimalValue();
+        }
+        try {
+            return value.isTextual() ? new BigDecimal(value.asText().trim()) : null;
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Matcher compile(final JsonNode query) {
+        if (!query.isObject() || query.size() != 1) {
+            throw parsingException("[_na] query malformed, must start with start_object and have exactly one query");
+        }
+        final var entry = query.fields().next();
+        final var body = entry.getValue();
+        return switch (entry.getKey()) {
+            case "match_all" -> (index, document) -> true;
+            case "match_none" -> (index, document) -> false;
+            case "bool" -> bool(body);
+            case "constant_score" -> compile(body.path("filter"));
+            case "dis_max" -> any(clauses(body.path("queries")));
+            case "boosting" -> compile(body.path("positive"));
+            case "ids" -> ids(body);
+            case "term" -> term(body);
+            case "terms" -> terms(body);
+            case "match" -> match(body);
+            case "match_phrase" -> phrase(body, false);
+            case "match_phrase_prefix" -> phrase(body, true);
+            case "multi_match" -> multiMatch(body);
+            case "prefix" -> prefix(body);
+            case "wildcard" -> wildcard(body);
+            case "regexp" -> regexp(body);
+            case "range" -> range(body);
+            case "exists" -> exists(body);
+            case "query_string", "simple_query_string" -> QueryString.parse(body);
+            case "wrapper" -> wrapper(body);
+            default -> throw InMemoryElasticsearchException.unsupported(
+                    MessageFormat.format("The [{0}] query", entry.getKey()));
+        };
+    }
+
+    /*
+     A wrapper query holds another query, as Base64 encoded JSON. Spring
+     Data wraps the queries of Repositories in one.
+     */
+    private static Matcher wrapper(final JsonNode body) {
+        try {
+            return compile(OBJECT_MAPPER.readTree(Base64.getDecoder().decode(body.path("query").asText())));
+        } catch (final IOException | IllegalArgumentException e) {
+            throw parsingException("[wrapper] query is malformed: " + e.getMessage());
+        }
+    }
+
+    private static Matcher bool(final JsonNode body) {
+        final var must = new ArrayList<>(clauses(body.path("must")));
+        must.addAll(clauses(body.path("filter")));
+        final var should = clauses(body.path("should"));
+        final var mustNot = clauses(body.path("must_not"));
+        final var minimumShouldMatch = Optional.ofNullable(body.get("minimum_should_match"))
+                .map(m -> minimumShouldMatch(m, should.size()))
+                .orElse(must.isEmpty() && !should.isEmpty() ? 1 : 0);
+        return (index, document) -> {
+            if (!must.stream().allMatch(m -> m.matches(index, document))
+                    || mustNot.stream().anyMatch(m -> m.matches(index, document))) {
+                return false;
+            }
+            return minimumShouldMatch == 0
+                    || should.stream().filter(m -> m.matches(index, document)).count() >= minimumShouldMatch;
+        };
+    }
+
+    /*
+     Supports a number or a percentage, negative or not, but not
+     combinations of them.
+     */
+    private static int minimumShouldMatch(final JsonNode value, final int clauses) {
+        final var text = value.asText().trim();
+        final int required;
+        if (text.endsWith("%")) {
+            final var percentage = Integer.parseInt(text.substring(0, text.length() - 1));
+            required = percentage < 0
+                    ? clauses - (clauses * -percentage / 100)
+                    : clauses * percentage / 100;
+        } else {
+            final var number = Integer.parseInt(text);
+            required = number < 0 ? clauses + number : number;
+        }
+        return Math.max(0, Math.min(required, clauses));
+    }
+
+    private static List<Matcher> clauses(final JsonNode node) {
+        if (node.isMissingNode() || node.isNull()) {
+            return List.of();
+        }
+        if (node.isArray()) {
+            return StreamSupport.stream(node.spliterator(), false)
+                    .map(InMemoryQuery::compile)
+                    .toList();
+        }
+        return List.of(compile(node));
+    }
+
+    private static Matcher any(final List<Matcher> matchers) {
+        return (index, document) -> matchers.stream().anyMatch(m -> m.matches(index, document));
+    }
+
+    private static Matcher ids(final JsonNode body) {
+        final var ids = new HashSet<String>();
+        body.path("values").forEach(id -> ids.add(id.asText()));
+        return (index, document) -> ids.contains(document.getId());
+    }
+
+    private static Matcher term(final JsonNode body) {
+        final var field = fieldOf(body);
+        final var term = field.value("value");
+        final var caseInsensitive = field.parameters().path("case_insensitive").asBoolean(false);
+        return fieldMatcher(field.name(), (type, value) -> termMatches(type, value, term, caseInsensitive));
+    }
+
+    private static Matcher terms(final JsonNode body) {
+        final var fields = new ArrayList<Map.Entry<String, JsonNode>>();
+        body.fields().forEachRemaining(e -> {
+            if (!IGNORED_PARAMETERS.contains(e.getKey())) {
+                fields.add(e);
+            }
+        });
+        if (fields.size() != 1 || !fields.get(0).getValue().isArray()) {
+            throw parsingException("[terms] query requires a single field with an array of terms");
+        }
+        final var terms = new ArrayList<JsonNode>();
+        fields.get(0).getValue().forEach(terms::add);
+        return fieldMatcher(fields.get(0).getKey(), (type, value) ->
+                terms.stream().anyMatch(term -> termMatches(type, value, term, false)));
+    }
+
+    private static Matcher match(final JsonNode body) {
+        final var field = fieldOf(body);
+        final var query = field.value("query");
+        final var and = field.parameters().path("operator").asText("or").equalsIgnoreCase("and");
+        return matchField(field.name(), query, and);
+    }
+
+    private static Matcher matchField(final String name, final JsonNode query, final boolean and) {
+        final var queryTokens = analyze(query.asText());
+        return (index, document) -> {
+            final var field = index.field(name);
+            final var values = values(document, field.getSourcePath());
+            if (!isText(field.getType())) {
+                return values.stream().anyMatch(value -> termMatches(field.getType(), value, query, false));
+            }
+            if (queryTokens.isEmpty()) {
+                return false;
+            }
+            final var tokens = new HashSet<String>();
+            values.forEach(value -> tokens.addAll(analyze(value.asText())));
+            return and ? tokens.containsAll(queryTokens) : queryTokens.stream().anyMatch(tokens::contains);
+        };
+    }
+
+    private static Matcher phrase(final JsonNode body, final boolean prefix) {
+        final var field = fieldOf(body);
+        final var query = field.value("query");
+        return fieldMatcher(field.name(), (type, value) -> phraseMatches(type, value, query.asText(), prefix));
+    }
+
+    private static boolean phraseMatches(final String type,
+                                         final JsonNode value,
+                                         final String phrase,
+                                         final boolean prefix) {
+        if (!isText(type)) {
+            return prefix ? value.asText().startsWith(phrase) : termMatches(type, value, TextNode.valueOf(phrase), false);
+        }
+        final var phraseTokens = analyze(phrase);
+        final var tokens = analyze(value.asText());
+        if (phraseTokens.isEmpty()) {
+            return false;
+        }
+        for (int start = 0; start + phraseTokens.size() <= tokens.size(); start++) {
+            var matched = true;
+            for (int i = 0; i < phraseTokens.size() && matched; i++) {
+                final var token = tokens.get(start + i);
+                final var phraseToken = phraseTokens.get(i);
+                matched = prefix && i == phraseTokens.size() - 1
+                        ? token.startsWith(phraseToken)
+                        : token.equals(phraseToken);
+            }
+            if (matched) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Matcher multiMatch(final JsonNode body) {
+        final var query = body.path("query");
+        final var and = body.path("operator").asText("or").equalsIgnoreCase("and");
+        final var type = body.path("type").asText("best_fields");
+        final var fields = new ArrayList<String>();
+        body.path("fields").forEach(f -> fields.add(f.asText()));
+        if (fields.isEmpty()) {
+            fields.add("*");
+        }
+        return (index, document) -> expandFields(index, fields).stream()
+                .anyMatch(field -> (type.startsWith("phrase")
+                        ? fieldMatcher(field, (t, v) -> phraseMatches(t, v, query.asText(), type.equals("phrase_prefix")))
+                        : matchField(field, query, and)).matches(index, document));
+    }
+
+    private static Matcher prefix(final JsonNode body) {
+        final var field = fieldOf(body);
+        final var prefix = field.value("value").asText();
+        final var caseInsensitive = field.parameters().path("case_insensitive").asBoolean(false);
+        return fieldMatcher(field.name(), (type, value) -> candidates(type, value).stream()
+                .anyMatch(candidate -> caseInsensitive
+                        ? candidate.toLowerCase(Locale.ROOT).startsWith(prefix.toLowerCase(Locale.ROOT))
+                        : candidate.startsWith(prefix)));
+    }
+
+    private static Matcher wildcard(final JsonNode body) {
+        final var field = fieldOf(body);
+        final var pattern = Optional.ofNullable(field.parameters().get("wildcard"))
+                .orElseGet(() -> field.value("value"))
+                .asText();
+        final var caseInsensitive = field.parameters().path("case_insensitive").asBoolean(false);
+        final var regex = globToRegex(pattern, caseInsensitive);
+        return fieldMatcher(field.name(), (type, value) -> candidates(type, value).stream()
+                .anyMatch(candidate -> regex.matcher(candidate).matches()));
+    }
+
+    private static Matcher regexp(final JsonNode body) {
+        final var field = fieldOf(body);
+        final var caseInsensitive = field.parameters().path("case_insensitive").asBoolean(false);
+        final var regex = Pattern.compile(field.value("value").asText(), caseInsensitive ? Pattern.CASE_INSENSITIVE : 0);
+        return fieldMatcher(field.name(), (type, value) -> candidates(type, value).stream()
+                .anyMatch(candidate -> regex.matcher(candidate).matches()));
+    }
+
+    private static Matcher range(final JsonNode body) {
+        final var field = fieldOf(body);
+        final var bounds = field.parameters();
+        return fieldMatcher(field.name(), (type, value) -> inRange(value, bounds));
+    }
+
+    private static boolean inRange(final JsonNode value, final JsonNode bounds) {
+        final var includeLower = bounds.path("include_lower").asBoolean(true);
+        final var includeUpper = bounds.path("include_upper").asBoolean(true);
+        return within(value, bounds.get("gt"), c -> c > 0)
+                && within(value, bounds.get("gte"), c -> c >= 0)
+                && within(value, bounds.get("lt"), c -> c < 0)
+                && within(value, bounds.get("lte"), c -> c <= 0)
+                && within(value, bounds.get("from"), c -> includeLower ? c >= 0 : c > 0)
+                && within(value, bounds.get("to"), c -> includeUpper ? c <= 0 : c < 0);
+    }
+
+    private static boolean within(final JsonNode value,
+                                  final JsonNode bound,
+                                  final IntPredicate check) {
+        return bound == null || bound.isNull() || check.test(compare(value, bound));
+    }
+
+    private static Matcher exists(final JsonNode body) {
+        final var name = body.path("field").asText();
+        return (index, document) -> {
+            final var field = index.field(name);
+            return !values(document, field.getSourcePath()).isEmpty();
+        };
+    }
+
+    /*
+     Returns a matcher of the documents with a value of the given field that
+     matches the given predicate, which is passed the type of the field.
+     */
+    private static Matcher fieldMatcher(final String name, final ValueMatcher valueMatcher) {
+        return (index, document) -> {
+            final var field = index.field(name);
+            return values(document, field.getSourcePath()).stream()
+                    .anyMatch(value -> valueMatcher.matches(field.getType(), value));
+        };
+    }
+
+    static boolean termMatches(final String type,
+                               final JsonNode value,
+                               final JsonNode term,
+                               final boolean caseInsensitive) {
+        if (isText(type)) {
+            final var termText = term.asText();
+            return analyze(value.asText()).stream()
+                    .anyMatch(token -> caseInsensitive ? token.equalsIgnoreCase(termText) : token.equals(termText));
+        }
+        if (NUMERIC_TYPES.contains(type) || (type == null && value.isNumber())) {
+            final var a = number(value);
+            final var b = number(term);
+            return a != null && b != null && a.compareTo(b) == 0;
+        }
+        if ("date".equals(type) || "date_nanos".equals(type)) {
+            return compare(value, term) == 0;
+        }
+        return caseInsensitive
+                ? value.asText().equalsIgnoreCase(term.asText())
+                : value.asText().equals(term.asText());
+    }
+
+    /*
+     Returns what a term level query (prefix, wildcard, regexp) is matched
+     against: each token of text, or else the whole value.
+     */
+    private static List<String> candidates(final String type, final JsonNode value) {
+        return isText(type) ? analyze(value.asText()) : List.of(value.asText());
+    }
+
+    static boolean isText(final String type) {
+        return type != null && TEXT_TYPES.contains(type);
+    }
+
+    /*
+     Expands field names with wildcards (example: name*, or *) to the
+     fields mapped in the index, and removes any boosts (example: name^2).
+     */
+    static List<String> expandFields(final InMemoryIndex index, final List<String> fields) {
+        final var expanded = new ArrayList<String>();
+        for (final var field : fields) {
+            final var name = field.replaceAll("\\^[\\d.]+$", "");
+            if (name.contains("*")) {
+                final var regex = globToRegex(name, false);
+                index.leafFields().stream()
+                        .filter(f -> regex.matcher(f).matches())
+                        .forEach(expanded::add);
+            } else {
+                expanded.add(name);
+            }
+        }
+        return expanded;
+    }
+
+    static Pattern globToRegex(final String glob, final boolean caseInsensitive) {
+        final var regex = new StringBuilder();
+        for (final var c : glob.toCharArray()) {
+            switch (c) {
+                case '*' -> regex.append(".*");
+                case '?' -> regex.append('.');
+                default -> regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), caseInsensitive ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0);
+    }
+
+    private static FieldQuery fieldOf(final JsonNode body) {
+        final Iterator<Map.Entry<String, JsonNode>> fields = body.fields();
+        while (fields.hasNext()) {
+            final var field = fields.next();
+            if (!IGNORED_PARAMETERS.contains(field.getKey())) {
+                return new FieldQuery(field.getKey(), field.getValue());
+            }
+        }
+        throw parsingException("query does not name a field");
+    }
+
+    static InMemoryElasticsearchException parsingException(final String reason) {
+        return new InMemoryElasticsearchException(400, "parsing_exception", reason);
+    }
+
+    interface Matcher {
+
+        boolean matches(InMemoryIndex index, InMemoryDocument document);
+    }
+
+    private interface ValueMatcher {
+
+        boolean matches(String type, JsonNode value);
+    }
+
+    /*
+     A query on a single field, in either its short form ({"name": "value"})
+     or its long form ({"name": {"value": "value", ...}}).
+     */
+    private static class FieldQuery {
+
+        private final String name;
+        private final JsonNode body;
+
+        private FieldQuery(final String name, final JsonNode body) {
+            this.name = name;
+            this.body = body;
+        }
+
+        String name() {
+            return name;
+        }
+
+        JsonNode parameters() {
+            return body.isObject() ? body : MissingNode.getInstance();
+        }
+
+        JsonNode value(final String key) {
+            if (!body.isObject()) {
+                return body;
+            }
+            return Optional.ofNullable(body.get(key))
+                    .orElseThrow(() -> parsingException(MessageFormat.format(
+                            "[{0}] query on field [{1}] is missing [{0}]", key, name)));
+        }
+    }
+
+    /**
+     * <p> The common syntax of the query_string and simple_query_string
+     * queries. Consecutive plain terms are kept together, as Elasticsearch
+     * does, so that text is matched token by token with the default
+     * operator, but a keyword matches only as a whole.
+     */
+    private static class QueryString {
+
+        private enum Occur { MUST, SHOULD, MUST_NOT }
+
+        private final String query;
+        private final boolean defaultAnd;
+        private final List<Clause> clauses = new ArrayList<>();
+        private int position;
+
+        private QueryString(final String query, final boolean defaultAnd) {
+            this.query = query;
+            this.defaultAnd = defaultAnd;
+        }
+
+        static Matcher parse(final JsonNode body) {
+            final var fields = new ArrayList<String>();
+            body.path("fields").forEach(f -> fields.add(f.asText()));
+            if (fields.isEmpty()) {
+                fields.add(body.path("default_field").asText("*"));
+            }
+            final var queryString = new QueryString(
+                    body.path("query").asText(),
+                    body.path("default_operator").asText("or").equalsIgnoreCase("and"));
+            queryString.parseClauses();
+            final var clauses = queryString.clauses;
+            return (index, document) -> {
+                final var defaultFields = expandFields(index, fields);
+                var matchedShould = false;
+                var hasShould = false;
+                var hasMust = false;
+                for (final var clause : clauses) {
+                    final var matched = clause.matches(index, document, defaultFields);
+                    switch (clause.occur) {
+                        case MUST -> {
+                            hasMust = true;
+                            if (!matched) {
+                                return false;
+                            }
+                        }
+                        case MUST_NOT -> {
+                            if (matched) {
+                                return false;
+                            }
+                        }
+                        default -> {
+                            hasShould = true;
+                            matchedShould |= matched;
+                        }
+                    }
+                }
+                return hasMust || !hasShould || matchedShould;
+            };
+        }
+
+        private void parseClauses() {
+            String conjunction = null;
+            while (skipWhitespace()) {
+                final var c = query.charAt(position);
+                if (c == '(' || c == ')') {
+                    throw InMemoryElasticsearchException.unsupported("Grouping in a query_string query");
+                }
+                if (c == '[' || c == '{') {
+                    throw InMemoryElasticsearchException.unsupported("A range in a query_string query");
+                }
+                final var operator = readOperator();
+                if (operator != null) {
+                    if (operator.equals("NOT")) {
+                        addClause(readClause(Occur.MUST_NOT), conjunction);
+                        conjunction = null;
+                    } else {
+                        conjunction = operator;
+                    }
+                    continue;
+                }
+                Occur modifier = null;
+                if (c == '+') {
+                    modifier = Occur.MUST;
+                    position++;
+                } else if (c == '-' || c == '!') {
+                    modifier = Occur.MUST_NOT;
+                    position++;
+                }
+                final var clause = readClause(modifier);
+                if (modifier == null && conjunction == null && clause.isPlain() && !clauses.isEmpty()
+                        && clauses.get(clauses.size() - 1).isPlain()) {
+                    clauses.get(clauses.size() - 1).text += " " + clause.text;
+                } else {
+                    addClause(clause, conjunction);
+                }
+                conjunction = null;
+            }
+        }
+
+        private void addClause(final Clause clause, final String conjunction) {
+            final var previous = clauses.isEmpty() ? null : clauses.get(clauses.size() - 1);
+            if ("AND".equals(conjunction)) {
+                if (previous != null && previous.occur != Occur.MUST_NOT) {
+                    previous.occur = Occur.MUST;
+                }
+                if (!clause.explicit) {
+                    clause.occur = Occur.MUST;
+                }
+            } else if ("OR".equals(conjunction) && defaultAnd) {
+                if (previous != null && !previous.explicit) {
+                    previous.occur = Occur.SHOULD;
+                }
+                if (!clause.explicit) {
+                    clause.occur = Occur.SHOULD;
+                }
+            }
+            clauses.add(clause);
+        }
+
+        private boolean skipWhitespace() {
+            while (position < query.length() && Character.isWhitespace(query.charAt(position))) {
+                position++;
+            }
+            return position < query.length();
+        }
+
+        private String readOperator() {
+            for (final var operator : List.of("AND", "OR", "NOT", "&&", "||", "|")) {
+                final var end = position + operator.length();
+                if (query.startsWith(operator, position)
+                        && (end == query.length() || Character.isWhitespace(query.charAt(end)))) {
+                    position = end;
+                    return switch (operator) {
+                        case "&&" -> "AND";
+                        case "||", "|" -> "OR";
+                        default -> operator;
+                    };
+                }
+            }
+            return null;
+        }
+
+        private Clause readClause(final Occur modifier) {
+            final var clause = new Clause();
+            clause.explicit = modifier != null;
+            clause.occur = modifier != null ? modifier : defaultAnd ? Occur.MUST : Occur.SHOULD;
+            final var raw = new StringBuilder();
+            while (position < query.length()) {
+                final var c = query.charAt(position);
+                if (c == '\\' && position + 1 < query.length()) {
+                    raw.append(c).append(query.charAt(position + 1));
+                    position += 2;
+                } else if (c == '"' && raw.isEmpty()) {
+                    clause.phrase = true;
+                    clause.text = readPhrase();
+                    return clause;
+                } else if (c == ':' && clause.field == null && !raw.isEmpty()) {
+                    clause.field = unescape(raw.toString());
+                    raw.setLength(0);
+                    position++;
+                } else if (Character.isWhitespace(c)) {
+                    break;
+                } else {
+                    raw.append(c);
+                    position++;
+                }
+            }
+            final var term = raw.toString().replaceAll("(?<!\\\\)[~^][\\d.]*$", "");
+            clause.wildcard = term.matches(".*(?<!\\\\)[*?].*");
+            clause.text = clause.wildcard ? term : unescape(term);
+            return clause;
+        }
+
+        private String readPhrase() {
+            position++;
+            final var phrase = new StringBuilder();
+            while (position < query.length() && query.charAt(position) != '"') {
+                if (query.charAt(position) == '\\' && position + 1 < query.length()) {
+                    position++;
+                }
+                phrase.append(query.charAt(position++));
+            }
+            position++;
+            // skip any slop or boost (example: "big muff"~2)
+            while (position < query.length() && !Character.isWhitespace(query.charAt(position))) {
+                position++;
+            }
+            return phrase.toString();
+        }
+
+        private static String unescape(final String text) {
+            return text.replaceAll("\\\\(.)", "$1");
+        }
+
+        private class Clause {
+
+            private Occur occur;
+            private boolean explicit;
+            private String field;
+            private String text;
+            private boolean phrase;
+            private boolean wildcard;
+
+            boolean isPlain() {
+                return !explicit && field == null && !phrase && !wildcard;
+            }
+
+            boolean matches(final InMemoryIndex index,
+                            final InMemoryDocument document,
+                            final List<String> defaultFields) {
+                if (wildcard && text.equals("*") && "*".equals(field)) {
+                    return true;
+                }
+                final var fields = field == null
+                        ? defaultFields
+                        : expandFields(index, Collections.singletonList(field));
+                return fields.stream().anyMatch(name -> {
+                    final var mapped = index.field(name);
+                    return values(document, mapped.getSourcePath()).stream()
+                            .anyMatch(value -> matchesValue(mapped.getType(), value));
+                });
+            }
+
+            private boolean matchesValue(final String type, final JsonNode value) {
+                if (wildcard) {
+                    final var text = this.text.replaceAll("\\\\(.)", "$1");
+                    if (isText(type)) {
+                        final var regex = globToRegex(text.toLowerCase(Locale.ROOT), false);
+                        return analyze(value.asText()).stream().anyMatch(t -> regex.matcher(t).matches());
+                    }
+                    return globToRegex(text, false).matcher(value.asText()).matches();
+                }
+                if (phrase) {
+                    return phraseMatches(type, value, text, false);
+                }
+                if (!isText(type)) {
+                    return termMatches(type, value, TextNode.valueOf(text), false);
+                }
+                final var queryTokens = analyze(text);
+                final var tokens = new HashSet<>(analyze(value.asText()));
+                return !queryTokens.isEmpty() && (defaultAnd
+                        ? tokens.containsAll(queryTokens)
+                        : queryTokens.stream().anyMatch(tokens::contains));
+            }
+        }
+    }
+}
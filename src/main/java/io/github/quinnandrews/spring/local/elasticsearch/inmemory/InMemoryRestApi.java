@@ -0,0 +1,993 @@
+package io.github.quinnandrews.spring.local.elasticsearch.inmemory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * <p> The subset of the REST API of Elasticsearch that the in-memory
+ * stand-in serves, independent of HTTP: index management (create, delete,
+ * exists, mappings, settings, aliases, clone, refresh and flush), document
+ * APIs (index, create, get, exists, update, delete, multi get, bulk and
+ * delete by query), search (with scroll and point in time), count, and the
+ * cluster info, health and cat indices APIs.
+ *
+ * <p> Responses have the fields the Elasticsearch Java Client requires, so
+ * that the Client, and Spring Data on top of it, work unchanged.
+ *
+ * @author Quinn Andrews
+ */
+class InMemoryRestApi {
+
+    static final String CLUSTER_NAME = "local-elasticsearch";
+    static final String NODE_NAME = "local-elasticsearch-in-memory";
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConcurrentSkipListMap<String, InMemoryIndex> indices = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, Scroll> scrolls = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Map<InMemoryIndex, List<InMemoryDocument>>> pointsInTime = new ConcurrentHashMap<>();
+    private final String clusterUuid = UUID.randomUUID().toString();
+    private final String version;
+
+    InMemoryRestApi(final String version) {
+        this.version = version;
+    }
+
+    /**
+     * Handles the given request, and returns the response (whose body is
+     * null for a HEAD request).
+     *
+     * @throws InMemoryElasticsearchException if the request fails, or is not supported.
+     */
+    Response handle(final String method,
+                    final List<String> path,
+                    final Map<String, String> params,
+                    final byte[] body) {
+        final var segments = path.size();
+        if (segments == 0) {
+            return ok(info());
+        }
+        final var first = path.get(0);
+        if (first.startsWith("_")) {
+            return handleSystem(method, path, params, body);
+        }
+        if (segments == 1) {
+            return switch (method) {
+                case "HEAD" -> resolve(first, params).isEmpty()
+                        ? new Response(404, null)
+                        : new Response(200, null);
+                case "GET" -> ok(getIndices(first, params));
+                case "PUT" -> ok(createIndex(first, json(body)));
+                case "DELETE" -> ok(deleteIndices(first, params));
+                default -> throw unsupported(method, path);
+            };
+        }
+        final var endpoint = path.get(1);
+        final var id = segments > 2 ? path.get(2) : null;
+        return switch (endpoint) {
+            case "_doc" -> switch (method) {
+                case "GET" -> get(first, id, params);
+                case "HEAD" -> new Response(get(first, id, params).getStatus(), null);
+                case "PUT", "POST" -> write(first, id, json(body), params, "create".equals(params.get("op_type")));
+                case "DELETE" -> delete(first, id, params);
+                default -> throw unsupported(method, path);
+            };
+            case "_create" -> write(first, id, json(body), params, true);
+            case "_update" -> update(first, id, json(body), params);
+            case "_source" -> {
+                final var response = get(first, id, params);
+                yield response.getStatus() == 200
+                        ? ok(response.getBody().get("_source"))
+                        : response;
+            }
+            case "_bulk" -> bulk(first, body);
+            case "_search" -> search(first, params, json(body));
+            case "_count" -> count(first, params, json(body));
+            case "_mget" -> mget(first, json(body), params);
+            case "_delete_by_query" -> deleteByQuery(first, params, json(body));
+            case "_refresh", "_flush", "_forcemerge" -> ok(shardsResponse(resolve(first, params).size()));
+            case "_pit" -> openPointInTime(first, params);
+            case "_mapping" -> method.equals("GET")
+                    ? ok(getMappings(first, params))
+                    : ok(putMappings(first, params, json(body)));
+            case "_settings" -> method.equals("GET")
+                    ? ok(getSettings(first, id, params))
+                    : ok(putSettings(first, params, json(body)));
+            case "_alias", "_aliases" -> switch (method) {
+                case "GET", "HEAD" -> getAliases(first, id, params, method);
+                case "PUT", "POST" -> ok(putAlias(first, id, json(body), params));
+                case "DELETE" -> ok(deleteAlias(first, id, params));
+                default -> throw unsupported(method, path);
+            };
+            case "_clone" -> ok(cloneIndex(first, id, json(body)));
+            default -> throw unsupported(method, path);
+        };
+    }
+
+    private Response handleSystem(final String method,
+                                  final List<String> path,
+                                  final Map<String, String> params,
+                                  final byte[] body) {
+        final var endpoint = path.get(0);
+        final var second = path.size() > 1 ? path.get(1) : null;
+        return switch (endpoint) {
+            case "_bulk" -> bulk(null, body);
+            case "_search" -> {
+                if ("scroll".equals(second)) {
+                    yield method.equals("DELETE")
+                            ? ok(clearScroll(path, json(body)))
+                            : scroll(path, params, json(body));
+                }
+                yield search(null, params, json(body));
+            }
+            case "_count" -> count(null, params, json(body));
+            case "_mget" -> mget(null, json(body), params);
+            case "_refresh", "_flush", "_forcemerge" -> ok(shardsResponse(indices.size()));
+            case "_mapping" -> ok(getMappings("_all", params));
+            case "_settings" -> ok(getSettings("_all", second, params));
+            case "_alias" -> getAliases("_all", second, params, method);
+            case "_aliases" -> ok(updateAliases(json(body)));
+            case "_pit" -> ok(closePointInTime(json(body)));
+            case "_cluster" -> {
+                if (!"health".equals(second)) {
+                    throw unsupported(method, path);
+                }
+                yield ok(health());
+            }
+            case "_cat" -> {
+                if (!"indices".equals(second)) {
+                    throw unsupported(method, path);
+                }
+                yield ok(catIndices(path.size() > 2 ? path.get(2) : "_all", params));
+            }
+            default -> throw unsupported(method, path);
+        };
+    }
+
+    /*
+     Index management.
+     */
+
+    private ObjectNode createIndex(final String name, final JsonNode body) {
+        if (!name.equals(name.toLowerCase()) || name.startsWith("-") || name.startsWith("+")
+                || name.contains(",") || name.contains("*") || name.contains(" ")) {
+            throw new InMemoryElasticsearchException(400, "invalid_index_name_exception", MessageFormat.format(
+                    "Invalid index name [{0}], must be lowercase, and must not start with -, + or _, "
+                            + "or contain a space, a comma or *", name), name);
+        }
+        final var index = new InMemoryIndex(name, flattenSettings(body.path("settings")));
+        if (indices.putIfAbsent(name, index) != null) {
+            throw alreadyExists(name);
+        }
+        index.putMappings(body.path("mappings"));
+        body.path("aliases").fields().forEachRemaining(a -> index.putAlias(a.getKey(), a.getValue()));
+        return acknowledged(name);
+    }
+
+    private ObjectNode deleteIndices(final String expression, final Map<String, String> params) {
+        resolve(expression, params).forEach(index -> indices.remove(index.getName(), index));
+        return NODES.objectNode().put("acknowledged", true);
+    }
+
+    private ObjectNode cloneIndex(final String source, final String target, final JsonNode body) {
+        final var index = exactIndex(source);
+        if (indices.containsKey(target)) {
+            throw alreadyExists(target);
+        }
+        final var copy = index.copy(target, flattenSettings(body.path("settings")));
+        body.path("aliases").fields().forEachRemaining(a -> copy.putAlias(a.getKey(), a.getValue()));
+        if (indices.putIfAbsent(target, copy) != null) {
+            throw alreadyExists(target);
+        }
+        return acknowledged(target);
+    }
+
+    private ObjectNode getIndices(final String expression, final Map<String, String> params) {
+        final var response = NODES.objectNode();
+        requireIndices(expression, params).forEach(index -> {
+            final var node = response.putObject(index.getName());
+            node.set("aliases", objectMapper.valueToTree(index.getAliases()));
+            node.set("mappings", index.getMappings());
+            node.putObject("settings").set("index", nestSettings(index.getSettings()).path("index"));
+        });
+        return response;
+    }
+
+    private ObjectNode getMappings(final String expression, final Map<String, String> params) {
+        final var response = NODES.objectNode();
+        requireIndices(expression, params).forEach(index ->
+                response.putObject(index.getName()).set("mappings", index.getMappings()));
+        return response;
+    }
+
+    private ObjectNode putMappings(final String expression, final Map<String, String> params, final JsonNode body) {
+        requireIndices(expression, params).forEach(index -> index.putMappings(body));
+        return NODES.objectNode().put("acknowledged", true);
+    }
+
+    private ObjectNode getSettings(final String expression, final String names, final Map<String, String> params) {
+        final var filters = Optional.ofNullable(names)
+                .map(n -> List.of(n.split(",")).stream()
+                        .map(f -> InMemoryQuery.globToRegex(f.trim(), false))
+                        .toList())
+                .orElse(List.of());
+        final var flat = Boolean.parseBoolean(params.get("flat_settings"));
+        final var response = NODES.objectNode();
+        requireIndices(expression, params).forEach(index -> {
+            final var settings = new LinkedHashMap<String, String>();
+            index.getSettings().forEach((key, value) -> {
+                if (filters.isEmpty() || filters.stream().anyMatch(f -> f.matcher(key).matches())) {
+                    settings.put(key, value);
+                }
+            });
+            response.putObject(index.getName()).set("settings", flat
+                    ? objectMapper.valueToTree(settings)
+                    : nestSettings(settings));
+        });
+        return response;
+    }
+
+    private ObjectNode putSettings(final String expression, final Map<String, String> params, final JsonNode body) {
+        final var settings = flattenSettings(body.has("settings") ? body.get("settings") : body);
+        requireIndices(expression, params).forEach(index -> index.putSettings(settings));
+        return NODES.objectNode().put("acknowledged", true);
+    }
+
+    private Response getAliases(final String expression,
+                                final String names,
+                                final Map<String, String> params,
+                                final String method) {
+        final var filters = Optional.ofNullable(names)
+                .map(n -> List.of(n.split(",")).stream()
+                        .map(f -> InMemoryQuery.globToRegex(f.trim(), false))
+                        .toList())
+                .orElse(List.of());
+        final var response = NODES.objectNode();
+        var found = false;
+        for (final var index : requireIndices(expression, params)) {
+            final var aliases = NODES.objectNode();
+            for (final var alias : index.getAliases().entrySet()) {
+                if (filters.isEmpty() || filters.stream().anyMatch(f -> f.matcher(alias.getKey()).matches())) {
+                    aliases.set(alias.getKey(), alias.getValue());
+                    found = true;
+                }
+            }
+            if (filters.isEmpty() || !aliases.isEmpty()) {
+                response.putObject(index.getName()).set("aliases", aliases);
+            }
+        }
+        final var status = filters.isEmpty() || found ? 200 : 404;
+        return new Response(status, method.equals("HEAD") ? null : response);
+    }
+
+    private ObjectNode putAlias(final String expression,
+                                final String alias,
+                                final JsonNode body,
+                                final Map<String, String> params) {
+        requireIndices(expression, params).forEach(index -> index.putAlias(alias, body));
+        return NODES.objectNode().put("acknowledged", true);
+    }
+
+    private ObjectNode deleteAlias(final String expression, final String alias, final Map<String, String> params) {
+        requireIndices(expression, params).forEach(index -> index.removeAlias(alias));
+        return NODES.objectNode().put("acknowledged", true);
+    }
+
+    private ObjectNode updateAliases(final JsonNode body) {
+        for (final var action : body.path("actions")) {
+            final var entry = action.fields().next();
+            final var definition = entry.getValue();
+            final var targets = new ArrayList<String>();
+            Optional.ofNullable(definition.get("index")).ifPresent(i -> targets.add(i.asText()));
+            definition.path("indices").forEach(i -> targets.add(i.asText()));
+            final var alias = definition.path("alias").asText();
+            for (final var target : targets) {
+                for (final var index : requireIndices(target, Map.of())) {
+                    switch (entry.getKey()) {
+                        case "add" -> {
+                            final var aliasDefinition = ((ObjectNode) definition.deepCopy());
+                            aliasDefinition.remove(List.of("index", "indices", "alias"));
+                            index.putAlias(alias, aliasDefinition);
+                        }
+                        case "remove" -> index.removeAlias(alias);
+                        case "remove_index" -> indices.remove(index.getName(), index);
+                        default -> throw InMemoryElasticsearchException.unsupported(
+                                MessageFormat.format("The [{0}] alias action", entry.getKey()));
+                    }
+                }
+            }
+        }
+        return NODES.objectNode().put("acknowledged", true);
+    }
+
+    /*
+     Document APIs.
+     */
+
+    private Response write(final String target,
+                           final String id,
+                           final JsonNode source,
+                           final Map<String, String> params,
+                           final boolean create) {
+        if (!source.isObject()) {
+            throw new InMemoryElasticsearchException(400, "mapper_parsing_exception", "failed to parse, document is empty");
+        }
+        final var index = writeIndex(target);
+        final var result = index.index(Optional.ofNullable(id).orElseGet(InMemoryRestApi::newId),
+                (ObjectNode) source, create, seqNo(params.get("if_seq_no")));
+        return new Response(result.getStatus(), writeResponse(result));
+    }
+
+    private Response update(final String target,
+                            final String id,
+                            final JsonNode body,
+                            final Map<String, String> params) {
+        if (body.has("script")) {
+            throw InMemoryElasticsearchException.unsupported("Updating with a script");
+        }
+        final var index = writeIndex(target);
+        final var partial = (ObjectNode) Optional.ofNullable(body.get("doc")).orElseGet(NODES::objectNode);
+        final var upsert = body.path("doc_as_upsert").asBoolean(false)
+                ? partial
+                : (ObjectNode) body.get("upsert");
+        final var result = index.update(id, partial, upsert, seqNo(params.get("if_seq_no")));
+        return new Response(result.getStatus(), writeResponse(result));
+    }
+
+    private Response delete(final String target, final String id, final Map<String, String> params) {
+        final var index = exactIndex(target);
+        final var result = index.delete(id, seqNo(params.get("if_seq_no")));
+        return new Response(result.getStatus(), writeResponse(result));
+    }
+
+    private Response get(final String target, final String id, final Map<String, String> params) {
+        final var index = exactIndex(target);
+        final var response = getResponse(index, id, sourceFilter(params));
+        return new Response(response.path("found").asBoolean() ? 200 : 404, response);
+    }
+
+    private ObjectNode getResponse(final InMemoryIndex index, final String id, final JsonNode sourceFilter) {
+        final var response = NODES.objectNode();
+        response.put("_index", index.getName());
+        response.put("_id", id);
+        final var document = index.get(id);
+        if (document.isEmpty()) {
+            response.put("found", false);
+            return response;
+        }
+        response.put("_version", document.get().getVersion());
+        response.put("_seq_no", document.get().getSeqNo());
+        response.put("_primary_term", 1);
+        response.put("found", true);
+        Optional.ofNullable(InMemorySearch.filterSource(document.get().getSource(), sourceFilter))
+                .ifPresent(source -> response.set("_source", source));
+        return response;
+    }
+
+    private Response mget(final String target, final JsonNode body, final Map<String, String> params) {
+        final var docs = NODES.arrayNode();
+        final var defaultFilter = sourceFilter(params);
+        if (body.has("ids")) {
+            final var index = exactIndex(target);
+            body.path("ids").forEach(id -> docs.add(getResponse(index, id.asText(), defaultFilter)));
+        }
+        for (final var doc : body.path("docs")) {
+            final var indexName = doc.path("_index").asText(target);
+            final var id = doc.path("_id").asText();
+            try {
+                docs.add(getResponse(exactIndex(indexName), id,
+                        Optional.ofNullable(doc.get("_source")).orElse(defaultFilter)));
+            } catch (final InMemoryElasticsearchException e) {
+                final var error = NODES.objectNode();
+                error.put("_index", indexName);
+                error.put("_id", id);
+                error.set("error", errorCause(e));
+                docs.add(error);
+            }
+        }
+        final var response = NODES.objectNode();
+        response.set("docs", docs);
+        return ok(response);
+    }
+
+    private Response bulk(final String defaultIndex, final byte[] body) {
+        final var startedAt = System.nanoTime();
+        final var lines = new String(body, StandardCharsets.UTF_8).split("\n");
+        final var items = NODES.arrayNode();
+        var errors = false;
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i].isBlank()) {
+                continue;
+            }
+            final var action = json(lines[i]);
+            final var entry = action.fields().next();
+            final var operation = entry.getKey();
+            final var metadata = entry.getValue();
+            final var indexName = metadata.path("_index").asText(defaultIndex);
+            final var id = metadata.has("_id") ? metadata.get("_id").asText() : null;
+            final var source = operation.equals("delete") ? null : json(lines[++i]);
+            ObjectNode item;
+            try {
+                if (indexName == null) {
+                    throw new InMemoryElasticsearchException(400, "action_request_validation_exception",
+                            "Validation Failed: 1: index is missing;");
+                }
+                final var ifSeqNo = metadata.has("if_seq_no") ? metadata.get("if_seq_no").asLong() : null;
+                final var result = switch (operation) {
+                    case "index", "create" -> writeIndex(indexName).index(
+                            Optional.ofNullable(id).orElseGet(InMemoryRestApi::newId),
+                            objectOf(source), operation.equals("create"), ifSeqNo);
+                    case "update" -> {
+                        if (source.has("script")) {
+                            throw InMemoryElasticsearchException.unsupported("Updating with a script");
+                        }
+                        final var partial = (ObjectNode) Optional.ofNullable(source.get("doc")).orElseGet(NODES::objectNode);
+                        yield writeIndex(indexName).update(id, partial, source.path("doc_as_upsert").asBoolean(false)
+                                ? partial
+                                : (ObjectNode) source.get("upsert"), ifSeqNo);
+                    }
+                    case "delete" -> exactIndex(indexName).delete(id, ifSeqNo);
+                    default -> throw InMemoryElasticsearchException.unsupported(
+                            MessageFormat.format("The [{0}] bulk action", operation));
+                };
+                item = writeResponse(result);
+                item.put("status", result.getStatus());
+            } catch (final InMemoryElasticsearchException e) {
+                errors = true;
+                item = NODES.objectNode();
+                item.put("_index", indexName);
+                item.put("_id", id);
+                item.put("status", e.getStatus());
+                item.set("error", errorCause(e));
+            }
+            items.addObject().set(operation, item);
+        }
+        final var response = NODES.objectNode();
+        response.put("took", (System.nanoTime() - startedAt) / 1_000_000);
+        response.put("errors", errors);
+        response.set("items", items);
+        return ok(response);
+    }
+
+    private Response deleteByQuery(final String expression, final Map<String, String> params, final JsonNode body) {
+        final var startedAt = System.nanoTime();
+        final var query = InMemoryQuery.parse(body.get("query"));
+        var deleted = 0L;
+        for (final var index : requireIndices(expression, params)) {
+            for (final var document : index.getDocuments()) {
+                if (query.matches(index, document)) {
+                    index.delete(document.getId(), null);
+                    deleted++;
+                }
+            }
+        }
+        final var response = NODES.objectNode();
+        response.put("took", (System.nanoTime() - startedAt) / 1_000_000);
+        response.put("timed_out", false);
+        response.put("total", deleted);
+        response.put("deleted", deleted);
+        response.put("batches", deleted == 0 ? 0 : 1);
+        response.put("version_conflicts", 0);
+        response.put("noops", 0);
+        response.putObject("retries").put("bulk", 0).put("search", 0);
+        response.put("throttled_millis", 0);
+        response.put("requests_per_second", -1.0);
+        response.put("throttled_until_millis", 0);
+        response.putArray("failures");
+        return ok(response);
+    }
+
+    /*
+     Search APIs.
+     */
+
+    private Response search(final String expression, final Map<String, String> params, final JsonNode body) {
+        final var startedAt = System.nanoTime();
+        final var request = searchRequest(params, body);
+        final var search = new InMemorySearch(request);
+        final var pitId = request.path("pit").path("id").asText(null);
+        final Map<InMemoryIndex, List<InMemoryDocument>> documents;
+        if (pitId != null) {
+            documents = Optional.ofNullable(pointsInTime.get(pitId))
+                    .orElseThrow(() -> new InMemoryElasticsearchException(404, "search_context_missing_exception",
+                            MessageFormat.format("No search context found for id [{0}]", pitId)));
+        } else {
+            documents = snapshot(resolve(Optional.ofNullable(expression).orElse("_all"), params));
+        }
+        final var hits = search.execute(documents);
+        final var from = Math.min(search.getFrom(), hits.getHits().size());
+        final var to = Math.min(from + search.getSize(), hits.getHits().size());
+        final var response = search.response((System.nanoTime() - startedAt) / 1_000_000, documents.size(), hits,
+                hits.getHits().subList(from, to));
+        if (pitId != null) {
+            response.put("pit_id", pitId);
+        }
+        if (params.containsKey("scroll")) {
+            final var scrollId = newId();
+            scrolls.put(scrollId, new Scroll(search, hits, to, documents.size()));
+            response.put("_scroll_id", scrollId);
+        }
+        return ok(response);
+    }
+
+    private Response scroll(final List<String> path, final Map<String, String> params, final JsonNode body) {
+        final var scrollId = path.size() > 2
+                ? path.get(2)
+                : Optional.ofNullable(params.get("scroll_id")).orElseGet(() -> body.path("scroll_id").asText());
+        final var scroll = Optional.ofNullable(scrolls.get(scrollId))
+                .orElseThrow(() -> new InMemoryElasticsearchException(404, "search_context_missing_exception",
+                        MessageFormat.format("No search context found for id [{0}]", scrollId)));
+        final var page = scroll.next();
+        final var response = scroll.search.response(0, scroll.shards, scroll.hits, page);
+        response.put("_scroll_id", scrollId);
+        return ok(response);
+    }
+
+    private ObjectNode clearScroll(final List<String> path, final JsonNode body) {
+        final var ids = new ArrayList<String>();
+        if (path.size() > 2) {
+            ids.addAll(List.of(path.get(2).split(",")));
+        }
+        final var scrollIds = body.path("scroll_id");
+        if (scrollIds.isTextual()) {
+            ids.add(scrollIds.asText());
+        }
+        scrollIds.forEach(id -> ids.add(id.asText()));
+        var freed = 0;
+        if (ids.contains("_all")) {
+            freed = scrolls.size();
+            scrolls.clear();
+        } else {
+            for (final var id : ids) {
+                freed += scrolls.remove(id) == null ? 0 : 1;
+            }
+        }
+        return NODES.objectNode().put("succeeded", true).put("num_freed", freed);
+    }
+
+    private Response openPointInTime(final String expression, final Map<String, String> params) {
+        final var id = newId();
+        pointsInTime.put(id, snapshot(requireIndices(expression, params)));
+        return ok(NODES.objectNode().put("id", id));
+    }
+
+    private ObjectNode closePointInTime(final JsonNode body) {
+        final var freed = pointsInTime.remove(body.path("id").asText()) == null ? 0 : 1;
+        return NODES.objectNode().put("succeeded", true).put("num_freed", freed);
+    }
+
+    private Response count(final String expression, final Map<String, String> params, final JsonNode body) {
+        final var request = searchRequest(params, body);
+        final var query = InMemoryQuery.parse(request.get("query"));
+        final var resolved = resolve(Optional.ofNullable(expression).orElse("_all"), params);
+        final var count = resolved.stream()
+                .mapToLong(index -> index.getDocuments().stream()
+                        .filter(document -> query.matches(index, document))
+                        .count())
+                .sum();
+        final var response = NODES.objectNode();
+        response.put("count", count);
+        InMemorySearch.shards(response.putObject("_shards"), resolved.size());
+        return ok(response);
+    }
+
+    /*
+     Merges the parameters of a search given in the URL into its body, which
+     is what the Client sends for most of them.
+     */
+    private ObjectNode searchRequest(final Map<String, String> params, final JsonNode body) {
+        final var request = body.isObject() ? (ObjectNode) body.deepCopy() : NODES.objectNode();
+        Optional.ofNullable(params.get("q")).ifPresent(q -> request.putObject("query")
+                .putObject("query_string")
+                .put("query", q)
+                .put("default_operator", params.getOrDefault("default_operator", "or"))
+                .put("default_field", params.getOrDefault("df", "*")));
+        Optional.ofNullable(params.get("from")).ifPresent(f -> request.put("from", Integer.parseInt(f)));
+        Optional.ofNullable(params.get("size")).ifPresent(s -> request.put("size", Integer.parseInt(s)));
+        Optional.ofNullable(params.get("track_total_hits")).ifPresent(t -> request.set("track_total_hits",
+                t.equals("true") || t.equals("false") ? NODES.booleanNode(Boolean.parseBoolean(t)) : NODES.numberNode(Integer.parseInt(t))));
+        Optional.ofNullable(params.get("seq_no_primary_term")).ifPresent(s -> request.put("seq_no_primary_term", Boolean.parseBoolean(s)));
+        Optional.ofNullable(params.get("version")).ifPresent(v -> request.put("version", Boolean.parseBoolean(v)));
+        Optional.ofNullable(params.get("sort")).ifPresent(s -> {
+            final var sort = request.putArray("sort");
+            for (final var field : s.split(",")) {
+                final var parts = field.split(":");
+                sort.addObject().put(parts[0], parts.length > 1 ? parts[1] : "asc");
+            }
+        });
+        final var sourceFilter = sourceFilter(params);
+        if (sourceFilter != null) {
+            request.set("_source", sourceFilter);
+        }
+        return request;
+    }
+
+    /*
+     Cluster APIs.
+     */
+
+    private ObjectNode info() {
+        final var info = NODES.objectNode();
+        info.put("name", NODE_NAME);
+        info.put("cluster_name", CLUSTER_NAME);
+        info.put("cluster_uuid", clusterUuid);
+        info.putObject("version")
+                .put("number", version)
+                .put("build_flavor", "default")
+                .put("build_type", "in-memory")
+                .put("build_hash", "in-memory")
+                .put("build_date", "2023-01-01T00:00:00.000Z")
+                .put("build_snapshot", false)
+                .put("lucene_version", "9.7.0")
+                .put("minimum_wire_compatibility_version", "7.17.0")
+                .put("minimum_index_compatibility_version", "7.0.0");
+        info.put("tagline", "You Know, for Search");
+        return info;
+    }
+
+    private ObjectNode health() {
+        final var health = NODES.objectNode();
+        health.put("cluster_name", CLUSTER_NAME);
+        health.put("status", "green");
+        health.put("timed_out", false);
+        health.put("number_of_nodes", 1);
+        health.put("number_of_data_nodes", 1);
+        health.put("active_primary_shards", indices.size());
+        health.put("active_shards", indices.size());
+        health.put("relocating_shards", 0);
+        health.put("initializing_shards", 0);
+        health.put("unassigned_shards", 0);
+        health.put("delayed_unassigned_shards", 0);
+        health.put("number_of_pending_tasks", 0);
+        health.put("number_of_in_flight_fetch", 0);
+        health.put("task_max_waiting_in_queue_millis", 0);
+        health.put("active_shards_percent_as_number", 100.0);
+        return health;
+    }
+
+    private ArrayNode catIndices(final String expression, final Map<String, String> params) {
+        final var response = NODES.arrayNode();
+        resolve(expression, params).forEach(index -> {
+            final var settings = index.getSettings();
+            response.addObject()
+                    .put("health", "green")
+                    .put("status", "open")
+                    .put("index", index.getName())
+                    .put("uuid", settings.get("index.uuid"))
+                    .put("pri", settings.get("index.number_of_shards"))
+                    .put("rep", settings.get("index.number_of_replicas"))
+                    .put("docs.count", String.valueOf(index.size()))
+                    .put("docs.deleted", "0");
+        });
+        return response;
+    }
+
+    /*
+     Resolution of index names, patterns and aliases.
+     */
+
+    /**
+     * Returns the indices the given expression (a comma-separated list of
+     * names, aliases and patterns, or _all) refers to. Hidden indices, and
+     * those whose name starts with a dot, only match a pattern if the
+     * wildcards are expanded to hidden indices. An unknown name fails the
+     * request, unless unavailable indices are to be ignored.
+     */
+    Set<InMemoryIndex> resolve(final String expression, final Map<String, String> params) {
+        final var ignoreUnavailable = Boolean.parseBoolean(params.get("ignore_unavailable"));
+        final var expandWildcards = params.getOrDefault("expand_wildcards", "open");
+        final var hidden = expandWildcards.contains("hidden") || expandWildcards.contains("all");
+        final var resolved = new LinkedHashSet<InMemoryIndex>();
+        for (final var name : expression.split(",")) {
+            if (name.equals("_all") || name.contains("*")) {
+                final var pattern = InMemoryQuery.globToRegex(name.equals("_all") ? "*" : name, false);
+                indices.values().stream()
+                        .filter(index -> hidden || (!index.isHidden()
+                                && (!index.getName().startsWith(".") || name.startsWith("."))))
+                        .filter(index -> pattern.matcher(index.getName()).matches())
+                        .forEach(resolved::add);
+                continue;
+            }
+            final var index = indices.get(name);
+            if (index != null) {
+                resolved.add(index);
+                continue;
+            }
+            final var aliased = indices.values().stream()
+                    .filter(i -> i.getAliases().containsKey(name))
+                    .toList();
+            if (aliased.isEmpty() && !ignoreUnavailable) {
+                throw InMemoryElasticsearchException.indexNotFound(name);
+            }
+            resolved.addAll(aliased);
+        }
+        return resolved;
+    }
+
+    private Set<InMemoryIndex> requireIndices(final String expression, final Map<String, String> params) {
+        final var resolved = resolve(expression, params);
+        if (resolved.isEmpty() && "false".equals(params.get("allow_no_indices"))) {
+            throw InMemoryElasticsearchException.indexNotFound(expression);
+        }
+        return resolved;
+    }
+
+    private InMemoryIndex exactIndex(final String name) {
+        final var resolved = resolve(name, Map.of());
+        if (resolved.size() != 1) {
+            throw InMemoryElasticsearchException.badRequest(MessageFormat.format(
+                    "[{0}] refers to {1} indices, where a single index is required", name, resolved.size()));
+        }
+        return resolved.iterator().next();
+    }
+
+    /*
+     Returns the index to write to by the given name: the index itself, the
+     write index of an alias, or else a new index, as automatic index
+     creation would create.
+     */
+    private InMemoryIndex writeIndex(final String name) {
+        final var index = indices.get(name);
+        if (index != null) {
+            return index;
+        }
+        final var aliased = indices.values().stream()
+                .filter(i -> i.getAliases().containsKey(name))
+                .toList();
+        if (aliased.size() == 1) {
+            return aliased.get(0);
+        }
+        if (!aliased.isEmpty()) {
+            return aliased.stream()
+                    .filter(i -> i.getAliases().get(name).path("is_write_index").asBoolean(false))
+                    .findFirst()
+                    .orElseThrow(() -> InMemoryElasticsearchException.badRequest(MessageFormat.format(
+                            "no write index is defined for alias [{0}]", name)));
+        }
+        createIndex(name, NODES.objectNode());
+        return indices.get(name);
+    }
+
+    private static Map<InMemoryIndex, List<InMemoryDocument>> snapshot(final Set<InMemoryIndex> indices) {
+        final var snapshot = new LinkedHashMap<InMemoryIndex, List<InMemoryDocument>>();
+        indices.forEach(index -> snapshot.put(index, index.getDocuments()));
+        return snapshot;
+    }
+
+    /*
+     Helpers.
+     */
+
+    private JsonNode json(final byte[] body) {
+        if (body == null || body.length == 0) {
+            return NODES.objectNode();
+        }
+        return json(new String(body, StandardCharsets.UTF_8));
+    }
+
+    private JsonNode json(final String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (final JsonProcessingException e) {
+            throw new InMemoryElasticsearchException(400, "x_content_parse_exception", e.getOriginalMessage());
+        }
+    }
+
+    private static ObjectNode objectOf(final JsonNode source) {
+        if (source == null || !source.isObject()) {
+            throw new InMemoryElasticsearchException(400, "mapper_parsing_exception", "failed to parse, document is empty");
+        }
+        return (ObjectNode) source;
+    }
+
+    private static JsonNode sourceFilter(final Map<String, String> params) {
+        final var source = params.get("_source");
+        final var includes = Optional.ofNullable(params.get("_source_includes")).orElse(params.get("_source_include"));
+        final var excludes = Optional.ofNullable(params.get("_source_excludes")).orElse(params.get("_source_exclude"));
+        if (source == null && includes == null && excludes == null) {
+            return null;
+        }
+        if ("false".equals(source) || "true".equals(source)) {
+            return NODES.booleanNode(Boolean.parseBoolean(source));
+        }
+        final var filter = NODES.objectNode();
+        final var includesNode = filter.putArray("includes");
+        Optional.ofNullable(includes).or(() -> Optional.ofNullable(source))
+                .ifPresent(i -> List.of(i.split(",")).forEach(includesNode::add));
+        final var excludesNode = filter.putArray("excludes");
+        Optional.ofNullable(excludes).ifPresent(e -> List.of(e.split(",")).forEach(excludesNode::add));
+        return filter;
+    }
+
+    private static Long seqNo(final String value) {
+        return value == null ? null : Long.parseLong(value);
+    }
+
+    private static String newId() {
+        final var uuid = UUID.randomUUID();
+        final var bytes = java.nio.ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static ObjectNode writeResponse(final InMemoryIndex.WriteResult result) {
+        final var document = result.getDocument();
+        final var response = NODES.objectNode();
+        response.put("_index", document.getIndex());
+        response.put("_id", document.getId());
+        response.put("_version", document.getVersion());
+        response.put("result", result.getResult());
+        shardsResponse(response, 1);
+        response.put("_seq_no", document.getSeqNo());
+        response.put("_primary_term", 1);
+        return response;
+    }
+
+    private static ObjectNode shardsResponse(final int indices) {
+        return shardsResponse(NODES.objectNode(), indices);
+    }
+
+    private static ObjectNode shardsResponse(final ObjectNode response, final int indices) {
+        response.putObject("_shards")
+                .put("total", indices)
+                .put("successful", indices)
+                .put("failed", 0);
+        return response;
+    }
+
+    private static ObjectNode acknowledged(final String index) {
+        return NODES.objectNode()
+                .put("acknowledged", true)
+                .put("shards_acknowledged", true)
+                .put("index", index);
+    }
+
+    /**
+     * Returns the error cause of the given exception, in the format of
+     * Elasticsearch.
+     */
+    static ObjectNode errorCause(final InMemoryElasticsearchException e) {
+        final var cause = NODES.objectNode();
+        cause.put("type", e.getType());
+        cause.put("reason", e.getMessage());
+        Optional.ofNullable(e.getIndex()).ifPresent(index -> cause.put("index", index));
+        return cause;
+    }
+
+    /**
+     * Returns the body of an error response, in the format of Elasticsearch.
+     */
+    static ObjectNode errorResponse(final InMemoryElasticsearchException e) {
+        final var response = NODES.objectNode();
+        final var error = errorCause(e);
+        error.putArray("root_cause").add(errorCause(e));
+        response.set("error", error);
+        response.put("status", e.getStatus());
+        return response;
+    }
+
+    /*
+     Flattens settings to keys with dots, prefixed with 'index.' (example:
+     {"number_of_shards": 1} to {"index.number_of_shards": "1"}), as
+     Elasticsearch normalizes them. A null value resets a setting.
+     */
+    private static Map<String, String> flattenSettings(final JsonNode settings) {
+        final var flat = new LinkedHashMap<String, String>();
+        flatten(settings, "", flat);
+        final var normalized = new LinkedHashMap<String, String>();
+        flat.forEach((key, value) -> normalized.put(key.startsWith("index.") ? key : "index." + key, value));
+        return normalized;
+    }
+
+    private static void flatten(final JsonNode node, final String prefix, final Map<String, String> flat) {
+        node.fields().forEachRemaining(e -> {
+            final var key = prefix + e.getKey();
+            final var value = e.getValue();
+            if (value.isObject()) {
+                flatten(value, key + ".", flat);
+            } else if (value.isArray()) {
+                final var values = new ArrayList<String>();
+                value.forEach(v -> values.add(v.asText()));
+                flat.put(key, String.join(",", values));
+            } else {
+                flat.put(key, value.isNull() ? null : value.asText());
+            }
+        });
+    }
+
+    private static ObjectNode nestSettings(final Map<String, String> settings) {
+        final var nested = NODES.objectNode();
+        settings.forEach((key, value) -> {
+            final var parts = key.split("\\.");
+            var node = nested;
+            for (int i = 0; i < parts.length - 1; i++) {
+                final var child = node.get(parts[i]);
+                node = child instanceof ObjectNode object ? object : node.putObject(parts[i]);
+            }
+            node.put(parts[parts.length - 1], value);
+        });
+        return nested;
+    }
+
+    private static InMemoryElasticsearchException alreadyExists(final String index) {
+        return new InMemoryElasticsearchException(400, "resource_already_exists_exception",
+                MessageFormat.format("index [{0}] already exists", index), index);
+    }
+
+    private static InMemoryElasticsearchException unsupported(final String method, final List<String> path) {
+        return InMemoryElasticsearchException.unsupported(MessageFormat.format("{0} /{1}", method, String.join("/", path)));
+    }
+
+    private static Response ok(final JsonNode body) {
+        return new Response(200, body);
+    }
+
+    /**
+     * The status and body of a response.
+     */
+    static class Response {
+
+        private final int status;
+        private final JsonNode body;
+
+        Response(final int status, final JsonNode body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        JsonNode getBody() {
+            return body;
+        }
+    }
+
+    /*
+     The hits of a search that are still to be scrolled through.
+     */
+    private static class Scroll {
+
+        private final InMemorySearch search;
+        private final InMemorySearch.Hits hits;
+        private final int shards;
+        private int position;
+
+        private Scroll(final InMemorySearch search, final InMemorySearch.Hits hits, final int position, final int shards) {
+            this.search = search;
+            this.hits = hits;
+            this.position = position;
+            this.shards = shards;
+        }
+
+        private synchronized List<ObjectNode> next() {
+            final var to = Math.min(position + search.getSize(), hits.getHits().size());
+            final var page = hits.getHits().subList(position, to);
+            position = to;
+            return page;
+        }
+    }
+}
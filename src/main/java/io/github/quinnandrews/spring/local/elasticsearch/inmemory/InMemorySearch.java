@@ -0,0 +1,368 @@
+package io.github.quinnandrews.spring.local.elasticsearch.inmemory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.LongNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * <p> A search request, executed against the documents of one or more
+ * in-memory indices: the query (and post filter), the sort, search_after,
+ * from and size, source filtering, and whether to report the total number
+ * of hits, and the version and sequence number of each hit.
+ *
+ * <p> Requests for what is not supported, such as aggregations, are
+ * rejected rather than ignored, so that a test does not pass against the
+ * stand-in only because part of its request was left out. Highlighting is
+ * ignored, since the hits are the same without it.
+ *
+ * @author Quinn Andrews
+ */
+class InMemorySearch {
+
+    static final int DEFAULT_SIZE = 10;
+    static final int DEFAULT_TRACK_TOTAL_HITS = 10_000;
+
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+    private static final Set<String> UNSUPPORTED = Set.of("aggs", "aggregations", "suggest", "collapse", "rescore",
+            "knn", "script_fields", "runtime_mappings");
+
+    private final JsonNode request;
+    private final InMemoryQuery query;
+    private final InMemoryQuery postFilter;
+    private final List<SortField> sort;
+
+    /**
+     * Parses the given body of a search request.
+     *
+     * @throws InMemoryElasticsearchException if the request is malformed or not supported.
+     */
+    InMemorySearch(final JsonNode request) {
+        UNSUPPORTED.stream()
+                .filter(request::has)
+                .findFirst()
+                .ifPresent(key -> {
+                    throw InMemoryElasticsearchException.unsupported(MessageFormat.format("[{0}] in a search", key));
+                });
+        this.request = request;
+        this.query = InMemoryQuery.parse(request.get("query"));
+        this.postFilter = InMemoryQuery.parse(request.get("post_filter"));
+        this.sort = parseSort(request.path("sort"));
+    }
+
+    int getFrom() {
+        return request.path("from").asInt(0);
+    }
+
+    int getSize() {
+        return request.path("size").asInt(DEFAULT_SIZE);
+    }
+
+    /**
+     * Returns every hit of the search, in order, after the search_after
+     * values, if any, but before from and size are applied.
+     */
+    Hits execute(final Map<InMemoryIndex, List<InMemoryDocument>> documents) {
+        final var candidates = new ArrayList<Candidate>();
+        documents.forEach((index, indexDocuments) -> indexDocuments.forEach(document -> {
+            if (query.matches(index, document) && postFilter.matches(index, document)) {
+                candidates.add(new Candidate(index, document, candidates.size()));
+            }
+        }));
+        final var total = candidates.size();
+        candidates.forEach(c -> c.sortValues = sort.stream().map(s -> s.valueOf(c)).toList());
+        final Comparator<Candidate> comparator = (a, b) -> compareSortValues(a.sortValues, b.sortValues);
+        candidates.sort(comparator);
+        final var searchAfter = request.get("search_after");
+        final var sorted = sort.stream().anyMatch(s -> !s.field.equals("_score"));
+        final var scored = !sorted || request.path("track_scores").asBoolean(false);
+        final var hits = new ArrayList<ObjectNode>();
+        for (final var candidate : candidates) {
+            if (searchAfter != null && searchAfter.isArray() && !isAfter(candidate.sortValues, searchAfter)) {
+                continue;
+            }
+            hits.add(hit(candidate, scored));
+        }
+        return new Hits(hits, total, scored && total > 0 ? 1.0 : null);
+    }
+
+    /**
+     * Returns the response to the search, with the given page of its hits.
+     */
+    ObjectNode response(final long took, final int shards, final Hits hits, final List<ObjectNode> page) {
+        final var response = NODES.objectNode();
+        response.put("took", took);
+        response.put("timed_out", false);
+        shards(response.putObject("_shards"), shards);
+        final var hitsNode = response.putObject("hits");
+        final var trackTotalHits = request.path("track_total_hits");
+        if (!trackTotalHits.isBoolean() || trackTotalHits.asBoolean()) {
+            final var limit = trackTotalHits.isNumber() ? trackTotalHits.asInt()
+                    : trackTotalHits.isBoolean() ? Integer.MAX_VALUE
+                    : DEFAULT_TRACK_TOTAL_HITS;
+            hitsNode.putObject("total")
+                    .put("value", Math.min(hits.getTotal(), limit))
+                    .put("relation", hits.getTotal() > limit ? "gte" : "eq");
+        }
+        if (hits.getMaxScore() == null) {
+            hitsNode.putNull("max_score");
+        } else {
+            hitsNode.put("max_score", hits.getMaxScore());
+        }
+        hitsNode.putArray("hits").addAll(page);
+        return response;
+    }
+
+    static void shards(final ObjectNode shards, final int total) {
+        shards.put("total", total)
+                .put("successful", total)
+                .put("skipped", 0)
+                .put("failed", 0);
+    }
+
+    private ObjectNode hit(final Candidate candidate, final boolean scored) {
+        final var document = candidate.document;
+        final var hit = NODES.objectNode();
+        hit.put("_index", document.getIndex());
+        hit.put("_id", document.getId());
+        if (request.path("version").asBoolean(false)) {
+            hit.put("_version", document.getVersion());
+        }
+        if (request.path("seq_no_primary_term").asBoolean(false)) {
+            hit.put("_seq_no", document.getSeqNo());
+            hit.put("_primary_term", 1);
+        }
+        if (scored) {
+            hit.put("_score", 1.0);
+        } else {
+            hit.putNull("_score");
+        }
+        Optional.ofNullable(filterSource(document.getSource(), request.get("_source")))
+                .ifPresent(source -> hit.set("_source", source));
+        if (!sort.isEmpty()) {
+            final var sortValues = hit.putArray("sort");
+            candidate.sortValues.forEach(v -> sortValues.add(v == null ? NODES.nullNode() : v));
+        }
+        return hit;
+    }
+
+    /**
+     * Returns the given source filtered as requested (true, false, a field
+     * pattern, an array of them, or an object of includes and excludes), or
+     * null if it is not wanted.
+     */
+    static JsonNode filterSource(final ObjectNode source, final JsonNode filter) {
+        if (filter == null || filter.isNull() || (filter.isBoolean() && filter.asBoolean())) {
+            return source;
+        }
+        if (filter.isBoolean()) {
+            return null;
+        }
+        final var includes = new ArrayList<Pattern>();
+        final var excludes = new ArrayList<Pattern>();
+        if (filter.isObject()) {
+            patterns(Optional.ofNullable(filter.get("includes")).orElse(filter.path("include")), includes);
+            patterns(Optional.ofNullable(filter.get("excludes")).orElse(filter.path("exclude")), excludes);
+        } else {
+            patterns(filter, includes);
+        }
+        return filterObject(source, "", includes, excludes);
+    }
+
+    private static void patterns(final JsonNode node, final List<Pattern> patterns) {
+        if (node.isTextual()) {
+            patterns.add(InMemoryQuery.globToRegex(node.asText(), false));
+        }
+        node.forEach(n -> patterns.add(InMemoryQuery.globToRegex(n.asText(), false)));
+    }
+
+    private static ObjectNode filterObject(final JsonNode object,
+                                           final String prefix,
+                                           final List<Pattern> includes,
+                                           final List<Pattern> excludes) {
+        final var filtered = NODES.objectNode();
+        object.fields().forEachRemaining(e -> {
+            final var path = prefix + e.getKey();
+            if (excludes.stream().anyMatch(p -> p.matcher(path).matches())) {
+                return;
+            }
+            final var value = e.getValue();
+            if (value.isObject()) {
+                final var child = filterObject(value, path + ".", includes, excludes);
+                if (!child.isEmpty() || (value.isEmpty() && included(path, includes))) {
+                    filtered.set(e.getKey(), child);
+                }
+            } else if (included(path, includes)) {
+                filtered.set(e.getKey(), value);
+            }
+        });
+        return filtered;
+    }
+
+    /*
+     A field is included if it, or an object it is in, matches a pattern.
+     */
+    private static boolean included(final String path, final List<Pattern> includes) {
+        if (includes.isEmpty()) {
+            return true;
+        }
+        var candidate = path;
+        while (true) {
+            final var current = candidate;
+            if (includes.stream().anyMatch(p -> p.matcher(current).matches())) {
+                return true;
+            }
+            final var dot = candidate.lastIndexOf('.');
+            if (dot < 0) {
+                return false;
+            }
+            candidate = candidate.substring(0, dot);
+        }
+    }
+
+    private int compareSortValues(final List<JsonNode> a, final List<JsonNode> b) {
+        for (int i = 0; i < sort.size(); i++) {
+            final var field = sort.get(i);
+            final var valueA = a.get(i);
+            final var valueB = b.get(i);
+            final int result;
+            if (valueA == null || valueB == null) {
+                result = valueA == valueB ? 0 : (valueA == null) == field.missingFirst ? -1 : 1;
+            } else {
+                result = field.descending
+                        ? InMemoryQuery.compare(valueB, valueA)
+                        : InMemoryQuery.compare(valueA, valueB);
+            }
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private boolean isAfter(final List<JsonNode> sortValues, final JsonNode searchAfter) {
+        final var after = new ArrayList<JsonNode>();
+        for (int i = 0; i < sort.size(); i++) {
+            final var value = searchAfter.get(i);
+            after.add(value == null || value.isNull() ? null : value);
+        }
+        return compareSortValues(sortValues, after) > 0;
+    }
+
+    private static List<SortField> parseSort(final JsonNode node) {
+        final var fields = new ArrayList<SortField>();
+        if (node.isMissingNode() || node.isNull()) {
+            return fields;
+        }
+        if (!node.isArray()) {
+            fields.add(sortField(node));
+            return fields;
+        }
+        node.forEach(n -> fields.add(sortField(n)));
+        return fields;
+    }
+
+    private static SortField sortField(final JsonNode node) {
+        if (node.isTextual()) {
+            return new SortField(node.asText(), node.asText().equals("_score"), false, null);
+        }
+        final var entry = node.fields().next();
+        final var options = entry.getValue();
+        final var order = options.isTextual() ? options.asText() : options.path("order").asText(
+                entry.getKey().equals("_score") ? "desc" : "asc");
+        return new SortField(
+                entry.getKey(),
+                order.equalsIgnoreCase("desc"),
+                options.path("missing").asText("_last").equals("_first"),
+                options.path("mode").asText(null));
+    }
+
+    /**
+     * The hits of a search, in order, the total number of documents that
+     * matched, and the maximum score (null if the hits are not scored).
+     */
+    static class Hits {
+
+        private final List<ObjectNode> hits;
+        private final long total;
+        private final Double maxScore;
+
+        Hits(final List<ObjectNode> hits, final long total, final Double maxScore) {
+            this.hits = hits;
+            this.total = total;
+            this.maxScore = maxScore;
+        }
+
+        List<ObjectNode> getHits() {
+            return hits;
+        }
+
+        long getTotal() {
+            return total;
+        }
+
+        Double getMaxScore() {
+            return maxScore;
+        }
+    }
+
+    private static class Candidate {
+
+        private final InMemoryIndex index;
+        private final InMemoryDocument document;
+        private final long position;
+        private List<JsonNode> sortValues;
+
+        private Candidate(final InMemoryIndex index, final InMemoryDocument document, final long position) {
+            this.index = index;
+            this.document = document;
+            this.position = position;
+        }
+    }
+
+    private static class SortField {
+
+        private final String field;
+        private final boolean descending;
+        private final boolean missingFirst;
+        private final String mode;
+
+        private SortField(final String field, final boolean descending, final boolean missingFirst, final String mode) {
+            this.field = field;
+            this.descending = descending;
+            this.missingFirst = missingFirst;
+            this.mode = mode;
+        }
+
+        /*
+         Returns the value of this field to sort the given hit by: the least
+         of its values in ascending order and the greatest in descending
+         order (unless a mode says otherwise), or null if it has none.
+         */
+        private JsonNode valueOf(final Candidate candidate) {
+            return switch (field) {
+                case "_score" -> DoubleNode.valueOf(1.0);
+                case "_doc", "_shard_doc" -> LongNode.valueOf(candidate.position);
+                default -> {
+                    final var values = InMemoryQuery.values(candidate.document,
+                            candidate.index.field(field).getSourcePath());
+                    final var max = mode == null ? descending : mode.equals("max");
+                    yield values.stream()
+                            .filter(v -> !v.isNull())
+                            .reduce((a, b) -> (InMemoryQuery.compare(a, b) > 0) == max ? a : b)
+                            .orElse(null);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.quinnandrews.spring.local.elasticsearch.junit;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p> Restores the Elasticsearch indices of a Spring Test Class to a
+ * baseline after each test, so that each test starts from the same
+ * data without the Application Context or the Container being restarted.
+ *
+ * <p> The baseline is taken before the first test, after any
+ * {@code @BeforeAll} methods have run, so that data seeded there is part
+ * of it. See {@link IndexBaseline} for how it is taken and restored.
+ *
+ * <p> The SpringExtension is registered ahead of the Extension behind this
+ * annotation, wherever the annotation is declared, so that the baseline
+ * is discarded before the Application Context of the Test Class is
+ * closed (as it is with {@code @DirtiesContext}).
+ *
+ * @author Quinn Andrews
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+@ExtendWith({SpringExtension.class, ElasticsearchBaselineExtension.class})
+public @interface ElasticsearchBaseline {
+
+    /**
+     * The names or wildcard patterns of the indices to restore. By default,
+     * every index, except system and hidden indices.
+     *
+     * @return String array
+     */
+    String[] indices() default {"*"};
+}
@@ -0,0 +1,60 @@
+package io.github.quinnandrews.spring.local.elasticsearch.junit;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import io.github.quinnandrews.spring.local.elasticsearch.config.IndexNamespace;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * <p> The JUnit 5 Extension behind {@link ElasticsearchBaseline}. Takes the
+ * baseline before the first test of the Test Class, restores it after each
+ * test, and discards it after the last one. The ElasticsearchClient is
+ * obtained from the Spring Application Context of the Test Class. If the
+ * Test Class is in an {@code IndexNamespace} (with {@link NamespacedIndices}),
+ * the patterns of the indices are prefixed with it, so that the baseline
+ * only includes the indices of the Test Class.
+ *
+ * @author Quinn Andrews
+ */
+public class ElasticsearchBaselineExtension implements BeforeEachCallback, AfterEachCallback, AfterAllCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(ElasticsearchBaselineExtension.class);
+
+    @Override
+    public void beforeEach(final ExtensionContext context) {
+        final var store = context.getParent().orElseThrow().getStore(NAMESPACE);
+        store.getOrComputeIfAbsent(IndexBaseline.class, key -> {
+            final var baseline = new IndexBaseline(
+                    SpringExtension.getApplicationContext(context).getBean(ElasticsearchClient.class),
+                    Arrays.stream(Optional.ofNullable(AnnotatedElementUtils.findMergedAnnotation(
+                                    context.getRequiredTestClass(), ElasticsearchBaseline.class))
+                            .map(ElasticsearchBaseline::indices)
+                            .orElse(new String[]{"*"}))
+                            .map(pattern -> IndexNamespace.prefix() + pattern)
+                            .toList());
+            baseline.capture();
+            return baseline;
+        }, IndexBaseline.class);
+    }
+
+    @Override
+    public void afterEach(final ExtensionContext context) {
+        Optional.ofNullable(context.getParent().orElseThrow().getStore(NAMESPACE)
+                        .get(IndexBaseline.class, IndexBaseline.class))
+                .ifPresent(IndexBaseline::restore);
+    }
+
+    @Override
+    public void afterAll(final ExtensionContext context) {
+        Optional.ofNullable(context.getStore(NAMESPACE).remove(IndexBaseline.class, IndexBaseline.class))
+                .ifPresent(IndexBaseline::discard);
+    }
+}
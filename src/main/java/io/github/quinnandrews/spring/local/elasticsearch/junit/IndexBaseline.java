@@ -0,0 +1,156 @@
+package io.github.quinnandrews.spring.local.elasticsearch.junit;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ExpandWildcard;
+import co.elastic.clients.elasticsearch.cat.indices.IndicesRecord;
+import co.elastic.clients.elasticsearch.indices.Alias;
+import co.elastic.clients.elasticsearch.indices.AliasDefinition;
+import co.elastic.clients.json.JsonData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * <p> A copy of the indices in Elasticsearch, taken at some point (after
+ * they are seeded, for example), that they can be restored to.
+ *
+ * <p> Each index is copied with the Clone Index API, which hard-links the
+ * segment files of the index rather than copying its documents, so taking
+ * and restoring a baseline takes milliseconds, regardless of how many
+ * documents there are. The copies are hidden indices, and are removed when
+ * the baseline is discarded. Restoring the baseline deletes the current
+ * indices, including any created since the baseline was taken, and clones
+ * the copies back, along with their aliases.
+ *
+ * @author Quinn Andrews
+ */
+public class IndexBaseline {
+
+    public static final String BASELINE_INDEX_PREFIX = "local-elasticsearch-baseline-";
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexBaseline.class);
+
+    private final ElasticsearchClient client;
+    private final List<String> patterns;
+    private final Map<String, Map<String, Alias>> baseline = new LinkedHashMap<>();
+
+    /**
+     * Constructs an instance for the indices matching the given patterns.
+     *
+     * @param client    The Client of the Elasticsearch to take the baseline in.
+     * @param patterns  The names or wildcard patterns of the indices to include.
+     */
+    public IndexBaseline(final ElasticsearchClient client, final List<String> patterns) {
+        this.client = client;
+        this.patterns = List.copyOf(patterns);
+    }
+
+    /**
+     * Takes the baseline, replacing any that was taken before.
+     */
+    public void capture() {
+        discard();
+        final var startedAt = System.nanoTime();
+        try {
+            final var indices = currentIndices();
+            if (indices.isEmpty()) {
+                return;
+            }
+            final var aliases = client.indices().getAlias(a -> a.index(indices)).result();
+            setWriteBlock(indices, true);
+            try {
+                client.indices().flush(f -> f.index(indices));
+                for (final var index : indices) {
+                    client.indices().clone(c -> c
+                            .index(index)
+                            .target(baselineIndex(index))
+                            .settings("index.hidden", JsonData.of(true)));
+                    baseline.put(index, aliases.get(index).aliases().entrySet().stream()
+                            .collect(Collectors.toMap(Map.Entry::getKey, e -> toAlias(e.getValue()))));
+                }
+            } finally {
+                // even if a clone fails, so that the indices are not left read-only for the rest of the run
+                setWriteBlock(indices, false);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to capture the baseline of the Elasticsearch indices.", e);
+        }
+        logger.debug("Captured baseline of Elasticsearch indices {} in {} ms.",
+                baseline.keySet(), (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    /**
+     * Restores the indices to the baseline. Indices that did not exist when
+     * the baseline was taken are deleted.
+     */
+    public void restore() {
+        final var startedAt = System.nanoTime();
+        try {
+            final var indices = currentIndices();
+            if (!indices.isEmpty()) {
+                client.indices().delete(d -> d.index(indices));
+            }
+            for (final var entry : baseline.entrySet()) {
+                client.indices().clone(c -> c
+                        .index(baselineIndex(entry.getKey()))
+                        .target(entry.getKey())
+                        .settings("index.hidden", JsonData.of(false))
+                        .settings("index.blocks.write", JsonData.of(false))
+                        .aliases(entry.getValue()));
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to restore the baseline of the Elasticsearch indices.", e);
+        }
+        logger.debug("Restored baseline of Elasticsearch indices {} in {} ms.",
+                baseline.keySet(), (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    /**
+     * Removes the copies of the indices, if a baseline was taken.
+     */
+    public void discard() {
+        if (baseline.isEmpty()) {
+            return;
+        }
+        try {
+            client.indices().delete(d -> d
+                    .index(baseline.keySet().stream().map(IndexBaseline::baselineIndex).toList())
+                    .ignoreUnavailable(true));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to discard the baseline of the Elasticsearch indices.", e);
+        }
+        baseline.clear();
+    }
+
+    private List<String> currentIndices() throws IOException {
+        return client.cat().indices(r -> r.index(patterns).expandWildcards(ExpandWildcard.Open))
+                .valueBody().stream()
+                .map(IndicesRecord::index)
+                .filter(index -> !index.startsWith(".") && !index.startsWith(BASELINE_INDEX_PREFIX))
+                .toList();
+    }
+
+    private void setWriteBlock(final List<String> indices, final boolean write) throws IOException {
+        client.indices().putSettings(p -> p
+                .index(indices)
+                .settings(s -> s.blocks(b -> b.write(write))));
+    }
+
+    private static Alias toAlias(final AliasDefinition definition) {
+        return Alias.of(a -> a
+                .filter(definition.filter())
+                .indexRouting(definition.indexRouting())
+                .searchRouting(definition.searchRouting())
+                .isWriteIndex(definition.isWriteIndex()));
+    }
+
+    private static String baselineIndex(final String index) {
+        return BASELINE_INDEX_PREFIX + index;
+    }
+}
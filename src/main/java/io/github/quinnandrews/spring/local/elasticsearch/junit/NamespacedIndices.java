@@ -0,0 +1,43 @@
+package io.github.quinnandrews.spring.local.elasticsearch.junit;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * <p> Gives a Spring Test Class indices of its own, so that Test Classes
+ * can run in parallel against the same Application Context and Container
+ * without their data interfering.
+ *
+ * <p> Before the first test, and any {@code @BeforeAll} methods, the
+ * thread running the Test Class enters an {@code IndexNamespace} with a
+ * prefix made of the name of the Test Class and a random suffix, and the
+ * indices of the {@code @Document} types whose names use the namespace
+ * are created with their mappings. After the last test, every index with
+ * the prefix is deleted. Only index names that opt in to the namespace
+ * (see {@code IndexNamespace}) are prefixed.
+ *
+ * <p> The namespace is scoped to the thread, so tests must run on the
+ * thread of their Test Class (the default, even when Test Classes run
+ * concurrently), and work they hand to other threads does not see it.
+ * That includes reactive Repositories, which resolve index names on the
+ * Reactor thread that subscribes, where the namespace does not apply.
+ * The SpringExtension is registered ahead of the Extension behind this
+ * annotation, so that the indices are deleted before the Application
+ * Context of the Test Class is closed.
+ *
+ * @author Quinn Andrews
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+@ExtendWith({SpringExtension.class, NamespacedIndicesExtension.class})
+public @interface NamespacedIndices {
+}
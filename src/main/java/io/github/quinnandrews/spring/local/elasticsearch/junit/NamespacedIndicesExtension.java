@@ -0,0 +1,123 @@
+package io.github.quinnandrews.spring.local.elasticsearch.junit;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ExpandWildcard;
+import co.elastic.clients.elasticsearch.cat.indices.IndicesRecord;
+import io.github.quinnandrews.spring.local.elasticsearch.config.IndexNamespace;
+import io.github.quinnandrews.spring.local.elasticsearch.config.SlowLogThresholds;
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p> The JUnit 5 Extension behind {@link NamespacedIndices}. Enters the
+ * namespace of the Test Class, and creates its indices (with the slow log
+ * thresholds, if configured), before the first test, enters it again
+ * before each test, in case the test runs on another thread, and deletes
+ * its indices after the last one. Each time it enters the namespace, it
+ * restores the namespace the thread was in before once the test (or the
+ * Test Class) is done, so that a pooled thread that goes on to run another
+ * Test Class does not resolve index names in this one. The
+ * ElasticsearchOperations and ElasticsearchClient are obtained from the
+ * Spring Application Context of the Test Class.
+ *
+ * @author Quinn Andrews
+ */
+public class NamespacedIndicesExtension implements BeforeAllCallback, BeforeEachCallback, AfterEachCallback, AfterAllCallback {
+
+    private static final Logger logger = LoggerFactory.getLogger(NamespacedIndicesExtension.class);
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(NamespacedIndicesExtension.class);
+
+    private static final String PREVIOUS_PREFIX = "previousPrefix";
+
+    @Override
+    public void beforeAll(final ExtensionContext context) {
+        // loaded (if it is not cached) outside the namespace, so that indices created at startup are not in it
+        final var applicationContext = SpringExtension.getApplicationContext(context);
+        final var operations = applicationContext.getBean(ElasticsearchOperations.class);
+        final var prefix = prefixFor(context.getRequiredTestClass());
+        context.getStore(NAMESPACE).put(IndexNamespace.class, prefix);
+        context.getStore(NAMESPACE).put(PREVIOUS_PREFIX, Optional.ofNullable(IndexNamespace.enter(prefix)));
+        final var created = operations.getElasticsearchConverter().getMappingContext().getPersistentEntities().stream()
+                .filter(entity -> entity.isCreateIndexAndMapping()
+                        && entity.getIndexCoordinates().getIndexName().startsWith(prefix))
+                .map(entity -> operations.indexOps(entity.getType()))
+                .filter(indexOperations -> !indexOperations.exists())
+                .filter(IndexOperations::createWithMapping)
+                .map(indexOperations -> indexOperations.getIndexCoordinates().getIndexName())
+                .toList();
+        applicationContext.getBeanProvider(SlowLogThresholds.class).ifAvailable(t -> t.apply(created));
+        logger.debug("Entered index namespace {} for {}.", prefix, context.getRequiredTestClass().getName());
+    }
+
+    @Override
+    public void beforeEach(final ExtensionContext context) {
+        Optional.ofNullable(context.getStore(NAMESPACE).get(IndexNamespace.class, String.class))
+                .ifPresent(prefix -> context.getStore(NAMESPACE)
+                        .put(PREVIOUS_PREFIX, Optional.ofNullable(IndexNamespace.enter(prefix))));
+    }
+
+    /*
+     The Store of a test falls back on that of its Test Class for a get, but
+     not for a remove, so that this only restores what beforeEach replaced.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void afterEach(final ExtensionContext context) {
+        final Optional<String> previous = context.getStore(NAMESPACE).remove(PREVIOUS_PREFIX, Optional.class);
+        if (previous != null) {
+            IndexNamespace.restore(previous.orElse(null));
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void afterAll(final ExtensionContext context) {
+        final var prefix = context.getStore(NAMESPACE).remove(IndexNamespace.class, String.class);
+        if (prefix == null) {
+            return;
+        }
+        final Optional<String> previous = context.getStore(NAMESPACE).remove(PREVIOUS_PREFIX, Optional.class);
+        try {
+            final var client = SpringExtension.getApplicationContext(context).getBean(ElasticsearchClient.class);
+            final var indices = client.cat().indices(r -> r.index(prefix + "*").expandWildcards(ExpandWildcard.All))
+                    .valueBody().stream()
+                    .map(IndicesRecord::index)
+                    .toList();
+            if (!indices.isEmpty()) {
+                client.indices().delete(d -> d.index(indices));
+            }
+            logger.debug("Deleted indices {} of index namespace {}.", indices, prefix);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Unable to delete the indices of index namespace " + prefix + ".", e);
+        } finally {
+            IndexNamespace.restore(previous.orElse(null));
+        }
+    }
+
+    /*
+     The simple name of the Test Class, lowercased and stripped of anything
+     an index name cannot contain, and a random suffix, so that the same Test
+     Class run twice at once does not share its indices either.
+     */
+    private static String prefixFor(final Class<?> testClass) {
+        return testClass.getSimpleName().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "")
+                + "-" + HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextInt()) + "-";
+    }
+}
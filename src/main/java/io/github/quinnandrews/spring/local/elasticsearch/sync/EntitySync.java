@@ -0,0 +1,377 @@
+package io.github.quinnandrews.spring.local.elasticsearch.sync;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RestClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.util.ClassUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * <p> Keeps Elasticsearch in step with the entities of the Application as
+ * they change, writing behind the changes rather than as part of them, as
+ * an indexing pipeline in production does.
+ *
+ * <p> Each changed entity is mapped to the {@code @Document} type that has
+ * a public constructor taking the entity (example:
+ * {@code GuitarPedalDocument(GuitarPedal)}) as soon as the change is
+ * reported, and the document is held in a buffer until it is flushed.
+ * Changes to the same document are coalesced, so that only its latest
+ * state (or its deletion) is sent. The buffer is flushed in bulk requests
+ * of up to the batch size, as soon as it holds that many documents, and
+ * otherwise once every flush interval. The buffer is bounded: when it is
+ * full, the thread reporting a change flushes it before going on, so
+ * that changes are never reported faster than Elasticsearch can index
+ * them. Entities without a {@code @Document} type are ignored. Once the
+ * instance is closed, each change still reported (by a transaction that
+ * commits while the Application shuts down, for example) is flushed on the
+ * thread that reports it.
+ *
+ * <p> A flush that fails is logged, and its documents are not retried.
+ *
+ * @author Quinn Andrews
+ */
+public class EntitySync implements AutoCloseable {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_BUFFER_SIZE = 10_000;
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1);
+
+    private static final Logger logger = LoggerFactory.getLogger(EntitySync.class);
+
+    private static final ContentType NDJSON = ContentType.create("application/x-ndjson", StandardCharsets.UTF_8);
+
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final RestClient restClient;
+    private final int batchSize;
+    private final int bufferSize;
+    private final Duration flushInterval;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Change> pending = new LinkedHashMap<>();
+    private final Object flushMonitor = new Object();
+    private final Map<Class<?>, Optional<DocumentType>> documentTypes = new ConcurrentHashMap<>();
+    private final List<Consumer<SyncBatch>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private volatile boolean closed;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final var thread = new Thread(runnable, "elasticsearch-entity-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Constructs an instance with the given limits.
+     *
+     * @param elasticsearchOperations  The ElasticsearchOperations to map documents with.
+     * @param restClient               The RestClient to send bulk requests with.
+     * @param batchSize                The maximum number of documents in a bulk request.
+     * @param bufferSize               The maximum number of documents waiting to be flushed.
+     * @param flushInterval            How long a document waits to be flushed, at most, if the batch does not fill up.
+     */
+    public EntitySync(final ElasticsearchOperations elasticsearchOperations,
+                      final RestClient restClient,
+                      final int batchSize,
+                      final int bufferSize,
+                      final Duration flushInterval) {
+        if (batchSize < 1 || bufferSize < batchSize || flushInterval.isNegative() || flushInterval.isZero()) {
+            throw new IllegalArgumentException(
+                    "The limits of an EntitySync must be positive, and its buffer no smaller than its batch.");
+        }
+        this.elasticsearchOperations = elasticsearchOperations;
+        this.restClient = restClient;
+        this.batchSize = batchSize;
+        this.bufferSize = bufferSize;
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * Starts flushing the buffer once every flush interval.
+     */
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::flushQuietly,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops flushing the buffer on an interval, and flushes what is left in it.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        scheduler.shutdown();
+        flush();
+    }
+
+    /**
+     * Registers a listener to be notified of each bulk request flushed, on
+     * the thread that flushed it.
+     *
+     * @param listener  The listener.
+     */
+    public void onFlush(final Consumer<SyncBatch> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Returns whether the given type of entity has a {@code @Document} type
+     * to sync it with.
+     *
+     * @param entityType  The type of entity.
+     * @return boolean
+     */
+    public boolean isSynced(final Class<?> entityType) {
+        return documentType(entityType).isPresent();
+    }
+
+    /**
+     * Reports that the given entity was created or updated, so that its
+     * document is indexed.
+     *
+     * @param entity  The entity.
+     */
+    public void indexed(final Object entity) {
+        documentType(entity.getClass()).ifPresent(type -> {
+            final var document = type.toDocument(entity);
+            enqueue(new Change(type.getIndex(), id(document),
+                    elasticsearchOperations.getElasticsearchConverter().mapObject(document).toJson(),
+                    System.nanoTime()));
+        });
+    }
+
+    /**
+     * Reports that the given entity was deleted, so that its document is
+     * deleted.
+     *
+     * @param entity  The entity.
+     */
+    public void deleted(final Object entity) {
+        documentType(entity.getClass()).ifPresent(type ->
+                enqueue(new Change(type.getIndex(), id(type.toDocument(entity)), null, System.nanoTime())));
+    }
+
+    /**
+     * Returns the number of documents waiting to be flushed.
+     *
+     * @return int
+     */
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Flushes every document in the buffer, in bulk requests of up to the
+     * batch size, and returns once they are sent.
+     */
+    public void flush() {
+        synchronized (flushMonitor) {
+            while (true) {
+                final var batch = new ArrayList<Change>();
+                synchronized (pending) {
+                    final var iterator = pending.values().iterator();
+                    while (iterator.hasNext() && batch.size() < batchSize) {
+                        batch.add(iterator.next());
+                        iterator.remove();
+                    }
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                send(batch);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (final RuntimeException e) {
+            logger.error("Unable to flush entity changes to Elasticsearch.", e);
+        }
+    }
+
+    /*
+     Adds the change to the buffer, in place of any earlier change to the
+     same document (keeping the time of the earliest, for the lag). If the
+     buffer is full, it is flushed first, on this thread. If a batch is
+     full, it is flushed in the background, unless a flush is already
+     scheduled (which takes this change with it). Once closed, the buffer
+     is flushed on this thread instead, since nothing else will flush it.
+     */
+    private void enqueue(final Change change) {
+        final var key = change.index + "/" + change.id;
+        final boolean batchFull;
+        while (true) {
+            synchronized (pending) {
+                if (pending.size() < bufferSize || pending.containsKey(key)) {
+                    pending.merge(key, change, (earlier, later) -> later.since(earlier.changedAt));
+                    batchFull = pending.size() >= batchSize;
+                    break;
+                }
+            }
+            flush();
+        }
+        if (closed) {
+            flush();
+        } else if (batchFull && flushScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(this::flushScheduledBatch);
+            } catch (final RejectedExecutionException e) {
+                flushScheduled.set(false);
+                flush();
+            }
+        }
+    }
+
+    /*
+     Clears the flag before flushing, so that a batch that fills up while
+     this one is sent schedules a flush of its own.
+     */
+    private void flushScheduledBatch() {
+        flushScheduled.set(false);
+        flushQuietly();
+    }
+
+    private void send(final List<Change> batch) {
+        final var startedAt = System.nanoTime();
+        final var body = new ByteArrayOutputStream();
+        for (final var change : batch) {
+            final var action = objectMapper.createObjectNode();
+            action.putObject(change.source == null ? "delete" : "index")
+                    .put("_index", change.index)
+                    .put("_id", change.id);
+            body.writeBytes(action.toString().getBytes(StandardCharsets.UTF_8));
+            body.write('\n');
+            if (change.source != null) {
+                body.writeBytes(change.source.getBytes(StandardCharsets.UTF_8));
+                body.write('\n');
+            }
+        }
+        var failures = 0;
+        try {
+            final var request = new Request("POST", "/_bulk");
+            request.setEntity(new ByteArrayEntity(body.toByteArray(), NDJSON));
+            final var response = objectMapper.readTree(restClient.performRequest(request).getEntity().getContent());
+            if (response.path("errors").asBoolean(false)) {
+                for (final var item : response.path("items")) {
+                    final var result = item.elements().next();
+                    final var status = result.path("status").asInt();
+                    if (status >= 300 && !(status == 404 && "not_found".equals(result.path("result").asText()))) {
+                        failures++;
+                        logger.warn("Unable to sync document {} of index {} with Elasticsearch: {}",
+                                result.path("_id").asText(), result.path("_index").asText(),
+                                result.path("error").path("reason").asText());
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            failures = batch.size();
+            logger.error("Unable to sync {} documents with Elasticsearch.", batch.size(), e);
+        }
+        final var flushedAt = System.nanoTime();
+        final var syncBatch = new SyncBatch(
+                batch.size(),
+                body.size(),
+                failures,
+                Duration.ofNanos(flushedAt - startedAt),
+                batch.stream().map(change -> Duration.ofNanos(flushedAt - change.changedAt)).toList());
+        logger.debug("Synced {} documents with Elasticsearch in {} ms.", batch.size(), syncBatch.getTook().toMillis());
+        listeners.forEach(listener -> listener.accept(syncBatch));
+    }
+
+    private String id(final Object document) {
+        final var entity = elasticsearchOperations.getElasticsearchConverter().getMappingContext()
+                .getRequiredPersistentEntity(document.getClass());
+        return elasticsearchOperations.convertId(entity.getIdentifierAccessor(document).getRequiredIdentifier());
+    }
+
+    /*
+     Finds the @Document type with a public constructor that takes the given
+     type of entity, among those Spring Data knows about (those of its
+     Repositories, and any it has already mapped).
+     */
+    private Optional<DocumentType> documentType(final Class<?> entityType) {
+        return documentTypes.computeIfAbsent(ClassUtils.getUserClass(entityType), type ->
+                elasticsearchOperations.getElasticsearchConverter().getMappingContext().getPersistentEntities().stream()
+                        .map(ElasticsearchPersistentEntity::getType)
+                        .flatMap(documentType -> Arrays.stream(documentType.getConstructors())
+                                .filter(c -> c.getParameterCount() == 1 && c.getParameterTypes()[0].isAssignableFrom(type))
+                                .findFirst()
+                                .map(DocumentType::new)
+                                .stream())
+                        .findFirst());
+    }
+
+    private class DocumentType {
+
+        private final Constructor<?> constructor;
+
+        private DocumentType(final Constructor<?> constructor) {
+            this.constructor = constructor;
+        }
+
+        private Object toDocument(final Object entity) {
+            try {
+                return constructor.newInstance(entity);
+            } catch (final ReflectiveOperationException e) {
+                throw new IllegalStateException("Unable to map " + entity + " to a " + constructor.getDeclaringClass(), e);
+            }
+        }
+
+        /*
+         Resolved for each change, on the thread reporting it, since the
+         index name may depend on it (see IndexNamespace).
+         */
+        private String getIndex() {
+            return elasticsearchOperations.getIndexCoordinatesFor(constructor.getDeclaringClass()).getIndexName();
+        }
+    }
+
+    /*
+     The latest state of a document (its source, or null if it is to be
+     deleted), and when it first changed since it was last flushed.
+     */
+    private static class Change {
+
+        private final String index;
+        private final String id;
+        private final String source;
+        private final long changedAt;
+
+        private Change(final String index, final String id, final String source, final long changedAt) {
+            this.index = index;
+            this.id = id;
+            this.source = source;
+            this.changedAt = changedAt;
+        }
+
+        private Change since(final long earlierChangedAt) {
+            return new Change(index, id, source, earlierChangedAt);
+        }
+    }
+}
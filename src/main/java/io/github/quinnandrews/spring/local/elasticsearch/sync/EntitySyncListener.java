@@ -0,0 +1,87 @@
+package io.github.quinnandrews.spring.local.elasticsearch.sync;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * <p> Reports the entities Hibernate persists, updates and removes to an
+ * {@link EntitySync}, once the transaction that changed them commits, so
+ * that changes that are rolled back are never synced.
+ *
+ * @author Quinn Andrews
+ */
+public class EntitySyncListener implements PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final EntitySync entitySync;
+
+    /**
+     * Constructs an instance that reports to the given EntitySync.
+     *
+     * @param entitySync  The EntitySync.
+     */
+    public EntitySyncListener(final EntitySync entitySync) {
+        this.entitySync = entitySync;
+    }
+
+    /**
+     * Registers a listener reporting to the given EntitySync with the
+     * Hibernate SessionFactory behind the given EntityManagerFactory.
+     *
+     * @param entityManagerFactory  The EntityManagerFactory.
+     * @param entitySync            The EntitySync.
+     */
+    public static void register(final EntityManagerFactory entityManagerFactory, final EntitySync entitySync) {
+        final var listener = new EntitySyncListener(entitySync);
+        final var registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+    }
+
+    @Override
+    public void onPostInsert(final PostInsertEvent event) {
+        entitySync.indexed(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(final PostUpdateEvent event) {
+        entitySync.indexed(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(final PostDeleteEvent event) {
+        entitySync.deleted(event.getEntity());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(final PostInsertEvent event) {
+        // nothing to sync, since the entity was never persisted
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(final PostUpdateEvent event) {
+        // nothing to sync, since the entity was never updated
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(final PostDeleteEvent event) {
+        // nothing to sync, since the entity was never removed
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(final EntityPersister persister) {
+        return entitySync.isSynced(persister.getMappedClass());
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.quinnandrews.spring.local.elasticsearch.sync;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * A bulk request of entity changes flushed by the {@link EntitySync}.
+ *
+ * @author Quinn Andrews
+ */
+public class SyncBatch {
+
+    private final int documents;
+    private final long bytes;
+    private final int failures;
+    private final Duration took;
+    private final List<Duration> lags;
+
+    SyncBatch(final int documents, final long bytes, final int failures, final Duration took, final List<Duration> lags) {
+        this.documents = documents;
+        this.bytes = bytes;
+        this.failures = failures;
+        this.took = took;
+        this.lags = lags;
+    }
+
+    /**
+     * Returns the number of documents indexed or deleted by the request.
+     *
+     * @return int
+     */
+    public int getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Returns the number of bytes of the request.
+     *
+     * @return long
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of documents Elasticsearch failed to index or
+     * delete (every document, if the request itself failed).
+     *
+     * @return int
+     */
+    public int getFailures() {
+        return failures;
+    }
+
+    /**
+     * Returns how long the request took.
+     *
+     * @return Duration
+     */
+    public Duration getTook() {
+        return took;
+    }
+
+    /**
+     * Returns, for each document, how long it was from when its entity first
+     * changed to when the request completed.
+     *
+     * @return List
+     */
+    public List<Duration> getLags() {
+        return lags;
+    }
+}
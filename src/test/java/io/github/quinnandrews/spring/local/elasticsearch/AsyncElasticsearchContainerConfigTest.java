@@ -0,0 +1,126 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.Application;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.config.ElasticsearchContainerConfig;
+import io.github.quinnandrews.spring.local.elasticsearch.config.LocalElasticsearchContainer;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.Query;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext
+@ActiveProfiles({"async", "no-repositories"})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = {Application.class, AsyncElasticsearchContainerConfigTest.StartupAtRefresh.class})
+public class AsyncElasticsearchContainerConfigTest {
+
+    @Autowired(required = false)
+    private LocalElasticsearchContainer elasticsearchContainer;
+
+    @Autowired(required = false)
+    private RestClient restClient;
+
+    @Autowired(required = false)
+    private GuitarPedalRepository guitarPedalRepository;
+
+    @Autowired(required = false)
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private StartupAtRefresh startupAtRefresh;
+
+    @Test
+    @Order(1)
+    void container_initialized() {
+        // given the application is initialized
+        // and the 'async' profile is active
+        // and the container is initialized
+        assertNotNull(elasticsearchContainer);
+        // then the container began starting before the context finished refreshing
+        assertTrue(startupAtRefresh.started);
+        // but the context finished refreshing before the container finished starting
+        assertFalse(startupAtRefresh.complete);
+        // when the container has finished starting in the background
+        elasticsearchContainer.awaitStartup();
+        // then the container is running
+        assertTrue(elasticsearchContainer.isRunning());
+        // and the port chosen up front is the port that was mapped
+        assertEquals(
+                elasticsearchContainer.getMappedPort(ElasticsearchContainerConfig.ELASTICSEARCH_DEFAULT_PORT),
+                elasticsearchContainer.getContainerInfo().getNetworkSettings().getPorts().getBindings().entrySet().stream()
+                        .filter(e -> e.getKey().getPort() == ElasticsearchContainerConfig.ELASTICSEARCH_DEFAULT_PORT)
+                        .map(e -> Integer.valueOf(e.getValue()[0].getHostPortSpec()))
+                        .findFirst()
+                        .orElseThrow()
+        );
+    }
+
+    @Test
+    @Order(2)
+    void restClient_initialized() {
+        // given the application is initialized
+        // and the 'async' profile is active
+        // and the container is initialized
+        // then the restClient is initialized
+        assertNotNull(restClient);
+        assertTrue(restClient.isRunning());
+        // and the restClient matches the container
+        assertEquals(
+                elasticsearchContainer.getHttpHostAddress(),
+                restClient.getNodes().get(0).getHost().toHostString()
+        );
+    }
+
+    @Test
+    @Order(3)
+    void elasticsearchOperations_initialized_dataWriteableAndReadable() {
+        // given the application is initialized
+        // and the 'async' profile is active
+        // and the container is initialized
+        // and the elasticsearchOperations is initialized
+        assertNotNull(elasticsearchOperations);
+        // and the database contains three pedals
+        assertEquals(3, guitarPedalRepository.count());
+        // when the pedals in the database are added to elasticsearch
+        elasticsearchOperations.save(
+                guitarPedalRepository.findAll().stream()
+                        .map(GuitarPedalDocument::new)
+                        .toList());
+        elasticsearchOperations.indexOps(GuitarPedalDocument.class).refresh();
+        // then elasticsearch contains three pedals
+        assertEquals(3, elasticsearchOperations.count(Query.findAll(), GuitarPedalDocument.class));
+    }
+
+    /*
+     No Elasticsearch repositories are active in the 'async' profile, since
+     they check for their index when they are created, which would wait for
+     the container before the context finished refreshing.
+     */
+    @TestConfiguration
+    static class StartupAtRefresh {
+
+        private volatile boolean started;
+        private volatile boolean complete;
+
+        @EventListener
+        void on(final ContextRefreshedEvent event) {
+            final var container = event.getApplicationContext().getBean(LocalElasticsearchContainer.class);
+            started = container.getStartupTimings().getDurations().containsKey("image");
+            complete = container.isStartupComplete();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import io.github.quinnandrews.spring.local.elasticsearch.config.AsyncLogConsumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.testcontainers.containers.output.OutputFrame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncLogConsumerTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(AsyncLogConsumerTest.class);
+    private final List<String> events = new CopyOnWriteArrayList<>();
+    private final CountDownLatch appending = new CountDownLatch(1);
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    private AppenderBase<ILoggingEvent> appender;
+    private volatile boolean blocking;
+
+    @BeforeEach
+    void setUp() {
+        appender = new AppenderBase<>() {
+            @Override
+            protected void append(final ILoggingEvent event) {
+                if (blocking) {
+                    appending.countDown();
+                    try {
+                        released.await(5, TimeUnit.SECONDS);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                events.add(event.getLevel() + " " + event.getFormattedMessage());
+            }
+        };
+        appender.start();
+        logger.addAppender(appender);
+        logger.setAdditive(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.detachAppender(appender);
+        logger.setAdditive(true);
+    }
+
+    @Test
+    void output_levelsMappedFromJson() {
+        // given a consumer that logs every line
+        final var consumer = new AsyncLogConsumer(logger, "local-elasticsearch-0", 16, null, List.of(), 1);
+        // when the Container outputs lines in the JSON log format and others
+        consumer.accept(stdout("{\"log.level\":\"WARN\",\"log.logger\":\"o.e.c.r.a.DiskThresholdMonitor\",\"message\":\"high disk watermark\"}"));
+        consumer.accept(stdout("{\"log.level\":\"FATAL\",\"log.logger\":\"o.e.b.Elasticsearch\",\"message\":\"fatal exception\",\"error.stack_trace\":\"java.lang.Error\"}"));
+        consumer.accept(stdout("CompileCommand: exclude org/apache/lucene/util/MSBRadixSorter.computeCommonPrefixLengthAndBuildHistogram"));
+        consumer.accept(stderr("Exception in thread \"main\""));
+        consumer.close();
+        // then each line is logged at its level, with the prefix
+        assertEquals(List.of(
+                "WARN local-elasticsearch-0: [o.e.c.r.a.DiskThresholdMonitor] high disk watermark",
+                "ERROR local-elasticsearch-0: [o.e.b.Elasticsearch] fatal exception\njava.lang.Error",
+                "INFO local-elasticsearch-0: CompileCommand: exclude org/apache/lucene/util/MSBRadixSorter.computeCommonPrefixLengthAndBuildHistogram",
+                "ERROR local-elasticsearch-0: Exception in thread \"main\""), events);
+        assertEquals(4, consumer.getLogged());
+    }
+
+    @Test
+    void output_filteredAndSampled() {
+        // given a consumer that logs INFO and above, excludes deprecation warnings and samples one in two lines
+        final var consumer = new AsyncLogConsumer(logger, null, 16, Level.INFO,
+                List.of(Pattern.compile("deprecation")), 2);
+        // when the Container outputs lines of various levels
+        consumer.accept(stdout(json("DEBUG", "debug")));
+        consumer.accept(stdout(json("WARN", "deprecation of a setting")));
+        for (int i = 0; i < 4; i++) {
+            consumer.accept(stdout(json("INFO", "info " + i)));
+        }
+        consumer.accept(stdout(json("WARN", "warning")));
+        consumer.close();
+        // then lines below the minimum level and excluded lines are filtered out
+        assertEquals(2, consumer.getFiltered());
+        // and half of the INFO lines are sampled out, but no WARN lines
+        assertEquals(2, consumer.getSampled());
+        assertEquals(List.of("INFO [test] info 0", "INFO [test] info 2", "WARN [test] warning",
+                "INFO Logged 3 lines of Elasticsearch output: 0 dropped (buffer full), 2 filtered out, 2 sampled out."),
+                events);
+    }
+
+    @Test
+    void output_bufferFull_linesDropped() throws InterruptedException {
+        // given a consumer with a buffer of one line, whose logging is blocked
+        blocking = true;
+        final var consumer = new AsyncLogConsumer(logger, null, 1, null, List.of(), 1);
+        consumer.accept(stdout("first"));
+        assertTrue(appending.await(5, TimeUnit.SECONDS));
+        // when more lines are output than the buffer holds
+        consumer.accept(stdout("second"));
+        consumer.accept(stdout("third"));
+        // then the line that does not fit is dropped without waiting
+        assertEquals(1, consumer.getDropped());
+        // and the rest are logged once logging is unblocked, followed by the counts once the output ends
+        blocking = false;
+        released.countDown();
+        consumer.accept(OutputFrame.END);
+        consumer.close();
+        assertEquals(List.of("INFO first", "INFO second",
+                "INFO Logged 2 lines of Elasticsearch output: 1 dropped (buffer full), 0 filtered out, 0 sampled out."),
+                events);
+    }
+
+    @Test
+    void construct_noOutput_noThreadStarted() {
+        // given a consumer whose container outputs nothing (being discarded for a shared one, say)
+        final var consumer = new AsyncLogConsumer(logger, "discarded", 8, null, List.of(), 1);
+        // when it is closed
+        consumer.close();
+        // then it never started a thread to drain its output
+        assertTrue(Thread.getAllStackTraces().keySet().stream()
+                .noneMatch(t -> t.getName().equals("local-elasticsearch-log-discarded")));
+        // and lines that follow are not logged
+        consumer.accept(stdout("late"));
+        assertEquals(0, consumer.getLogged());
+        assertTrue(events.isEmpty());
+    }
+
+    private static String json(final String level, final String message) {
+        return "{\"log.level\":\"" + level + "\",\"log.logger\":\"test\",\"message\":\"" + message + "\"}";
+    }
+
+    private static OutputFrame stdout(final String line) {
+        return new OutputFrame(OutputFrame.OutputType.STDOUT, (line + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static OutputFrame stderr(final String line) {
+        return new OutputFrame(OutputFrame.OutputType.STDERR, (line + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+}
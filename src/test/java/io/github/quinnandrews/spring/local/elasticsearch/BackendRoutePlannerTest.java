@@ -0,0 +1,44 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.config.BackendRoutePlanner;
+import io.github.quinnandrews.spring.local.elasticsearch.config.LocalElasticsearchBackend;
+import io.github.quinnandrews.spring.local.elasticsearch.config.LocalElasticsearchContainer;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class BackendRoutePlannerTest {
+
+    @Test
+    void determineRoute_onDemandHost_routedToResolvedHost() throws HttpException {
+        // given a backend that resolves the on demand host to the Docker host
+        final var backend = mock(LocalElasticsearchBackend.class);
+        when(backend.resolveHost(anyString())).thenAnswer(i ->
+                LocalElasticsearchContainer.ON_DEMAND_HOST.equals(i.getArgument(0)) ? "localhost" : i.getArgument(0));
+        final var planner = new BackendRoutePlanner(backend);
+        // when a request to the on demand host is routed
+        final var route = planner.determineRoute(new HttpHost(LocalElasticsearchContainer.ON_DEMAND_HOST, 19200, "https"),
+                new BasicHttpRequest("GET", "/"), new BasicHttpContext());
+        // then it is routed to the resolved host, on the same port and scheme
+        assertEquals(new HttpHost("localhost", 19200, "https"), route.getTargetHost());
+    }
+
+    @Test
+    void determineRoute_resolvedHost_routedAsIs() throws HttpException {
+        // given a backend whose hosts are already resolved
+        final var backend = mock(LocalElasticsearchBackend.class);
+        when(backend.resolveHost(anyString())).thenAnswer(i -> i.getArgument(0));
+        final var planner = new BackendRoutePlanner(backend);
+        // when a request is routed
+        final var route = planner.determineRoute(new HttpHost("localhost", 9200, "http"),
+                new BasicHttpRequest("GET", "/"), new BasicHttpContext());
+        // then it is routed to its own host
+        assertEquals(new HttpHost("localhost", 9200, "http"), route.getTargetHost());
+    }
+}
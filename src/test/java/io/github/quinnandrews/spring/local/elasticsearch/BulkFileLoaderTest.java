@@ -0,0 +1,147 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.bulk.BulkFileLoader;
+import org.apache.http.StatusLine;
+import org.apache.http.entity.StringEntity;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BulkFileLoaderTest {
+
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> bulkBodies = Collections.synchronizedList(new ArrayList<>());
+
+    private RestClient restClient;
+    private String bulkResponse = "{\"errors\":false,\"items\":[]}";
+
+    @BeforeEach
+    void setUp() throws IOException {
+        restClient = mock(RestClient.class);
+        when(restClient.performRequest(any(Request.class))).thenAnswer(i -> {
+            final Request request = i.getArgument(0);
+            final var body = request.getEntity() == null
+                    ? ""
+                    : new String(request.getEntity().getContent().readAllBytes(), StandardCharsets.UTF_8);
+            requests.add(request.getMethod() + " " + request.getEndpoint() + " " + body);
+            if (request.getEndpoint().equals("/_bulk")) {
+                bulkBodies.add(body);
+                return response(200, bulkResponse);
+            }
+            // no index exists yet
+            return response(request.getMethod().equals("HEAD") ? 404 : 200, "{}");
+        });
+    }
+
+    @Test
+    void load_maxActions_requestsBoundedByActions() {
+        // given a loader that sends at most two actions per bulk request
+        final var loader = new BulkFileLoader(restClient, 2, Long.MAX_VALUE);
+        // when a bulk file of three actions is loaded
+        final var result = loader.load(List.of(new ClassPathResource("seed/guitar_pedals.ndjson")));
+        // then three actions are sent in two bulk requests
+        assertEquals(3, result.getDocuments());
+        assertEquals(2, result.getRequests());
+        assertEquals(2, bulkBodies.get(0).lines().filter(l -> l.startsWith("{\"index\"")).count());
+        assertEquals(1, bulkBodies.get(1).lines().filter(l -> l.startsWith("{\"index\"")).count());
+        // and each action is followed by its source
+        assertTrue(bulkBodies.get(1).endsWith("{\"id\":3,\"name\":\"Catalinbread Soft Focus Reverb\"}\n"));
+    }
+
+    @Test
+    void load_maxBytes_requestsBoundedByBytes() {
+        // given a loader that sends at most one byte per bulk request
+        final var loader = new BulkFileLoader(restClient, 1000, 1);
+        // when a bulk file of three actions is loaded
+        final var result = loader.load(List.of(new ClassPathResource("seed/guitar_pedals.ndjson")));
+        // then each action is sent in a bulk request of its own
+        assertEquals(3, result.getRequests());
+    }
+
+    @Test
+    void load_newIndex_createdForLoadingThenRestored() {
+        // given a loader
+        final var loader = new BulkFileLoader(restClient, 1000, Long.MAX_VALUE);
+        // when a bulk file is loaded into an index that does not exist
+        loader.load(List.of(new ClassPathResource("seed/guitar_pedals.ndjson")));
+        // then the index is created without refreshes or replicas before loading
+        assertEquals("PUT /guitar_pedals {\"settings\":{\"index\":{\"refresh_interval\":\"-1\",\"number_of_replicas\":0}}}",
+                requests.get(1));
+        assertTrue(requests.get(2).startsWith("POST /_bulk"));
+        // and its settings are reset to their defaults and it is refreshed afterwards
+        assertEquals("PUT /guitar_pedals/_settings {\"index.refresh_interval\":null,\"index.number_of_replicas\":null}",
+                requests.get(3));
+        assertEquals("POST /guitar_pedals/_refresh ", requests.get(4));
+    }
+
+    @Test
+    void load_actionFails_failureThrownAndSettingsRestored() {
+        // given a bulk request fails
+        bulkResponse = "{\"errors\":true,\"items\":[{\"index\":{\"error\":{\"type\":\"mapper_parsing_exception\"}}}]}";
+        final var loader = new BulkFileLoader(restClient, 1000, Long.MAX_VALUE);
+        // when a bulk file is loaded
+        // then the failure is thrown
+        final var e = assertThrows(IllegalStateException.class, () ->
+                loader.load(List.of(new ClassPathResource("seed/guitar_pedals.ndjson"))));
+        assertTrue(e.getMessage().contains("mapper_parsing_exception"));
+        // and the settings of the index are restored anyway
+        assertTrue(requests.contains("POST /guitar_pedals/_refresh "));
+    }
+
+    @Test
+    void load_concurrency_requestsSentConcurrentlyBeforeRestoring() {
+        // given a loader that sends one action per bulk request, two requests at a time
+        final var loader = new BulkFileLoader(restClient, 1, Long.MAX_VALUE, 2);
+        // when a bulk file of three actions is loaded
+        final var result = loader.load(List.of(new ClassPathResource("seed/guitar_pedals.ndjson")));
+        // then every action is sent, in a bulk request of its own
+        assertEquals(3, result.getDocuments());
+        assertEquals(3, result.getRequests());
+        assertEquals(3, bulkBodies.size());
+        // and the index is only refreshed once every request is sent
+        assertEquals("POST /guitar_pedals/_refresh ", requests.get(requests.size() - 1));
+        // when a bulk request fails
+        bulkResponse = "{\"errors\":true,\"items\":[{\"index\":{\"error\":{\"type\":\"mapper_parsing_exception\"}}}]}";
+        // then the failure is thrown
+        final var e = assertThrows(IllegalStateException.class, () ->
+                loader.load(List.of(new ClassPathResource("seed/guitar_pedals.ndjson"))));
+        assertTrue(e.getMessage().contains("mapper_parsing_exception"));
+    }
+
+    @Test
+    void load_actionWithoutIndex_failureThrown() {
+        // given a bulk file whose action does not name its index
+        final var resource = new ByteArrayResource(
+                "{\"index\":{\"_id\":\"1\"}}\n{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+        final var loader = new BulkFileLoader(restClient, 1000, Long.MAX_VALUE);
+        // when it is loaded
+        // then a failure is thrown
+        assertThrows(IllegalStateException.class, () -> loader.load(List.of(resource)));
+        // and nothing is sent
+        assertTrue(bulkBodies.isEmpty());
+    }
+
+    private static Response response(final int status, final String body) {
+        final var statusLine = mock(StatusLine.class);
+        when(statusLine.getStatusCode()).thenReturn(status);
+        final var response = mock(Response.class);
+        when(response.getStatusLine()).thenReturn(statusLine);
+        when(response.getEntity()).thenReturn(new StringEntity(body, StandardCharsets.UTF_8));
+        return response;
+    }
+}
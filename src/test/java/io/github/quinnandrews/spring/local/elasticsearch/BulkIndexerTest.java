@@ -0,0 +1,121 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.Application;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedal;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.bulk.BulkIndexer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/*
+ Runs with the "disabled" profile, since it reads from the database, but
+ sends its bulk requests to a mock rather than to Elasticsearch.
+ */
+@DirtiesContext
+@ActiveProfiles({"disabled", "no-repositories"})
+@SpringBootTest(classes = Application.class)
+public class BulkIndexerTest {
+
+    @Autowired
+    private GuitarPedalRepository guitarPedalRepository;
+
+    private final List<List<IndexQuery>> bulkRequests = new CopyOnWriteArrayList<>();
+
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @BeforeEach
+    void setUp() {
+        final var mappingContext = new SimpleElasticsearchMappingContext();
+        final var converter = new MappingElasticsearchConverter(mappingContext);
+        converter.afterPropertiesSet();
+        elasticsearchOperations = mock(ElasticsearchOperations.class);
+        when(elasticsearchOperations.getElasticsearchConverter()).thenReturn(converter);
+        when(elasticsearchOperations.getIndexCoordinatesFor(GuitarPedalDocument.class))
+                .thenReturn(IndexCoordinates.of("guitar_pedals"));
+        when(elasticsearchOperations.convertId(any())).thenAnswer(i -> String.valueOf((Object) i.getArgument(0)));
+        when(elasticsearchOperations.bulkIndex(anyList(), any(IndexCoordinates.class))).thenAnswer(i -> {
+            bulkRequests.add(List.copyOf(i.<List<IndexQuery>>getArgument(0)));
+            return List.of();
+        });
+    }
+
+    @Test
+    void scroll_readsEveryEntityInOrder() {
+        // given the database contains three pedals
+        // when they are read two at a time
+        final var ids = BulkIndexer.scroll(guitarPedalRepository, Example.of(new GuitarPedal()), Sort.by("id"), 2)
+                .map(GuitarPedal::getId)
+                .toList();
+        // then every pedal is read in order
+        assertEquals(List.of(1L, 2L, 3L), ids);
+    }
+
+    @Test
+    void index_maxActions_requestsBoundedByActions() {
+        // given a bulk indexer that sends at most two documents per request
+        final var bulkIndexer = new BulkIndexer(elasticsearchOperations, 2, Long.MAX_VALUE, 2);
+        // when the pedals in the database are indexed
+        final var result = bulkIndexer.index(
+                BulkIndexer.scroll(guitarPedalRepository, Example.of(new GuitarPedal()), Sort.by("id"), 2),
+                GuitarPedalDocument::new,
+                GuitarPedalDocument.class);
+        // then three documents are indexed in two requests
+        assertEquals(3, result.getDocuments());
+        assertEquals(2, result.getRequests());
+        assertEquals(List.of(1, 2), bulkRequests.stream().map(List::size).sorted().toList());
+        // and each document is identified by the id of its pedal
+        assertEquals(List.of("1", "2", "3"), bulkRequests.stream()
+                .flatMap(List::stream)
+                .map(IndexQuery::getId)
+                .sorted()
+                .toList());
+    }
+
+    @Test
+    void index_maxBytes_requestsBoundedByBytes() {
+        // given a bulk indexer that sends at most one byte of documents per request
+        final var bulkIndexer = new BulkIndexer(elasticsearchOperations, 1000, 1, 1);
+        // when the pedals in the database are indexed
+        final var result = bulkIndexer.index(guitarPedalRepository.findAll().stream(),
+                GuitarPedalDocument::new,
+                GuitarPedalDocument.class);
+        // then each document is sent in a request of its own
+        assertEquals(3, result.getRequests());
+        assertTrue(bulkRequests.stream().allMatch(r -> r.size() == 1));
+    }
+
+    @Test
+    void index_requestFails_failureThrown() {
+        // given bulk requests fail
+        final var failure = new IllegalStateException("bulk request failed");
+        when(elasticsearchOperations.bulkIndex(anyList(), any(IndexCoordinates.class))).thenThrow(failure);
+        final var bulkIndexer = new BulkIndexer(elasticsearchOperations, 1, Long.MAX_VALUE, 1);
+        // when the pedals in the database are indexed
+        // then the failure is thrown
+        assertSame(failure, assertThrows(IllegalStateException.class, () ->
+                bulkIndexer.index(guitarPedalRepository.findAll().stream(),
+                        GuitarPedalDocument::new,
+                        GuitarPedalDocument.class)));
+    }
+}
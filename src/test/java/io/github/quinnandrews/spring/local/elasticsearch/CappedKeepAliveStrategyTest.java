@@ -0,0 +1,50 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.config.CappedKeepAliveStrategy;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.BasicHttpContext;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CappedKeepAliveStrategyTest {
+
+    private final CappedKeepAliveStrategy strategy = new CappedKeepAliveStrategy(Duration.ofSeconds(30));
+
+    @Test
+    void keepAlive_shorterHeader_headerHonored() {
+        // given a response that allows a shorter keep-alive than configured
+        final var response = response("timeout=5");
+        // then the connection is kept alive as long as the response allows
+        assertEquals(5_000, strategy.getKeepAliveDuration(response, new BasicHttpContext()));
+    }
+
+    @Test
+    void keepAlive_longerHeader_cappedAtConfigured() {
+        // given a response that allows a longer keep-alive than configured
+        final var response = response("timeout=60");
+        // then the connection is kept alive no longer than configured
+        assertEquals(30_000, strategy.getKeepAliveDuration(response, new BasicHttpContext()));
+    }
+
+    @Test
+    void keepAlive_noHeader_configured() {
+        // given a response without a Keep-Alive header
+        final var response = response(null);
+        // then the connection is kept alive as long as configured
+        assertEquals(30_000, strategy.getKeepAliveDuration(response, new BasicHttpContext()));
+    }
+
+    private static HttpResponse response(final String keepAlive) {
+        final var response = new BasicHttpResponse(HttpVersion.HTTP_1_1, HttpStatus.SC_OK, "OK");
+        if (keepAlive != null) {
+            response.addHeader("Keep-Alive", keepAlive);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.Application;
+import io.github.quinnandrews.spring.local.elasticsearch.config.CappedKeepAliveStrategy;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ The settings of the RestClient are not exposed by it, so they are read
+ from the fields of the RestClient and of the HttpAsyncClient it wraps.
+ */
+@DirtiesContext
+@ActiveProfiles("client")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = Application.class)
+public class ClientElasticsearchContainerConfigTest {
+
+    @Autowired
+    private RestClient restClient;
+
+    @Test
+    @Order(1)
+    void restClient_connectionPoolConfigured() {
+        // given the application is initialized
+        // and the 'client' profile is active
+        final var connectionManager = (PoolingNHttpClientConnectionManager)
+                ReflectionTestUtils.getField(restClient.getHttpClient(), "connmgr");
+        assertNotNull(connectionManager);
+        // then the connection pool matches the 'client' configuration
+        assertEquals(64, connectionManager.getMaxTotal());
+        assertEquals(32, connectionManager.getDefaultMaxPerRoute());
+        // and so does the number of IO Reactor threads
+        final var ioReactorConfig = (IOReactorConfig) ReflectionTestUtils.getField(
+                ReflectionTestUtils.getField(connectionManager, "ioReactor"), "config");
+        assertNotNull(ioReactorConfig);
+        assertEquals(2, ioReactorConfig.getIoThreadCount());
+    }
+
+    @Test
+    @Order(2)
+    void restClient_timeoutsKeepAliveAndCompressionConfigured() {
+        // given the application is initialized
+        // and the 'client' profile is active
+        final var requestConfig = (RequestConfig) ReflectionTestUtils.getField(restClient.getHttpClient(), "defaultConfig");
+        assertNotNull(requestConfig);
+        // then the timeouts match the 'client' configuration
+        assertEquals(5_000, requestConfig.getConnectTimeout());
+        assertEquals(60_000, requestConfig.getSocketTimeout());
+        // and idle connections are kept alive no longer than configured
+        assertInstanceOf(CappedKeepAliveStrategy.class,
+                ReflectionTestUtils.getField(restClient.getHttpClient(), "keepaliveStrategy"));
+        // and request bodies are compressed
+        assertEquals(true, ReflectionTestUtils.getField(restClient, "compressionEnabled"));
+    }
+
+    @Test
+    @Order(3)
+    void requests_compressed_succeed() throws IOException {
+        // given the application is initialized
+        // and the 'client' profile is active, with compression enabled
+        // when a document is indexed with a compressed body
+        final var index = new Request("PUT", "/client_compression/_doc/1");
+        index.addParameter("refresh", "true");
+        index.setJsonEntity("{\"name\":\"Big Muff\"}");
+        assertEquals(201, restClient.performRequest(index).getStatusLine().getStatusCode());
+        // then it can be read back from a compressed response
+        final var response = restClient.performRequest(new Request("GET", "/client_compression/_doc/1"));
+        assertTrue(new String(response.getEntity().getContent().readAllBytes(), StandardCharsets.UTF_8)
+                .contains("\"name\":\"Big Muff\""));
+    }
+}
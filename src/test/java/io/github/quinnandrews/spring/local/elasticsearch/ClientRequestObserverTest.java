@@ -0,0 +1,201 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import com.sun.net.httpserver.HttpServer;
+import io.github.quinnandrews.spring.local.elasticsearch.config.ClientRequestObserver;
+import io.github.quinnandrews.spring.local.elasticsearch.config.ElasticsearchContainerConfig;
+import io.github.quinnandrews.spring.local.elasticsearch.config.IndexNamespace;
+import io.github.quinnandrews.spring.local.elasticsearch.config.ObservedRequest;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.HttpHost;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClientRequestObserverTest {
+
+    private static final String SEARCH_RESPONSE =
+            "{\"took\":7,\"timed_out\":false,\"hits\":{\"total\":{\"value\":0},\"hits\":[]}}";
+    private static final String BULK_RESPONSE = "{\"took\":12,\"errors\":true,\"items\":["
+            + "{\"index\":{\"_index\":\"guitar_pedals\",\"_id\":\"1\",\"status\":201}},"
+            + "{\"index\":{\"_index\":\"guitar_pedals\",\"_id\":\"2\",\"status\":400,"
+            + "\"error\":{\"type\":\"document_parsing_exception\",\"reason\":\"failed to parse\"}}},"
+            + "{\"create\":{\"_index\":\"amplifiers\",\"_id\":\"3\",\"status\":409,"
+            + "\"error\":{\"type\":\"version_conflict_engine_exception\",\"reason\":\"exists\"}}}]}";
+
+    private HttpServer server;
+    private RestClient restClient;
+    private ClientRequestObserver observer;
+    private RequestOptions requestOptions;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            final var body = (exchange.getRequestURI().getPath().endsWith("_bulk") ? BULK_RESPONSE : SEARCH_RESPONSE)
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        observer = new ClientRequestObserver();
+        restClient = RestClient.builder(new HttpHost("localhost", server.getAddress().getPort()))
+                .setHttpClientConfigCallback(b -> b.addInterceptorLast(observer.requestInterceptor()))
+                .build();
+        requestOptions = RequestOptions.DEFAULT.toBuilder()
+                .setHttpAsyncResponseConsumerFactory(observer.responseConsumerFactory())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        restClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void search_observedWithTookAndSizes() throws IOException {
+        // given a listener
+        final var observed = new CopyOnWriteArrayList<ObservedRequest>();
+        observer.onRequest(observed::add);
+        // when a search request is sent
+        final var request = new Request("POST", "/guitar_pedals/_search");
+        request.setJsonEntity("{\"query\":{\"match_all\":{}}}");
+        request.setOptions(requestOptions);
+        final var response = restClient.performRequest(request);
+        // then the response can still be read
+        assertEquals(SEARCH_RESPONSE, EntityUtils.toString(response.getEntity()));
+        // and the request is observed
+        assertEquals(1, observed.size());
+        final var search = observed.get(0);
+        assertEquals("POST", search.getMethod());
+        assertEquals("search", search.getOperation());
+        assertEquals("guitar_pedals", search.getIndex());
+        assertEquals(200, search.getStatus());
+        assertEquals(Duration.ofMillis(7), search.getTook().orElseThrow());
+        assertEquals(26, search.getRequestBytes());
+        assertEquals(SEARCH_RESPONSE.length(), search.getResponseBytes());
+        assertFalse(search.getRoundTrip().isNegative());
+        assertTrue(search.getBulkFailures().isEmpty());
+    }
+
+    @Test
+    void bulk_failedItemsCountedByIndex() throws IOException {
+        // given a listener
+        final var observed = new CopyOnWriteArrayList<ObservedRequest>();
+        observer.onRequest(observed::add);
+        // when a bulk request with failed items is sent
+        final var request = new Request("POST", "/_bulk");
+        request.setJsonEntity("{\"index\":{\"_index\":\"guitar_pedals\"}}\n{}\n");
+        request.setOptions(requestOptions);
+        restClient.performRequest(request);
+        // then the failed items are counted by index
+        final var bulk = observed.get(0);
+        assertEquals("bulk", bulk.getOperation());
+        assertEquals(ObservedRequest.NO_INDEX, bulk.getIndex());
+        assertEquals(Duration.ofMillis(12), bulk.getTook().orElseThrow());
+        assertEquals(Map.of("guitar_pedals", 1L, "amplifiers", 1L), bulk.getBulkFailures());
+    }
+
+    @Test
+    void requestsWithOtherOptions_notObserved() throws IOException {
+        // given a listener
+        final var observed = new CopyOnWriteArrayList<ObservedRequest>();
+        observer.onRequest(observed::add);
+        // when a request is sent with the default options
+        restClient.performRequest(new Request("GET", "/guitar_pedals/_search"));
+        // then it is not observed
+        assertTrue(observed.isEmpty());
+    }
+
+    @Test
+    void parse_operationAndIndexFromPath() {
+        // when requests on various paths are parsed
+        final var root = ObservedRequest.parse("GET", "/", 200, 0, 0, new byte[0], false);
+        final var createIndex = ObservedRequest.parse("PUT", "/guitar_pedals", 200, 0, 0, new byte[0], false);
+        final var document = ObservedRequest.parse("GET", "/guitar_pedals/_doc/1?refresh=true", 200, 0, 0,
+                new byte[0], false);
+        final var health = ObservedRequest.parse("GET", "/_cluster/health/guitar_pedals", 200, 0, 0,
+                "not json".getBytes(StandardCharsets.UTF_8), false);
+        // then the operation and index are taken from the path
+        assertEquals(List.of("root", "index", "doc", "cluster"), List.of(root.getOperation(),
+                createIndex.getOperation(), document.getOperation(), health.getOperation()));
+        assertEquals(List.of("none", "guitar_pedals", "guitar_pedals", "none"), List.of(root.getIndex(),
+                createIndex.getIndex(), document.getIndex(), health.getIndex()));
+        // and a body that is not JSON is only counted
+        assertTrue(health.getTook().isEmpty());
+        assertEquals(8, health.getResponseBytes());
+    }
+
+    @Test
+    void parse_indexNormalized() {
+        // given an index namespace that has been entered
+        IndexNamespace.restore(IndexNamespace.enter("clientrequestobservertest-0a1b2c3d-"));
+        // when requests on indices in it, on several indices, and on patterns are parsed
+        final var namespaced = ObservedRequest.parse("GET", "/clientrequestobservertest-0a1b2c3d-guitar_pedals/_search",
+                200, 0, 0, new byte[0], false);
+        final var several = ObservedRequest.parse("GET", "/guitar_pedals,amplifiers/_search", 200, 0, 0,
+                new byte[0], false);
+        final var wildcard = ObservedRequest.parse("GET", "/guitar_*/_search", 200, 0, 0, new byte[0], false);
+        final var dateMath = ObservedRequest.parse("GET", "/%3Clogs-%7Bnow%2Fd%7D%3E/_search", 200, 0, 0,
+                new byte[0], false);
+        // then the index is stripped of its namespace, or collapsed to a fixed value
+        assertEquals(List.of("guitar_pedals", ObservedRequest.MULTIPLE_INDICES, ObservedRequest.INDEX_PATTERN,
+                ObservedRequest.INDEX_PATTERN), List.of(namespaced.getIndex(), several.getIndex(),
+                wildcard.getIndex(), dateMath.getIndex()));
+    }
+
+    @Test
+    void metrics_percentileHistogramsOnlyIfEnabled() throws IOException {
+        // given the metrics of the requests, without and with percentile histograms
+        final var withoutHistograms = new CopyOnWriteArrayList<Boolean>();
+        new ElasticsearchContainerConfig.ElasticsearchMetricsConfig(false)
+                .elasticsearchClientMetrics(observer)
+                .bindTo(registryRecordingPercentileHistograms(withoutHistograms));
+        final var withHistograms = new CopyOnWriteArrayList<Boolean>();
+        new ElasticsearchContainerConfig.ElasticsearchMetricsConfig(true)
+                .elasticsearchClientMetrics(observer)
+                .bindTo(registryRecordingPercentileHistograms(withHistograms));
+        // when a search request is sent
+        final var request = new Request("POST", "/guitar_pedals/_search");
+        request.setJsonEntity("{}");
+        request.setOptions(requestOptions);
+        restClient.performRequest(request);
+        // then its round-trip time publishes a percentile histogram only where enabled
+        assertEquals(List.of(false), withoutHistograms);
+        assertEquals(List.of(true), withHistograms);
+    }
+
+    private static SimpleMeterRegistry registryRecordingPercentileHistograms(final List<Boolean> published) {
+        final var registry = new SimpleMeterRegistry();
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(final Meter.Id id, final DistributionStatisticConfig config) {
+                if (id.getName().equals(ElasticsearchContainerConfig.ElasticsearchMetricsConfig.CLIENT_REQUESTS_TIMER_NAME)) {
+                    published.add(Boolean.TRUE.equals(config.isPercentileHistogram()));
+                }
+                return config;
+            }
+        });
+        return registry;
+    }
+}
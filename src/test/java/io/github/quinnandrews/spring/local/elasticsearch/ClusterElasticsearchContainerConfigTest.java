@@ -0,0 +1,103 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import io.github.quinnandrews.spring.local.elasticsearch.application.Application;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalDocumentRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.config.LocalElasticsearchContainer;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.Node;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.elasticsearch.ElasticsearchContainer;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext
+@ActiveProfiles("cluster")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = Application.class)
+public class ClusterElasticsearchContainerConfigTest {
+
+    @Autowired(required = false)
+    private LocalElasticsearchContainer elasticsearchContainer;
+
+    @Autowired(required = false)
+    private RestClient restClient;
+
+    @Autowired(required = false)
+    private ElasticsearchClient elasticsearchClient;
+
+    @Autowired(required = false)
+    private GuitarPedalRepository guitarPedalRepository;
+
+    @Autowired(required = false)
+    private GuitarPedalDocumentRepository guitarPedalDocumentRepository;
+
+    @Test
+    @Order(1)
+    void container_initialized() {
+        // given the application is initialized
+        // and the 'cluster' profile is active
+        // and the container is initialized
+        assertNotNull(elasticsearchContainer);
+        // then there are three nodes
+        assertEquals(3, elasticsearchContainer.getClusterNodes().size());
+        // and every node is running
+        assertTrue(elasticsearchContainer.getClusterNodes().stream().allMatch(ElasticsearchContainer::isRunning));
+        // and the nodes share a network
+        assertNotNull(elasticsearchContainer.getNetwork());
+        assertTrue(elasticsearchContainer.getClusterNodes().stream()
+                .allMatch(n -> elasticsearchContainer.getNetwork().equals(n.getNetwork())));
+    }
+
+    @Test
+    @Order(2)
+    void restClient_initialized() throws IOException {
+        // given the application is initialized
+        // and the 'cluster' profile is active
+        // and the container is initialized
+        // then the restClient is initialized
+        assertNotNull(restClient);
+        assertTrue(restClient.isRunning());
+        // and the restClient is connected to every node
+        assertEquals(
+                elasticsearchContainer.getClusterNodes().stream()
+                        .map(ElasticsearchContainer::getHttpHostAddress)
+                        .toList(),
+                restClient.getNodes().stream()
+                        .map(Node::getHost)
+                        .map(HttpHost::toHostString)
+                        .toList()
+        );
+        // and the nodes have formed a single cluster
+        assertEquals(3, elasticsearchClient.cluster().health().numberOfNodes());
+    }
+
+    @Test
+    @Order(3)
+    void guitarPedalDocumentRepository_initialized_dataWriteableAndReadable() {
+        // given the application is initialized
+        // and the 'cluster' profile is active
+        // and the container is initialized
+        // and the guitarPedalDocumentRepository is initialized
+        assertNotNull(guitarPedalDocumentRepository);
+        // when the pedals in the database are added to elasticsearch
+        guitarPedalDocumentRepository.saveAll(
+                guitarPedalRepository.findAll().stream()
+                        .map(GuitarPedalDocument::new)
+                        .toList());
+        // then elasticsearch contains three pedals
+        assertEquals(3, guitarPedalDocumentRepository.count());
+    }
+}
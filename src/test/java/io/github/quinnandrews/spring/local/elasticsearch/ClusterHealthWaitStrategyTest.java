@@ -0,0 +1,32 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.config.ClusterHealthWaitStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClusterHealthWaitStrategyTest {
+
+    @Test
+    void getPath_defaults_clusterYellow() {
+        // given a wait strategy with the defaults
+        final var waitStrategy = new ClusterHealthWaitStrategy();
+        // then it polls the health of the cluster for yellow, waiting up to the poll interval
+        assertEquals("/_cluster/health?wait_for_status=yellow&timeout=100ms", waitStrategy.getPath());
+    }
+
+    @Test
+    void getPath_indices_indicesHealth() {
+        // given a wait strategy for the health of some indices
+        final var waitStrategy = new ClusterHealthWaitStrategy()
+                .withStatus("green")
+                .withIndices(List.of("guitar_pedals", "guitar_*"))
+                .withPollInterval(Duration.ofMillis(250));
+        // then it polls the health of those indices
+        assertEquals("/_cluster/health/guitar_pedals,guitar_*?wait_for_status=green&timeout=250ms",
+                waitStrategy.getPath());
+    }
+}
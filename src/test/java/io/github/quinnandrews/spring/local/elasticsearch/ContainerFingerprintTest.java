@@ -0,0 +1,57 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.config.ContainerFingerprint;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContainerFingerprintTest {
+
+    @Test
+    void fingerprint_sameSettings_sameFingerprint() {
+        // given two fingerprints built from the same settings in a different order
+        final var first = ContainerFingerprint.builder()
+                .with("container.image", "docker.elastic.co/elasticsearch/elasticsearch:8.10.2")
+                .with("container.port", 19200)
+                .withAll("env.", Map.of("ELASTIC_PASSWORD", "echo", "discovery.type", "single-node"))
+                .build();
+        final var second = ContainerFingerprint.builder()
+                .withAll("env.", Map.of("discovery.type", "single-node", "ELASTIC_PASSWORD", "echo"))
+                .with("container.port", 19200)
+                .with("container.image", "docker.elastic.co/elasticsearch/elasticsearch:8.10.2")
+                .build();
+        // then the fingerprints are equal
+        assertEquals(first, second);
+    }
+
+    @Test
+    void fingerprint_differentSettings_differentFingerprint() {
+        // given two fingerprints that differ only by password
+        final var first = ContainerFingerprint.builder()
+                .with("container.image", "docker.elastic.co/elasticsearch/elasticsearch:8.10.2")
+                .withAll("env.", Map.of("ELASTIC_PASSWORD", "echo"))
+                .build();
+        final var second = ContainerFingerprint.builder()
+                .with("container.image", "docker.elastic.co/elasticsearch/elasticsearch:8.10.2")
+                .withAll("env.", Map.of("ELASTIC_PASSWORD", "foxtrot"))
+                .build();
+        // then the fingerprints are not equal
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void fingerprint_unsetSetting_differsFromEmptySetting() {
+        // given a fingerprint with an unset container name
+        final var unset = ContainerFingerprint.builder()
+                .with("container.name", null)
+                .build();
+        // and a fingerprint with an empty container name
+        final var empty = ContainerFingerprint.builder()
+                .with("container.name", "")
+                .build();
+        // then the fingerprints are not equal
+        assertNotEquals(unset, empty);
+    }
+}
@@ -0,0 +1,64 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.config.DataVersionMarker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DataVersionMarkerTest {
+
+    @Test
+    void check_sameOrNewerImage_passes() {
+        // given data written by Elasticsearch 8.7.1
+        // when it is checked against the same, a newer minor and the next major version
+        // then it passes
+        assertDoesNotThrow(() -> DataVersionMarker.check("8.7.1", "8.7.1", "data"));
+        assertDoesNotThrow(() -> DataVersionMarker.check("8.7.1", "8.10.2", "data"));
+        assertDoesNotThrow(() -> DataVersionMarker.check("8.7.1", "9.0.0", "data"));
+    }
+
+    @Test
+    void check_olderImage_fails() {
+        // given data written by Elasticsearch 8.10.2
+        // when it is checked against an older version
+        final var e = assertThrows(IllegalStateException.class, () ->
+                DataVersionMarker.check("8.10.2", "8.7.1", "data"));
+        // then the failure names both versions
+        assertTrue(e.getMessage().contains("8.10.2"));
+        assertTrue(e.getMessage().contains("8.7.1"));
+    }
+
+    @Test
+    void check_moreThanOneMajorNewerImage_fails() {
+        // given data written by Elasticsearch 7.17.0
+        // when it is checked against a version two majors newer
+        // then it fails
+        assertThrows(IllegalStateException.class, () -> DataVersionMarker.check("7.17.0", "9.0.0", "data"));
+    }
+
+    @Test
+    void check_uncheckableVersion_passes() {
+        // given data written by Elasticsearch 8.10.2
+        // when it is checked against an image tagged 'latest'
+        // then it passes, since the version cannot be compared
+        assertFalse(DataVersionMarker.isCheckable("latest"));
+        assertDoesNotThrow(() -> DataVersionMarker.check("8.10.2", "latest", "data"));
+    }
+
+    @Test
+    void read_hostDirectory_markerVersion(@TempDir final Path directory) throws IOException {
+        // given an empty host directory
+        // then there is no version
+        assertEquals(Optional.empty(), DataVersionMarker.read("unused", directory.toString(), true));
+        // when a marker is written to it
+        Files.writeString(directory.resolve(DataVersionMarker.MARKER_FILE), "8.10.2\n");
+        // then its version is read
+        assertEquals(Optional.of("8.10.2"), DataVersionMarker.read("unused", directory.toString(), true));
+    }
+}
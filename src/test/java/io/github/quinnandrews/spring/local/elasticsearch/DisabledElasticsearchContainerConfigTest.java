@@ -16,7 +16,7 @@ import org.testcontainers.elasticsearch.ElasticsearchContainer;
 import static org.junit.jupiter.api.Assertions.*;
 
 @DirtiesContext
-@ActiveProfiles("disabled")
+@ActiveProfiles({"disabled", "no-repositories"})
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 @SpringBootTest(classes = Application.class)
 public class DisabledElasticsearchContainerConfigTest {
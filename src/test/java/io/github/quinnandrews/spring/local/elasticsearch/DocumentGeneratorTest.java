@@ -0,0 +1,153 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.bulk.DocumentGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DocumentGeneratorTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final MappingElasticsearchConverter converter =
+            new MappingElasticsearchConverter(new SimpleElasticsearchMappingContext());
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void generate_sameSeed_sameDocumentsHoweverManyThreads() throws IOException {
+        // given two generators of the same seed, one generating four files at a time and one a file at a time
+        final var parallel = new DocumentGenerator(converter, 7L, 100, 100, 4);
+        final var sequential = new DocumentGenerator(converter, 7L, 100, 100, 1);
+        // when each generates 250 documents into a directory of its own
+        final var parallelFiles = parallel.generate(GuitarPedalDocument.class, 250, directory.resolve("parallel"));
+        final var sequentialFiles = sequential.generate(GuitarPedalDocument.class, 250, directory.resolve("sequential"));
+        // then the documents are split into three files
+        assertEquals(3, parallelFiles.size());
+        // and both generate the same documents
+        assertEquals(lines(sequentialFiles), lines(parallelFiles));
+        // and each document is indexed by its sequential id
+        final var lines = lines(parallelFiles);
+        assertEquals(500, lines.size());
+        assertEquals("{\"index\":{\"_index\":\"guitar_pedals\",\"_id\":\"1\"}}", lines.get(0));
+        assertEquals(1, objectMapper.readTree(lines.get(1)).path("id").asLong());
+        assertEquals(250, objectMapper.readTree(lines.get(499)).path("id").asLong());
+        // when a generator of another seed generates the same number of documents
+        final var other = new DocumentGenerator(converter, 8L, 100, 100, 4)
+                .generate(GuitarPedalDocument.class, 250, directory.resolve("other"));
+        // then it generates other documents
+        assertNotEquals(lines, lines(other));
+    }
+
+    @Test
+    void generate_generatedBefore_cachedFilesReused() throws IOException {
+        // given documents generated into a directory
+        final var generator = new DocumentGenerator(converter, 7L, 100, 100, 2);
+        final var files = generator.generate(GuitarPedalDocument.class, 150, directory);
+        Files.writeString(files.get(0), "{\"index\":{\"_index\":\"guitar_pedals\",\"_id\":\"cached\"}}\n{}\n");
+        // when the same documents are generated into the same directory again
+        final var cached = generator.generate(GuitarPedalDocument.class, 150, directory);
+        // then the files generated before are returned, without generating them again
+        assertEquals(files, cached);
+        assertTrue(Files.readString(cached.get(0)).contains("cached"));
+        // when more documents are generated into the same directory
+        final var more = generator.generate(GuitarPedalDocument.class, 300, directory);
+        // then they are generated into files of their own
+        assertEquals(3, more.size());
+        assertNotEquals(files.get(0).getParent(), more.get(0).getParent());
+    }
+
+    @Test
+    void generate_valuesFollowMapping_keywordsSkewedWithinCardinality() throws IOException {
+        // given a generator with a keyword cardinality of fifty
+        final var generator = new DocumentGenerator(converter, 7L, 50, 10_000, 1);
+        // when documents of a type with properties of every supported type are generated
+        final var documents = documents(generator.generate(Amplifier.class, 5000, directory));
+        // then each property is generated according to its mapping
+        final var first = documents.get(0);
+        assertEquals("1", first.path("id").asText());
+        assertTrue(first.path("description").asText().split(" ").length >= 3);
+        assertTrue(first.path("price").isDouble() && first.path("price").asDouble() > 0);
+        assertTrue(first.path("watts").isIntegralNumber());
+        assertTrue(first.path("tube").isBoolean());
+        assertTrue(Instant.parse(first.path("released").asText()).isBefore(Instant.parse("2024-01-01T00:00:00Z")));
+        assertTrue(List.of("CLEAN", "CRUNCH", "HIGH_GAIN").contains(first.path("voicing").asText()));
+        // and the keywords take no more than fifty distinct values
+        final var brands = new HashMap<String, Integer>();
+        documents.forEach(document -> brands.merge(document.path("brand").asText(), 1, Integer::sum));
+        assertTrue(brands.size() <= 50);
+        // and the most common keyword is far more common than it would be if they were uniform
+        assertTrue(Collections.max(brands.values()) > 3 * 5000 / 50);
+    }
+
+    private static List<String> lines(final List<Path> files) throws IOException {
+        final var lines = new ArrayList<String>();
+        for (final var file : files) {
+            lines.addAll(Files.readAllLines(file));
+        }
+        return lines;
+    }
+
+    private static List<JsonNode> documents(final List<Path> files) throws IOException {
+        final var lines = lines(files);
+        final var documents = new ArrayList<JsonNode>();
+        for (var i = 1; i < lines.size(); i += 2) {
+            documents.add(objectMapper.readTree(lines.get(i)));
+        }
+        return documents;
+    }
+
+    @Document(indexName = "amplifiers")
+    static class Amplifier {
+
+        enum Voicing { CLEAN, CRUNCH, HIGH_GAIN }
+
+        @Id
+        private String id;
+
+        @Field(type = FieldType.Keyword)
+        private String brand;
+
+        @Field(type = FieldType.Text)
+        private String description;
+
+        @Field(type = FieldType.Double)
+        private Double price;
+
+        @Field(type = FieldType.Integer)
+        private int watts;
+
+        @Field(type = FieldType.Boolean)
+        private boolean tube;
+
+        @Field(type = FieldType.Date)
+        private Instant released;
+
+        @Field(type = FieldType.Keyword)
+        private Voicing voicing;
+
+        @Field(type = FieldType.Object)
+        private Map<String, String> specifications;
+    }
+}
@@ -0,0 +1,81 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.Application;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalDocumentRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.config.LocalElasticsearchContainer;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext
+@ActiveProfiles("eager")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = Application.class)
+public class EagerElasticsearchContainerConfigTest {
+
+    @Autowired(required = false)
+    private LocalElasticsearchContainer elasticsearchContainer;
+
+    @Autowired(required = false)
+    private RestClient restClient;
+
+    @Autowired(required = false)
+    private GuitarPedalRepository guitarPedalRepository;
+
+    @Autowired(required = false)
+    private GuitarPedalDocumentRepository guitarPedalDocumentRepository;
+
+    @Test
+    @Order(1)
+    void container_initialized_indicesCreatedEagerly() throws IOException {
+        // given the application is initialized
+        // and the 'eager' profile is active
+        // and the container is initialized
+        assertNotNull(elasticsearchContainer);
+        assertTrue(elasticsearchContainer.isRunning());
+        // then creating the indices is timed as a startup phase
+        assertTrue(elasticsearchContainer.getStartupTimings().getDurations().containsKey("indices"));
+        // when the settings of the index of the guitar pedal documents are read
+        final var request = new Request("GET", "/guitar_pedals/_settings");
+        request.addParameter("flat_settings", "true");
+        final var settings = new String(
+                restClient.performRequest(request).getEntity().getContent().readAllBytes(),
+                StandardCharsets.UTF_8);
+        // then the settings for every index are applied
+        assertTrue(settings.contains("\"index.number_of_shards\":\"2\""));
+        assertTrue(settings.contains("\"index.number_of_replicas\":\"0\""));
+        // and so are those for the index
+        assertTrue(settings.contains("\"index.refresh_interval\":\"5s\""));
+    }
+
+    @Test
+    @Order(2)
+    void guitarPedalDocumentRepository_initialized_dataWriteableAndReadable() {
+        // given the application is initialized
+        // and the 'eager' profile is active
+        // and the container is initialized
+        // and the guitarPedalDocumentRepository is initialized
+        assertNotNull(guitarPedalDocumentRepository);
+        // when the pedals in the database are added to elasticsearch
+        guitarPedalDocumentRepository.saveAll(
+                guitarPedalRepository.findAll().stream()
+                        .map(GuitarPedalDocument::new)
+                        .toList());
+        // then elasticsearch contains three pedals
+        assertEquals(3, guitarPedalDocumentRepository.count());
+    }
+}
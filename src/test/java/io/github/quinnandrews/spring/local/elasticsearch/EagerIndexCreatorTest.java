@@ -0,0 +1,82 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.config.EagerIndexCreator;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.convert.MappingElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.index.Settings;
+import org.springframework.data.elasticsearch.core.mapping.SimpleElasticsearchMappingContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class EagerIndexCreatorTest {
+
+    @Test
+    void scan_applicationPackage_documentTypesFound() {
+        // given the package of the application
+        // when it is scanned
+        final var types = EagerIndexCreator.scan(List.of("io.github.quinnandrews.spring.local.elasticsearch.application"));
+        // then its @Document types are found
+        assertEquals(Set.of(GuitarPedalDocument.class), types);
+    }
+
+    @Test
+    void createIndices_settingsOverridden() {
+        // given an index that does not exist
+        final var indexOperations = mock(IndexOperations.class);
+        when(indexOperations.exists()).thenReturn(false);
+        when(indexOperations.createSettings()).thenReturn(new Settings(Map.of("index", Map.of(
+                "number_of_shards", "1",
+                "number_of_replicas", "1",
+                "refresh_interval", "1s"))));
+        when(indexOperations.createMapping()).thenReturn(Document.create());
+        final var createdSettings = new AtomicReference<Map<String, Object>>();
+        when(indexOperations.create(any(), any())).thenAnswer(i -> {
+            createdSettings.set(i.getArgument(0));
+            return true;
+        });
+        final var elasticsearchOperations = mock(ElasticsearchOperations.class);
+        when(elasticsearchOperations.getElasticsearchConverter())
+                .thenReturn(new MappingElasticsearchConverter(new SimpleElasticsearchMappingContext()));
+        when(elasticsearchOperations.indexOps(GuitarPedalDocument.class)).thenReturn(indexOperations);
+        // and settings overridden for every index, and for that index
+        final var creator = new EagerIndexCreator(
+                Map.of("number_of_shards", "2", "number_of_replicas", "0"),
+                Map.of("guitar_pedals", Map.of("index.refresh_interval", "5s")));
+        // when the indices are created
+        final var created = creator.createIndices(elasticsearchOperations, List.of(GuitarPedalDocument.class));
+        // then the index is created
+        assertEquals(List.of("guitar_pedals"), created);
+        // with the overridden settings
+        assertEquals("2", createdSettings.get().get("index.number_of_shards"));
+        assertEquals("0", createdSettings.get().get("index.number_of_replicas"));
+        assertEquals("5s", createdSettings.get().get("index.refresh_interval"));
+    }
+
+    @Test
+    void createIndices_indexExists_skipped() {
+        // given an index that already exists
+        final var indexOperations = mock(IndexOperations.class);
+        when(indexOperations.exists()).thenReturn(true);
+        final var elasticsearchOperations = mock(ElasticsearchOperations.class);
+        when(elasticsearchOperations.getElasticsearchConverter())
+                .thenReturn(new MappingElasticsearchConverter(new SimpleElasticsearchMappingContext()));
+        when(elasticsearchOperations.indexOps(GuitarPedalDocument.class)).thenReturn(indexOperations);
+        // when the indices are created
+        final var created = new EagerIndexCreator(Map.of(), Map.of())
+                .createIndices(elasticsearchOperations, List.of(GuitarPedalDocument.class));
+        // then it is left alone
+        assertTrue(created.isEmpty());
+        verify(indexOperations, never()).create(any(), any());
+    }
+}
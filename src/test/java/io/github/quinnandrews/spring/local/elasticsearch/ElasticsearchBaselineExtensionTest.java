@@ -0,0 +1,75 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.Application;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalDocumentRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.junit.ElasticsearchBaseline;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext
+@ActiveProfiles("default")
+@ElasticsearchBaseline
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = Application.class)
+public class ElasticsearchBaselineExtensionTest {
+
+    @Autowired
+    private GuitarPedalDocumentRepository guitarPedalDocumentRepository;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @BeforeAll
+    static void seed(@Autowired final GuitarPedalRepository guitarPedalRepository,
+                     @Autowired final GuitarPedalDocumentRepository guitarPedalDocumentRepository) {
+        guitarPedalDocumentRepository.saveAll(
+                guitarPedalRepository.findAll().stream()
+                        .map(GuitarPedalDocument::new)
+                        .toList());
+    }
+
+    @Test
+    @Order(1)
+    void deleteAll_baselineRestoredAfterwards() {
+        // given the baseline was captured after seeding three pedals
+        assertEquals(3, guitarPedalDocumentRepository.count());
+        // when every pedal is deleted
+        guitarPedalDocumentRepository.deleteAll();
+        // then elasticsearch contains no pedals
+        assertEquals(0, guitarPedalDocumentRepository.count());
+    }
+
+    @Test
+    @Order(2)
+    void createIndex_baselineRestoredAfterwards() {
+        // given the baseline was restored after the previous test
+        assertEquals(3, guitarPedalDocumentRepository.count());
+        // when an index is created that was not in the baseline
+        elasticsearchOperations.indexOps(IndexCoordinates.of("guitar_amps")).create();
+        // then the index exists
+        assertTrue(elasticsearchOperations.indexOps(IndexCoordinates.of("guitar_amps")).exists());
+    }
+
+    @Test
+    @Order(3)
+    void count_baselineRestored() {
+        // given the baseline was restored after the previous test
+        // then elasticsearch contains the three seeded pedals
+        assertEquals(3, guitarPedalDocumentRepository.count());
+        // and the index created after the baseline was taken no longer exists
+        assertFalse(elasticsearchOperations.indexOps(IndexCoordinates.of("guitar_amps")).exists());
+    }
+}
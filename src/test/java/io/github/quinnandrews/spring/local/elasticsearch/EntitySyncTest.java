@@ -0,0 +1,58 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedal;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.sync.EntitySync;
+import org.apache.http.HttpEntity;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/*
+ Sends its bulk requests to a mock rather than to Elasticsearch, so that
+ the flushes can be counted.
+ */
+public class EntitySyncTest {
+
+    @Test
+    void indexed_afterClose_flushedOnReportingThread() throws IOException {
+        // given an EntitySync that has been closed
+        final var restClient = mock(RestClient.class);
+        when(restClient.performRequest(any(Request.class))).thenAnswer(i -> bulkResponse());
+        final var elasticsearchOperations = new ElasticsearchTemplate(
+                new ElasticsearchClient(new RestClientTransport(restClient, new JacksonJsonpMapper())));
+        elasticsearchOperations.getElasticsearchConverter().getMappingContext()
+                .getRequiredPersistentEntity(GuitarPedalDocument.class);
+        final var entitySync = new EntitySync(elasticsearchOperations, restClient, 1, 1, Duration.ofMinutes(1));
+        entitySync.start();
+        entitySync.close();
+        // when a change is reported late (by a transaction committing during shutdown, say)
+        assertDoesNotThrow(() -> entitySync.indexed(new GuitarPedal(1L, "Big Muff")));
+        // then it is flushed on the reporting thread rather than left in the buffer
+        verify(restClient, times(1)).performRequest(any(Request.class));
+        assertEquals(0, entitySync.getPendingCount());
+    }
+
+    private static Response bulkResponse() throws IOException {
+        final var entity = mock(HttpEntity.class);
+        when(entity.getContent()).thenReturn(new ByteArrayInputStream(
+                "{\"errors\":false,\"items\":[]}".getBytes(StandardCharsets.UTF_8)));
+        final var response = mock(Response.class);
+        when(response.getEntity()).thenReturn(entity);
+        return response;
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.Application;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalDocumentRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.config.ElasticsearchContainerConfig;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.testcontainers.elasticsearch.ElasticsearchContainer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext
+@ActiveProfiles("fast")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = Application.class)
+public class FastTestElasticsearchContainerConfigTest {
+
+    @Autowired(required = false)
+    private ElasticsearchContainer elasticsearchContainer;
+
+    @Autowired(required = false)
+    private GuitarPedalRepository guitarPedalRepository;
+
+    @Autowired(required = false)
+    private GuitarPedalDocumentRepository guitarPedalDocumentRepository;
+
+    @Test
+    @Order(1)
+    void container_initialized() {
+        // given the application is initialized
+        // and the 'fast' profile is active
+        // and the container is initialized
+        assertNotNull(elasticsearchContainer);
+        assertTrue(elasticsearchContainer.isRunning());
+        // then the container is tuned by the 'fast-test' performance profile
+        assertEquals(
+                "-Xms512m -Xmx512m",
+                elasticsearchContainer.getEnvMap().get(ElasticsearchContainerConfig.ELASTICSEARCH_JAVA_OPTS_ENV_KEY)
+        );
+        assertEquals("false", elasticsearchContainer.getEnvMap().get("xpack.ml.enabled"));
+        assertEquals("false", elasticsearchContainer.getEnvMap().get("ingest.geoip.downloader.enabled"));
+        assertEquals("false", elasticsearchContainer.getEnvMap().get("cluster.routing.allocation.disk.threshold_enabled"));
+        assertTrue(elasticsearchContainer.getTmpFsMapping().containsKey(ElasticsearchContainerConfig.ELASTICSEARCH_DATA_PATH));
+        // except where overridden
+        assertEquals("true", elasticsearchContainer.getEnvMap().get("xpack.watcher.enabled"));
+    }
+
+    @Test
+    @Order(2)
+    void guitarPedalDocumentRepository_initialized_dataWriteableAndReadable() {
+        // given the application is initialized
+        // and the 'fast' profile is active
+        // and the container is initialized
+        // and the guitarPedalDocumentRepository is initialized
+        assertNotNull(guitarPedalDocumentRepository);
+        // when the pedals in the database are added to elasticsearch
+        guitarPedalDocumentRepository.saveAll(
+                guitarPedalRepository.findAll().stream()
+                        .map(GuitarPedalDocument::new)
+                        .toList());
+        // then elasticsearch contains three pedals
+        assertEquals(3, guitarPedalDocumentRepository.count());
+        // and the data path on tmpfs is writeable
+        assertEquals(1L, guitarPedalDocumentRepository.findById(1L).map(GuitarPedalDocument::getId).orElseThrow());
+    }
+}
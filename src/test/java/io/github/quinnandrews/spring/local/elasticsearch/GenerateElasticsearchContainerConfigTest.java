@@ -0,0 +1,81 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.Application;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalDocumentRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.bulk.DocumentGenerator;
+import io.github.quinnandrews.spring.local.elasticsearch.config.LocalElasticsearchBackend;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.Criteria;
+import org.springframework.data.elasticsearch.core.query.CriteriaQuery;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext
+@ActiveProfiles("generate")
+@SpringBootTest(classes = Application.class)
+public class GenerateElasticsearchContainerConfigTest {
+
+    @Autowired(required = false)
+    private LocalElasticsearchBackend elasticsearchBackend;
+
+    @Autowired(required = false)
+    private DocumentGenerator documentGenerator;
+
+    @Autowired(required = false)
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired(required = false)
+    private GuitarPedalDocumentRepository guitarPedalDocumentRepository;
+
+    @Test
+    void generatedDocuments_loadedAtStartup() {
+        // given the application is initialized
+        // and the 'generate' profile is active
+        // then the documentGenerator is initialized
+        assertNotNull(documentGenerator);
+        // and elasticsearch contains the configured number of generated pedals
+        assertEquals(2500, guitarPedalDocumentRepository.count());
+        assertTrue(guitarPedalDocumentRepository.findById(2500L).isPresent());
+        // and generating them was timed as a startup phase
+        assertTrue(elasticsearchBackend.getStartupTimings().getDurations().containsKey("generate"));
+    }
+
+    @Test
+    void generatedDocuments_cachedAsBulkFiles() throws Exception {
+        // given the application is initialized
+        // and the 'generate' profile is active
+        // then the generated pedals were cached in the configured directory
+        final var directory = Path.of("target/generated-documents");
+        try (final var generated = Files.list(directory)) {
+            assertTrue(generated.anyMatch(path -> path.getFileName().toString().startsWith("guitar_pedals-2500-42-")));
+        }
+        // when the same pedals are generated again
+        final var files = documentGenerator.generate(GuitarPedalDocument.class, 2500, directory);
+        // then the cached files are reused
+        assertEquals(1, files.size());
+        assertTrue(files.get(0).toString().contains("guitar_pedals-2500-42-"));
+    }
+
+    @Test
+    void generatedDocuments_namesSkewed() {
+        // given the application is initialized
+        // and the 'generate' profile is active
+        // when the pedals with the most common name are counted
+        final var first = guitarPedalDocumentRepository.findById(1L).orElseThrow();
+        final var hits = elasticsearchOperations.search(
+                new CriteriaQuery(new Criteria("name").is(first.getName()), PageRequest.of(0, 1)),
+                GuitarPedalDocument.class);
+        // then a pedal shares its name with others, since names are drawn from a hundred values
+        assertTrue(hits.getTotalHits() > 1);
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.Application;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalDocumentRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.config.LocalElasticsearchContainer;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext
+@ActiveProfiles("health")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = Application.class)
+public class HealthElasticsearchContainerConfigTest {
+
+    @Autowired(required = false)
+    private LocalElasticsearchContainer elasticsearchContainer;
+
+    @Autowired(required = false)
+    private RestClient restClient;
+
+    @Autowired(required = false)
+    private GuitarPedalRepository guitarPedalRepository;
+
+    @Autowired(required = false)
+    private GuitarPedalDocumentRepository guitarPedalDocumentRepository;
+
+    @Test
+    @Order(1)
+    void container_initialized_clusterHealthy() throws IOException {
+        // given the application is initialized
+        // and the 'health' profile is active
+        // and the container is initialized
+        assertNotNull(elasticsearchContainer);
+        assertTrue(elasticsearchContainer.isRunning());
+        // and the time spent waiting for it is reported
+        assertTrue(elasticsearchContainer.getStartupTimings().getDurations().containsKey("boot"));
+        // when the health of the cluster is read right away
+        final var health = new String(
+                restClient.performRequest(new Request("GET", "/_cluster/health"))
+                        .getEntity().getContent().readAllBytes(),
+                StandardCharsets.UTF_8);
+        // then it has already reached at least yellow
+        assertFalse(health.contains("\"status\":\"red\""));
+    }
+
+    @Test
+    @Order(2)
+    void guitarPedalDocumentRepository_initialized_dataWriteableAndReadable() {
+        // given the application is initialized
+        // and the 'health' profile is active
+        // and the container is initialized
+        // and the guitarPedalDocumentRepository is initialized
+        assertNotNull(guitarPedalDocumentRepository);
+        // when the pedals in the database are added to elasticsearch
+        guitarPedalDocumentRepository.saveAll(
+                guitarPedalRepository.findAll().stream()
+                        .map(GuitarPedalDocument::new)
+                        .toList());
+        // then elasticsearch contains three pedals
+        assertEquals(3, guitarPedalDocumentRepository.count());
+    }
+}
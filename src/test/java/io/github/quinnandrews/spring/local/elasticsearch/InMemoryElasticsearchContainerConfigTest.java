@@ -0,0 +1,202 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.Application;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalDocumentRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.ReactiveGuitarPedalDocumentRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.config.LocalElasticsearchContainer;
+import io.github.quinnandrews.spring.local.elasticsearch.inmemory.InMemoryElasticsearch;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.Criteria;
+import org.springframework.data.elasticsearch.core.query.CriteriaQuery;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext
+@ActiveProfiles("inmemory")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = Application.class)
+public class InMemoryElasticsearchContainerConfigTest {
+
+    @Autowired(required = false)
+    private LocalElasticsearchContainer elasticsearchContainer;
+
+    @Autowired(required = false)
+    private InMemoryElasticsearch inMemoryElasticsearch;
+
+    @Autowired(required = false)
+    private RestClient restClient;
+
+    @Autowired(required = false)
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired(required = false)
+    private GuitarPedalRepository guitarPedalRepository;
+
+    @Autowired(required = false)
+    private GuitarPedalDocumentRepository guitarPedalDocumentRepository;
+
+    @Autowired(required = false)
+    private ReactiveGuitarPedalDocumentRepository reactiveGuitarPedalDocumentRepository;
+
+    @Test
+    @Order(1)
+    void inMemoryElasticsearch_initialized_insteadOfContainer() throws IOException {
+        // given the application is initialized
+        // and the 'inmemory' profile is active
+        // then no container is initialized
+        assertNull(elasticsearchContainer);
+        // but the in-memory stand-in is
+        assertNotNull(inMemoryElasticsearch);
+        assertTrue(inMemoryElasticsearch.isStartupComplete());
+        assertTrue(inMemoryElasticsearch.getStartupTimings().getDurations().containsKey("boot"));
+        // and the restClient is connected to it over plain HTTP
+        assertEquals(
+                inMemoryElasticsearch.getHttpHostAddress(),
+                restClient.getNodes().get(0).getHost().toHostString()
+        );
+        assertEquals("http", restClient.getNodes().get(0).getHost().getSchemeName());
+        // and it answers as Elasticsearch does
+        final var response = restClient.performRequest(new Request("GET", "/"));
+        assertEquals("Elasticsearch", response.getHeader("X-Elastic-Product"));
+        assertTrue(new String(response.getEntity().getContent().readAllBytes(), StandardCharsets.UTF_8)
+                .contains("\"number\":\"" + InMemoryElasticsearch.VERSION + "\""));
+    }
+
+    @Test
+    @Order(2)
+    void guitarPedalDocumentRepository_initialized_dataWriteableAndReadable() throws IOException {
+        // given the application is initialized
+        // and the 'inmemory' profile is active
+        // and the index of the guitar pedal documents was created with its mappings
+        final var mappings = new String(
+                restClient.performRequest(new Request("GET", "/guitar_pedals/_mapping"))
+                        .getEntity().getContent().readAllBytes(),
+                StandardCharsets.UTF_8);
+        assertTrue(mappings.contains("\"name\":{\"type\":\"keyword\"}"));
+        // and the database contains three pedals
+        assertEquals(3, guitarPedalRepository.count());
+        // but elasticsearch contains no pedals
+        assertEquals(0, guitarPedalDocumentRepository.count());
+        // when the pedals in the database are added to elasticsearch
+        guitarPedalDocumentRepository.saveAll(
+                guitarPedalRepository.findAll().stream()
+                        .map(GuitarPedalDocument::new)
+                        .toList());
+        // then elasticsearch contains three pedals
+        assertEquals(3, guitarPedalDocumentRepository.count());
+    }
+
+    @Test
+    @Order(3)
+    void indexSearchable_findAllPedals() {
+        // given the application is initialized
+        // and the 'inmemory' profile is active
+        // and elasticsearch contains three pedals
+        // when the pedals are searched
+        // and sorted by name
+        final var pedals = StreamSupport.stream(
+                guitarPedalDocumentRepository.findAll(Sort.by("name")).spliterator(),
+                Boolean.FALSE
+        ).toList();
+        // then matching pedals are returned sorted by name
+        assertEquals(3L, pedals.get(0).getId());
+        assertEquals("Catalinbread Soft Focus Reverb", pedals.get(0).getName());
+        assertEquals(1L, pedals.get(1).getId());
+        assertEquals("Electro-Harmonix Big Muff Fuzz", pedals.get(1).getName());
+        assertEquals(2L, pedals.get(2).getId());
+        assertEquals("Strymon Deco: Tape Saturation and Double Tracker", pedals.get(2).getName());
+    }
+
+    @Test
+    @Order(4)
+    void indexReadable_getPedalById() {
+        // given the application is initialized
+        // and the 'inmemory' profile is active
+        // and elasticsearch contains three pedals
+        // when the pedal is queried by id
+        final var optionalPedal = guitarPedalDocumentRepository.findById(3L);
+        // then the pedal associated with that id is returned
+        assertTrue(optionalPedal.isPresent());
+        assertEquals("Catalinbread Soft Focus Reverb", optionalPedal.get().getName());
+        // and a pedal that was never added is not found
+        assertTrue(guitarPedalDocumentRepository.findById(4L).isEmpty());
+        assertFalse(guitarPedalDocumentRepository.existsById(4L));
+    }
+
+    @Test
+    @Order(5)
+    void indexQueryable_criteriaQuery() {
+        // given the application is initialized
+        // and the 'inmemory' profile is active
+        // and elasticsearch contains three pedals
+        // when the pedals are queried by a prefix of their name
+        final var hits = elasticsearchOperations.search(
+                new CriteriaQuery(new Criteria("name").startsWith("Strymon")),
+                GuitarPedalDocument.class);
+        // then only the matching pedal is returned
+        assertEquals(1L, hits.getTotalHits());
+        assertEquals(2L, hits.getSearchHit(0).getContent().getId());
+        // when the pedals are queried by a name they do not have
+        final var none = elasticsearchOperations.search(
+                new CriteriaQuery(new Criteria("name").is("Strymon")),
+                GuitarPedalDocument.class);
+        // then no pedals are returned, since the name is a keyword
+        assertEquals(0L, none.getTotalHits());
+    }
+
+    @Test
+    @Order(6)
+    void reactiveGuitarPedalDocumentRepository_dataWriteableAndReadable() {
+        // given the application is initialized
+        // and the 'inmemory' profile is active
+        // and elasticsearch contains three pedals
+        // when a pedal is added through the reactiveGuitarPedalDocumentRepository
+        reactiveGuitarPedalDocumentRepository.save(new GuitarPedalDocument(4L, "Boss DS-1 Distortion"))
+                .block();
+        // then elasticsearch contains four pedals
+        assertEquals(4L, reactiveGuitarPedalDocumentRepository.count().block());
+        assertEquals(4, reactiveGuitarPedalDocumentRepository.findAll().collectList().block().size());
+        // when every pedal is deleted
+        guitarPedalDocumentRepository.deleteAll();
+        // then elasticsearch contains no pedals
+        assertEquals(0, guitarPedalDocumentRepository.count());
+    }
+
+    @Test
+    @Order(7)
+    void unsupportedRequest_failsLikeElasticsearch() {
+        // given the application is initialized
+        // and the 'inmemory' profile is active
+        // when an aggregation is requested
+        final var request = new Request("POST", "/guitar_pedals/_search");
+        request.setJsonEntity("{\"aggs\":{\"names\":{\"terms\":{\"field\":\"name\"}}}}");
+        final var exception = assertThrows(ResponseException.class, () -> restClient.performRequest(request));
+        // then the request fails rather than ignoring the aggregation
+        assertEquals(400, exception.getResponse().getStatusLine().getStatusCode());
+        assertTrue(exception.getMessage().contains("unsupported_operation_exception"));
+        // when an index that does not exist is read
+        final var missing = assertThrows(ResponseException.class, () ->
+                restClient.performRequest(new Request("GET", "/no_such_index/_doc/1")));
+        // then the request fails as it would against Elasticsearch
+        assertEquals(404, missing.getResponse().getStatusLine().getStatusCode());
+        assertTrue(missing.getMessage().contains("index_not_found_exception"));
+    }
+}
@@ -0,0 +1,144 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.quinnandrews.spring.local.elasticsearch.inmemory.InMemoryElasticsearch;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryElasticsearchTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static InMemoryElasticsearch elasticsearch;
+    private static RestClient restClient;
+
+    @BeforeAll
+    static void start() throws IOException {
+        elasticsearch = new InMemoryElasticsearch(null);
+        elasticsearch.start();
+        restClient = RestClient.builder(HttpHost.create(elasticsearch.getHttpHostAddress())).build();
+        perform("PUT", "/pedals", """
+                {"mappings": {"properties": {
+                  "name": {"type": "text", "fields": {"keyword": {"type": "keyword"}}},
+                  "brand": {"type": "keyword"},
+                  "price": {"type": "double"}
+                }}}""");
+        perform("POST", "/_bulk?refresh=true", """
+                {"index": {"_index": "pedals", "_id": "1"}}
+                {"name": "Big Muff Fuzz", "brand": "Electro-Harmonix", "price": 99.5}
+                {"index": {"_index": "pedals", "_id": "2"}}
+                {"name": "Deco Tape Saturation", "brand": "Strymon", "price": 299}
+                {"index": {"_index": "pedals", "_id": "3"}}
+                {"name": "Soft Focus Reverb", "brand": "Catalinbread", "price": 199}
+                {"index": {"_index": "pedals", "_id": "4"}}
+                {"name": "Fuzz Factory", "brand": "Z.Vex"}
+                """);
+    }
+
+    @AfterAll
+    static void stop() throws IOException {
+        restClient.close();
+        elasticsearch.close();
+    }
+
+    @Test
+    void search_fullTextAndTermLevelQueries() throws IOException {
+        // given an index of four pedals
+        // when the pedals are searched for a word of their name
+        // then the pedals whose analyzed name contains it are returned
+        assertEquals(List.of("1", "4"), ids(search("""
+                {"query": {"match": {"name": "FUZZ"}}, "sort": ["_doc"]}""")));
+        // when the pedals are searched for an exact brand
+        // then only a whole, case-sensitive match is returned
+        assertEquals(List.of("2"), ids(search("""
+                {"query": {"term": {"brand": "Strymon"}}}""")));
+        assertEquals(List.of(), ids(search("""
+                {"query": {"term": {"brand": "strymon"}}}""")));
+        // when the pedals are searched with a bool query of a range and a negation
+        // then the pedals that match every clause are returned
+        assertEquals(List.of("3", "2"), ids(search("""
+                {"query": {"bool": {
+                  "filter": [{"range": {"price": {"gte": 100}}}],
+                  "must_not": [{"prefix": {"brand": "Z"}}]
+                }}, "sort": [{"name.keyword": "desc"}]}""")));
+        // when the pedals are searched with a query string
+        // then the pedals matching its terms are returned
+        assertEquals(List.of("4"), ids(search("""
+                {"query": {"query_string": {"query": "fuzz -brand:Electro-Harmonix", "fields": ["name"]}}}""")));
+    }
+
+    @Test
+    void search_sortedAndPaged() throws IOException {
+        // given an index of four pedals
+        // when the pedals are sorted by price, and the second page of two is requested
+        final var response = search("""
+                {"from": 2, "size": 2, "sort": [{"price": "asc"}, "_doc"]}""");
+        // then the total counts every pedal
+        assertEquals(4, response.at("/hits/total/value").asInt());
+        // and the pedal without a price sorts last
+        assertEquals(List.of("2", "4"), ids(response));
+        // when the pedals after the first one are requested
+        final var after = search("""
+                {"size": 1, "sort": [{"price": "asc"}], "search_after": [99.5]}""");
+        // then the next pedal by price is returned
+        assertEquals(List.of("3"), ids(after));
+    }
+
+    @Test
+    void documents_writtenReadAndConflicting() throws IOException {
+        // given an index of four pedals
+        // when a pedal is partially updated
+        perform("POST", "/pedals/_update/3", """
+                {"doc": {"price": 179}}""");
+        // then its document is merged and its version incremented
+        final var document = perform("GET", "/pedals/_doc/3", null);
+        assertEquals(179, document.at("/_source/price").asInt());
+        assertEquals("Soft Focus Reverb", document.at("/_source/name").asText());
+        assertEquals(2, document.path("_version").asInt());
+        // when a pedal that exists is created again in bulk
+        final var bulk = perform("POST", "/_bulk", """
+                {"create": {"_index": "pedals", "_id": "1"}}
+                {"name": "Big Muff Pi"}
+                """);
+        // then the item fails with a version conflict
+        assertTrue(bulk.path("errors").asBoolean());
+        assertEquals(409, bulk.at("/items/0/create/status").asInt());
+        assertEquals("version_conflict_engine_exception", bulk.at("/items/0/create/error/type").asText());
+        // when a pedal is read from an index that does not exist
+        final var exception = assertThrows(ResponseException.class, () ->
+                perform("GET", "/amplifiers/_doc/1", null));
+        // then the request fails as it would against Elasticsearch
+        assertEquals(404, exception.getResponse().getStatusLine().getStatusCode());
+        assertTrue(exception.getMessage().contains("index_not_found_exception"));
+    }
+
+    private static JsonNode search(final String body) throws IOException {
+        return perform("POST", "/pedals/_search", body);
+    }
+
+    private static List<String> ids(final JsonNode response) {
+        final var ids = new ArrayList<String>();
+        response.at("/hits/hits").forEach(hit -> ids.add(hit.path("_id").asText()));
+        return ids;
+    }
+
+    private static JsonNode perform(final String method, final String endpoint, final String body) throws IOException {
+        final var request = new Request(method, endpoint);
+        if (body != null) {
+            request.setJsonEntity(body);
+        }
+        return objectMapper.readTree(restClient.performRequest(request).getEntity().getContent());
+    }
+}
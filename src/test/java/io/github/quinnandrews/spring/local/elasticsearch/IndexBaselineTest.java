@@ -0,0 +1,64 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.cat.ElasticsearchCatClient;
+import co.elastic.clients.elasticsearch.cat.IndicesResponse;
+import co.elastic.clients.elasticsearch.cat.indices.IndicesRecord;
+import co.elastic.clients.elasticsearch.indices.ElasticsearchIndicesClient;
+import co.elastic.clients.elasticsearch.indices.GetAliasResponse;
+import co.elastic.clients.elasticsearch.indices.PutIndicesSettingsRequest;
+import co.elastic.clients.elasticsearch.indices.get_alias.IndexAliases;
+import co.elastic.clients.util.ObjectBuilder;
+import io.github.quinnandrews.spring.local.elasticsearch.junit.IndexBaseline;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/*
+ Sends its requests to a mock rather than to Elasticsearch, so that a
+ clone can be made to fail.
+ */
+public class IndexBaselineTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void capture_cloneFails_writeBlockCleared() throws IOException {
+        // given an index
+        final var client = mock(ElasticsearchClient.class);
+        final var cat = mock(ElasticsearchCatClient.class);
+        final var indices = mock(ElasticsearchIndicesClient.class);
+        when(client.cat()).thenReturn(cat);
+        when(client.indices()).thenReturn(indices);
+        when(cat.indices(any(Function.class))).thenReturn(IndicesResponse.of(r -> r
+                .valueBody(List.of(IndicesRecord.of(i -> i.index("guitar_pedals"))))));
+        when(indices.getAlias(any(Function.class))).thenReturn(GetAliasResponse.of(r -> r
+                .result(Map.of("guitar_pedals", IndexAliases.of(a -> a.aliases(Map.of()))))));
+        // and the write blocks set on it
+        final var writeBlocks = new ArrayList<Boolean>();
+        when(indices.putSettings(any(Function.class))).thenAnswer(i -> {
+            final var request = i.<Function<PutIndicesSettingsRequest.Builder, ObjectBuilder<PutIndicesSettingsRequest>>>getArgument(0)
+                    .apply(new PutIndicesSettingsRequest.Builder())
+                    .build();
+            writeBlocks.add(request.settings().blocks().write());
+            return null;
+        });
+        // and a clone that fails
+        when(indices.clone(any(Function.class))).thenThrow(new IOException("clone failed"));
+        final var baseline = new IndexBaseline(client, List.of("*"));
+        // when the baseline is captured
+        assertThrows(UncheckedIOException.class, baseline::capture);
+        // then the index was blocked from writes while it was cloned
+        // and is writeable again
+        assertEquals(List.of(true, false), writeBlocks);
+    }
+}
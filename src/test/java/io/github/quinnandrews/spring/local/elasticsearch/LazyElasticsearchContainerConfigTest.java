@@ -0,0 +1,67 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.Application;
+import io.github.quinnandrews.spring.local.elasticsearch.config.LocalElasticsearchContainer;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext
+@ActiveProfiles({"lazy", "no-repositories"})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = Application.class)
+public class LazyElasticsearchContainerConfigTest {
+
+    @Autowired(required = false)
+    private LocalElasticsearchContainer elasticsearchContainer;
+
+    @Autowired(required = false)
+    private RestClient restClient;
+
+    @Test
+    @Order(1)
+    void container_initialized_notStarted() {
+        // given the application is initialized
+        // and the 'lazy' profile is active
+        // and nothing has talked to elasticsearch
+        // then the container is initialized
+        assertNotNull(elasticsearchContainer);
+        // but it is not started
+        assertFalse(elasticsearchContainer.isStartupComplete());
+        assertFalse(elasticsearchContainer.isRunning());
+        // and the restClient is initialized regardless
+        assertNotNull(restClient);
+        // with the host left to be resolved by the first request
+        assertEquals(
+                elasticsearchContainer.getHttpHostAddresses().get(0),
+                restClient.getNodes().get(0).getHost().toHostString()
+        );
+        assertEquals(LocalElasticsearchContainer.ON_DEMAND_HOST, restClient.getNodes().get(0).getHost().getHostName());
+    }
+
+    @Test
+    @Order(2)
+    void firstRequest_startsContainer() throws IOException {
+        // given the application is initialized
+        // and the 'lazy' profile is active
+        // and the container is not started
+        // when the first request is made
+        final var response = restClient.performRequest(new Request("GET", "/"));
+        // then the container is started
+        assertTrue(elasticsearchContainer.isStartupComplete());
+        assertTrue(elasticsearchContainer.isRunning());
+        // and the request succeeds
+        assertEquals(200, response.getStatusLine().getStatusCode());
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.Application;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalDocumentRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.config.ElasticsearchContainerConfig;
+import io.github.quinnandrews.spring.local.elasticsearch.config.LocalElasticsearchContainer;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext
+@ActiveProfiles("limited")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = Application.class)
+public class LimitedElasticsearchContainerConfigTest {
+
+    @Autowired(required = false)
+    private LocalElasticsearchContainer elasticsearchContainer;
+
+    @Autowired(required = false)
+    private GuitarPedalRepository guitarPedalRepository;
+
+    @Autowired(required = false)
+    private GuitarPedalDocumentRepository guitarPedalDocumentRepository;
+
+    @Test
+    @Order(1)
+    void container_initialized() {
+        // given the application is initialized
+        // and the 'limited' profile is active
+        // and the container is initialized
+        assertNotNull(elasticsearchContainer);
+        assertTrue(elasticsearchContainer.isRunning());
+        // then the container is limited to one and a half CPUs
+        final var hostConfig = elasticsearchContainer.getContainerInfo().getHostConfig();
+        assertEquals(1_500_000_000L, hostConfig.getNanoCPUs());
+        // and to 1 GB of memory, without swap
+        assertEquals(1024L * 1024 * 1024, hostConfig.getMemory());
+        assertEquals(1024L * 1024 * 1024, hostConfig.getMemorySwap());
+        // and the heap is half of the memory
+        assertEquals(
+                "-Xms512m -Xmx512m",
+                elasticsearchContainer.getEnvMap().get(ElasticsearchContainerConfig.ELASTICSEARCH_JAVA_OPTS_ENV_KEY)
+        );
+    }
+
+    @Test
+    @Order(2)
+    void guitarPedalDocumentRepository_initialized_dataWriteableAndReadable() {
+        // given the application is initialized
+        // and the 'limited' profile is active
+        // and the container is initialized
+        // and the guitarPedalDocumentRepository is initialized
+        assertNotNull(guitarPedalDocumentRepository);
+        // when the pedals in the database are added to elasticsearch
+        guitarPedalDocumentRepository.saveAll(
+                guitarPedalRepository.findAll().stream()
+                        .map(GuitarPedalDocument::new)
+                        .toList());
+        // then elasticsearch contains three pedals
+        assertEquals(3, guitarPedalDocumentRepository.count());
+    }
+}
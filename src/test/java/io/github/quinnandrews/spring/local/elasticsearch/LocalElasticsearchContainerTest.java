@@ -0,0 +1,43 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.config.ElasticsearchContainerConfig;
+import io.github.quinnandrews.spring.local.elasticsearch.config.LocalElasticsearchContainer;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalElasticsearchContainerTest {
+
+    @Test
+    void start_onDemand_deferredUntilFirstAccess() {
+        // given a container to be started on demand
+        final var container = new LocalElasticsearchContainer(
+                DockerImageName.parse(ElasticsearchContainerConfig.ELASTICSEARCH_DEFAULT_IMAGE));
+        final var startup = container.startOnDemand();
+        // when it is started, as Spring Boot starts each Startable Bean
+        container.start();
+        // then it is not started
+        assertFalse(startup.isDone());
+        assertFalse(container.isStartupComplete());
+        // and no phase of starting it has begun
+        assertTrue(container.getStartupTimings().getDurations().isEmpty());
+    }
+
+    @Test
+    void getHttpHostAddresses_onDemand_dockerHostNotResolved() {
+        // given a container with a fixed port, to be started on demand
+        final var container = new LocalElasticsearchContainer(
+                DockerImageName.parse(ElasticsearchContainerConfig.ELASTICSEARCH_DEFAULT_IMAGE))
+                .withFixedHttpPort(19200);
+        final var startup = container.startOnDemand();
+        // when its addresses are requested, as the Client is configured while the context refreshes
+        final var addresses = container.getHttpHostAddresses();
+        // then the host is left to be resolved by the first request, without the Docker daemon
+        assertEquals(List.of(LocalElasticsearchContainer.ON_DEMAND_HOST + ":19200"), addresses);
+        // and the container is not started
+        assertFalse(startup.isDone());
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.config.IndexNamespace;
+import io.github.quinnandrews.spring.local.elasticsearch.junit.NamespacedIndicesExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.HashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/*
+ Runs the callbacks of a test against a mock ExtensionContext rather than
+ a Spring Application Context, since entering and restoring the namespace
+ does not need Elasticsearch.
+ */
+public class NamespacedIndicesCallbacksTest {
+
+    @Test
+    void afterEach_pooledThread_namespaceRestored() throws ExecutionException, InterruptedException {
+        // given a test of a Test Class in an index namespace
+        final var values = new HashMap<Object, Object>();
+        values.put(IndexNamespace.class, "guitarpedalsearchtest-5f1c9a2e-");
+        final var store = mock(ExtensionContext.Store.class);
+        when(store.get(any(), any())).thenAnswer(i -> values.get(i.getArgument(0)));
+        doAnswer(i -> values.put(i.getArgument(0), i.getArgument(1))).when(store).put(any(), any());
+        when(store.remove(any(), any())).thenAnswer(i -> values.remove(i.getArgument(0)));
+        final var context = mock(ExtensionContext.class);
+        when(context.getStore(any())).thenReturn(store);
+        final var extension = new NamespacedIndicesExtension();
+        final var executor = Executors.newSingleThreadExecutor();
+        try {
+            // when the test runs on a pooled thread in no namespace
+            final var during = executor.submit(() -> {
+                extension.beforeEach(context);
+                final var prefix = IndexNamespace.prefix();
+                extension.afterEach(context);
+                return prefix;
+            }).get();
+            // then it runs in the namespace of its Test Class
+            assertEquals("guitarpedalsearchtest-5f1c9a2e-", during);
+            // and the thread is in no namespace once it is done, for the next Test Class it runs
+            assertEquals("", executor.submit(IndexNamespace::prefix).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void restore_nestedNamespaces_previousPrefixRestored() {
+        // given a thread in the namespace of one Test Class
+        final var outer = IndexNamespace.enter("outer-");
+        try {
+            // when it enters the namespace of another, and then restores the first
+            IndexNamespace.restore(IndexNamespace.enter("inner-"));
+            // then it is back in the namespace of the first
+            assertEquals("outer-", IndexNamespace.prefix());
+        } finally {
+            IndexNamespace.restore(outer);
+        }
+        // and in none once that is restored in turn
+        assertEquals("", IndexNamespace.prefix());
+    }
+}
@@ -0,0 +1,109 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.Application;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalDocumentRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.config.IndexNamespace;
+import io.github.quinnandrews.spring.local.elasticsearch.junit.ElasticsearchBaseline;
+import io.github.quinnandrews.spring.local.elasticsearch.junit.NamespacedIndices;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext
+@ActiveProfiles("namespaced")
+@NamespacedIndices
+@ElasticsearchBaseline
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = Application.class)
+public class NamespacedIndicesExtensionTest {
+
+    @Autowired
+    private GuitarPedalDocumentRepository guitarPedalDocumentRepository;
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private RestClient restClient;
+
+    @BeforeAll
+    static void seed(@Autowired final GuitarPedalRepository guitarPedalRepository,
+                     @Autowired final GuitarPedalDocumentRepository guitarPedalDocumentRepository) {
+        guitarPedalDocumentRepository.saveAll(
+                guitarPedalRepository.findAll().stream()
+                        .map(GuitarPedalDocument::new)
+                        .toList());
+    }
+
+    @Test
+    @Order(1)
+    void indexCoordinates_namespacedForTestClass() throws IOException {
+        // given the test class is in an index namespace
+        final var prefix = IndexNamespace.prefix();
+        assertTrue(prefix.startsWith("namespacedindicesextensiontest-"));
+        // then the index of the guitar pedal documents is prefixed with it
+        final var index = elasticsearchOperations.getIndexCoordinatesFor(GuitarPedalDocument.class).getIndexName();
+        assertEquals(prefix + "guitar_pedals", index);
+        // and the index was created with its mappings
+        assertTrue(body(restClient.performRequest(new Request("GET", "/" + index + "/_mapping")))
+                .contains("\"name\":{\"type\":\"keyword\"}"));
+        // and the pedals seeded before the first test were written to it
+        assertEquals(3, guitarPedalDocumentRepository.count());
+        // but not to the index outside the namespace, which the repository created at startup
+        assertTrue(body(restClient.performRequest(new Request("GET", "/guitar_pedals/_count")))
+                .contains("\"count\":0"));
+    }
+
+    @Test
+    @Order(2)
+    void otherThread_outsideNamespace() {
+        // given the test class is in an index namespace
+        // when the index of the guitar pedal documents is resolved on another thread
+        final var index = CompletableFuture.supplyAsync(() ->
+                elasticsearchOperations.getIndexCoordinatesFor(GuitarPedalDocument.class).getIndexName()).join();
+        // then it is not prefixed, since the namespace is scoped to the thread of the test class
+        assertEquals("guitar_pedals", index);
+    }
+
+    @Test
+    @Order(3)
+    void deleteAll_namespacedBaselineRestoredAfterwards() {
+        // given the baseline was captured in the namespace, after seeding three pedals
+        assertEquals(3, guitarPedalDocumentRepository.count());
+        // when every pedal is deleted
+        guitarPedalDocumentRepository.deleteAll();
+        // then elasticsearch contains no pedals
+        assertEquals(0, guitarPedalDocumentRepository.count());
+    }
+
+    @Test
+    @Order(4)
+    void baselineRestored_indexOutsideNamespaceUntouched() throws IOException {
+        // given the baseline was restored after the previous test
+        assertEquals(3, guitarPedalDocumentRepository.count());
+        // then the index outside the namespace was neither captured nor restored
+        assertEquals(200, restClient.performRequest(new Request("HEAD", "/guitar_pedals"))
+                .getStatusLine().getStatusCode());
+    }
+
+    private static String body(final org.elasticsearch.client.Response response) throws IOException {
+        return new String(response.getEntity().getContent().readAllBytes(), StandardCharsets.UTF_8);
+    }
+}
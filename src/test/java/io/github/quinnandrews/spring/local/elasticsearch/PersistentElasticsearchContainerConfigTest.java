@@ -0,0 +1,78 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.Application;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalDocumentRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.config.DataVersionMarker;
+import io.github.quinnandrews.spring.local.elasticsearch.config.ElasticsearchContainerConfig;
+import io.github.quinnandrews.spring.local.elasticsearch.config.LocalElasticsearchContainer;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext
+@ActiveProfiles("persistent")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = Application.class)
+public class PersistentElasticsearchContainerConfigTest {
+
+    private static final Path DATA_PATH = Path.of("target/elasticsearch-data").toAbsolutePath();
+
+    @Autowired(required = false)
+    private LocalElasticsearchContainer elasticsearchContainer;
+
+    @Autowired(required = false)
+    private GuitarPedalRepository guitarPedalRepository;
+
+    @Autowired(required = false)
+    private GuitarPedalDocumentRepository guitarPedalDocumentRepository;
+
+    @Test
+    @Order(1)
+    void container_initialized() {
+        // given the application is initialized
+        // and the 'persistent' profile is active
+        // and the container is initialized
+        assertNotNull(elasticsearchContainer);
+        assertTrue(elasticsearchContainer.isRunning());
+        // then the data path is bind-mounted from the host directory
+        final var binds = elasticsearchContainer.getContainerInfo().getHostConfig().getBinds();
+        assertTrue(Arrays.stream(binds).anyMatch(b ->
+                b.getPath().equals(DATA_PATH.toString())
+                        && b.getVolume().getPath().equals(ElasticsearchContainerConfig.ELASTICSEARCH_DATA_PATH)));
+        // and the version of elasticsearch that wrote to it is recorded
+        assertEquals(Optional.of("8.7.1"), DataVersionMarker.read(
+                elasticsearchContainer.getDockerImageName(), DATA_PATH.toString(), true));
+    }
+
+    @Test
+    @Order(2)
+    void guitarPedalDocumentRepository_initialized_dataWriteableAndReadable() {
+        // given the application is initialized
+        // and the 'persistent' profile is active
+        // and the container is initialized
+        // and the guitarPedalDocumentRepository is initialized
+        assertNotNull(guitarPedalDocumentRepository);
+        // when the pedals in the database are added to elasticsearch
+        guitarPedalDocumentRepository.saveAll(
+                guitarPedalRepository.findAll().stream()
+                        .map(GuitarPedalDocument::new)
+                        .toList());
+        // then elasticsearch contains three pedals
+        assertEquals(3, guitarPedalDocumentRepository.count());
+        // and the persisted data path is writeable
+        assertEquals(1L, guitarPedalDocumentRepository.findById(1L).map(GuitarPedalDocument::getId).orElseThrow());
+    }
+}
@@ -0,0 +1,67 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import io.github.quinnandrews.spring.local.elasticsearch.application.Application;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.ReactiveGuitarPedalDocumentRepository;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.elasticsearch.client.elc.ReactiveElasticsearchClient;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext
+@ActiveProfiles("default")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = Application.class)
+public class ReactiveElasticsearchClientConfigTest {
+
+    @Autowired(required = false)
+    private ElasticsearchClient elasticsearchClient;
+
+    @Autowired(required = false)
+    private ReactiveElasticsearchClient reactiveElasticsearchClient;
+
+    @Autowired(required = false)
+    private GuitarPedalRepository guitarPedalRepository;
+
+    @Autowired(required = false)
+    private ReactiveGuitarPedalDocumentRepository reactiveGuitarPedalDocumentRepository;
+
+    @Test
+    @Order(1)
+    void reactiveElasticsearchClient_initialized() {
+        // given the application is initialized
+        // and the 'default' profile is active
+        // then the reactiveElasticsearchClient is initialized
+        assertNotNull(reactiveElasticsearchClient);
+        // and it shares the transport of the blocking client
+        assertSame(elasticsearchClient._transport(), reactiveElasticsearchClient._transport());
+        // and it is connected
+        assertEquals(Boolean.TRUE, reactiveElasticsearchClient.ping().block());
+    }
+
+    @Test
+    @Order(2)
+    void reactiveGuitarPedalDocumentRepository_initialized_dataWriteableAndReadable() {
+        // given the application is initialized
+        // and the 'default' profile is active
+        // and the reactiveGuitarPedalDocumentRepository is initialized
+        assertNotNull(reactiveGuitarPedalDocumentRepository);
+        // when the pedals in the database are added to elasticsearch
+        reactiveGuitarPedalDocumentRepository.saveAll(
+                Flux.fromIterable(guitarPedalRepository.findAll())
+                        .map(GuitarPedalDocument::new))
+                .blockLast();
+        // then elasticsearch contains three pedals
+        assertEquals(3L, reactiveGuitarPedalDocumentRepository.count().block());
+    }
+}
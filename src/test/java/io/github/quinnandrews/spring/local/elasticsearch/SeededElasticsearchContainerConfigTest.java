@@ -0,0 +1,73 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.Application;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalDocumentRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.config.LocalElasticsearchContainer;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext
+@ActiveProfiles("seeded")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = Application.class)
+public class SeededElasticsearchContainerConfigTest {
+
+    @Autowired(required = false)
+    private LocalElasticsearchContainer elasticsearchContainer;
+
+    @Autowired(required = false)
+    private RestClient restClient;
+
+    @Autowired(required = false)
+    private GuitarPedalDocumentRepository guitarPedalDocumentRepository;
+
+    @Test
+    @Order(1)
+    void container_initialized_seeded() {
+        // given the application is initialized
+        // and the 'seeded' profile is active
+        // and the container is initialized
+        assertNotNull(elasticsearchContainer);
+        assertTrue(elasticsearchContainer.isRunning());
+        // then seeding is timed as a startup phase
+        assertTrue(elasticsearchContainer.getStartupTimings().getDurations().containsKey("seed"));
+        // and elasticsearch contains the three pedals in the bulk file
+        assertNotNull(guitarPedalDocumentRepository);
+        assertEquals(3, guitarPedalDocumentRepository.count());
+        assertEquals("Catalinbread Soft Focus Reverb",
+                guitarPedalDocumentRepository.findById(3L).map(GuitarPedalDocument::getName).orElseThrow());
+    }
+
+    @Test
+    @Order(2)
+    void index_seeded_settingsRestored() throws IOException {
+        // given the application is initialized
+        // and the 'seeded' profile is active
+        // and elasticsearch is seeded
+        assertNotNull(restClient);
+        // when the settings of the seeded index are read
+        final var request = new Request("GET", "/guitar_pedals/_settings");
+        request.addParameter("flat_settings", "true");
+        final var settings = new String(
+                restClient.performRequest(request).getEntity().getContent().readAllBytes(),
+                StandardCharsets.UTF_8);
+        // then the refresh interval is no longer disabled
+        assertFalse(settings.contains("\"index.refresh_interval\":\"-1\""));
+        // and the replicas are restored to the default
+        assertTrue(settings.contains("\"index.number_of_replicas\":\"1\""));
+    }
+}
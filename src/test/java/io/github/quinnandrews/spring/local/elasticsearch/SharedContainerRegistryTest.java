@@ -0,0 +1,185 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.config.ElasticsearchContainerConfig;
+import io.github.quinnandrews.spring.local.elasticsearch.config.LocalElasticsearchContainer;
+import io.github.quinnandrews.spring.local.elasticsearch.config.SharedContainerRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.annotation.ContextAnnotationAutowireCandidateResolver;
+import org.springframework.context.support.GenericApplicationContext;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SharedContainerRegistryTest {
+
+    @Test
+    void acquire_sameFingerprint_sameContainer() {
+        // given a container is acquired with a fingerprint
+        final var starts = new AtomicInteger();
+        final var first = SharedContainerRegistry.acquire("same", null, () -> newContainer(starts));
+        // when a container is acquired again with the same fingerprint
+        final var second = SharedContainerRegistry.acquire("same", null, () -> newContainer(starts));
+        // then the same container is returned
+        assertSame(first, second);
+        // and it was started only once
+        assertEquals(1, starts.get());
+        // and it is referenced twice
+        assertEquals(2, SharedContainerRegistry.getReferences("same"));
+    }
+
+    @Test
+    void acquire_differentFingerprint_differentContainer() {
+        // given a container is acquired with a fingerprint
+        final var starts = new AtomicInteger();
+        final var first = SharedContainerRegistry.acquire("first", null, () -> newContainer(starts));
+        // when a container is acquired with a different fingerprint
+        final var second = SharedContainerRegistry.acquire("second", null, () -> newContainer(starts));
+        // then a different container is returned
+        assertNotSame(first, second);
+        // and both were started
+        assertEquals(2, starts.get());
+    }
+
+    @Test
+    void close_noLinger_keptUntilJvmExits() {
+        // given a container is acquired without a linger period
+        final var starts = new AtomicInteger();
+        final var container = SharedContainerRegistry.acquire("kept", null, () -> newContainer(starts));
+        // when the context that acquired it closes it
+        container.close();
+        // then it is no longer referenced
+        assertEquals(0, SharedContainerRegistry.getReferences("kept"));
+        // but the next context still gets the same container
+        assertSame(container, SharedContainerRegistry.acquire("kept", null, () -> newContainer(starts)));
+        assertEquals(1, starts.get());
+    }
+
+    @Test
+    void close_lingerElapsed_containerStopped() throws InterruptedException {
+        // given a container is acquired with a short linger period
+        final var starts = new AtomicInteger();
+        final var container = SharedContainerRegistry.acquire("linger", Duration.ofMillis(10), () -> newContainer(starts));
+        // when the context that acquired it closes it
+        container.close();
+        // and the linger period elapses
+        Thread.sleep(500);
+        // then the next context gets a new container
+        assertNotSame(container, SharedContainerRegistry.acquire("linger", null, () -> newContainer(starts)));
+        assertEquals(2, starts.get());
+    }
+
+    @Test
+    void acquire_whileAnotherStarts_notBlocked() throws Exception {
+        // given a container that is still starting
+        final var starts = new AtomicInteger();
+        final var release = new CountDownLatch(1);
+        final var executor = Executors.newFixedThreadPool(3);
+        try {
+            final var slow = executor.submit(() -> SharedContainerRegistry.acquire("slow", null, () -> {
+                await(release);
+                return newContainer(starts);
+            }));
+            while (SharedContainerRegistry.getReferences("slow") == 0) {
+                Thread.sleep(10);
+            }
+            // and another context acquiring it in the meantime
+            final var waiting = executor.submit(() -> SharedContainerRegistry.acquire("slow", null, () -> newContainer(starts)));
+            // when a container with a different fingerprint is acquired
+            final var other = executor.submit(() -> SharedContainerRegistry.acquire("other", null, () -> newContainer(starts)));
+            // then it is returned without waiting for the first to start
+            assertNotNull(other.get(5, TimeUnit.SECONDS));
+            assertFalse(slow.isDone());
+            // and once the first has started, both of its contexts get it
+            release.countDown();
+            assertSame(slow.get(5, TimeUnit.SECONDS), waiting.get(5, TimeUnit.SECONDS));
+            // and it was started only once
+            assertEquals(2, starts.get());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void elasticsearchContainer_slowLogSettingsDiffer_differentContainer() {
+        // given a context that shares a container with a slow log threshold
+        final var withSlowLog = containerOf(
+                "spring.local.elasticsearch.slowlog.search.threshold=100ms");
+        // when a context that differs only by having no slow log threshold shares a container
+        final var withoutSlowLog = containerOf();
+        // then it gets a container of its own, rather than one without the slow log it expects
+        assertNotSame(withSlowLog, withoutSlowLog);
+        // and a context with the same slow log threshold shares the first
+        assertSame(withSlowLog, containerOf(
+                "spring.local.elasticsearch.slowlog.search.threshold=100ms"));
+    }
+
+    @Test
+    void elasticsearchStartupTimings_sharedByAnotherContext_keptApart() {
+        // given a context that started a shared container
+        final var first = configOf("spring.local.elasticsearch.container.name=shared-timings-test");
+        final var container = first.elasticsearchContainer();
+        final var firstTimings = first.elasticsearchStartupTimings(container);
+        // when another context shares it
+        final var second = configOf("spring.local.elasticsearch.container.name=shared-timings-test");
+        assertSame(container, second.elasticsearchContainer());
+        final var secondTimings = second.elasticsearchStartupTimings(container);
+        // then the first keeps the timings of the container, which it started
+        assertSame(container.getStartupTimings(), firstTimings);
+        // and the second keeps its own, so that its phases are kept apart from those of the first
+        assertNotSame(firstTimings, secondTimings);
+        secondTimings.time("client", () -> null);
+        assertFalse(firstTimings.getDurations().containsKey("client"));
+    }
+
+    private static LocalElasticsearchContainer containerOf(final String... properties) {
+        return configOf(Stream.concat(Stream.of(properties),
+                Stream.of("spring.local.elasticsearch.container.name=shared-slowlog-test")).toArray(String[]::new))
+                .elasticsearchContainer();
+    }
+
+    /*
+     Returns the configuration from a context with
+     the given properties, in which the container is shared and started on
+     demand, so that neither needs Docker. The configuration is registered
+     as a plain Bean, so that its Beans are only those requested from it.
+     */
+    private static ElasticsearchContainerConfig configOf(final String... properties) {
+        try (final var context = new GenericApplicationContext()) {
+            TestPropertyValues.of(properties)
+                    .and("spring.local.elasticsearch.container.shared=true",
+                         "spring.local.elasticsearch.container.startup=lazy")
+                    .applyTo(context);
+            context.getDefaultListableBeanFactory()
+                    .setAutowireCandidateResolver(new ContextAnnotationAutowireCandidateResolver());
+            context.getDefaultListableBeanFactory()
+                    .setConversionService(ApplicationConversionService.getSharedInstance());
+            context.registerBean(ElasticsearchContainerConfig.class);
+            context.refresh();
+            return context.getBean(ElasticsearchContainerConfig.class);
+        }
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static LocalElasticsearchContainer newContainer(final AtomicInteger starts) {
+        starts.incrementAndGet();
+        return new LocalElasticsearchContainer(
+                DockerImageName.parse(ElasticsearchContainerConfig.ELASTICSEARCH_DEFAULT_IMAGE));
+    }
+}
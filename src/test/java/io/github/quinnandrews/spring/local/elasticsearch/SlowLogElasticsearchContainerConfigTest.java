@@ -0,0 +1,110 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.Application;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalDocumentRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.config.LocalElasticsearchContainer;
+import io.github.quinnandrews.spring.local.elasticsearch.config.SlowLogEntry;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext
+@ActiveProfiles("slowlog")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = {Application.class, SlowLogElasticsearchContainerConfigTest.SlowLogEntries.class})
+public class SlowLogElasticsearchContainerConfigTest {
+
+    @Autowired(required = false)
+    private LocalElasticsearchContainer elasticsearchContainer;
+
+    @Autowired(required = false)
+    private RestClient restClient;
+
+    @Autowired(required = false)
+    private GuitarPedalRepository guitarPedalRepository;
+
+    @Autowired(required = false)
+    private GuitarPedalDocumentRepository guitarPedalDocumentRepository;
+
+    @Autowired
+    private SlowLogEntries slowLogEntries;
+
+    @Test
+    @Order(1)
+    void container_initialized_slowLogThresholdsSet() throws IOException {
+        // given the application is initialized
+        // and the 'slowlog' profile is active
+        // and the container is initialized
+        assertNotNull(elasticsearchContainer);
+        assertTrue(elasticsearchContainer.isRunning());
+        // when the settings of the index of the guitar pedals are read
+        final var settings = new String(
+                restClient.performRequest(new Request("GET", "/guitar_pedals/_settings?flat_settings=true"))
+                        .getEntity().getContent().readAllBytes(),
+                StandardCharsets.UTF_8);
+        // then they include the slow log thresholds
+        assertTrue(settings.contains("\"index.search.slowlog.threshold.query.warn\":\"0ms\""));
+        assertTrue(settings.contains("\"index.indexing.slowlog.threshold.index.warn\":\"0ms\""));
+        // and an index template of the application at the default priority can still be created
+        final var template = new Request("PUT", "/_index_template/guitar_pedals_archive");
+        template.setJsonEntity("{\"index_patterns\":[\"guitar_pedals_archive*\"]}");
+        assertEquals(200, restClient.performRequest(template).getStatusLine().getStatusCode());
+    }
+
+    @Test
+    @Order(2)
+    void guitarPedalDocumentRepository_searched_slowLogEntriesPublished() throws InterruptedException {
+        // given the application is initialized
+        // and the 'slowlog' profile is active
+        // and the guitarPedalDocumentRepository is initialized
+        assertNotNull(guitarPedalDocumentRepository);
+        // when the pedals in the database are added to elasticsearch
+        guitarPedalDocumentRepository.saveAll(
+                guitarPedalRepository.findAll().stream()
+                        .map(GuitarPedalDocument::new)
+                        .toList());
+        // and searched
+        assertEquals(3, guitarPedalDocumentRepository.count());
+        // then slow log entries of both indexing and searching are published
+        for (int i = 0; i < 100 && !slowLogEntries.hasTypes(SlowLogEntry.INDEXING, SlowLogEntry.SEARCH); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(slowLogEntries.hasTypes(SlowLogEntry.INDEXING, SlowLogEntry.SEARCH));
+        // and they name the index
+        assertTrue(slowLogEntries.entries.stream().allMatch(e -> "guitar_pedals".equals(e.getIndex())));
+    }
+
+    @TestConfiguration
+    static class SlowLogEntries {
+
+        private final List<SlowLogEntry> entries = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        void on(final SlowLogEntry entry) {
+            entries.add(entry);
+        }
+
+        boolean hasTypes(final String... types) {
+            return List.of(types).stream()
+                    .allMatch(t -> entries.stream().anyMatch(e -> e.getType().equals(t)));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.config.SlowLog;
+import io.github.quinnandrews.spring.local.elasticsearch.config.SlowLogEntry;
+import io.github.quinnandrews.spring.local.elasticsearch.config.SlowLogEventPublisher;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.output.OutputFrame;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlowLogTest {
+
+    private static final String SEARCH_LINE = "{\"@timestamp\":\"2023-11-20T10:15:30.123Z\", \"log.level\":\"WARN\", "
+            + "\"elasticsearch.slowlog.message\":\"[guitar_pedals][0]\", "
+            + "\"elasticsearch.slowlog.search_type\":\"QUERY_THEN_FETCH\", "
+            + "\"elasticsearch.slowlog.source\":\"{\\\"query\\\":{\\\"match_all\\\":{}}}\", "
+            + "\"elasticsearch.slowlog.took\":\"12.3ms\", \"elasticsearch.slowlog.took_millis\":\"12\", "
+            + "\"log.logger\":\"index.search.slowlog.query\", \"elasticsearch.node.name\":\"local-elasticsearch-0\"}";
+    private static final String INDEXING_LINE = "{\"@timestamp\":\"2023-11-20T10:15:31.456Z\", \"log.level\":\"WARN\", "
+            + "\"elasticsearch.slowlog.id\":\"1\", "
+            + "\"elasticsearch.slowlog.message\":\"[guitar_pedals/Zf3kVz2cQ1mY0vKx9fA8bw]\", "
+            + "\"elasticsearch.slowlog.source\":\"{\\\"name\\\":\\\"Big Muff\\\"}\", "
+            + "\"elasticsearch.slowlog.took_millis\":3, \"log.logger\":\"index.indexing.slowlog.index\"}";
+    private static final String OTHER_LINE = "{\"@timestamp\":\"2023-11-20T10:15:29.000Z\", \"log.level\":\"INFO\", "
+            + "\"message\":\"started\", \"log.logger\":\"org.elasticsearch.node.Node\"}";
+
+    @Test
+    void parse_searchEntry() {
+        // when a line of the search slow log is parsed
+        final var entry = SlowLogEntry.parse(SEARCH_LINE).orElseThrow();
+        // then its fields are read
+        assertEquals(SlowLogEntry.SEARCH, entry.getType());
+        assertEquals("query", entry.getPhase());
+        assertEquals("WARN", entry.getLevel());
+        assertEquals("guitar_pedals", entry.getIndex());
+        assertEquals("local-elasticsearch-0", entry.getNode());
+        assertEquals(Duration.ofMillis(12), entry.getTook());
+        assertEquals("{\"query\":{\"match_all\":{}}}", entry.getSource());
+    }
+
+    @Test
+    void parse_indexingEntry() {
+        // when a line of the indexing slow log is parsed
+        final var entry = SlowLogEntry.parse(INDEXING_LINE).orElseThrow();
+        // then the index is read without its UUID
+        assertEquals(SlowLogEntry.INDEXING, entry.getType());
+        assertEquals("index", entry.getPhase());
+        assertEquals("guitar_pedals", entry.getIndex());
+        assertEquals(Duration.ofMillis(3), entry.getTook());
+        assertNull(entry.getNode());
+    }
+
+    @Test
+    void parse_otherLines_empty() {
+        // when lines that are not slow log entries are parsed
+        // then none is an entry
+        assertTrue(SlowLogEntry.parse(OTHER_LINE).isEmpty());
+        assertTrue(SlowLogEntry.parse("slowlog thresholds set").isEmpty());
+        assertTrue(SlowLogEntry.parse("{\"log.logger\":\"index.search.slowlog.query\"").isEmpty());
+        assertTrue(SlowLogEntry.parse(null).isEmpty());
+    }
+
+    @Test
+    void consumer_capturesEntriesAndPassesOnOtherLines() {
+        // given a slow log with a listener
+        final var slowLog = new SlowLog();
+        final var entries = new ArrayList<SlowLogEntry>();
+        slowLog.onEntry(entries::add);
+        // and a consumer of the output of a Container that follows its log
+        final var followed = new ArrayList<String>();
+        final var consumer = slowLog.consumer(frame -> followed.add(frame.getUtf8String().trim()));
+        // when the Container outputs slow log entries and other lines
+        consumer.accept(frame(OTHER_LINE));
+        consumer.accept(frame(SEARCH_LINE));
+        consumer.accept(frame(INDEXING_LINE));
+        // then the entries are captured
+        assertEquals(List.of(SlowLogEntry.SEARCH, SlowLogEntry.INDEXING),
+                entries.stream().map(SlowLogEntry::getType).toList());
+        // and only the other lines are passed on
+        assertEquals(List.of(OTHER_LINE), followed);
+    }
+
+    @Test
+    void consumer_withoutDelegate_dropsOtherLines() {
+        // given a slow log whose Container's log is not followed
+        final var slowLog = new SlowLog();
+        final var entries = new ArrayList<SlowLogEntry>();
+        slowLog.onEntry(entries::add);
+        // and a listener that fails
+        slowLog.onEntry(e -> {
+            throw new IllegalStateException("closed");
+        });
+        final var consumer = slowLog.consumer(null);
+        // when the Container outputs a slow log entry and another line
+        consumer.accept(frame(OTHER_LINE));
+        consumer.accept(frame(SEARCH_LINE));
+        // then the entry is still captured
+        assertEquals(1, entries.size());
+    }
+
+    @Test
+    void eventPublisher_destroyed_listenerRemoved() {
+        // given a slow log whose entries are published as events of a context
+        final var slowLog = new SlowLog();
+        final var published = new ArrayList<Object>();
+        final var publisher = new SlowLogEventPublisher(slowLog, published::add);
+        publisher.afterSingletonsInstantiated();
+        final var consumer = slowLog.consumer(null);
+        consumer.accept(frame(SEARCH_LINE));
+        // when the context closes
+        publisher.destroy();
+        // and the Container outputs another slow log entry
+        consumer.accept(frame(INDEXING_LINE));
+        // then only the entry before the context closed was published
+        assertEquals(1, published.size());
+    }
+
+    private static OutputFrame frame(final String line) {
+        return new OutputFrame(OutputFrame.OutputType.STDOUT, (line + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,105 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.config.ElasticsearchContainerConfig;
+import io.github.quinnandrews.spring.local.elasticsearch.config.StartupTimings;
+import io.github.quinnandrews.spring.local.elasticsearch.config.StartupTimingsMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StartupTimingsTest {
+
+    @Test
+    void phases_recordedInOrder() {
+        // given startup timings
+        final var startupTimings = new StartupTimings();
+        // when two phases are timed
+        startupTimings.time("image", () -> "image");
+        final var create = startupTimings.begin("create");
+        create.end();
+        // and a phase is ended twice
+        create.end();
+        // then both phases are recorded once, in order
+        assertEquals(List.of("image", "create"), List.copyOf(startupTimings.getDurations().keySet()));
+        // and the summary lists them in milliseconds
+        assertTrue(startupTimings.summary().matches("image=\\d+, create=\\d+"));
+    }
+
+    @Test
+    void listener_receivesCompletedAndLaterPhases() {
+        // given startup timings with a completed phase
+        final var startupTimings = new StartupTimings();
+        startupTimings.time("image", () -> null);
+        // when a listener is added
+        final var received = new LinkedHashMap<String, Duration>();
+        startupTimings.onPhase(received::put);
+        // and another phase completes
+        startupTimings.time("boot", () -> null);
+        // then the listener received both phases
+        assertEquals(List.of("image", "boot"), List.copyOf(received.keySet()));
+    }
+
+    @Test
+    void listener_addedWhilePhasesComplete_receivesEachPhaseOnce() throws InterruptedException {
+        // given startup timings whose phases complete on another thread
+        final var startupTimings = new StartupTimings();
+        final var thread = new Thread(() -> IntStream.range(0, 1000)
+                .forEach(i -> startupTimings.time("phase-" + i, () -> null)));
+        thread.start();
+        // when a listener is added while they complete
+        final var received = Collections.synchronizedList(new ArrayList<String>());
+        startupTimings.onPhase((phase, duration) -> received.add(phase));
+        thread.join();
+        // then the listener received each phase once, in order
+        assertEquals(IntStream.range(0, 1000).mapToObj(i -> "phase-" + i).toList(), received);
+    }
+
+    @Test
+    void steps_onlyRecordedOnApplicationStartupThread() throws InterruptedException {
+        // given startup timings bound to an ApplicationStartup on this thread
+        final var applicationStartup = new BufferingApplicationStartup(10);
+        final var startupTimings = new StartupTimings();
+        startupTimings.setApplicationStartup(applicationStartup);
+        // when a phase is timed on this thread
+        startupTimings.time("client", () -> null);
+        // and a phase is timed on another thread
+        final var thread = new Thread(() -> startupTimings.time("boot", () -> null));
+        thread.start();
+        thread.join();
+        // then only the phase on this thread is recorded as a step
+        final var steps = applicationStartup.getBufferedTimeline().getEvents().stream()
+                .map(e -> e.getStartupStep().getName())
+                .toList();
+        assertEquals(List.of(StartupTimings.STEP_NAME_PREFIX + "client"), steps);
+        // but both phases are timed
+        assertEquals(2, startupTimings.getDurations().size());
+    }
+
+    @Test
+    void metrics_destroyed_listenerRemoved() {
+        // given startup timings recorded as metrics of an application context
+        final var startupTimings = new StartupTimings();
+        startupTimings.time("client", () -> null);
+        final var registry = new SimpleMeterRegistry();
+        final var metrics = new StartupTimingsMetrics(startupTimings);
+        metrics.bindTo(registry);
+        // when the context closes
+        metrics.destroy();
+        // and another phase completes (in another context sharing the container, say)
+        startupTimings.time("seed", () -> null);
+        // then only the phase of the closed context was recorded in its registry
+        assertEquals(List.of("client"), registry.find(ElasticsearchContainerConfig.ElasticsearchMetricsConfig.STARTUP_TIMER_NAME)
+                .timers().stream()
+                .map(timer -> timer.getId().getTag("phase"))
+                .toList());
+    }
+}
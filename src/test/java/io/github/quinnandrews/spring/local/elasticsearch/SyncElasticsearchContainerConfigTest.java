@@ -0,0 +1,124 @@
+package io.github.quinnandrews.spring.local.elasticsearch;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.Application;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedal;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalDocumentRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository.GuitarPedalRepository;
+import io.github.quinnandrews.spring.local.elasticsearch.sync.EntitySync;
+import io.github.quinnandrews.spring.local.elasticsearch.sync.SyncBatch;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DirtiesContext
+@ActiveProfiles("sync")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = Application.class)
+public class SyncElasticsearchContainerConfigTest {
+
+    @Autowired(required = false)
+    private EntitySync entitySync;
+
+    @Autowired(required = false)
+    private GuitarPedalRepository guitarPedalRepository;
+
+    @Autowired(required = false)
+    private GuitarPedalDocumentRepository guitarPedalDocumentRepository;
+
+    @Autowired(required = false)
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @Order(1)
+    void entitySync_initialized_nothingPending() {
+        // given the application is initialized
+        // and the 'sync' profile is active
+        // then the entitySync is initialized
+        assertNotNull(entitySync);
+        // and the guitar pedal entity is synced with its document
+        assertTrue(entitySync.isSynced(GuitarPedal.class));
+        // and nothing is pending, since the pedals in the database were not changed through JPA
+        assertEquals(0, entitySync.getPendingCount());
+        assertEquals(0, guitarPedalDocumentRepository.count());
+    }
+
+    @Test
+    @Order(2)
+    void entityChanges_coalesced_flushedInBulk() {
+        // given the application is initialized
+        // and the 'sync' profile is active
+        final var batches = new ArrayList<SyncBatch>();
+        entitySync.onFlush(batches::add);
+        // when a pedal is persisted, and then updated twice
+        final var pedal = guitarPedalRepository.save(new GuitarPedal(4L, "Boss DS-1"));
+        pedal.setName("Boss DS-1 Distortion");
+        guitarPedalRepository.save(pedal);
+        pedal.setName("Boss DS-1 Distortion Pedal");
+        guitarPedalRepository.save(pedal);
+        // and another pedal is updated
+        final var other = guitarPedalRepository.findById(1L).orElseThrow();
+        other.setName("Electro-Harmonix Big Muff Pi");
+        guitarPedalRepository.save(other);
+        // then the changes to each pedal are coalesced
+        assertEquals(2, entitySync.getPendingCount());
+        // but are not yet in elasticsearch, since they are written behind
+        assertEquals(0, guitarPedalDocumentRepository.count());
+        // when the changes are flushed
+        entitySync.flush();
+        // then they are sent in a single bulk request of two documents
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).getDocuments());
+        assertEquals(0, batches.get(0).getFailures());
+        assertEquals(2, batches.get(0).getLags().size());
+        assertEquals(0, entitySync.getPendingCount());
+        // and elasticsearch holds the latest state of each pedal
+        assertEquals("Boss DS-1 Distortion Pedal", guitarPedalDocumentRepository.findById(4L).orElseThrow().getName());
+        assertEquals("Electro-Harmonix Big Muff Pi", guitarPedalDocumentRepository.findById(1L).orElseThrow().getName());
+    }
+
+    @Test
+    @Order(3)
+    void entityRemoved_documentDeleted() {
+        // given the application is initialized
+        // and the 'sync' profile is active
+        // and elasticsearch contains two pedals
+        assertEquals(2, guitarPedalDocumentRepository.count());
+        // when a pedal is removed
+        guitarPedalRepository.deleteById(4L);
+        // and the changes are flushed
+        entitySync.flush();
+        // then its document is deleted
+        assertTrue(guitarPedalDocumentRepository.findById(4L).isEmpty());
+        assertEquals(1, guitarPedalDocumentRepository.count());
+    }
+
+    @Test
+    @Order(4)
+    void entityChangeRolledBack_notSynced() {
+        // given the application is initialized
+        // and the 'sync' profile is active
+        // when a pedal is persisted in a transaction that is rolled back
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            guitarPedalRepository.save(new GuitarPedal(5L, "Strymon Timeline"));
+            guitarPedalRepository.flush();
+            status.setRollbackOnly();
+        });
+        // then nothing is pending
+        assertEquals(0, entitySync.getPendingCount());
+        // and elasticsearch does not contain the pedal
+        entitySync.flush();
+        assertTrue(guitarPedalDocumentRepository.findById(5L).isEmpty());
+    }
+}
@@ -23,6 +23,11 @@ public class GuitarPedal {
         // no-op
     }
 
+    public GuitarPedal(final Long id, final String name) {
+        this.id = id;
+        this.name = name;
+    }
+
     public Long getId() {
         return id;
     }
@@ -30,4 +35,8 @@ public class GuitarPedal {
     public String getName() {
         return name;
     }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
 }
@@ -5,7 +5,7 @@ import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
 
-@Document(indexName = "guitar_pedals")
+@Document(indexName = "#{T(io.github.quinnandrews.spring.local.elasticsearch.config.IndexNamespace).prefix()}guitar_pedals")
 public class GuitarPedalDocument {
 
     @Id
@@ -24,6 +24,11 @@ public class GuitarPedalDocument {
         this.name = guitarPedal.getName();
     }
 
+    public GuitarPedalDocument(final Long id, final String name) {
+        this.id = id;
+        this.name = name;
+    }
+
     public Long getId() {
         return id;
     }
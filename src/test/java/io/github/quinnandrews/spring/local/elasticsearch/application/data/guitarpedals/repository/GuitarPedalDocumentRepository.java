@@ -6,11 +6,13 @@ import org.springframework.data.elasticsearch.repository.ElasticsearchRepository
 import org.springframework.stereotype.Repository;
 
 /*
- This Bean is inactive with the "disabled" profile so that it doesn't block
- the tests in DisabledElasticsearchContainerConfigTests with an Exception
- that prevents the Application Context from starting up.
+ This Bean is inactive with the "no-repositories" profile, which the tests
+ of the "disabled", "async" and "lazy" profiles activate as well, so that it
+ doesn't fail to start the Application Context without Elasticsearch, block
+ its refresh until the Container has started, or start a Container that is
+ meant to be started on demand.
  */
-@Profile({"custom", "default"})
+@Profile("!no-repositories")
 @Repository
 public interface GuitarPedalDocumentRepository extends ElasticsearchRepository<GuitarPedalDocument, Long> {
 }
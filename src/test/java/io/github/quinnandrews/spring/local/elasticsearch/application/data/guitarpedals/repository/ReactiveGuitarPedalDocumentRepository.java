@@ -0,0 +1,15 @@
+package io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.repository;
+
+import io.github.quinnandrews.spring.local.elasticsearch.application.data.guitarpedals.GuitarPedalDocument;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.elasticsearch.repository.ReactiveElasticsearchRepository;
+import org.springframework.stereotype.Repository;
+
+/*
+ This Bean is inactive with the "no-repositories" profile for the same
+ reason as GuitarPedalDocumentRepository.
+ */
+@Profile("!no-repositories")
+@Repository
+public interface ReactiveGuitarPedalDocumentRepository extends ReactiveElasticsearchRepository<GuitarPedalDocument, Long> {
+}